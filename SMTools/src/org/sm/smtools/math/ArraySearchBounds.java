@@ -1,12 +1,12 @@
 // --------------------------------------
 // Filename      : ArraySearchBounds.java
 // Author        : Sven Maerivoet
-// Last modified : 25/08/2011
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // --------------------------------------
 
 /**
- * Copyright 2003-2015 Sven Maerivoet
+ * Copyright 2003-2015, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,7 @@ package org.sm.smtools.math;
  * <B>Note that this class cannot be subclassed!</B>
  *
  * @author  Sven Maerivoet
- * @version 25/08/2011
+ * @version 16/10/2026
  */
 public final class ArraySearchBounds
 {
@@ -113,4 +113,42 @@ public final class ArraySearchBounds
 		fLowerBound = 0;
 		fUpperBound = 0;
 	}
+
+	/******************
+	 * STATIC METHODS *
+	 ******************/
+
+	/**
+	 * Packs a lower and upper bound in a single <CODE>long</CODE> (the lower bound occupies the 32 most significant bits).
+	 *
+	 * @param lowerBound  the lower bound
+	 * @param upperBound  the upper bound
+	 * @return            the packed bounds
+	 */
+	public static long pack(int lowerBound, int upperBound)
+	{
+		return ((((long) lowerBound) << 32) | (upperBound & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * Retrieves the lower bound from packed bounds.
+	 *
+	 * @param packedBounds  the packed bounds
+	 * @return              the lower bound
+	 */
+	public static int unpackLowerBound(long packedBounds)
+	{
+		return ((int) (packedBounds >> 32));
+	}
+
+	/**
+	 * Retrieves the upper bound from packed bounds.
+	 *
+	 * @param packedBounds  the packed bounds
+	 * @return              the upper bound
+	 */
+	public static int unpackUpperBound(long packedBounds)
+	{
+		return ((int) packedBounds);
+	}
 }
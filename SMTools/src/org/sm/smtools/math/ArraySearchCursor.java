@@ -0,0 +1,172 @@
+// --------------------------------------
+// Filename      : ArraySearchCursor.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// --------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math;
+
+/**
+ * The <CODE>ArraySearchCursor</CODE> class provides a stateful search for the lower and upper array indices surrounding a sequence of values.
+ * <P>
+ * The semantics of each search are identical to those of {@link MathTools#searchArrayBounds(double[],double)}, but the search resumes from the
+ * position of the previous one: the cursor gallops (i.e., doubles its step size) from its last position towards the searched value, after which
+ * a binary search finishes within the last step. A search therefore takes O(log d) time, with d the distance in the array to the previous position,
+ * which amounts to O(1) per search for a monotonically increasing sequence of closely spaced values. Decreasing values are handled as well.
+ * <P>
+ * The cursor does not allocate any objects during a search, and is not thread-safe (each thread should use its own cursor).
+ * <P>
+ * <B>Note that this class assumes that the elements in the array are sorted!</B>
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     ArraySearchBounds
+ */
+public final class ArraySearchCursor
+{
+	// internal datastructures
+	private double[] fX;
+	private int fLowerBound;
+	private int fUpperBound;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an <CODE>ArraySearchCursor</CODE> object for a specified array, positioned at its start.
+	 *
+	 * @param x  an array of sorted <CODE>double</CODE>s to search in
+	 */
+	public ArraySearchCursor(double[] x)
+	{
+		fX = x;
+		reset();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Positions the cursor at the start of the array.
+	 */
+	public void reset()
+	{
+		fLowerBound = 0;
+		fUpperBound = 0;
+	}
+
+	/**
+	 * Searches for the indices of the 2 values surrounding the searched value, starting from the position of the previous search.
+	 *
+	 * @param xSearch  the value to search for
+	 */
+	public void search(double xSearch)
+	{
+		final int n = fX.length;
+
+		// handle the special cases
+		if (!(xSearch >= fX[0])) {
+			fLowerBound = 0;
+			fUpperBound = 0;
+			return;
+		}
+		else if (xSearch >= fX[n - 1]) {
+			fLowerBound = n - 1;
+			fUpperBound = n - 1;
+			return;
+		}
+
+		// at this point, the lower bound lies in [0,n - 2], i.e., the last index with fX[index] <= xSearch
+		int low = 0;
+		int high = n - 1;
+		int step = 1;
+		if (fX[fLowerBound] <= xSearch) {
+			// gallop forwards, keeping fX[low] <= xSearch
+			low = fLowerBound;
+			while (((low + step) < (n - 1)) && (fX[low + step] <= xSearch)) {
+				low += step;
+				step <<= 1;
+			}
+			high = Math.min(low + step,n - 1);
+		}
+		else {
+			// gallop backwards, keeping fX[high] > xSearch
+			high = fLowerBound;
+			while (((high - step) > 0) && (fX[high - step] > xSearch)) {
+				high -= step;
+				step <<= 1;
+			}
+			low = Math.max(high - step,0);
+		}
+
+		// finish with a binary search, keeping fX[low] <= xSearch < fX[high]
+		while ((high - low) > 1) {
+			int middle = (low + high) >>> 1;
+			if (fX[middle] <= xSearch) {
+				low = middle;
+			}
+			else {
+				high = middle;
+			}
+		}
+
+		fLowerBound = low;
+		fUpperBound = low + 1;
+	}
+
+	/**
+	 * Searches for the indices of the 2 values surrounding the searched value, and stores them in a caller-supplied object.
+	 *
+	 * @param xSearch  the value to search for
+	 * @param bounds   the <CODE>ArraySearchBounds</CODE> object to store the indices in
+	 * @return         the specified <CODE>ArraySearchBounds</CODE> object
+	 */
+	public ArraySearchBounds search(double xSearch, ArraySearchBounds bounds)
+	{
+		search(xSearch);
+		bounds.setLowerBound(fLowerBound);
+		bounds.setUpperBound(fUpperBound);
+		return bounds;
+	}
+
+	/**
+	 * Returns the lower bound found by the last search.
+	 *
+	 * @return the lower bound found by the last search
+	 */
+	public int getLowerBound()
+	{
+		return fLowerBound;
+	}
+
+	/**
+	 * Returns the upper bound found by the last search.
+	 *
+	 * @return the upper bound found by the last search
+	 */
+	public int getUpperBound()
+	{
+		return fUpperBound;
+	}
+}
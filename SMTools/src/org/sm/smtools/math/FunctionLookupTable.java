@@ -1,12 +1,12 @@
 // ----------------------------------------
 // Filename      : FunctionLookupTable.java
 // Author        : Sven Maerivoet
-// Last modified : 08/11/2012
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // ----------------------------------------
 
 /**
- * Copyright 2003-2015 Sven Maerivoet
+ * Copyright 2003-2015, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,15 +24,43 @@
 package org.sm.smtools.math;
 
 /**
- * The <CODE>FunctionLookupTable</CODE> class provides a raw container for storing a 1D function's (X,Y) values.
+ * The <CODE>FunctionLookupTable</CODE> class provides a container for storing a 1D function's (X,Y) values, which can be interpolated.
+ * <P>
+ * The X-values should be sorted in ascending order. The function can be evaluated at arbitrary points (individually or in batch) using
+ * linear interpolation or a natural cubic spline (see {@link FunctionLookupTable.EInterpolationType}); outside the range of X-values,
+ * the function is clamped to its first or last Y-value.
+ * <P>
+ * When the X-values are (approximately) uniformly spaced, the interpolation interval is computed directly from the value to evaluate;
+ * otherwise it is found with a binary search (or with an {@link ArraySearchCursor} during a batch evaluation). The information needed
+ * for this (and the coefficients of the spline) is computed on the first evaluation and cached. The cache is automatically refreshed when
+ * the <CODE>fX</CODE> or <CODE>fY</CODE> arrays are replaced, but {@link FunctionLookupTable#invalidate()} must be called after their
+ * contents are modified in place. As the cache is published as a whole, a table that is not modified can be evaluated by several threads
+ * concurrently.
  * <P>
  * <B>Note that this class cannot be subclassed!</B>
  *
  * @author  Sven Maerivoet
- * @version 08/11/2012
+ * @version 16/10/2026
  */
 public final class FunctionLookupTable
 {
+	/**
+	 * The different types of interpolation.
+	 */
+	public static enum EInterpolationType {
+		/**
+		 * Linear interpolation between successive points.
+		 */
+		kLinear,
+
+		/**
+		 * Natural cubic spline interpolation (which falls back to linear interpolation when the X-values are not strictly increasing).
+		 */
+		kCubicSpline};
+
+	// the maximum relative deviation of an X-value from a uniform grid for which the grid is still considered to be uniform
+	private static final double kUniformGridTolerance = 1e-9;
+
 	/**
 	 * The x-values.
 	 */
@@ -43,6 +71,10 @@ public final class FunctionLookupTable
 	 */
 	public double[] fY;
 
+	// internal datastructures
+	private EInterpolationType fInterpolationType;
+	private volatile Cache fCache;
+
 	/****************
 	 * CONSTRUCTORS *
 	 ****************/
@@ -53,18 +85,32 @@ public final class FunctionLookupTable
 	public FunctionLookupTable()
 	{
 		reset();
+		fInterpolationType = EInterpolationType.kLinear;
 	}
 
 	/**
-	 * Constructs a <CODE>FunctionLookupTable</CODE> object with specified inputs.
+	 * Constructs a <CODE>FunctionLookupTable</CODE> object with specified inputs, using linear interpolation.
 	 *
 	 * @param x  the X-values
 	 * @param y  the Y-values
 	 */
 	public FunctionLookupTable(double[] x, double[] y)
+	{
+		this(x,y,EInterpolationType.kLinear);
+	}
+
+	/**
+	 * Constructs a <CODE>FunctionLookupTable</CODE> object with specified inputs and type of interpolation.
+	 *
+	 * @param x                  the X-values
+	 * @param y                  the Y-values
+	 * @param interpolationType  the type of interpolation
+	 */
+	public FunctionLookupTable(double[] x, double[] y, EInterpolationType interpolationType)
 	{
 		fX = x;
 		fY = y;
+		fInterpolationType = interpolationType;
 	}
 
 	/******************
@@ -78,5 +124,290 @@ public final class FunctionLookupTable
 	{
 		fX = null;
 		fY = null;
+		invalidate();
+	}
+
+	/**
+	 * Discards the cached information needed for the interpolation (which is necessary after the contents of <CODE>fX</CODE> or <CODE>fY</CODE> were modified).
+	 */
+	public void invalidate()
+	{
+		fCache = null;
+	}
+
+	/**
+	 * Returns the type of interpolation.
+	 *
+	 * @return the type of interpolation
+	 */
+	public EInterpolationType getInterpolationType()
+	{
+		return fInterpolationType;
+	}
+
+	/**
+	 * Sets the type of interpolation.
+	 *
+	 * @param interpolationType  the type of interpolation
+	 */
+	public void setInterpolationType(EInterpolationType interpolationType)
+	{
+		if (interpolationType != fInterpolationType) {
+			fInterpolationType = interpolationType;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Returns whether or not the X-values form a uniform grid (in which case the interpolation interval is computed directly).
+	 *
+	 * @return <CODE>true</CODE> if the X-values form a uniform grid, <CODE>false</CODE> otherwise
+	 */
+	public boolean isUniformGrid()
+	{
+		Cache cache = prepare();
+		return ((cache != null) && cache.fIsUniformGrid);
+	}
+
+	/**
+	 * Evaluates the function at a specified point by interpolating the table.
+	 *
+	 * @param x  the point to evaluate the function at
+	 * @return   the interpolated function value (or 0 if the table is empty or invalid, and <CODE>NaN</CODE> if <CODE>x</CODE> is <CODE>NaN</CODE>)
+	 */
+	public double evaluate(double x)
+	{
+		Cache cache = prepare();
+		if (cache == null) {
+			return 0.0;
+		}
+		else if (Double.isNaN(x)) {
+			return Double.NaN;
+		}
+
+		final double[] xs = cache.fX;
+		final double[] ys = cache.fY;
+		final int n = xs.length;
+		if (x <= xs[0]) {
+			return ys[0];
+		}
+		else if (x >= xs[n - 1]) {
+			return ys[n - 1];
+		}
+
+		int interval = 0;
+		if (cache.fIsUniformGrid) {
+			interval = cache.findUniformGridInterval(x);
+		}
+		else {
+			interval = ArraySearchBounds.unpackLowerBound(MathTools.searchPackedArrayBounds(xs,x));
+		}
+
+		return cache.interpolate(x,interval);
+	}
+
+	/**
+	 * Evaluates the function at a series of points by interpolating the table.
+	 * <P>
+	 * No objects are allocated during the evaluation, and a series of points that is sorted in ascending order is processed in (amortised) constant time per point.
+	 *
+	 * @param xs   the points to evaluate the function at
+	 * @param out  the array to store the interpolated function values in (which must be at least as long as <CODE>xs</CODE>)
+	 * @return     <CODE>true</CODE> if the function was evaluated, <CODE>false</CODE> if the table is empty or invalid or the output array is too short
+	 */
+	public boolean evaluate(double[] xs, double[] out)
+	{
+		Cache cache = ((xs == null) || (out == null) || (out.length < xs.length)) ? null : prepare();
+		if (cache == null) {
+			return false;
+		}
+
+		final double[] tableX = cache.fX;
+		final double[] tableY = cache.fY;
+		final int n = tableX.length;
+		ArraySearchCursor cursor = (cache.fIsUniformGrid ? null : new ArraySearchCursor(tableX));
+		for (int i = 0; i < xs.length; ++i) {
+			double x = xs[i];
+			if (Double.isNaN(x)) {
+				out[i] = Double.NaN;
+			}
+			else if (x <= tableX[0]) {
+				out[i] = tableY[0];
+			}
+			else if (x >= tableX[n - 1]) {
+				out[i] = tableY[n - 1];
+			}
+			else if (cache.fIsUniformGrid) {
+				out[i] = cache.interpolate(x,cache.findUniformGridInterval(x));
+			}
+			else {
+				cursor.search(x);
+				out[i] = cache.interpolate(x,cursor.getLowerBound());
+			}
+		}
+
+		return true;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Returns the cached information needed for the interpolation, building (and publishing) it if necessary.
+	 *
+	 * @return - (<CODE>null</CODE> if the table is empty or invalid)
+	 */
+	private Cache prepare()
+	{
+		double[] x = fX;
+		double[] y = fY;
+		if ((x == null) || (y == null) || (x.length == 0) || (x.length != y.length)) {
+			return null;
+		}
+
+		Cache cache = fCache;
+		if ((cache == null) || (cache.fX != x) || (cache.fY != y) || (cache.fInterpolationType != fInterpolationType)) {
+			// a fully constructed cache replaces the outdated one in a single write
+			cache = new Cache(x,y,fInterpolationType);
+			fCache = cache;
+		}
+
+		return cache;
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * The immutable information needed for interpolating a table (the X- and Y-arrays it was built for, whether or not these form a uniform
+	 * grid, and the coefficients of the spline).
+	 */
+	private static final class Cache
+	{
+		// internal datastructures
+		private final double[] fX;
+		private final double[] fY;
+		private final EInterpolationType fInterpolationType;
+		private final boolean fIsUniformGrid;
+		private final double fInverseGridSpacing;
+		private final double[] fSplineSecondDerivatives;
+
+		/**
+		 * @param x                  -
+		 * @param y                  -
+		 * @param interpolationType  -
+		 */
+		public Cache(double[] x, double[] y, EInterpolationType interpolationType)
+		{
+			fX = x;
+			fY = y;
+			fInterpolationType = interpolationType;
+
+			final int n = x.length;
+
+			// check whether or not the X-values form a uniform grid
+			boolean isUniformGrid = false;
+			double gridSpacing = 0.0;
+			if (n >= 2) {
+				gridSpacing = (x[n - 1] - x[0]) / (n - 1);
+				isUniformGrid = (gridSpacing > 0.0);
+				double tolerance = kUniformGridTolerance * gridSpacing;
+				for (int i = 1; isUniformGrid && (i < n); ++i) {
+					isUniformGrid = (Math.abs(x[i] - (x[0] + (i * gridSpacing))) <= tolerance);
+				}
+			}
+			fIsUniformGrid = isUniformGrid;
+			fInverseGridSpacing = (isUniformGrid ? (1.0 / gridSpacing) : 0.0);
+
+			// calculate the second derivatives of the natural cubic spline
+			fSplineSecondDerivatives = (((interpolationType == EInterpolationType.kCubicSpline) && (n >= 3)) ? calculateSplineSecondDerivatives() : null);
+		}
+
+		/**
+		 * Returns the index of the interval of a uniform grid that contains a point strictly within the range of the table.
+		 *
+		 * @param  x  -
+		 * @return    -
+		 */
+		public int findUniformGridInterval(double x)
+		{
+			int interval = MathTools.clip((int) ((x - fX[0]) * fInverseGridSpacing),0,fX.length - 2);
+
+			// correct for the small deviations of the X-values from the uniform grid
+			if (x < fX[interval]) {
+				--interval;
+			}
+			else if (x >= fX[interval + 1]) {
+				++interval;
+			}
+
+			return interval;
+		}
+
+		/**
+		 * Interpolates the function in a point within a specified interval of the table.
+		 *
+		 * @param  x         -
+		 * @param  interval  -
+		 * @return           -
+		 */
+		public double interpolate(double x, int interval)
+		{
+			double x1 = fX[interval];
+			double x2 = fX[interval + 1];
+			double y1 = fY[interval];
+			double y2 = fY[interval + 1];
+			double h = x2 - x1;
+			if (h == 0.0) {
+				return y1;
+			}
+
+			double t = (x - x1) / h;
+			if (fSplineSecondDerivatives == null) {
+				return (y1 + (t * (y2 - y1)));
+			}
+			else {
+				double m1 = fSplineSecondDerivatives[interval];
+				double m2 = fSplineSecondDerivatives[interval + 1];
+				double s = 1.0 - t;
+				return ((s * y1) + (t * y2) + (((((s * s * s) - s) * m1) + (((t * t * t) - t) * m2)) * (h * h) / 6.0));
+			}
+		}
+
+		/**
+		 * Solves the tridiagonal system for the second derivatives of a natural cubic spline through the table (using the Thomas algorithm).
+		 *
+		 * @return - (<CODE>null</CODE> if the X-values are not strictly increasing)
+		 */
+		private double[] calculateSplineSecondDerivatives()
+		{
+			final int n = fX.length;
+			for (int i = 1; i < n; ++i) {
+				if (!(fX[i] > fX[i - 1])) {
+					return null;
+				}
+			}
+
+			// forward elimination (the second derivatives vanish at both ends)
+			double[] m = new double[n];
+			double[] c = new double[n];
+			for (int i = 1; i < (n - 1); ++i) {
+				double hLeft = fX[i] - fX[i - 1];
+				double hRight = fX[i + 1] - fX[i];
+				double rhs = 6.0 * (((fY[i + 1] - fY[i]) / hRight) - ((fY[i] - fY[i - 1]) / hLeft));
+				double diagonal = (2.0 * (hLeft + hRight)) - (hLeft * c[i - 1]);
+				c[i] = hRight / diagonal;
+				m[i] = (rhs - (hLeft * m[i - 1])) / diagonal;
+			}
+
+			// back substitution
+			for (int i = n - 2; i >= 1; --i) {
+				m[i] -= (c[i] * m[i + 1]);
+			}
+
+			return m;
+		}
 	}
 }
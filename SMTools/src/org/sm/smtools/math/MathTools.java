@@ -1,12 +1,12 @@
 // -------------------------------
 // Filename      : MathTools.java
 // Author        : Sven Maerivoet
-// Last modified : 11/11/2019
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // -------------------------------
 
 /**
- * Copyright 2003-2016, 2019 Sven Maerivoet
+ * Copyright 2003-2016, 2019, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,8 @@ package org.sm.smtools.math;
 
 import java.awt.geom.*;
 import java.math.*;
+import java.util.*;
+import java.util.stream.*;
 
 /**
  * The <CODE>MathTools</CODE> class offers some basic useful mathematical operations.
@@ -36,7 +38,7 @@ import java.math.*;
  * <B>Note that this class cannot be subclassed!</B>
  *
  * @author  Sven Maerivoet
- * @version 11/11/2019
+ * @version 16/10/2026
  */
 public final class MathTools
 {
@@ -82,6 +84,21 @@ public final class MathTools
 	// the a parameter of the Lanczos kernel
 	private static double kLanczosA = 2.0;
 
+	// the minimum number of kernel evaluations from which on the support points of a kernel smoother are processed in parallel
+	private static final long kMinNrOfKernelEvaluationsForParallelism = 1L << 20;
+
+	// the maximum number of values in a range that is sorted instead of partitioned when selecting order statistics
+	private static final int kMaxNrOfValuesForSortingInSelection = 32;
+
+	// the minimum number of values from which on order statistics are selected in parallel
+	private static final int kMinNrOfValuesForParallelSelection = 1 << 16;
+
+	// the number of values that are processed per task when selecting order statistics in parallel
+	private static final int kParallelSelectionChunkSize = 1 << 16;
+
+	// the radius beyond which the Gaussian kernel drops below the double precision resolution relative to its peak value
+	private static final double kGaussianKernelSupportRadius = Math.sqrt(2.0 * 53.0 * Math.log(2.0));
+
 	/****************
 	 * CONSTRUCTORS *
 	 ****************/
@@ -472,6 +489,234 @@ public final class MathTools
 		return maximum;
 	}
 
+	/**
+	 * Checks whether or not an array is sorted in ascending (i.e., non-decreasing) order.
+	 * <P>
+	 * Note that an array containing <CODE>NaN</CODE> values is never considered to be sorted.
+	 * 
+	 * @param x  the array to check
+	 * @return   <CODE>true</CODE> if the array is sorted in ascending order, <CODE>false</CODE> otherwise
+	 */
+	public static boolean isSorted(double[] x)
+	{
+		for (int i = 0; i < x.length; ++i) {
+			if (Double.isNaN(x[i]) || ((i > 0) && (x[i] < x[i - 1]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Selects order statistics from an array in expected linear time, i.e., without fully sorting it.
+	 * <P>
+	 * The order statistic of rank r is the value that would be found at index r if the array were sorted in ascending order (with <CODE>NaN</CODE>
+	 * values placed last, as done by <CODE>Arrays.sort</CODE>); ranks are clipped to the interval [0,n-1]. A multi-way introselect only partitions
+	 * the array around the requested ranks, and sorts a range as soon as its partitioning does not converge fast enough, so that the worst case
+	 * remains O(n log n).
+	 * <P>
+	 * Note that the array is partially reordered in place.
+	 *
+	 * @param  x      the array to select the order statistics from (which is partially reordered)
+	 * @param  ranks  the (zero-based) ranks of the order statistics to select
+	 * @return        the order statistics corresponding to the ranks (or <CODE>null</CODE> if the array is empty)
+	 * @see           MathTools#selectOrderStatisticsInParallel(double[],int[])
+	 */
+	public static double[] selectOrderStatistics(double[] x, int[] ranks)
+	{
+		if ((x == null) || (x.length == 0) || (ranks == null)) {
+			return null;
+		}
+
+		// the NaN values are moved to the end of the array, where sorting would place them
+		int nrOfNumbers = moveNaNsToEnd(x);
+		int[] sortedRanks = getSortedUniqueRanks(ranks,x.length);
+		int nrOfRanksToSelect = findFirstIndexNotBelow(sortedRanks,0,sortedRanks.length,nrOfNumbers);
+		selectOrderStatistics(x,0,nrOfNumbers - 1,sortedRanks,0,nrOfRanksToSelect - 1,getSelectionDepthLimit(nrOfNumbers));
+
+		double[] orderStatistics = new double[ranks.length];
+		for (int i = 0; i < ranks.length; ++i) {
+			orderStatistics[i] = x[clip(ranks[i],0,x.length - 1)];
+		}
+
+		return orderStatistics;
+	}
+
+	/**
+	 * Selects order statistics from an array in parallel, without modifying the array.
+	 * <P>
+	 * The ranks have the same meaning as in {@link MathTools#selectOrderStatistics(double[],int[])}. A sorted random sample of the array yields,
+	 * for each requested rank, a narrow interval of values that contains the order statistic with a high probability (as in the Floyd-Rivest
+	 * algorithm). A single parallel pass over the array then counts the values below each interval, after which a second parallel pass gathers
+	 * the values inside the intervals, so that the order statistics are selected from only O(n^2/3) values per interval. Should an interval miss
+	 * its order statistic, then the selection falls back to a serial selection on a copy of the array.
+	 *
+	 * @param  x      the array to select the order statistics from
+	 * @param  ranks  the (zero-based) ranks of the order statistics to select
+	 * @return        the order statistics corresponding to the ranks (or <CODE>null</CODE> if the array is empty)
+	 * @see           MathTools#selectOrderStatistics(double[],int[])
+	 */
+	public static double[] selectOrderStatisticsInParallel(double[] x, int[] ranks)
+	{
+		if ((x == null) || (x.length == 0) || (ranks == null)) {
+			return null;
+		}
+
+		int n = x.length;
+		if (n < kMinNrOfValuesForParallelSelection) {
+			return selectOrderStatistics(Arrays.copyOf(x,n),ranks);
+		}
+
+		// draw a sorted random sample (the seed is fixed so that the work done is reproducible)
+		SplittableRandom random = new SplittableRandom(n);
+		int sampleSize = (int) Math.min(n,Math.max(1024.0,Math.pow(n,2.0 / 3.0)));
+		double[] sample = new double[sampleSize];
+		int nrOfSampledNumbers = 0;
+		for (int i = 0; i < sampleSize; ++i) {
+			double value = x[random.nextInt(n)];
+			if (!Double.isNaN(value)) {
+				sample[nrOfSampledNumbers++] = value;
+			}
+		}
+		Arrays.sort(sample,0,nrOfSampledNumbers);
+
+		// bracket each rank by the sample values 3 sqrt(s) positions around its expected position (i.e., at least 6 standard deviations),
+		// and merge the overlapping brackets into disjoint intervals
+		int[] sortedRanks = getSortedUniqueRanks(ranks,n);
+		int nrOfRanks = sortedRanks.length;
+		double margin = 3.0 * Math.sqrt(sampleSize);
+		double[] lowerValues = new double[nrOfRanks];
+		double[] upperValues = new double[nrOfRanks];
+		int[] firstRanks = new int[nrOfRanks + 1];
+		int nrOfIntervals = 0;
+		for (int j = 0; j < nrOfRanks; ++j) {
+			double position = ((double) sortedRanks[j] * sampleSize) / n;
+			int lowerIndex = (int) Math.floor(position - margin);
+			int upperIndex = (int) Math.ceil(position + margin);
+			double lowerValue = ((lowerIndex < 0) || (nrOfSampledNumbers == 0)) ? Double.NEGATIVE_INFINITY : sample[Math.min(lowerIndex,nrOfSampledNumbers - 1)];
+			double upperValue = (upperIndex >= nrOfSampledNumbers) ? Double.POSITIVE_INFINITY : sample[upperIndex];
+			if ((nrOfIntervals > 0) && (lowerValue <= upperValues[nrOfIntervals - 1])) {
+				upperValues[nrOfIntervals - 1] = Math.max(upperValues[nrOfIntervals - 1],upperValue);
+			}
+			else {
+				lowerValues[nrOfIntervals] = lowerValue;
+				upperValues[nrOfIntervals] = upperValue;
+				firstRanks[nrOfIntervals] = j;
+				++nrOfIntervals;
+			}
+		}
+		firstRanks[nrOfIntervals] = nrOfRanks;
+		final int nrOfIntervalsFinal = nrOfIntervals;
+
+		// count per chunk the NaN values, the values inside each interval, and the values in the gaps before each interval
+		int nrOfChunks = ((n - 1) / kParallelSelectionChunkSize) + 1;
+		int[][] insideCounts = new int[nrOfChunks][nrOfIntervals];
+		int[][] gapCounts = new int[nrOfChunks][nrOfIntervals + 1];
+		int[] nanCounts = new int[nrOfChunks];
+		IntStream.range(0,nrOfChunks).parallel().forEach(chunk -> {
+			int[] chunkInsideCounts = insideCounts[chunk];
+			int[] chunkGapCounts = gapCounts[chunk];
+			int nrOfNaNs = 0;
+			int to = (int) Math.min(n,((long) chunk + 1) * kParallelSelectionChunkSize);
+			for (int i = chunk * kParallelSelectionChunkSize; i < to; ++i) {
+				double value = x[i];
+				if (Double.isNaN(value)) {
+					++nrOfNaNs;
+				}
+				else {
+					int interval = findFirstIndexAbove(lowerValues,nrOfIntervalsFinal,value) - 1;
+					if ((interval >= 0) && (value <= upperValues[interval])) {
+						++chunkInsideCounts[interval];
+					}
+					else {
+						++chunkGapCounts[interval + 1];
+					}
+				}
+			}
+			nanCounts[chunk] = nrOfNaNs;
+		});
+
+		// check whether or not each interval contains the order statistics of its ranks
+		int nrOfNumbers = n;
+		for (int chunk = 0; chunk < nrOfChunks; ++chunk) {
+			nrOfNumbers -= nanCounts[chunk];
+		}
+		int[] nrOfValuesBelow = new int[nrOfIntervals];
+		int[] nrOfValuesInside = new int[nrOfIntervals];
+		int nrOfValuesBelowInterval = 0;
+		for (int k = 0; k < nrOfIntervals; ++k) {
+			for (int chunk = 0; chunk < nrOfChunks; ++chunk) {
+				nrOfValuesBelowInterval += gapCounts[chunk][k];
+				nrOfValuesInside[k] += insideCounts[chunk][k];
+			}
+			nrOfValuesBelow[k] = nrOfValuesBelowInterval;
+			nrOfValuesBelowInterval += nrOfValuesInside[k];
+
+			for (int j = firstRanks[k]; j < firstRanks[k + 1]; ++j) {
+				int rank = sortedRanks[j];
+				if ((rank < nrOfNumbers) && ((rank < nrOfValuesBelow[k]) || (rank >= (nrOfValuesBelow[k] + nrOfValuesInside[k])))) {
+					return selectOrderStatistics(Arrays.copyOf(x,n),ranks);
+				}
+			}
+		}
+
+		// gather the values inside the intervals, each chunk writing to its own offset
+		double[][] gatheredValues = new double[nrOfIntervals][];
+		int[][] offsets = new int[nrOfChunks][nrOfIntervals];
+		for (int k = 0; k < nrOfIntervals; ++k) {
+			gatheredValues[k] = new double[nrOfValuesInside[k]];
+			int offset = 0;
+			for (int chunk = 0; chunk < nrOfChunks; ++chunk) {
+				offsets[chunk][k] = offset;
+				offset += insideCounts[chunk][k];
+			}
+		}
+		double minimumValue = lowerValues[0];
+		double maximumValue = upperValues[nrOfIntervals - 1];
+		IntStream.range(0,nrOfChunks).parallel().forEach(chunk -> {
+			int[] chunkOffsets = offsets[chunk];
+			int to = (int) Math.min(n,((long) chunk + 1) * kParallelSelectionChunkSize);
+			for (int i = chunk * kParallelSelectionChunkSize; i < to; ++i) {
+				// most values lie outside all intervals (the comparisons are false for NaN values)
+				double value = x[i];
+				if ((value >= minimumValue) && (value <= maximumValue)) {
+					int interval = findFirstIndexAbove(lowerValues,nrOfIntervalsFinal,value) - 1;
+					if (value <= upperValues[interval]) {
+						gatheredValues[interval][chunkOffsets[interval]++] = value;
+					}
+				}
+			}
+		});
+
+		// select the order statistics within the gathered values of each interval
+		double[] sortedOrderStatistics = new double[nrOfRanks];
+		final int nrOfNumbersFinal = nrOfNumbers;
+		IntStream.range(0,nrOfIntervals).parallel().forEach(k -> {
+			int nrOfRanksInside = 0;
+			int[] ranksInside = new int[firstRanks[k + 1] - firstRanks[k]];
+			for (int j = firstRanks[k]; j < firstRanks[k + 1]; ++j) {
+				if (sortedRanks[j] < nrOfNumbersFinal) {
+					ranksInside[nrOfRanksInside++] = sortedRanks[j] - nrOfValuesBelow[k];
+				}
+				else {
+					sortedOrderStatistics[j] = Double.NaN;
+				}
+			}
+			double[] values = gatheredValues[k];
+			selectOrderStatistics(values,0,values.length - 1,ranksInside,0,nrOfRanksInside - 1,getSelectionDepthLimit(values.length));
+			for (int j = 0; j < nrOfRanksInside; ++j) {
+				sortedOrderStatistics[firstRanks[k] + j] = values[ranksInside[j]];
+			}
+		});
+
+		double[] orderStatistics = new double[ranks.length];
+		for (int i = 0; i < ranks.length; ++i) {
+			orderStatistics[i] = sortedOrderStatistics[Arrays.binarySearch(sortedRanks,clip(ranks[i],0,n - 1))];
+		}
+
+		return orderStatistics;
+	}
+
 	/**
 	 * Performs linear interpolation of a <CODE>double</CODE> with respect to two boundary values.
 	 * <P>
@@ -497,6 +742,7 @@ public final class MathTools
 	 *   <LI><CODE>xSearch &lt; min(x)</CODE> leads to <CODE>fLowerBound = fUpperBound = 0</CODE></LI>
 	 *   <LI><CODE>xSearch &ge; max(x)</CODE> leads to <CODE>fLowerBound = fUpperBound = x.length - 1</CODE></LI>
 	 * </UL>
+	 * A <CODE>NaN</CODE> search value is treated as the first special case. The indices are found with a binary search in O(log n) time.
 	 * <P>
 	 * <B>Note that this method assumes that the elements in <CODE>x</CODE> are sorted!</B>
 	 *
@@ -506,38 +752,45 @@ public final class MathTools
 	 */
 	public static ArraySearchBounds searchArrayBounds(double[] x, double xSearch)
 	{
-		final int n = x.length;
-
-		int lowerBound = 0;
-		int upperBound = 0;
-
-		if (xSearch >= x[n - 1]) {
-			lowerBound = n - 1;
-			upperBound = n - 1;
-		}			
-		else if (xSearch >= x[0]) {
-			// find lower bound
-			if (xSearch < x[n - 1]) {
-				boolean found = false;
-				while (!found) {
-					if (x[lowerBound] > xSearch) {
-						--lowerBound;
-						found = true;
-					}
-					else {
-						++lowerBound;
-					}
-				}
-			}
-			else {
-				lowerBound = n - 1;
-			}
+		return searchArrayBounds(x,xSearch,new ArraySearchBounds());
+	}
 
-			// set upper bound
-			upperBound = lowerBound + 1;
-		}
+	/**
+	 * Determines the indices of the 2 values surrounding the searched value in an array, and stores them in a caller-supplied object.
+	 * <P>
+	 * This method avoids the allocation of a new object on each call; its semantics are identical to those of {@link MathTools#searchArrayBounds(double[],double)}.
+	 * <P>
+	 * <B>Note that this method assumes that the elements in <CODE>x</CODE> are sorted!</B>
+	 *
+	 * @param x        an array of <CODE>double</CODE>s containing the values
+	 * @param xSearch  the value to search for
+	 * @param bounds   the <CODE>ArraySearchBounds</CODE> object to store the indices in
+	 * @return         the specified <CODE>ArraySearchBounds</CODE> object
+	 */
+	public static ArraySearchBounds searchArrayBounds(double[] x, double xSearch, ArraySearchBounds bounds)
+	{
+		int lowerBound = findArrayLowerBound(x,xSearch);
+		bounds.setLowerBound(lowerBound);
+		bounds.setUpperBound(getArrayUpperBound(x,xSearch,lowerBound));
+		return bounds;
+	}
 
-		return (new ArraySearchBounds(lowerBound,upperBound));
+	/**
+	 * Determines the indices of the 2 values surrounding the searched value in an array, and packs them in a single <CODE>long</CODE>.
+	 * <P>
+	 * This method avoids any allocation; its semantics are identical to those of {@link MathTools#searchArrayBounds(double[],double)}.
+	 * The indices are retrieved with {@link ArraySearchBounds#unpackLowerBound(long)} and {@link ArraySearchBounds#unpackUpperBound(long)}.
+	 * <P>
+	 * <B>Note that this method assumes that the elements in <CODE>x</CODE> are sorted!</B>
+	 *
+	 * @param x        an array of <CODE>double</CODE>s containing the values
+	 * @param xSearch  the value to search for
+	 * @return         the packed indices of the 2 values surrounding the searched value
+	 */
+	public static long searchPackedArrayBounds(double[] x, double xSearch)
+	{
+		int lowerBound = findArrayLowerBound(x,xSearch);
+		return ArraySearchBounds.pack(lowerBound,getArrayUpperBound(x,xSearch,lowerBound));
 	}
 
 	/**
@@ -562,6 +815,17 @@ public final class MathTools
 		return !isEven(n);
 	}
 
+	/**
+	 * Checks whether or not a number is a (strictly positive) power of two.
+	 *
+	 * @param n  the number to check
+	 * @return   <CODE>true</CODE> when <I>n</I> is a power of two, <CODE>false</CODE> otherwise
+	 */
+	public static boolean isPowerOfTwo(int n)
+	{
+		return ((n > 0) && ((n & (n - 1)) == 0));
+	}
+
 	/**
 	 * Converts a number of bytes to kilobytes (1 kB = 1000 B).
 	 *
@@ -837,8 +1101,101 @@ public final class MathTools
 		return result;
 	}
 
+	/**
+	 * Returns the radius of the support of a kernel, i.e., the value of |<I>u</I>| beyond which the kernel vanishes.
+	 * <P>
+	 * All kernels have a compact support of radius 1, except for the Gaussian kernel which is truncated at the point where
+	 * its value drops below the double precision resolution relative to its peak value (i.e., |<I>u</I>| &asymp; 8.6).
+	 *
+	 * @param kernelType  the type of kernel
+	 * @return            the radius of the support of the kernel
+	 */
+	public static double getKernelSupportRadius(EKernelType kernelType)
+	{
+		if (kernelType == EKernelType.kGaussian) {
+			return kGaussianKernelSupportRadius;
+		}
+		else {
+			return 1.0;
+		}
+	}
+
+	/**
+	 * Performs an in-place discrete Fourier transform of a complex sequence using the iterative radix-2 Cooley-Tukey algorithm.
+	 * <P>
+	 * The forward transform uses the kernel exp(-2&pi;ijk/N), the inverse transform uses exp(+2&pi;ijk/N) and divides the result by N,
+	 * so that applying both transforms in succession yields the original sequence. The length N of the sequence must be a power of two.
+	 *
+	 * @param re       the real parts of the sequence (which are overwritten by the transformed sequence)
+	 * @param im       the imaginary parts of the sequence (which are overwritten by the transformed sequence)
+	 * @param inverse  <CODE>true</CODE> to perform the inverse transform, <CODE>false</CODE> to perform the forward transform
+	 * @return         <CODE>true</CODE> if the transform was performed, <CODE>false</CODE> if the arrays are invalid (in which case they are left untouched)
+	 */
+	public static boolean fft(double[] re, double[] im, boolean inverse)
+	{
+		if ((re == null) || (im == null) || (re.length != im.length) || !isPowerOfTwo(re.length)) {
+			return false;
+		}
+
+		int n = re.length;
+
+		// reorder the sequence according to the bit-reversed indices
+		for (int i = 1, j = 0; i < n; ++i) {
+			int bit = n >> 1;
+			while ((j & bit) != 0) {
+				j ^= bit;
+				bit >>= 1;
+			}
+			j |= bit;
+
+			if (i < j) {
+				double temp = re[i];
+				re[i] = re[j];
+				re[j] = temp;
+				temp = im[i];
+				im[i] = im[j];
+				im[j] = temp;
+			}
+		}
+
+		// combine the butterflies of increasing length
+		double sign = (inverse ? 1.0 : -1.0);
+		for (int length = 2; length <= n; length <<= 1) {
+			int halfLength = length >> 1;
+			double angle = sign * 2.0 * Math.PI / length;
+
+			for (int k = 0; k < halfLength; ++k) {
+				// the twiddle factors are evaluated directly to avoid the accumulation of round-off errors
+				double wRe = Math.cos(angle * k);
+				double wIm = Math.sin(angle * k);
+
+				for (int i = k; i < n; i += length) {
+					int j = i + halfLength;
+					double tRe = (re[j] * wRe) - (im[j] * wIm);
+					double tIm = (re[j] * wIm) + (im[j] * wRe);
+					re[j] = re[i] - tRe;
+					im[j] = im[i] - tIm;
+					re[i] += tRe;
+					im[i] += tIm;
+				}
+			}
+		}
+
+		if (inverse) {
+			for (int i = 0; i < n; ++i) {
+				re[i] /= n;
+				im[i] /= n;
+			}
+		}
+
+		return true;
+	}
+
 	/**
 	 * Performs kernel smoothing on a 1D function specified by lookup tables for in the (X,Y) plane.
+	 * <P>
+	 * When the X-values are sorted in ascending order, only the points within the support of the kernel are visited for each support point
+	 * (see {@link MathTools#getKernelSmoother(FunctionLookupTable,EKernelType,double,int,boolean)}).
 	 * 
 	 * @param  functionLookupTable  the lookup table for the specified 1D function
 	 * @param  kernelType           the type of kernel to use
@@ -847,45 +1204,360 @@ public final class MathTools
 	 * @return                      the smoothed data in a new lookup table
 	 */
 	public static FunctionLookupTable getKernelSmoother(FunctionLookupTable functionLookupTable, EKernelType kernelType, double bandwidth, int nrOfSupportPoints)
+	{
+		double[] x = functionLookupTable.fX;
+		if ((x == null) || (x.length == 0)) {
+			return null;
+		}
+
+		return getKernelSmoother(functionLookupTable,kernelType,bandwidth,nrOfSupportPoints,isSorted(x));
+	}
+
+	/**
+	 * Performs kernel smoothing on a 1D function specified by lookup tables for in the (X,Y) plane.
+	 * <P>
+	 * If the X-values are sorted in ascending order, a binary search restricts the evaluation of the kernel for each support point to those points that lie
+	 * within its support (see {@link MathTools#getKernelSupportRadius(EKernelType)}), which reduces the complexity from O(M &times; N) to
+	 * O(M &times; (log N + K)) for M support points, N points and K points within the bandwidth. For the Gaussian kernel, the points beyond the
+	 * truncation radius are still visited when their combined weight could exceed a fraction 10<SUP>-12</SUP> of the weight of the points within it.
+	 * If the X-values are not sorted, all points are visited for each support point.
+	 * <P>
+	 * For a large amount of work, the support points are processed in parallel.
+	 * 
+	 * @param  functionLookupTable  the lookup table for the specified 1D function
+	 * @param  kernelType           the type of kernel to use
+	 * @param  bandwidth            the bandwidth of the kernel
+	 * @param  nrOfSupportPoints    the number of (X,Y) values to use for the smoothened 1D function
+	 * @param  isSorted             a flag indicating whether or not the X-values are sorted in ascending order (this is not checked)
+	 * @return                      the smoothed data in a new lookup table
+	 */
+	public static FunctionLookupTable getKernelSmoother(FunctionLookupTable functionLookupTable, EKernelType kernelType, double bandwidth, int nrOfSupportPoints, boolean isSorted)
 	{
 		double[] x = functionLookupTable.fX;
 		double[] y = functionLookupTable.fY;
-		if (x.length != y.length) {
+		if ((x == null) || (y == null) || (x.length != y.length) || (x.length == 0)) {
 			return null;
 		}
 
 		// prepare new support
-		double minX = MathTools.findMinimum(x);
-		double maxX = MathTools.findMaximum(x);
+		double minX = (isSorted ? x[0] : MathTools.findMinimum(x));
+		double maxX = (isSorted ? x[x.length - 1] : MathTools.findMaximum(x));
 		double xRange = maxX - minX;
 		double delta = xRange / (nrOfSupportPoints - 1);
-		double[] xSupport = new double[nrOfSupportPoints];
-		for (int i = 0; i < nrOfSupportPoints; ++i) {
-			xSupport[i] = minX + (i * delta);
+		double[] xk = new double[nrOfSupportPoints];
+		for (int k = 0; k < nrOfSupportPoints; ++k) {
+			xk[k] = minX + (k * delta);
 		}
 
-		double[] xk = new double[nrOfSupportPoints];
 		double[] yk = new double[nrOfSupportPoints];
 
+		// the window is widened slightly so that round-off errors cannot exclude points on the boundary of the support
+		double radius = getKernelSupportRadius(kernelType) * Math.abs(bandwidth) * (1.0 + 1e-9);
+		boolean pruneToSupport = isSorted && !Double.isInfinite(radius);
+
+		// estimate the amount of work, assuming a uniform spread of the points
+		long nrOfKernelEvaluations = (long) nrOfSupportPoints * x.length;
+		if (pruneToSupport && (xRange > 0.0)) {
+			nrOfKernelEvaluations = (long) (nrOfSupportPoints * Math.min(x.length,(x.length * 2.0 * radius / xRange) + 1.0));
+		}
+
 		// apply kernel smoother to all points in the new support
-		for (int k = 0; k < nrOfSupportPoints; ++k) {
-			xk[k] = xSupport[k];
+		IntStream supportPoints = IntStream.range(0,nrOfSupportPoints);
+		if (nrOfKernelEvaluations >= kMinNrOfKernelEvaluationsForParallelism) {
+			supportPoints = supportPoints.parallel();
+		}
+		supportPoints.forEach(k -> {
+			if (pruneToSupport) {
+				int from = findFirstIndexNotBelow(x,xk[k] - radius);
+				int to = findFirstIndexNotBelow(x,Math.nextUp(xk[k] + radius));
+				// the truncated Gaussian kernel falls back to all points when those beyond its truncation radius could have a relative weight above 1e-12
+				double minDenominator = 0.0;
+				if (kernelType == EKernelType.kGaussian) {
+					minDenominator = (x.length - (to - from)) * getKernel(getKernelSupportRadius(kernelType),kernelType) * 1e12;
+				}
 
-			// apply kernel to all points
-			yk[k] = 0.0;
-			double denominator = 0;
-			for (int i = 0; i < x.length; ++i) {
-				double u = (xk[k] - x[i]) / bandwidth;
-				double uk = getKernel(u,kernelType);
-				yk[k] += (uk * y[i]);
-				denominator += uk;
+				yk[k] = applyKernelSmoother(x,y,xk[k],kernelType,bandwidth,from,to,minDenominator);
+				if (Double.isNaN(yk[k]) && (minDenominator > 0.0)) {
+					yk[k] = applyKernelSmoother(x,y,xk[k],kernelType,bandwidth,0,x.length,0.0);
+				}
+			}
+			else {
+				yk[k] = applyKernelSmoother(x,y,xk[k],kernelType,bandwidth,0,x.length,0.0);
 			}
 
-			if (denominator != 0.0) {
-				yk[k] /= denominator;
+			if (Double.isNaN(yk[k])) {
+				yk[k] = 0.0;
 			}
-		}
+		});
 
 		return (new FunctionLookupTable(xk,yk));
 	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Returns the index of the last element in a sorted array that does not exceed a specified value (or 0 if there is no such element).
+	 *
+	 * @param  x        -
+	 * @param  xSearch  -
+	 * @return          -
+	 */
+	private static int findArrayLowerBound(double[] x, double xSearch)
+	{
+		// find the first element that exceeds the searched value (NaN never matches, hence the negated comparison)
+		int low = 0;
+		int high = x.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (!(x[middle] > xSearch) && !Double.isNaN(xSearch)) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+
+		return Math.max(low - 1,0);
+	}
+
+	/**
+	 * Returns the upper bound that corresponds to a lower bound found in a sorted array.
+	 *
+	 * @param  x           -
+	 * @param  xSearch     -
+	 * @param  lowerBound  -
+	 * @return             -
+	 */
+	private static int getArrayUpperBound(double[] x, double xSearch, int lowerBound)
+	{
+		if ((lowerBound == (x.length - 1)) || !(xSearch >= x[0])) {
+			return lowerBound;
+		}
+		else {
+			return (lowerBound + 1);
+		}
+	}
+
+	/**
+	 * Applies the kernel smoother in a support point to a range of points.
+	 *
+	 * @param  x               -
+	 * @param  y               -
+	 * @param  xk              -
+	 * @param  kernelType      -
+	 * @param  bandwidth       -
+	 * @param  from            -
+	 * @param  to              -
+	 * @param  minDenominator  -
+	 * @return                 - (<CODE>NaN</CODE> if the sum of the kernel weights does not exceed the minimum denominator)
+	 */
+	private static double applyKernelSmoother(double[] x, double[] y, double xk, EKernelType kernelType, double bandwidth, int from, int to, double minDenominator)
+	{
+		double numerator = 0.0;
+		double denominator = 0.0;
+		for (int i = from; i < to; ++i) {
+			double u = (xk - x[i]) / bandwidth;
+			double uk = getKernel(u,kernelType);
+			numerator += (uk * y[i]);
+			denominator += uk;
+		}
+
+		if (denominator > minDenominator) {
+			return (numerator / denominator);
+		}
+		else {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Returns the index of the first element in a sorted array that is not below a specified value.
+	 *
+	 * @param  x      -
+	 * @param  value  -
+	 * @return        - (the length of the array if all elements are below the value)
+	 */
+	private static int findFirstIndexNotBelow(double[] x, double value)
+	{
+		int low = 0;
+		int high = x.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (x[middle] < value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first element in a range of a sorted array that is not below a specified value.
+	 *
+	 * @param  x      -
+	 * @param  from   -
+	 * @param  to     - (exclusive)
+	 * @param  value  -
+	 * @return        - (<CODE>to</CODE> if all elements in the range are below the value)
+	 */
+	private static int findFirstIndexNotBelow(int[] x, int from, int to, int value)
+	{
+		int low = from;
+		int high = to;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (x[middle] < value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the index of the first element in the first part of a sorted array that exceeds a specified value.
+	 *
+	 * @param  x       -
+	 * @param  length  -
+	 * @param  value   -
+	 * @return         - (<CODE>length</CODE> if no element exceeds the value)
+	 */
+	private static int findFirstIndexAbove(double[] x, int length, double value)
+	{
+		int low = 0;
+		int high = length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (x[middle] <= value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Moves all NaN values to the end of an array.
+	 *
+	 * @param  x  -
+	 * @return    - the number of values that are not NaN
+	 */
+	private static int moveNaNsToEnd(double[] x)
+	{
+		int nrOfNumbers = x.length;
+		int i = 0;
+		while (i < nrOfNumbers) {
+			if (Double.isNaN(x[i])) {
+				--nrOfNumbers;
+				x[i] = x[nrOfNumbers];
+				x[nrOfNumbers] = Double.NaN;
+			}
+			else {
+				++i;
+			}
+		}
+		return nrOfNumbers;
+	}
+
+	/**
+	 * Clips ranks to the interval [0,n-1], and sorts them in ascending order without duplicates.
+	 *
+	 * @param  ranks  -
+	 * @param  n      -
+	 * @return        -
+	 */
+	private static int[] getSortedUniqueRanks(int[] ranks, int n)
+	{
+		int[] sortedRanks = new int[ranks.length];
+		for (int i = 0; i < ranks.length; ++i) {
+			sortedRanks[i] = clip(ranks[i],0,n - 1);
+		}
+		Arrays.sort(sortedRanks);
+
+		int nrOfUniqueRanks = 0;
+		for (int i = 0; i < sortedRanks.length; ++i) {
+			if ((nrOfUniqueRanks == 0) || (sortedRanks[i] != sortedRanks[nrOfUniqueRanks - 1])) {
+				sortedRanks[nrOfUniqueRanks++] = sortedRanks[i];
+			}
+		}
+		return Arrays.copyOf(sortedRanks,nrOfUniqueRanks);
+	}
+
+	/**
+	 * Returns the number of partitioning steps after which a selection falls back to sorting (i.e., twice the binary logarithm of the number of values).
+	 *
+	 * @param  n  -
+	 * @return    -
+	 */
+	private static int getSelectionDepthLimit(int n)
+	{
+		return (2 * (32 - Integer.numberOfLeadingZeros(Math.max(n,1))));
+	}
+
+	/**
+	 * Partitions a range of an array (without NaN values) such that the elements at the specified sorted ranks are in their sorted positions.
+	 *
+	 * @param x           -
+	 * @param from        -
+	 * @param to          - (inclusive)
+	 * @param ranks       - (sorted in ascending order without duplicates)
+	 * @param rankFrom    -
+	 * @param rankTo      - (inclusive)
+	 * @param depthLimit  -
+	 */
+	private static void selectOrderStatistics(double[] x, int from, int to, int[] ranks, int rankFrom, int rankTo, int depthLimit)
+	{
+		while ((rankFrom <= rankTo) && (from < to)) {
+			if (((to - from) < kMaxNrOfValuesForSortingInSelection) || (depthLimit == 0)) {
+				Arrays.sort(x,from,to + 1);
+				return;
+			}
+			--depthLimit;
+
+			// three-way partition around the median of three elements: [from,lessEnd) < pivot, [lessEnd,greaterStart] = pivot and (greaterStart,to] > pivot
+			double first = x[from];
+			double middle = x[(from + to) >>> 1];
+			double last = x[to];
+			double pivot = Math.max(Math.min(first,middle),Math.min(Math.max(first,middle),last));
+			int lessEnd = from;
+			int greaterStart = to;
+			int i = from;
+			while (i <= greaterStart) {
+				double value = x[i];
+				if (value < pivot) {
+					x[i++] = x[lessEnd];
+					x[lessEnd++] = value;
+				}
+				else if (value > pivot) {
+					x[i] = x[greaterStart];
+					x[greaterStart--] = value;
+				}
+				else {
+					++i;
+				}
+			}
+
+			// the ranks inside the range of pivot values are resolved; continue with the ranks on either side, recursing into the smaller one
+			int leftRankTo = findFirstIndexNotBelow(ranks,rankFrom,rankTo + 1,lessEnd) - 1;
+			int rightRankFrom = findFirstIndexNotBelow(ranks,leftRankTo + 1,rankTo + 1,greaterStart + 1);
+			if ((lessEnd - from) < (to - greaterStart)) {
+				selectOrderStatistics(x,from,lessEnd - 1,ranks,rankFrom,leftRankTo,depthLimit);
+				from = greaterStart + 1;
+				rankFrom = rightRankFrom;
+			}
+			else {
+				selectOrderStatistics(x,greaterStart + 1,to,ranks,rightRankFrom,rankTo,depthLimit);
+				to = lessEnd - 1;
+				rankTo = leftRankTo;
+			}
+		}
+	}
 }
@@ -0,0 +1,265 @@
+// ------------------------------
+// Filename      : BatchLSLR.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.lslr;
+
+import java.nio.*;
+import java.util.stream.*;
+import org.sm.smtools.math.statistics.*;
+
+/**
+ * The <CODE>BatchLSLR</CODE> class offers a <I>least squares linear regression</I> of many series at once (e.g., thousands of concurrent time series).
+ * <P>
+ * The y values of all series are stored in a single shared columnar buffer, in which each series occupies a contiguous column of <I>n</I> values
+ * (i.e., the value <I>t</I> of series <I>s</I> is found at index <I>s</I> &times; <I>n</I> + <I>t</I>); all series share the same x values
+ * (e.g., the timestamps), or the indices 0, 1, ..., <I>n</I> - 1 if no x values are specified. The buffer can be a direct or memory-mapped one,
+ * so that the series do not have to be copied to the heap as a whole.
+ * <P>
+ * The series are fitted in parallel over all available processor cores, each in a single pass over its column by a {@link BivariateAccumulator}.
+ * The slope, intercept, mean, standard deviation and residual standard deviation of each series are derived from its statistics by an
+ * {@link LSLR} object, so that they are calculated exactly as for an <CODE>LSLR</CODE> over the series.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     LSLR
+ * @see     RollingLSLR
+ */
+public final class BatchLSLR
+{
+	// the number of values that are read from a column as one block
+	private static final int kBlockSize = 4096;
+
+	// internal datastructures
+	private int fNrOfSeries;
+	private int fSeriesLength;
+	private boolean[] fSuccess;
+	private double[] fSlopes;
+	private double[] fIntercepts;
+	private double[] fMeans;
+	private double[] fStandardDeviations;
+	private double[] fResidualStandardDeviations;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>BatchLSLR</CODE> object and fits all series in a columnar array.
+	 *
+	 * @param x           the shared x values (or <CODE>null</CODE> to use the indices 0, 1, ..., <I>n</I> - 1)
+	 * @param y           the columnar array of y values of all series
+	 * @param nrOfSeries  the number of series
+	 * @see               BatchLSLR#BatchLSLR(double[],DoubleBuffer,int)
+	 */
+	public BatchLSLR(double[] x, double[] y, int nrOfSeries)
+	{
+		this(x,((y != null) ? DoubleBuffer.wrap(y) : null),nrOfSeries);
+	}
+
+	/**
+	 * Constructs a <CODE>BatchLSLR</CODE> object and fits all series in a columnar buffer.
+	 * <P>
+	 * The values between the buffer's position and its limit are used, without changing the position; the length <I>n</I> of each series is
+	 * derived from the number of values and the number of series. If the x values are specified, their number should be equal to <I>n</I>;
+	 * if not, none of the series is fitted successfully.
+	 *
+	 * @param x           the shared x values (or <CODE>null</CODE> to use the indices 0, 1, ..., <I>n</I> - 1)
+	 * @param y           the columnar buffer of y values of all series
+	 * @param nrOfSeries  the number of series
+	 */
+	public BatchLSLR(double[] x, DoubleBuffer y, int nrOfSeries)
+	{
+		fNrOfSeries = Math.max(0,nrOfSeries);
+		fSeriesLength = (((y != null) && (fNrOfSeries > 0)) ? (y.remaining() / fNrOfSeries) : 0);
+		fSuccess = new boolean[fNrOfSeries];
+		fSlopes = new double[fNrOfSeries];
+		fIntercepts = new double[fNrOfSeries];
+		fMeans = new double[fNrOfSeries];
+		fStandardDeviations = new double[fNrOfSeries];
+		fResidualStandardDeviations = new double[fNrOfSeries];
+
+		if ((fSeriesLength == 0) || ((x != null) && (x.length != fSeriesLength))) {
+			return;
+		}
+
+		int position = y.position();
+		IntStream.range(0,fNrOfSeries).parallel().forEach(series -> fitSeries(series,x,y,position + (series * fSeriesLength)));
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Returns the number of series.
+	 *
+	 * @return the number of series
+	 */
+	public int getNrOfSeries()
+	{
+		return fNrOfSeries;
+	}
+
+	/**
+	 * Returns the number of data points per series.
+	 *
+	 * @return the number of data points per series
+	 */
+	public int getSeriesLength()
+	{
+		return fSeriesLength;
+	}
+
+	/**
+	 * Returns whether or not the LSLR operation on a series was successful.
+	 *
+	 * @param series  the index of the series
+	 * @return        <CODE>true</CODE> if the LSLR operation was successful, <CODE>false</CODE> if it failed
+	 * @see           LSLR#isSuccessful()
+	 */
+	public boolean isSuccessful(int series)
+	{
+		return fSuccess[series];
+	}
+
+	/**
+	 * Returns the slope of the LSLR operation on a series.
+	 *
+	 * @param series  the index of the series
+	 * @return        the slope of the LSLR operation on the series
+	 * @see           LSLR#getSlope()
+	 */
+	public double getSlope(int series)
+	{
+		return fSlopes[series];
+	}
+
+	/**
+	 * Returns the slopes of the LSLR operations on all series.
+	 *
+	 * @return the slopes of the LSLR operations on all series
+	 */
+	public double[] getSlopes()
+	{
+		return fSlopes;
+	}
+
+	/**
+	 * Returns the intercept of the LSLR operation on a series.
+	 *
+	 * @param series  the index of the series
+	 * @return        the intercept of the LSLR operation on the series
+	 * @see           LSLR#getIntercept()
+	 */
+	public double getIntercept(int series)
+	{
+		return fIntercepts[series];
+	}
+
+	/**
+	 * Returns the intercepts of the LSLR operations on all series.
+	 *
+	 * @return the intercepts of the LSLR operations on all series
+	 */
+	public double[] getIntercepts()
+	{
+		return fIntercepts;
+	}
+
+	/**
+	 * Returns the mean of the y-values of a series.
+	 *
+	 * @param series  the index of the series
+	 * @return        the mean of the y-values of the series
+	 * @see           LSLR#getMean()
+	 */
+	public double getMean(int series)
+	{
+		return fMeans[series];
+	}
+
+	/**
+	 * Returns the standard deviation of the y-values of a series.
+	 *
+	 * @param series  the index of the series
+	 * @return        the standard deviation of the y-values of the series
+	 * @see           LSLR#getStandardDeviation()
+	 */
+	public double getStandardDeviation(int series)
+	{
+		return fStandardDeviations[series];
+	}
+
+	/**
+	 * Returns the standard deviation of the residuals of a series.
+	 *
+	 * @param series  the index of the series
+	 * @return        the standard deviation of the residuals of the series
+	 * @see           LSLR#getResidualStandardDeviation()
+	 */
+	public double getResidualStandardDeviation(int series)
+	{
+		return fResidualStandardDeviations[series];
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param series  -
+	 * @param x       -
+	 * @param y       -
+	 * @param offset  -
+	 */
+	private void fitSeries(int series, double[] x, DoubleBuffer y, int offset)
+	{
+		BivariateAccumulator accumulator = new BivariateAccumulator();
+		double[] xBlock = new double[Math.min(fSeriesLength,kBlockSize)];
+		double[] yBlock = new double[xBlock.length];
+		for (int blockStart = 0; blockStart < fSeriesLength; blockStart += kBlockSize) {
+			int blockSize = Math.min(fSeriesLength - blockStart,kBlockSize);
+			if (x != null) {
+				System.arraycopy(x,blockStart,xBlock,0,blockSize);
+			}
+			for (int i = 0; i < blockSize; ++i) {
+				if (x == null) {
+					xBlock[i] = blockStart + i;
+				}
+				yBlock[i] = y.get(offset + blockStart + i);
+			}
+			accumulator.add(xBlock,yBlock,0,blockSize);
+		}
+
+		LSLR lslr = new LSLR();
+		lslr.setData(accumulator);
+		fSuccess[series] = lslr.isSuccessful();
+		fSlopes[series] = lslr.getSlope();
+		fIntercepts[series] = lslr.getIntercept();
+		fMeans[series] = lslr.getMean();
+		fStandardDeviations[series] = lslr.getStandardDeviation();
+		fResidualStandardDeviations[series] = lslr.getResidualStandardDeviation();
+	}
+}
@@ -1,12 +1,12 @@
 // ------------------------------
 // Filename      : LSLR.java
 // Author        : Sven Maerivoet
-// Last modified : 05/05/2014
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // ------------------------------
 
 /**
- * Copyright 2003-2015 Sven Maerivoet
+ * Copyright 2003-2015, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,14 +24,16 @@
 package org.sm.smtools.math.lslr;
 
 import java.awt.geom.*;
+import java.nio.*;
 import java.util.*;
-import org.sm.smtools.math.*;
+import org.sm.smtools.math.statistics.*;
 
 /**
  * The <CODE>LSLR</CODE> class offers <I>least squares linear regression</I> for 2D data.
  * <P>
  * The 2D data consists of a {@link ArrayList} of <CODE>Point2D.Double</CODE> objects (which contain
- * x and y values). The least squares linear regression (LSLR) will be calculated as follows:
+ * x and y values), of two primitive arrays of x and y values, or of a <CODE>DoubleBuffer</CODE> of
+ * interleaved x and y values. The least squares linear regression (LSLR) will be calculated as follows:
  * <UL>
  *   <LI>y = (<B>slope</B> * x) + <B>intercept</B></LI>
  * </UL>
@@ -39,7 +41,12 @@ import org.sm.smtools.math.*;
 z* <IMG src="doc-files/lslr.png" alt="">
  * <P>
  * Along with the LSLR, this class also calculates the <B>mean</B> and the <B>standard
- * deviation</B> of the y values.
+ * deviation</B> of the y values, as well as the standard deviation of the residuals.
+ * <P>
+ * All quantities are derived from the means and the sums of squared (cross-)deviations of the x and y values, which
+ * are tracked by a {@link BivariateAccumulator} in a single, numerically stable pass over the data (without any
+ * per-point allocation for the primitive data sources). Data points can also be added one at a time via
+ * {@link LSLR#add(double,double)}, after which the LSLR is updated in O(1).
  * <P>
  * <I>Note that an application should check whether or not the LSLR operation was successful,
  * using the {@link LSLR#isSuccessful} method.</I>
@@ -47,17 +54,18 @@ z* <IMG src="doc-files/lslr.png" alt="">
  * <B>Note that this class cannot be subclassed!</B>
  *
  * @author  Sven Maerivoet
- * @version 05/05/2014
+ * @version 16/10/2026
  */
 public final class LSLR
 {
 	// internal datastructures
-	private ArrayList<Point2D.Double> fDataPoints;
+	private BivariateAccumulator fAccumulator;
 	private boolean fSuccess;
 	private double fSlope;
 	private double fIntercept;
 	private double fMean;
 	private double fStandardDeviation;
+	private double fResidualStandardDeviation;
 
 	/****************
 	 * CONSTRUCTORS *
@@ -71,6 +79,7 @@ public final class LSLR
 	 */
 	public LSLR()
 	{
+		fAccumulator = new BivariateAccumulator();
 		clear();
 	}
 
@@ -89,9 +98,41 @@ public final class LSLR
 	 */
 	public LSLR(ArrayList<Point2D.Double> dataPoints)
 	{
+		this();
 		setDataPoints(dataPoints);
 	}
 
+	/**
+	 * Constructs an <CODE>LSLR</CODE> object with the given x and y values.
+	 * <P>
+	 * The <CODE>LSLR's</CODE> slope, intercept, mean and standard deviation
+	 * are available after the object's construction.
+	 * 
+	 * @param x  the array of x values
+	 * @param y  the array of y values (with the same length as the array of x values)
+	 * @see      LSLR#setData(double[],double[])
+	 */
+	public LSLR(double[] x, double[] y)
+	{
+		this();
+		setData(x,y);
+	}
+
+	/**
+	 * Constructs an <CODE>LSLR</CODE> object with the given interleaved x and y values.
+	 * <P>
+	 * The <CODE>LSLR's</CODE> slope, intercept, mean and standard deviation
+	 * are available after the object's construction.
+	 * 
+	 * @param xy  the buffer of interleaved x and y values (x<SUB>0</SUB>,y<SUB>0</SUB>,x<SUB>1</SUB>,y<SUB>1</SUB>,...)
+	 * @see       LSLR#setData(DoubleBuffer)
+	 */
+	public LSLR(DoubleBuffer xy)
+	{
+		this();
+		setData(xy);
+	}
+
 	/******************
 	 * PUBLIC METHODS *
 	 ******************/
@@ -110,7 +151,82 @@ public final class LSLR
 	public void setDataPoints(ArrayList<Point2D.Double> dataPoints)
 	{
 		clear();
-		fDataPoints = dataPoints;
+		if (dataPoints != null) {
+			for (Point2D.Double dataPoint : dataPoints) {
+				fAccumulator.add(dataPoint.x,dataPoint.y);
+			}
+		}
+		calcCoefficients();
+	}
+
+	/**
+	 * Uses the given x and y values to calculate the slope, intercept,
+	 * mean and standard deviation.
+	 * <P>
+	 * Note that both arrays should have the same number of values; if not, no data is used.
+	 *
+	 * @param x  the array of x values
+	 * @param y  the array of y values
+	 * @see      LSLR#getSlope()
+	 * @see      LSLR#getIntercept()
+	 * @see      LSLR#getMean()
+	 * @see      LSLR#getStandardDeviation()
+	 */
+	public void setData(double[] x, double[] y)
+	{
+		clear();
+		fAccumulator.add(x,y);
+		calcCoefficients();
+	}
+
+	/**
+	 * Uses the given interleaved x and y values to calculate the slope, intercept,
+	 * mean and standard deviation.
+	 * <P>
+	 * The values between the buffer's position and its limit are used, without changing the position.
+	 *
+	 * @param xy  the buffer of interleaved x and y values (x<SUB>0</SUB>,y<SUB>0</SUB>,x<SUB>1</SUB>,y<SUB>1</SUB>,...)
+	 * @see       LSLR#getSlope()
+	 * @see       LSLR#getIntercept()
+	 * @see       LSLR#getMean()
+	 * @see       LSLR#getStandardDeviation()
+	 */
+	public void setData(DoubleBuffer xy)
+	{
+		clear();
+		fAccumulator.add(xy);
+		calcCoefficients();
+	}
+
+	/**
+	 * Uses the sufficient statistics of the 2D-data points (i.e., their means and sums of squared (cross-)deviations)
+	 * to calculate the slope, intercept, mean and standard deviation.
+	 * <P>
+	 * The accumulator is copied, so that it can be changed afterwards without affecting this object.
+	 *
+	 * @param accumulator  the sufficient statistics of the 2D-data points
+	 * @see                LSLR#getSlope()
+	 * @see                LSLR#getIntercept()
+	 * @see                LSLR#getMean()
+	 * @see                LSLR#getStandardDeviation()
+	 */
+	public void setData(BivariateAccumulator accumulator)
+	{
+		clear();
+		fAccumulator.merge(accumulator);
+		calcCoefficients();
+	}
+
+	/**
+	 * Adds a single 2D-data point to the data used so far, and updates the slope, intercept,
+	 * mean and standard deviation in O(1).
+	 *
+	 * @param x  the x value of the data point
+	 * @param y  the y value of the data point
+	 */
+	public void add(double x, double y)
+	{
+		fAccumulator.add(x,y);
 		calcCoefficients();
 	}
 
@@ -119,12 +235,13 @@ public final class LSLR
 	 */
 	public void clear()
 	{
-		fDataPoints = null;
+		fAccumulator.clear();
 		fSuccess = false;
 		fSlope = 0.0;
 		fIntercept = 0.0;
 		fMean = 0.0;
 		fStandardDeviation = 0.0;
+		fResidualStandardDeviation = 0.0;
 	}
 
 	/**
@@ -143,6 +260,16 @@ public final class LSLR
 		return fSuccess;
 	}
 
+	/**
+	 * Returns the number of 2D-data points used.
+	 *
+	 * @return the number of 2D-data points used
+	 */
+	public long getN()
+	{
+		return fAccumulator.getN();
+	}
+
 	/**
 	 * Returns the slope of the LSLR operation on the 2D-data points expressed in radians.
 	 *
@@ -187,6 +314,18 @@ public final class LSLR
 		return fStandardDeviation;
 	}
 
+	/**
+	 * Returns the standard deviation of the residuals (i.e., the differences between the y-values of the 2D-data points and the fitted line),
+	 * using n - 2 degrees of freedom.
+	 *
+	 * @return the standard deviation of the residuals (or 0 if there are fewer than three 2D-data points)
+	 * @see    LSLR#getStandardDeviation()
+	 */
+	public double getResidualStandardDeviation()
+	{
+		return fResidualStandardDeviation;
+	}
+
 	/*******************
 	 * PRIVATE METHODS *
 	 *******************/
@@ -196,57 +335,38 @@ public final class LSLR
 	 */
 	private boolean calcCoefficients()
 	{
-		if (fDataPoints == null) {
-			return false;
-		}
+		fSuccess = false;
+		fSlope = 0.0;
+		fIntercept = 0.0;
+		fMean = 0.0;
+		fStandardDeviation = 0.0;
+		fResidualStandardDeviation = 0.0;
 
-		int n = fDataPoints.size();
+		long n = fAccumulator.getN();
 
 		if (n == 0) {
 			return false;
 		}
 
-		double sumOfX = 0.0;
-		for (int i = 0; i < n; ++i) {
-			sumOfX += fDataPoints.get(i).x;
-		}
-
-		double sumOfXSquared = 0.0;
-		for (int i = 0; i < n; ++i) {
-			sumOfXSquared += (fDataPoints.get(i).x * fDataPoints.get(i).x);
-		}
+		double sumOfSquaredXDeviations = fAccumulator.getXSumOfSquaredDeviations();
 
-		double sumOfY = 0.0;
-		for (int i = 0; i < n; ++i) {
-			sumOfY += fDataPoints.get(i).y;
-		}
-
-		double sumOfXY = 0.0;
-		for (int i = 0; i < n; ++i) {
-			sumOfXY += (fDataPoints.get(i).x * fDataPoints.get(i).y);
-		}
-
-		double nominator = (n * sumOfXY) - (sumOfX * sumOfY);
-		double denominator = (n * sumOfXSquared) - (sumOfX * sumOfX);
-
-		if (denominator == 0.0) {
+		if (sumOfSquaredXDeviations == 0.0) {
 			return false;
 		}
 
-		fSlope = nominator / denominator;
+		fSlope = fAccumulator.getSumOfCrossDeviations() / sumOfSquaredXDeviations;
 
-		fIntercept = (sumOfY - (fSlope * sumOfX)) / n;
+		fIntercept = fAccumulator.getMeanY() - (fSlope * fAccumulator.getMeanX());
 
-		fMean = sumOfY / n;
+		fMean = fAccumulator.getMeanY();
 
 		if (n >= 2) {
+			fStandardDeviation = Math.sqrt(fAccumulator.getYSumOfSquaredDeviations() / (n - 1));
+		}
 
-			double sum = 0.0;
-			for (int i = 0; i < n; ++i) {
-				sum += MathTools.sqr(fDataPoints.get(i).y - fMean);
-			}
-
-			fStandardDeviation = Math.sqrt(sum / (n - 1));
+		if (n >= 3) {
+			double sumOfSquaredResiduals = fAccumulator.getYSumOfSquaredDeviations() - (fSlope * fAccumulator.getSumOfCrossDeviations());
+			fResidualStandardDeviation = Math.sqrt(Math.max(0.0,sumOfSquaredResiduals) / (n - 2));
 		}
 
 		fSuccess = true;
@@ -0,0 +1,424 @@
+// ---------------------------------
+// Filename      : MultipleLSLR.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ---------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.lslr;
+
+/**
+ * The <CODE>MultipleLSLR</CODE> class offers (weighted) <I>multiple least squares linear regression</I>.
+ * <P>
+ * The data consists of <I>n</I> rows, each containing the values of <I>p</I> predictors x<SUB>1</SUB>, ..., x<SUB>p</SUB>, a response y and
+ * (optionally) a positive weight w. The predictors are stored row by row in a single primitive array (i.e., the value of predictor <I>j</I> in
+ * row <I>i</I> is found at index <I>i</I> &times; <I>p</I> + <I>j</I>). The regression will be calculated as follows:
+ * <UL>
+ *   <LI>y = <B>intercept</B> + (<B>&beta;<SUB>1</SUB></B> * x<SUB>1</SUB>) + ... + (<B>&beta;<SUB>p</SUB></B> * x<SUB>p</SUB>)</LI>
+ * </UL>
+ * minimising the weighted sum of the squared residuals; the intercept can be omitted (i.e., forced to zero).
+ * <P>
+ * The normal equations are set up by a {@link NormalEquationsAccumulator} (in cache-sized blocks, and in parallel over all available
+ * processor cores for large data sets), after which they are solved by means of a Cholesky decomposition. Note that when an intercept is fitted,
+ * the normal equations are formed from the deviations of the predictors from their means, which considerably improves their conditioning.
+ * Weights are interpreted as frequency weights, i.e., the degrees of freedom are based on the sum of the weights (which equals the number of rows
+ * in the unweighted case).
+ * <P>
+ * Along with the regression coefficients, this class also calculates the (weighted) <B>mean</B> and <B>standard deviation</B> of the responses,
+ * the standard deviation of the residuals and the coefficient of determination.
+ * <P>
+ * <I>Note that an application should check whether or not the regression was successful (it fails when there are too few rows or when the
+ * predictors are linearly dependent), using the {@link MultipleLSLR#isSuccessful} method.</I>
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     LSLR
+ * @see     PolynomialLSLR
+ */
+public final class MultipleLSLR
+{
+	// the number of rows above which the normal equations are set up in parallel
+	private static final int kParallelThreshold = 1 << 16;
+
+	// the relative size of a pivot in the Cholesky decomposition below which the predictors are considered to be linearly dependent
+	private static final double kSingularityTolerance = 1e-13;
+
+	// internal datastructures
+	private NormalEquationsAccumulator fAccumulator;
+	private boolean fFitIntercept;
+	private boolean fSuccess;
+	private double[] fCoefficients;
+	private double fIntercept;
+	private double fMean;
+	private double fStandardDeviation;
+	private double fResidualStandardDeviation;
+	private double fCoefficientOfDetermination;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>MultipleLSLR</CODE> object and performs an unweighted regression with intercept.
+	 *
+	 * @param x               the array containing the values of the predictors, row by row
+	 * @param nrOfPredictors  the number of predictors
+	 * @param y               the array containing the values of the response
+	 * @see                   MultipleLSLR#MultipleLSLR(double[],int,double[],double[],boolean)
+	 */
+	public MultipleLSLR(double[] x, int nrOfPredictors, double[] y)
+	{
+		this(x,nrOfPredictors,y,null,true);
+	}
+
+	/**
+	 * Constructs a <CODE>MultipleLSLR</CODE> object and performs a (weighted) regression.
+	 * <P>
+	 * Rows with a weight that is not positive are ignored. Note that the arrays should contain the same number of rows;
+	 * if not, the regression is not successful.
+	 *
+	 * @param x               the array containing the values of the predictors, row by row
+	 * @param nrOfPredictors  the number of predictors
+	 * @param y               the array containing the values of the response
+	 * @param weights         the array containing the weights of the rows (or <CODE>null</CODE> to use unit weights)
+	 * @param fitIntercept    a <CODE>boolean</CODE> indicating whether or not an intercept should be fitted
+	 */
+	public MultipleLSLR(double[] x, int nrOfPredictors, double[] y, double[] weights, boolean fitIntercept)
+	{
+		fAccumulator = new NormalEquationsAccumulator(nrOfPredictors);
+		fFitIntercept = fitIntercept;
+		if ((x != null) && (y != null) && (nrOfPredictors >= 1) && (x.length == (y.length * nrOfPredictors)) && ((weights == null) || (weights.length == y.length))) {
+			if (y.length >= kParallelThreshold) {
+				fAccumulator = NormalEquationsAccumulator.accumulateInParallel(x,y,weights,nrOfPredictors);
+			}
+			else {
+				fAccumulator.add(x,y,weights,0,y.length);
+			}
+		}
+		calcCoefficients();
+	}
+
+	/**
+	 * Constructs a <CODE>MultipleLSLR</CODE> object and performs a regression on the rows tracked by an accumulator.
+	 * <P>
+	 * The accumulator is copied, so it can safely be reused (and extended) afterwards.
+	 *
+	 * @param accumulator   the accumulator containing the sufficient statistics of the rows
+	 * @param fitIntercept  a <CODE>boolean</CODE> indicating whether or not an intercept should be fitted
+	 */
+	public MultipleLSLR(NormalEquationsAccumulator accumulator, boolean fitIntercept)
+	{
+		fAccumulator = new NormalEquationsAccumulator(accumulator);
+		fFitIntercept = fitIntercept;
+		calcCoefficients();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Returns whether or not the regression was successful.
+	 *
+	 * @return <CODE>true</CODE> if the regression was successful, <CODE>false</CODE> otherwise
+	 */
+	public boolean isSuccessful()
+	{
+		return fSuccess;
+	}
+
+	/**
+	 * Returns the number of rows that took part in the regression.
+	 *
+	 * @return the number of rows that took part in the regression
+	 */
+	public long getN()
+	{
+		return fAccumulator.getN();
+	}
+
+	/**
+	 * Returns the number of predictors.
+	 *
+	 * @return the number of predictors
+	 */
+	public int getNrOfPredictors()
+	{
+		return fAccumulator.getNrOfPredictors();
+	}
+
+	/**
+	 * Returns whether or not an intercept was fitted.
+	 *
+	 * @return <CODE>true</CODE> if an intercept was fitted, <CODE>false</CODE> if it was forced to zero
+	 */
+	public boolean isInterceptFitted()
+	{
+		return fFitIntercept;
+	}
+
+	/**
+	 * Returns a copy of the coefficients of the predictors.
+	 *
+	 * @return a copy of the coefficients of the predictors
+	 * @see    MultipleLSLR#getCoefficient(int)
+	 */
+	public double[] getCoefficients()
+	{
+		return fCoefficients.clone();
+	}
+
+	/**
+	 * Returns the coefficient of a predictor.
+	 *
+	 * @param j  the index of the predictor
+	 * @return   the coefficient of the predictor
+	 * @see      MultipleLSLR#getCoefficients()
+	 */
+	public double getCoefficient(int j)
+	{
+		return fCoefficients[j];
+	}
+
+	/**
+	 * Returns the intercept of the regression.
+	 *
+	 * @return the intercept of the regression (0 if no intercept was fitted)
+	 */
+	public double getIntercept()
+	{
+		return fIntercept;
+	}
+
+	/**
+	 * Evaluates the regression for a row of predictor values.
+	 *
+	 * @param x       the array containing the values of the predictors
+	 * @param offset  the index of the value of the first predictor in the array
+	 * @return        the predicted value of the response
+	 */
+	public double predict(double[] x, int offset)
+	{
+		double prediction = fIntercept;
+		for (int j = 0; j < fCoefficients.length; ++j) {
+			prediction += (fCoefficients[j] * x[offset + j]);
+		}
+		return prediction;
+	}
+
+	/**
+	 * Returns the (weighted) mean of the responses.
+	 *
+	 * @return the (weighted) mean of the responses
+	 * @see    MultipleLSLR#getStandardDeviation()
+	 */
+	public double getMean()
+	{
+		return fMean;
+	}
+
+	/**
+	 * Returns the (weighted) standard deviation of the responses.
+	 *
+	 * @return the (weighted) standard deviation of the responses
+	 * @see    MultipleLSLR#getMean()
+	 */
+	public double getStandardDeviation()
+	{
+		return fStandardDeviation;
+	}
+
+	/**
+	 * Returns the standard deviation of the residuals, using as degrees of freedom the sum of the weights minus the number of fitted coefficients
+	 * (including the intercept).
+	 *
+	 * @return the standard deviation of the residuals (or 0 if there are no degrees of freedom left)
+	 * @see    MultipleLSLR#getStandardDeviation()
+	 */
+	public double getResidualStandardDeviation()
+	{
+		return fResidualStandardDeviation;
+	}
+
+	/**
+	 * Returns the coefficient of determination (R<SUP>2</SUP>), i.e., the fraction of the variation of the responses that is explained by the
+	 * regression.
+	 * <P>
+	 * When no intercept is fitted, the variation is measured around zero instead of around the mean of the responses.
+	 *
+	 * @return the coefficient of determination (or 0 if the responses show no variation)
+	 */
+	public double getCoefficientOfDetermination()
+	{
+		return fCoefficientOfDetermination;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @return -
+	 */
+	private boolean calcCoefficients()
+	{
+		int p = fAccumulator.getNrOfPredictors();
+		fSuccess = false;
+		fCoefficients = new double[p];
+		fIntercept = 0.0;
+		fMean = 0.0;
+		fStandardDeviation = 0.0;
+		fResidualStandardDeviation = 0.0;
+		fCoefficientOfDetermination = 0.0;
+
+		int nrOfParameters = p + (fFitIntercept ? 1 : 0);
+		if (fAccumulator.getN() < nrOfParameters) {
+			return false;
+		}
+
+		// set up the normal equations (centred when an intercept is fitted)
+		double[] a = new double[p * p];
+		double[] b = new double[p];
+		for (int j = 0; j < p; ++j) {
+			for (int k = j; k < p; ++k) {
+				a[(j * p) + k] = (fFitIntercept ? fAccumulator.getCoMoment(j,k) : fAccumulator.getCrossProduct(j,k));
+			}
+			b[j] = (fFitIntercept ? fAccumulator.getCoMoment(j,p) : fAccumulator.getCrossProduct(j,p));
+		}
+		double sumOfSquares = (fFitIntercept ? fAccumulator.getCoMoment(p,p) : fAccumulator.getCrossProduct(p,p));
+
+		if (!solveCholesky(a,b,p)) {
+			return false;
+		}
+
+		System.arraycopy(b,0,fCoefficients,0,p);
+
+		if (fFitIntercept) {
+			fIntercept = fAccumulator.getMean(p);
+			for (int j = 0; j < p; ++j) {
+				fIntercept -= (fCoefficients[j] * fAccumulator.getMean(j));
+			}
+		}
+
+		fMean = fAccumulator.getMean(p);
+
+		double sumOfWeights = fAccumulator.getSumOfWeights();
+		if (sumOfWeights > 1.0) {
+			fStandardDeviation = Math.sqrt(fAccumulator.getCoMoment(p,p) / (sumOfWeights - 1.0));
+		}
+
+		// the explained sum of squares follows from the normal equations
+		double explainedSumOfSquares = 0.0;
+		for (int j = 0; j < p; ++j) {
+			explainedSumOfSquares += (fCoefficients[j] * (fFitIntercept ? fAccumulator.getCoMoment(j,p) : fAccumulator.getCrossProduct(j,p)));
+		}
+		double sumOfSquaredResiduals = Math.max(0.0,sumOfSquares - explainedSumOfSquares);
+
+		if (sumOfWeights > nrOfParameters) {
+			fResidualStandardDeviation = Math.sqrt(sumOfSquaredResiduals / (sumOfWeights - nrOfParameters));
+		}
+
+		if (sumOfSquares > 0.0) {
+			fCoefficientOfDetermination = Math.max(0.0,1.0 - (sumOfSquaredResiduals / sumOfSquares));
+		}
+
+		fSuccess = true;
+
+		return true;
+	}
+
+	/**
+	 * Solves the symmetric system a x = b in place (only the upper triangle of a is used, and overwritten with the Cholesky factor).
+	 * <P>
+	 * The system is first scaled symmetrically by the square roots of the diagonal elements, so that the singularity test is independent
+	 * of the units of the predictors.
+	 *
+	 * @param a  -
+	 * @param b  - (overwritten with the solution)
+	 * @param p  -
+	 * @return   -
+	 */
+	private static boolean solveCholesky(double[] a, double[] b, int p)
+	{
+		// scale the system to unit diagonal
+		double[] scales = new double[p];
+		for (int j = 0; j < p; ++j) {
+			double diagonal = a[(j * p) + j];
+			if (!(diagonal > 0.0) || Double.isInfinite(diagonal)) {
+				return false;
+			}
+			scales[j] = 1.0 / Math.sqrt(diagonal);
+		}
+		for (int j = 0; j < p; ++j) {
+			for (int k = j; k < p; ++k) {
+				a[(j * p) + k] *= (scales[j] * scales[k]);
+			}
+			b[j] *= scales[j];
+		}
+
+		// factorise a = r^T r (r upper triangular, stored in the upper triangle of a)
+		for (int j = 0; j < p; ++j) {
+			int rowOffset = j * p;
+			double pivot = a[rowOffset + j];
+			for (int i = 0; i < j; ++i) {
+				double r = a[(i * p) + j];
+				pivot -= (r * r);
+			}
+			if (!(pivot > kSingularityTolerance)) {
+				return false;
+			}
+			pivot = Math.sqrt(pivot);
+			a[rowOffset + j] = pivot;
+			for (int k = j + 1; k < p; ++k) {
+				double value = a[rowOffset + k];
+				for (int i = 0; i < j; ++i) {
+					value -= (a[(i * p) + j] * a[(i * p) + k]);
+				}
+				a[rowOffset + k] = value / pivot;
+			}
+		}
+
+		// forward substitution (r^T z = b)
+		for (int j = 0; j < p; ++j) {
+			double value = b[j];
+			for (int i = 0; i < j; ++i) {
+				value -= (a[(i * p) + j] * b[i]);
+			}
+			b[j] = value / a[(j * p) + j];
+		}
+
+		// backward substitution (r x = z)
+		for (int j = p - 1; j >= 0; --j) {
+			double value = b[j];
+			for (int k = j + 1; k < p; ++k) {
+				value -= (a[(j * p) + k] * b[k]);
+			}
+			b[j] = value / a[(j * p) + j];
+		}
+
+		// undo the scaling
+		for (int j = 0; j < p; ++j) {
+			b[j] *= scales[j];
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,458 @@
+// -----------------------------------------------
+// Filename      : NormalEquationsAccumulator.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -----------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.lslr;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * The <CODE>NormalEquationsAccumulator</CODE> class offers an incremental (online) means to track the sufficient statistics of a (weighted) multiple
+ * least squares regression, i.e., of the normal equations (X<SUP>T</SUP>WX) &beta; = X<SUP>T</SUP>Wy.
+ * <P>
+ * Each row consists of the values of <I>p</I> predictors, a response and a (positive) weight. Instead of the raw cross-products, the accumulator
+ * tracks the weighted means of the predictors and the response, together with the matrix of their weighted sums of cross-deviations from these
+ * means (i.e., the multivariate generalisation of {@link org.sm.smtools.math.statistics.BivariateAccumulator}). The raw cross-products (required
+ * for a regression without intercept) are recovered from the means.
+ * <P>
+ * Arrays of rows are processed in blocks whose number of rows shrinks as the number of predictors grows, each block being added to the matrix
+ * as a sequence of rank-one updates. Accumulators built on separate shards of the data can be merged in any order via
+ * {@link NormalEquationsAccumulator#merge(NormalEquationsAccumulator)}; the accumulator is serialisable.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     MultipleLSLR
+ */
+public final class NormalEquationsAccumulator implements Serializable
+{
+	// the version of the serialised form
+	private static final long serialVersionUID = 1L;
+
+	// the number of values (of predictors and responses) that are processed as one block
+	private static final int kBlockSize = 4096;
+
+	// the number of blocks below which a parallel task is no longer split
+	private static final int kParallelGranularity = 16;
+
+	// internal datastructures
+	private int fNrOfPredictors;
+	private int fDimension;
+	private long fN;
+	private double fSumOfWeights;
+	private double[] fMeans;
+	private double[] fCoMoments;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>NormalEquationsAccumulator</CODE> object for a specified number of predictors.
+	 *
+	 * @param nrOfPredictors  the number of predictors (clipped to at least 1)
+	 */
+	public NormalEquationsAccumulator(int nrOfPredictors)
+	{
+		fNrOfPredictors = Math.max(1,nrOfPredictors);
+		fDimension = fNrOfPredictors + 1;
+		fMeans = new double[fDimension];
+		fCoMoments = new double[fDimension * fDimension];
+		clear();
+	}
+
+	/**
+	 * Constructs a <CODE>NormalEquationsAccumulator</CODE> object as a copy of another <CODE>NormalEquationsAccumulator</CODE> object.
+	 * <P>
+	 * This is the <B>copy constructor</B>.
+	 *
+	 * @param normalEquationsAccumulator  the <CODE>NormalEquationsAccumulator</CODE> object to deep copy
+	 */
+	public NormalEquationsAccumulator(NormalEquationsAccumulator normalEquationsAccumulator)
+	{
+		fNrOfPredictors = normalEquationsAccumulator.fNrOfPredictors;
+		fDimension = normalEquationsAccumulator.fDimension;
+		fN = normalEquationsAccumulator.fN;
+		fSumOfWeights = normalEquationsAccumulator.fSumOfWeights;
+		fMeans = normalEquationsAccumulator.fMeans.clone();
+		fCoMoments = normalEquationsAccumulator.fCoMoments.clone();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Clears the accumulator.
+	 */
+	public void clear()
+	{
+		fN = 0;
+		fSumOfWeights = 0.0;
+		for (int i = 0; i < fDimension; ++i) {
+			fMeans[i] = 0.0;
+		}
+		for (int i = 0; i < fCoMoments.length; ++i) {
+			fCoMoments[i] = 0.0;
+		}
+	}
+
+	/**
+	 * Returns the number of predictors.
+	 *
+	 * @return the number of predictors
+	 */
+	public int getNrOfPredictors()
+	{
+		return fNrOfPredictors;
+	}
+
+	/**
+	 * Adds a single row to the accumulator.
+	 *
+	 * @param x       the array containing the values of the predictors
+	 * @param offset  the index of the value of the first predictor in the array
+	 * @param y       the value of the response
+	 * @param weight  the weight of the row (rows with a weight that is not positive are ignored)
+	 */
+	public void add(double[] x, int offset, double y, double weight)
+	{
+		if (!(weight > 0.0)) {
+			return;
+		}
+
+		++fN;
+		fSumOfWeights += weight;
+		double fraction = weight / fSumOfWeights;
+
+		// deviations from the old and from the new means
+		double[] deltas = new double[fDimension];
+		double[] newDeltas = new double[fDimension];
+		for (int j = 0; j < fDimension; ++j) {
+			double value = ((j < fNrOfPredictors) ? x[offset + j] : y);
+			deltas[j] = value - fMeans[j];
+			fMeans[j] += (fraction * deltas[j]);
+			newDeltas[j] = value - fMeans[j];
+		}
+		for (int j = 0; j < fDimension; ++j) {
+			double weightedDelta = weight * deltas[j];
+			int rowOffset = j * fDimension;
+			for (int k = j; k < fDimension; ++k) {
+				fCoMoments[rowOffset + k] += (weightedDelta * newDeltas[k]);
+			}
+		}
+	}
+
+	/**
+	 * Adds the rows in the range <CODE>[fromRow,toRow[</CODE> to the accumulator.
+	 * <P>
+	 * The values of the predictors are stored row by row in a single array (i.e., the value of predictor <I>j</I> in row <I>i</I> is found at
+	 * index <I>i</I> &times; <I>p</I> + <I>j</I>).
+	 *
+	 * @param x        the array containing the values of the predictors, row by row
+	 * @param y        the array containing the values of the response
+	 * @param weights  the array containing the weights of the rows (or <CODE>null</CODE> to use unit weights)
+	 * @param fromRow  the index of the first row to add (inclusive)
+	 * @param toRow    the index of the last row to add (exclusive)
+	 */
+	public void add(double[] x, double[] y, double[] weights, int fromRow, int toRow)
+	{
+		int nrOfRowsPerBlock = getNrOfRowsPerBlock(fDimension);
+		for (int blockStart = fromRow; blockStart < toRow; blockStart += nrOfRowsPerBlock) {
+			merge(accumulateBlock(fNrOfPredictors,x,y,weights,blockStart,Math.min(toRow,blockStart + nrOfRowsPerBlock)));
+		}
+	}
+
+	/**
+	 * Merges the sufficient statistics of another accumulator into this one.
+	 * <P>
+	 * The result is the same (up to rounding) as if all rows of the other accumulator had been added to this one. Both accumulators
+	 * should have the same number of predictors; if not, nothing is merged.
+	 *
+	 * @param other  the accumulator to merge into this one
+	 */
+	public void merge(NormalEquationsAccumulator other)
+	{
+		if ((other == null) || (other.fN == 0) || (other.fNrOfPredictors != fNrOfPredictors)) {
+			return;
+		}
+
+		if (fN == 0) {
+			fN = other.fN;
+			fSumOfWeights = other.fSumOfWeights;
+			System.arraycopy(other.fMeans,0,fMeans,0,fDimension);
+			System.arraycopy(other.fCoMoments,0,fCoMoments,0,fCoMoments.length);
+			return;
+		}
+
+		double sumOfWeights = fSumOfWeights + other.fSumOfWeights;
+		double fraction = other.fSumOfWeights / sumOfWeights;
+		double weight = fSumOfWeights * fraction;
+		double[] deltas = new double[fDimension];
+		for (int j = 0; j < fDimension; ++j) {
+			deltas[j] = other.fMeans[j] - fMeans[j];
+			fMeans[j] += (fraction * deltas[j]);
+		}
+		for (int j = 0; j < fDimension; ++j) {
+			double weightedDelta = weight * deltas[j];
+			int rowOffset = j * fDimension;
+			for (int k = j; k < fDimension; ++k) {
+				fCoMoments[rowOffset + k] += other.fCoMoments[rowOffset + k] + (weightedDelta * deltas[k]);
+			}
+		}
+		fN += other.fN;
+		fSumOfWeights = sumOfWeights;
+	}
+
+	/**
+	 * Returns the number of rows that were added (excluding the ignored ones).
+	 *
+	 * @return the number of rows that were added
+	 */
+	public long getN()
+	{
+		return fN;
+	}
+
+	/**
+	 * Returns the sum of the weights of the rows that were added.
+	 *
+	 * @return the sum of the weights of the rows that were added
+	 */
+	public double getSumOfWeights()
+	{
+		return fSumOfWeights;
+	}
+
+	/**
+	 * Returns the weighted mean of a predictor or of the response.
+	 *
+	 * @param j  the index of the predictor, or <I>p</I> for the response
+	 * @return   the weighted mean of the predictor or of the response
+	 */
+	public double getMean(int j)
+	{
+		return fMeans[j];
+	}
+
+	/**
+	 * Returns the weighted sum of the cross-deviations from their means of two predictors (or of a predictor and the response).
+	 *
+	 * @param j  the index of the first predictor, or <I>p</I> for the response
+	 * @param k  the index of the second predictor, or <I>p</I> for the response
+	 * @return   the weighted sum of the cross-deviations from their means
+	 */
+	public double getCoMoment(int j, int k)
+	{
+		return ((j <= k) ? fCoMoments[(j * fDimension) + k] : fCoMoments[(k * fDimension) + j]);
+	}
+
+	/**
+	 * Returns the weighted sum of the raw cross-products of two predictors (or of a predictor and the response), i.e., an element of
+	 * X<SUP>T</SUP>WX (or X<SUP>T</SUP>Wy).
+	 *
+	 * @param j  the index of the first predictor, or <I>p</I> for the response
+	 * @param k  the index of the second predictor, or <I>p</I> for the response
+	 * @return   the weighted sum of the raw cross-products
+	 */
+	public double getCrossProduct(int j, int k)
+	{
+		return (getCoMoment(j,k) + (fSumOfWeights * fMeans[j] * fMeans[k]));
+	}
+
+	/******************
+	 * STATIC METHODS *
+	 ******************/
+
+	/**
+	 * Accumulates all rows in parallel, in the same way as {@link org.sm.smtools.math.statistics.MomentAccumulator#accumulateInParallel(double[])}.
+	 * <P>
+	 * Note that the arrays should contain the same number of rows; if not, an empty accumulator is returned.
+	 *
+	 * @param x               the array containing the values of the predictors, row by row
+	 * @param y               the array containing the values of the response
+	 * @param weights         the array containing the weights of the rows (or <CODE>null</CODE> to use unit weights)
+	 * @param nrOfPredictors  the number of predictors
+	 * @return                an accumulator containing the sufficient statistics of all rows
+	 * @see                   NormalEquationsAccumulator#add(double[],double[],double[],int,int)
+	 */
+	public static NormalEquationsAccumulator accumulateInParallel(double[] x, double[] y, double[] weights, int nrOfPredictors)
+	{
+		NormalEquationsAccumulator accumulator = new NormalEquationsAccumulator(nrOfPredictors);
+		if ((x == null) || (y == null) || (x.length != (y.length * accumulator.fNrOfPredictors)) || ((weights != null) && (weights.length != y.length))) {
+			return accumulator;
+		}
+
+		int parallelGranularity = kParallelGranularity * getNrOfRowsPerBlock(accumulator.fDimension);
+		return (new AccumulationTask(accumulator.fNrOfPredictors,x,y,weights,0,y.length,parallelGranularity)).invoke();
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param dimension  -
+	 * @return           -
+	 */
+	private static int getNrOfRowsPerBlock(int dimension)
+	{
+		return Math.max(1,kBlockSize / dimension);
+	}
+
+	/**
+	 * @param nrOfPredictors  -
+	 * @param x               -
+	 * @param y               -
+	 * @param weights         -
+	 * @param fromRow         -
+	 * @param toRow           -
+	 * @return                -
+	 */
+	private static NormalEquationsAccumulator accumulateBlock(int nrOfPredictors, double[] x, double[] y, double[] weights, int fromRow, int toRow)
+	{
+		NormalEquationsAccumulator block = new NormalEquationsAccumulator(nrOfPredictors);
+		int dimension = block.fDimension;
+
+		// first pass: weighted means (shifted by the first row with a positive weight, so that constant values lead to exactly zero deviations)
+		double[] shifts = null;
+		double[] sums = new double[dimension];
+		double sumOfWeights = 0.0;
+		long n = 0;
+		for (int i = fromRow; i < toRow; ++i) {
+			double weight = ((weights != null) ? weights[i] : 1.0);
+			if (!(weight > 0.0)) {
+				continue;
+			}
+			int rowOffset = i * nrOfPredictors;
+			if (shifts == null) {
+				shifts = new double[dimension];
+				System.arraycopy(x,rowOffset,shifts,0,nrOfPredictors);
+				shifts[nrOfPredictors] = y[i];
+			}
+			for (int j = 0; j < nrOfPredictors; ++j) {
+				sums[j] += (weight * (x[rowOffset + j] - shifts[j]));
+			}
+			sums[nrOfPredictors] += (weight * (y[i] - shifts[nrOfPredictors]));
+			sumOfWeights += weight;
+			++n;
+		}
+		if (n == 0) {
+			return block;
+		}
+		for (int j = 0; j < dimension; ++j) {
+			block.fMeans[j] = shifts[j] + (sums[j] / sumOfWeights);
+		}
+
+		// second pass: weighted sums of cross-deviations, as rank-one updates of the upper triangle
+		double[] deltas = new double[dimension];
+		double[] coMoments = block.fCoMoments;
+		for (int i = fromRow; i < toRow; ++i) {
+			double weight = ((weights != null) ? weights[i] : 1.0);
+			if (!(weight > 0.0)) {
+				continue;
+			}
+			int rowOffset = i * nrOfPredictors;
+			for (int j = 0; j < nrOfPredictors; ++j) {
+				deltas[j] = x[rowOffset + j] - block.fMeans[j];
+			}
+			deltas[nrOfPredictors] = y[i] - block.fMeans[nrOfPredictors];
+			for (int j = 0; j < dimension; ++j) {
+				double weightedDelta = weight * deltas[j];
+				int coMomentOffset = j * dimension;
+				for (int k = j; k < dimension; ++k) {
+					coMoments[coMomentOffset + k] += (weightedDelta * deltas[k]);
+				}
+			}
+		}
+
+		block.fN = n;
+		block.fSumOfWeights = sumOfWeights;
+		return block;
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * Recursively splits the accumulation of a range of rows over the fork/join pool.
+	 */
+	private static final class AccumulationTask extends RecursiveTask<NormalEquationsAccumulator>
+	{
+		// the version of the serialised form
+		private static final long serialVersionUID = 1L;
+
+		// internal datastructures
+		private final int fNrOfPredictors;
+		private final double[] fX;
+		private final double[] fY;
+		private final double[] fWeights;
+		private final int fFromRow;
+		private final int fToRow;
+		private final int fParallelGranularity;
+
+		/**
+		 * @param nrOfPredictors       -
+		 * @param x                    -
+		 * @param y                    -
+		 * @param weights              -
+		 * @param fromRow              -
+		 * @param toRow                -
+		 * @param parallelGranularity  -
+		 */
+		public AccumulationTask(int nrOfPredictors, double[] x, double[] y, double[] weights, int fromRow, int toRow, int parallelGranularity)
+		{
+			fNrOfPredictors = nrOfPredictors;
+			fX = x;
+			fY = y;
+			fWeights = weights;
+			fFromRow = fromRow;
+			fToRow = toRow;
+			fParallelGranularity = parallelGranularity;
+		}
+
+		/**
+		 * @return -
+		 */
+		@Override
+		protected NormalEquationsAccumulator compute()
+		{
+			if ((fToRow - fFromRow) <= fParallelGranularity) {
+				NormalEquationsAccumulator accumulator = new NormalEquationsAccumulator(fNrOfPredictors);
+				accumulator.add(fX,fY,fWeights,fFromRow,fToRow);
+				return accumulator;
+			}
+
+			int middle = (fFromRow + fToRow) >>> 1;
+			AccumulationTask leftTask = new AccumulationTask(fNrOfPredictors,fX,fY,fWeights,fFromRow,middle,fParallelGranularity);
+			AccumulationTask rightTask = new AccumulationTask(fNrOfPredictors,fX,fY,fWeights,middle,fToRow,fParallelGranularity);
+			leftTask.fork();
+			NormalEquationsAccumulator accumulator = rightTask.compute();
+			NormalEquationsAccumulator leftAccumulator = leftTask.join();
+			leftAccumulator.merge(accumulator);
+			return leftAccumulator;
+		}
+	}
+}
@@ -0,0 +1,328 @@
+// -----------------------------------
+// Filename      : PolynomialLSLR.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -----------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.lslr;
+
+import java.util.stream.*;
+
+/**
+ * The <CODE>PolynomialLSLR</CODE> class offers (weighted) <I>least squares polynomial regression</I> for 2D data.
+ * <P>
+ * The 2D data consists of two primitive arrays of x and y values (and optionally an array of positive weights). The regression of
+ * a degree <I>d</I> will be calculated as follows:
+ * <UL>
+ *   <LI>y = <B>c<SUB>0</SUB></B> + (<B>c<SUB>1</SUB></B> * x) + (<B>c<SUB>2</SUB></B> * x<SUP>2</SUP>) + ... + (<B>c<SUB>d</SUB></B> * x<SUP>d</SUP>)</LI>
+ * </UL>
+ * <P>
+ * The polynomial is fitted as a {@link MultipleLSLR} with the powers of x as predictors. In order to keep the normal equations well
+ * conditioned, the x values are first mapped linearly onto the interval [-1,1], and the powers are generated on the fly in cache-sized
+ * blocks (so the design matrix is never materialised as a whole); for large data sets, the blocks are processed in parallel over all
+ * available processor cores. The fitted polynomial should preferably be evaluated with {@link PolynomialLSLR#evaluate(double)}, which works
+ * directly in the mapped variable; the coefficients returned by {@link PolynomialLSLR#getCoefficients()} are converted to powers of x,
+ * which can lose accuracy for high degrees when the x values lie far from the origin.
+ * <P>
+ * <I>Note that an application should check whether or not the regression was successful (it fails when there are fewer distinct x values
+ * than coefficients), using the {@link PolynomialLSLR#isSuccessful} method.</I>
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     LSLR
+ * @see     MultipleLSLR
+ */
+public final class PolynomialLSLR
+{
+	// the number of rows that are generated as one block
+	private static final int kBlockSize = 1024;
+
+	// the number of rows above which the blocks are processed in parallel
+	private static final int kParallelThreshold = 1 << 16;
+
+	// internal datastructures
+	private int fDegree;
+	private double fCentre;
+	private double fHalfRange;
+	private MultipleLSLR fRegression;
+	private double[] fScaledCoefficients;
+	private double[] fCoefficients;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>PolynomialLSLR</CODE> object and performs an unweighted polynomial regression.
+	 *
+	 * @param x       the array containing the x values
+	 * @param y       the array containing the y values
+	 * @param degree  the degree of the polynomial (clipped to at least 1)
+	 * @see           PolynomialLSLR#PolynomialLSLR(double[],double[],double[],int)
+	 */
+	public PolynomialLSLR(double[] x, double[] y, int degree)
+	{
+		this(x,y,null,degree);
+	}
+
+	/**
+	 * Constructs a <CODE>PolynomialLSLR</CODE> object and performs a (weighted) polynomial regression.
+	 * <P>
+	 * Points with a weight that is not positive are ignored. Note that the arrays should have the same length;
+	 * if not, the regression is not successful.
+	 *
+	 * @param x        the array containing the x values
+	 * @param y        the array containing the y values
+	 * @param weights  the array containing the weights of the points (or <CODE>null</CODE> to use unit weights)
+	 * @param degree   the degree of the polynomial (clipped to at least 1)
+	 */
+	public PolynomialLSLR(double[] x, double[] y, double[] weights, int degree)
+	{
+		fDegree = Math.max(1,degree);
+		fCentre = 0.0;
+		fHalfRange = 1.0;
+
+		NormalEquationsAccumulator accumulator = new NormalEquationsAccumulator(fDegree);
+		if ((x != null) && (y != null) && (x.length == y.length) && ((weights == null) || (weights.length == y.length))) {
+			calcMapping(x,weights);
+			int n = x.length;
+			int nrOfBlocks = (n + kBlockSize - 1) / kBlockSize;
+			if (n >= kParallelThreshold) {
+				NormalEquationsAccumulator[] blockAccumulators = new NormalEquationsAccumulator[nrOfBlocks];
+				IntStream.range(0,nrOfBlocks).parallel().forEach(block -> blockAccumulators[block] = accumulateBlock(x,y,weights,block * kBlockSize,Math.min(n,(block + 1) * kBlockSize)));
+				for (NormalEquationsAccumulator blockAccumulator : blockAccumulators) {
+					accumulator.merge(blockAccumulator);
+				}
+			}
+			else {
+				for (int block = 0; block < nrOfBlocks; ++block) {
+					accumulator.merge(accumulateBlock(x,y,weights,block * kBlockSize,Math.min(n,(block + 1) * kBlockSize)));
+				}
+			}
+		}
+
+		fRegression = new MultipleLSLR(accumulator,true);
+		calcCoefficients();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Returns whether or not the polynomial regression was successful.
+	 *
+	 * @return <CODE>true</CODE> if the polynomial regression was successful, <CODE>false</CODE> otherwise
+	 */
+	public boolean isSuccessful()
+	{
+		return fRegression.isSuccessful();
+	}
+
+	/**
+	 * Returns the number of points that took part in the polynomial regression.
+	 *
+	 * @return the number of points that took part in the polynomial regression
+	 */
+	public long getN()
+	{
+		return fRegression.getN();
+	}
+
+	/**
+	 * Returns the degree of the polynomial.
+	 *
+	 * @return the degree of the polynomial
+	 */
+	public int getDegree()
+	{
+		return fDegree;
+	}
+
+	/**
+	 * Returns a copy of the coefficients c<SUB>0</SUB>, ..., c<SUB>d</SUB> of the polynomial (in increasing powers of x).
+	 *
+	 * @return a copy of the coefficients of the polynomial
+	 * @see    PolynomialLSLR#getCoefficient(int)
+	 */
+	public double[] getCoefficients()
+	{
+		return fCoefficients.clone();
+	}
+
+	/**
+	 * Returns the coefficient of a power of x.
+	 *
+	 * @param power  the power of x
+	 * @return       the coefficient of the power of x
+	 * @see          PolynomialLSLR#getCoefficients()
+	 */
+	public double getCoefficient(int power)
+	{
+		return fCoefficients[power];
+	}
+
+	/**
+	 * Evaluates the fitted polynomial.
+	 *
+	 * @param x  the x value to evaluate the polynomial at
+	 * @return   the value of the polynomial at x
+	 */
+	public double evaluate(double x)
+	{
+		double t = (x - fCentre) / fHalfRange;
+		double value = fScaledCoefficients[fDegree];
+		for (int k = fDegree - 1; k >= 0; --k) {
+			value = (value * t) + fScaledCoefficients[k];
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the (weighted) mean of the y values.
+	 *
+	 * @return the (weighted) mean of the y values
+	 * @see    PolynomialLSLR#getStandardDeviation()
+	 */
+	public double getMean()
+	{
+		return fRegression.getMean();
+	}
+
+	/**
+	 * Returns the (weighted) standard deviation of the y values.
+	 *
+	 * @return the (weighted) standard deviation of the y values
+	 * @see    PolynomialLSLR#getMean()
+	 */
+	public double getStandardDeviation()
+	{
+		return fRegression.getStandardDeviation();
+	}
+
+	/**
+	 * Returns the standard deviation of the residuals, using as degrees of freedom the sum of the weights minus d + 1.
+	 *
+	 * @return the standard deviation of the residuals (or 0 if there are no degrees of freedom left)
+	 * @see    PolynomialLSLR#getStandardDeviation()
+	 */
+	public double getResidualStandardDeviation()
+	{
+		return fRegression.getResidualStandardDeviation();
+	}
+
+	/**
+	 * Returns the coefficient of determination (R<SUP>2</SUP>), i.e., the fraction of the variation of the y values that is explained by the
+	 * polynomial.
+	 *
+	 * @return the coefficient of determination (or 0 if the y values show no variation)
+	 */
+	public double getCoefficientOfDetermination()
+	{
+		return fRegression.getCoefficientOfDetermination();
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Maps the range of the x values (of the points with a positive weight) onto [-1,1].
+	 *
+	 * @param x        -
+	 * @param weights  -
+	 */
+	private void calcMapping(double[] x, double[] weights)
+	{
+		double xMin = Double.POSITIVE_INFINITY;
+		double xMax = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < x.length; ++i) {
+			if ((weights == null) || (weights[i] > 0.0)) {
+				xMin = Math.min(xMin,x[i]);
+				xMax = Math.max(xMax,x[i]);
+			}
+		}
+		if (xMax > xMin) {
+			fCentre = (xMin + xMax) / 2.0;
+			fHalfRange = (xMax - xMin) / 2.0;
+		}
+	}
+
+	/**
+	 * @param x        -
+	 * @param y        -
+	 * @param weights  -
+	 * @param fromRow  -
+	 * @param toRow    -
+	 * @return         -
+	 */
+	private NormalEquationsAccumulator accumulateBlock(double[] x, double[] y, double[] weights, int fromRow, int toRow)
+	{
+		int nrOfRows = toRow - fromRow;
+		double[] powers = new double[nrOfRows * fDegree];
+		for (int i = 0; i < nrOfRows; ++i) {
+			double t = (x[fromRow + i] - fCentre) / fHalfRange;
+			double power = t;
+			int rowOffset = i * fDegree;
+			for (int k = 0; k < fDegree; ++k) {
+				powers[rowOffset + k] = power;
+				power *= t;
+			}
+		}
+		double[] blockY = new double[nrOfRows];
+		System.arraycopy(y,fromRow,blockY,0,nrOfRows);
+		double[] blockWeights = null;
+		if (weights != null) {
+			blockWeights = new double[nrOfRows];
+			System.arraycopy(weights,fromRow,blockWeights,0,nrOfRows);
+		}
+
+		NormalEquationsAccumulator accumulator = new NormalEquationsAccumulator(fDegree);
+		accumulator.add(powers,blockY,blockWeights,0,nrOfRows);
+		return accumulator;
+	}
+
+	/**
+	 * Derives the coefficients of the polynomial from those of the underlying regression.
+	 */
+	private void calcCoefficients()
+	{
+		// coefficients in the mapped variable t = (x - centre) / half range
+		fScaledCoefficients = new double[fDegree + 1];
+		fScaledCoefficients[0] = fRegression.getIntercept();
+		for (int k = 1; k <= fDegree; ++k) {
+			fScaledCoefficients[k] = fRegression.getCoefficient(k - 1);
+		}
+
+		// convert to powers of x by evaluating the polynomial in t = (alpha * x) + beta with Horner's scheme on the coefficients
+		double alpha = 1.0 / fHalfRange;
+		double beta = -fCentre / fHalfRange;
+		fCoefficients = new double[fDegree + 1];
+		fCoefficients[0] = fScaledCoefficients[fDegree];
+		for (int k = fDegree - 1; k >= 0; --k) {
+			for (int m = fDegree - k; m >= 1; --m) {
+				fCoefficients[m] = (fCoefficients[m] * beta) + (fCoefficients[m - 1] * alpha);
+			}
+			fCoefficients[0] = (fCoefficients[0] * beta) + fScaledCoefficients[k];
+		}
+	}
+}
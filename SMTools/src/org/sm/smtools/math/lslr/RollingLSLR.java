@@ -0,0 +1,275 @@
+// --------------------------------
+// Filename      : RollingLSLR.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// --------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.lslr;
+
+import org.sm.smtools.math.statistics.*;
+
+/**
+ * The <CODE>RollingLSLR</CODE> class offers a <I>least squares linear regression</I> over a sliding window of the most recent 2D-data points
+ * (e.g., for detecting trends in a time series).
+ * <P>
+ * The window holds at most a fixed number <I>K</I> of data points in primitive ring buffers; once it is full, adding a data point evicts the oldest one.
+ * The sufficient statistics (means and sums of squared (cross-)deviations) are kept current by a {@link BivariateAccumulator}, to which each data point
+ * is added and from which each evicted data point is removed in O(1). The statistics are re-accumulated from the ring buffers when a
+ * {@link ReaccumulationMonitor} of the variances of the x and y values requires so.
+ * <P>
+ * The slope, intercept, mean, standard deviation and residual standard deviation are derived from the statistics by an {@link LSLR} object
+ * (on the first query after an update), so that they are calculated exactly as for an <CODE>LSLR</CODE> over the data points in the window.
+ * <P>
+ * <I>Note that an application should check whether or not the LSLR operation was successful,
+ * using the {@link RollingLSLR#isSuccessful} method.</I>
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     LSLR
+ * @see     BatchLSLR
+ */
+public final class RollingLSLR
+{
+	// internal datastructures
+	private double[] fXRingBuffer;
+	private double[] fYRingBuffer;
+	private int fOldestIndex;
+	private int fN;
+	private BivariateAccumulator fAccumulator;
+	private ReaccumulationMonitor fReaccumulationMonitor;
+	private LSLR fLSLR;
+	private boolean fLSLRUpToDate;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>RollingLSLR</CODE> object with a specified window size.
+	 *
+	 * @param windowSize  the maximum number of (most recent) data points in the window
+	 */
+	public RollingLSLR(int windowSize)
+	{
+		fXRingBuffer = new double[Math.max(1,windowSize)];
+		fYRingBuffer = new double[fXRingBuffer.length];
+		fAccumulator = new BivariateAccumulator();
+		fReaccumulationMonitor = new ReaccumulationMonitor(fXRingBuffer.length,2);
+		fLSLR = new LSLR();
+		clear();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Adds a data point to the window, evicting the oldest data point if the window is full.
+	 *
+	 * @param x  the x value of the data point
+	 * @param y  the y value of the data point
+	 */
+	public void add(double x, double y)
+	{
+		int windowSize = fXRingBuffer.length;
+		if (fN == windowSize) {
+			// evict the oldest data point
+			fAccumulator.remove(fXRingBuffer[fOldestIndex],fYRingBuffer[fOldestIndex]);
+			fOldestIndex = (fOldestIndex + 1) % windowSize;
+			--fN;
+			fReaccumulationMonitor.registerEviction();
+		}
+
+		int index = (fOldestIndex + fN) % windowSize;
+		fXRingBuffer[index] = x;
+		fYRingBuffer[index] = y;
+		++fN;
+		fAccumulator.add(x,y);
+
+		fReaccumulationMonitor.update(0,fAccumulator.getXSumOfSquaredDeviations());
+		fReaccumulationMonitor.update(1,fAccumulator.getYSumOfSquaredDeviations());
+		if (fReaccumulationMonitor.isReaccumulationNeeded()) {
+			accumulate();
+		}
+
+		fLSLRUpToDate = false;
+	}
+
+	/**
+	 * Adds all data points in two arrays to the window (in the order of the arrays), evicting the oldest data points if necessary.
+	 * <P>
+	 * Note that both arrays should have the same number of values; if not, nothing is added.
+	 *
+	 * @param x  the array of x values
+	 * @param y  the array of y values
+	 */
+	public void addAll(double[] x, double[] y)
+	{
+		if ((x == null) || (y == null) || (x.length != y.length)) {
+			return;
+		}
+
+		for (int i = 0; i < x.length; ++i) {
+			add(x[i],y[i]);
+		}
+	}
+
+	/**
+	 * Clears the window.
+	 */
+	public void clear()
+	{
+		fOldestIndex = 0;
+		fN = 0;
+		fAccumulator.clear();
+		fReaccumulationMonitor.clear();
+		fLSLRUpToDate = false;
+	}
+
+	/**
+	 * Returns the window size, i.e., the maximum number of data points in the window.
+	 *
+	 * @return the window size
+	 */
+	public int getWindowSize()
+	{
+		return fXRingBuffer.length;
+	}
+
+	/**
+	 * Returns whether or not the window is full, i.e., whether or not adding a data point evicts the oldest one.
+	 *
+	 * @return <CODE>true</CODE> if the window is full, <CODE>false</CODE> otherwise
+	 */
+	public boolean isFull()
+	{
+		return (fN == fXRingBuffer.length);
+	}
+
+	/**
+	 * Returns the number of data points in the window.
+	 *
+	 * @return the number of data points in the window
+	 */
+	public int getN()
+	{
+		return fN;
+	}
+
+	/**
+	 * Returns whether or not the LSLR operation on the data points in the window was successful.
+	 *
+	 * @return <CODE>true</CODE> if the LSLR operation was successful, <CODE>false</CODE> if it failed
+	 * @see    LSLR#isSuccessful()
+	 */
+	public boolean isSuccessful()
+	{
+		return getLSLR().isSuccessful();
+	}
+
+	/**
+	 * Returns the slope of the LSLR operation on the data points in the window.
+	 *
+	 * @return the slope of the LSLR operation on the data points in the window
+	 * @see    LSLR#getSlope()
+	 */
+	public double getSlope()
+	{
+		return getLSLR().getSlope();
+	}
+
+	/**
+	 * Returns the intercept of the LSLR operation on the data points in the window.
+	 *
+	 * @return the intercept of the LSLR operation on the data points in the window
+	 * @see    LSLR#getIntercept()
+	 */
+	public double getIntercept()
+	{
+		return getLSLR().getIntercept();
+	}
+
+	/**
+	 * Returns the mean of the y-values of the data points in the window.
+	 *
+	 * @return the mean of the y-values of the data points in the window
+	 * @see    LSLR#getMean()
+	 */
+	public double getMean()
+	{
+		return getLSLR().getMean();
+	}
+
+	/**
+	 * Returns the standard deviation of the y-values of the data points in the window.
+	 *
+	 * @return the standard deviation of the y-values of the data points in the window
+	 * @see    LSLR#getStandardDeviation()
+	 */
+	public double getStandardDeviation()
+	{
+		return getLSLR().getStandardDeviation();
+	}
+
+	/**
+	 * Returns the standard deviation of the residuals of the data points in the window.
+	 *
+	 * @return the standard deviation of the residuals of the data points in the window
+	 * @see    LSLR#getResidualStandardDeviation()
+	 */
+	public double getResidualStandardDeviation()
+	{
+		return getLSLR().getResidualStandardDeviation();
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Re-accumulates the sufficient statistics from the ring buffers, discarding the rounding errors of the removals.
+	 */
+	private void accumulate()
+	{
+		int windowSize = fXRingBuffer.length;
+		int firstPartEnd = Math.min(windowSize,fOldestIndex + fN);
+		fAccumulator.clear();
+		fAccumulator.add(fXRingBuffer,fYRingBuffer,fOldestIndex,firstPartEnd);
+		fAccumulator.add(fXRingBuffer,fYRingBuffer,0,fN - (firstPartEnd - fOldestIndex));
+		fReaccumulationMonitor.clear();
+		fReaccumulationMonitor.update(0,fAccumulator.getXSumOfSquaredDeviations());
+		fReaccumulationMonitor.update(1,fAccumulator.getYSumOfSquaredDeviations());
+	}
+
+	/**
+	 * @return -
+	 */
+	private LSLR getLSLR()
+	{
+		if (!fLSLRUpToDate) {
+			fLSLR.setData(fAccumulator);
+			fLSLRUpToDate = true;
+		}
+
+		return fLSLR;
+	}
+}
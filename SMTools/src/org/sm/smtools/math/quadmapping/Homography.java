@@ -0,0 +1,288 @@
+// -------------------------------
+// Filename      : Homography.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.quadmapping;
+
+import java.awt.geom.*;
+import java.util.stream.*;
+
+/**
+ * The <CODE>Homography</CODE> class represents a projective mapping of the plane by means of a 3x3 matrix in homogeneous coordinates.
+ * <P>
+ * Besides mapping single 2D-data points, this class offers batch mappings of whole arrays of coordinates (interleaved or split,
+ * single or double precision) into caller-provided output arrays, without allocating any objects per point. Large batches are split
+ * into chunks that are mapped in parallel over all available processor cores.
+ * <P>
+ * Objects of this class are immutable, and are used internally by {@link QuadMapping} and {@link QuadToQuadMapping}.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     QuadMapping
+ * @see     QuadToQuadMapping
+ */
+final class Homography
+{
+	// the number of points that are mapped as one chunk
+	private static final int kChunkSize = 4096;
+
+	// the number of points above which the chunks are mapped in parallel
+	private static final int kParallelThreshold = 1 << 15;
+
+	// internal datastructures
+	private final double fM00, fM01, fM02;
+	private final double fM10, fM11, fM12;
+	private final double fM20, fM21, fM22;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>Homography</CODE> object with the specified matrix (in row-major order).
+	 * <P>
+	 * As the matrix is only defined up to a scale factor, it is normalised so that its largest element (in absolute value) equals 1.
+	 *
+	 * @param m  the elements of the 3x3 matrix in row-major order
+	 */
+	Homography(double[] m)
+	{
+		double scale = 0.0;
+		for (int k = 0; k < 9; ++k) {
+			scale = Math.max(scale,Math.abs(m[k]));
+		}
+		scale = (((scale > 0.0) && !Double.isInfinite(scale)) ? (1.0 / scale) : 1.0);
+
+		fM00 = m[0] * scale;
+		fM01 = m[1] * scale;
+		fM02 = m[2] * scale;
+		fM10 = m[3] * scale;
+		fM11 = m[4] * scale;
+		fM12 = m[5] * scale;
+		fM20 = m[6] * scale;
+		fM21 = m[7] * scale;
+		fM22 = m[8] * scale;
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Returns the elements of the (normalised) matrix in row-major order.
+	 *
+	 * @return the elements of the matrix in row-major order
+	 */
+	double[] getMatrix()
+	{
+		return new double[] {fM00, fM01, fM02, fM10, fM11, fM12, fM20, fM21, fM22};
+	}
+
+	/**
+	 * Returns the homography that first applies another homography and then this one.
+	 *
+	 * @param other  the homography to apply first
+	 * @return       the composed homography
+	 */
+	Homography compose(Homography other)
+	{
+		double[] a = getMatrix();
+		double[] b = other.getMatrix();
+		double[] m = new double[9];
+		for (int row = 0; row < 3; ++row) {
+			for (int column = 0; column < 3; ++column) {
+				m[(row * 3) + column] = (a[row * 3] * b[column]) + (a[(row * 3) + 1] * b[3 + column]) + (a[(row * 3) + 2] * b[6 + column]);
+			}
+		}
+		return new Homography(m);
+	}
+
+	/**
+	 * Returns the homography with its sign chosen so that the homogeneous coordinate is positive at the specified 2D-data point.
+	 * <P>
+	 * Both signs represent the same mapping, but only with a consistent sign can points on either side of the horizon be told apart.
+	 *
+	 * @param x  the x coordinate of the 2D-data point (e.g., inside the quadrilateral that is mapped from)
+	 * @param y  the y coordinate of the 2D-data point
+	 * @return   the (possibly negated) homography
+	 */
+	Homography orient(double x, double y)
+	{
+		if (((fM20 * x) + (fM21 * y) + fM22) >= 0.0) {
+			return this;
+		}
+
+		double[] m = getMatrix();
+		for (int k = 0; k < m.length; ++k) {
+			m[k] = -m[k];
+		}
+		return new Homography(m);
+	}
+
+	/**
+	 * Maps a single 2D-data point.
+	 *
+	 * @param x  the x coordinate of the 2D-data point to map
+	 * @param y  the y coordinate of the 2D-data point to map
+	 * @return   the mapped 2D-data point
+	 */
+	Point2D.Double map(double x, double y)
+	{
+		double w = (fM20 * x) + (fM21 * y) + fM22;
+		return new Point2D.Double(((fM00 * x) + (fM01 * y) + fM02) / w,((fM10 * x) + (fM11 * y) + fM12) / w);
+	}
+
+	/**
+	 * Maps an array of interleaved (x,y) coordinates; the output array may be the same as the input array (with the same offset).
+	 *
+	 * @param src         the array containing the interleaved coordinates to map
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved mapped coordinates in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of points to map
+	 */
+	void map(double[] src, int srcOffset, double[] dst, int dstOffset, int nrOfPoints)
+	{
+		forEachChunk(nrOfPoints,(from,to) -> {
+			for (int k = from; k < to; ++k) {
+				int s = srcOffset + (2 * k);
+				int d = dstOffset + (2 * k);
+				double x = src[s];
+				double y = src[s + 1];
+				double w = (fM20 * x) + (fM21 * y) + fM22;
+				dst[d] = ((fM00 * x) + (fM01 * y) + fM02) / w;
+				dst[d + 1] = ((fM10 * x) + (fM11 * y) + fM12) / w;
+			}
+		});
+	}
+
+	/**
+	 * Maps an array of interleaved (x,y) coordinates in single precision (the calculations are performed in double precision);
+	 * the output array may be the same as the input array (with the same offset).
+	 *
+	 * @param src         the array containing the interleaved coordinates to map
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved mapped coordinates in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of points to map
+	 */
+	void map(float[] src, int srcOffset, float[] dst, int dstOffset, int nrOfPoints)
+	{
+		forEachChunk(nrOfPoints,(from,to) -> {
+			for (int k = from; k < to; ++k) {
+				int s = srcOffset + (2 * k);
+				int d = dstOffset + (2 * k);
+				double x = src[s];
+				double y = src[s + 1];
+				double w = (fM20 * x) + (fM21 * y) + fM22;
+				dst[d] = (float) (((fM00 * x) + (fM01 * y) + fM02) / w);
+				dst[d + 1] = (float) (((fM10 * x) + (fM11 * y) + fM12) / w);
+			}
+		});
+	}
+
+	/**
+	 * Maps split arrays of x and y coordinates; the output arrays may be the same as the input arrays.
+	 *
+	 * @param srcX        the array containing the x coordinates to map
+	 * @param srcY        the array containing the y coordinates to map
+	 * @param dstX        the array to store the mapped x coordinates in
+	 * @param dstY        the array to store the mapped y coordinates in
+	 * @param nrOfPoints  the number of points to map
+	 */
+	void map(double[] srcX, double[] srcY, double[] dstX, double[] dstY, int nrOfPoints)
+	{
+		forEachChunk(nrOfPoints,(from,to) -> {
+			for (int k = from; k < to; ++k) {
+				double x = srcX[k];
+				double y = srcY[k];
+				double w = (fM20 * x) + (fM21 * y) + fM22;
+				dstX[k] = ((fM00 * x) + (fM01 * y) + fM02) / w;
+				dstY[k] = ((fM10 * x) + (fM11 * y) + fM12) / w;
+			}
+		});
+	}
+
+	/**
+	 * Maps split arrays of x and y coordinates in single precision (the calculations are performed in double precision);
+	 * the output arrays may be the same as the input arrays.
+	 *
+	 * @param srcX        the array containing the x coordinates to map
+	 * @param srcY        the array containing the y coordinates to map
+	 * @param dstX        the array to store the mapped x coordinates in
+	 * @param dstY        the array to store the mapped y coordinates in
+	 * @param nrOfPoints  the number of points to map
+	 */
+	void map(float[] srcX, float[] srcY, float[] dstX, float[] dstY, int nrOfPoints)
+	{
+		forEachChunk(nrOfPoints,(from,to) -> {
+			for (int k = from; k < to; ++k) {
+				double x = srcX[k];
+				double y = srcY[k];
+				double w = (fM20 * x) + (fM21 * y) + fM22;
+				dstX[k] = (float) (((fM00 * x) + (fM01 * y) + fM02) / w);
+				dstY[k] = (float) (((fM10 * x) + (fM11 * y) + fM12) / w);
+			}
+		});
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param nrOfPoints  -
+	 * @param kernel      -
+	 */
+	private static void forEachChunk(int nrOfPoints, RangeKernel kernel)
+	{
+		if (nrOfPoints <= 0) {
+			return;
+		}
+
+		if (nrOfPoints < kParallelThreshold) {
+			kernel.apply(0,nrOfPoints);
+		}
+		else {
+			int nrOfChunks = (nrOfPoints + kChunkSize - 1) / kChunkSize;
+			IntStream.range(0,nrOfChunks).parallel().forEach(chunk -> kernel.apply(chunk * kChunkSize,Math.min(nrOfPoints,(chunk + 1) * kChunkSize)));
+		}
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * Maps the points in a range <CODE>[from,to[</CODE>.
+	 */
+	private interface RangeKernel
+	{
+		/**
+		 * @param from  -
+		 * @param to    -
+		 */
+		void apply(int from, int to);
+	}
+}
@@ -0,0 +1,454 @@
+// --------------------------------------
+// Filename      : PerspectiveWarper.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// --------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.quadmapping;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.stream.*;
+
+/**
+ * The <CODE>PerspectiveWarper</CODE> class applies a perspective mapping between two convex quadrilaterals to images.
+ * <P>
+ * The source quadrilateral (in pixel coordinates of the source image) is mapped onto the destination quadrilateral (in pixel coordinates
+ * of the destination image). Each destination pixel is mapped back into the source image (through a {@link QuadToQuadMapping}, precomposed
+ * into a single homography), where it is sampled using either nearest neighbour or bilinear interpolation; destination pixels that fall
+ * outside the source image receive a background colour. This allows for example a keystone correction of camera or projector images.
+ * <P>
+ * The warper works directly on packed 32-bit pixels (as <CODE>int[]</CODE> arrays, or on the <CODE>DataBufferInt</CODE> of an image's
+ * raster), without allocating any objects per pixel. Along each scanline the homogeneous source coordinates are stepped incrementally
+ * (by forward differencing, i.e., with three additions per pixel instead of a full matrix product), and the destination is split into tiles
+ * that are warped in parallel over all available processor cores.
+ * <P>
+ * Images whose pixels are not packed in integers, or whose type differs between source and destination, are converted on the fly; note
+ * that accessing the data buffer of an image directly may disable its hardware acceleration.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     Quadrilateral
+ * @see     QuadToQuadMapping
+ */
+public final class PerspectiveWarper
+{
+	/**
+	 * The different ways of sampling the source image.
+	 */
+	public static enum ESampling {
+		/**
+		 * The nearest source pixel is used.
+		 */
+		kNearestNeighbour,
+
+		/**
+		 * The four nearest source pixels are interpolated bilinearly (per 8-bit channel).
+		 */
+		kBilinear};
+
+	// the width and height of the tiles that are warped as one task
+	private static final int kTileSize = 64;
+
+	// the number of destination pixels above which the tiles are warped in parallel
+	private static final int kParallelThreshold = 1 << 16;
+
+	// internal datastructures
+	private QuadToQuadMapping fMapping;
+	private ESampling fSampling;
+	private int fBackgroundColor;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>PerspectiveWarper</CODE> object that maps the source quadrilateral onto the destination quadrilateral,
+	 * using bilinear sampling and a transparent black background.
+	 *
+	 * @param source       the quadrilateral in the source image
+	 * @param destination  the corresponding quadrilateral in the destination image
+	 * @see                PerspectiveWarper#setQuadrilaterals(Quadrilateral,Quadrilateral)
+	 */
+	public PerspectiveWarper(Quadrilateral source, Quadrilateral destination)
+	{
+		setQuadrilaterals(source,destination);
+		fSampling = ESampling.kBilinear;
+		fBackgroundColor = 0;
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Sets the quadrilaterals of the perspective mapping.
+	 *
+	 * @param source       the quadrilateral in the source image
+	 * @param destination  the corresponding quadrilateral in the destination image
+	 */
+	public void setQuadrilaterals(Quadrilateral source, Quadrilateral destination)
+	{
+		fMapping = new QuadToQuadMapping(source,destination);
+	}
+
+	/**
+	 * Returns the perspective mapping between the source and destination quadrilaterals.
+	 *
+	 * @return the perspective mapping between the source and destination quadrilaterals
+	 */
+	public QuadToQuadMapping getMapping()
+	{
+		return fMapping;
+	}
+
+	/**
+	 * Sets the way the source image is sampled.
+	 *
+	 * @param sampling  the way the source image is sampled
+	 */
+	public void setSampling(ESampling sampling)
+	{
+		fSampling = sampling;
+	}
+
+	/**
+	 * Returns the way the source image is sampled.
+	 *
+	 * @return the way the source image is sampled
+	 */
+	public ESampling getSampling()
+	{
+		return fSampling;
+	}
+
+	/**
+	 * Sets the colour (as a packed 32-bit pixel) of destination pixels that fall outside the source image.
+	 *
+	 * @param backgroundColor  the colour of destination pixels that fall outside the source image
+	 */
+	public void setBackgroundColor(int backgroundColor)
+	{
+		fBackgroundColor = backgroundColor;
+	}
+
+	/**
+	 * Returns the colour (as a packed 32-bit pixel) of destination pixels that fall outside the source image.
+	 *
+	 * @return the colour of destination pixels that fall outside the source image
+	 */
+	public int getBackgroundColor()
+	{
+		return fBackgroundColor;
+	}
+
+	/**
+	 * Warps a source image into a new destination image of the specified size (of the same type as the source image if its pixels are
+	 * packed in integers, or of type <CODE>TYPE_INT_ARGB</CODE> otherwise).
+	 *
+	 * @param source  the source image
+	 * @param width   the width of the destination image
+	 * @param height  the height of the destination image
+	 * @return        the warped destination image
+	 */
+	public BufferedImage warp(BufferedImage source, int width, int height)
+	{
+		int type = (isIntPacked(source) ? source.getType() : BufferedImage.TYPE_INT_ARGB);
+		BufferedImage destination = new BufferedImage(width,height,type);
+		warp(source,destination);
+		return destination;
+	}
+
+	/**
+	 * Warps a source image into a destination image.
+	 * <P>
+	 * The source and destination may be the same image (or share the same data buffer), in which case the source pixels are copied first.
+	 *
+	 * @param source       the source image
+	 * @param destination  the destination image
+	 */
+	public void warp(BufferedImage source, BufferedImage destination)
+	{
+		if ((source == null) || (destination == null)) {
+			return;
+		}
+
+		if (!isIntPacked(destination)) {
+			BufferedImage intDestination = new BufferedImage(destination.getWidth(),destination.getHeight(),BufferedImage.TYPE_INT_ARGB);
+			warp(source,intDestination);
+			Graphics2D g2D = destination.createGraphics();
+			g2D.setComposite(AlphaComposite.Src);
+			g2D.drawImage(intDestination,0,0,null);
+			g2D.dispose();
+			return;
+		}
+
+		if (!isIntPacked(source) || (source.getType() != destination.getType())) {
+			source = convert(source,destination.getType());
+		}
+
+		WritableRaster sourceRaster = source.getRaster();
+		WritableRaster destinationRaster = destination.getRaster();
+		warp(((DataBufferInt) sourceRaster.getDataBuffer()).getData(),getOffset(sourceRaster),getScanlineStride(sourceRaster),
+			sourceRaster.getWidth(),sourceRaster.getHeight(),
+			((DataBufferInt) destinationRaster.getDataBuffer()).getData(),getOffset(destinationRaster),getScanlineStride(destinationRaster),
+			destinationRaster.getWidth(),destinationRaster.getHeight());
+	}
+
+	/**
+	 * Warps a source image into a destination image, both given as arrays of packed 32-bit pixels (row by row, without padding).
+	 *
+	 * @param source             the pixels of the source image
+	 * @param sourceWidth        the width of the source image
+	 * @param sourceHeight       the height of the source image
+	 * @param destination        the array to store the pixels of the destination image in
+	 * @param destinationWidth   the width of the destination image
+	 * @param destinationHeight  the height of the destination image
+	 */
+	public void warp(int[] source, int sourceWidth, int sourceHeight, int[] destination, int destinationWidth, int destinationHeight)
+	{
+		warp(source,0,sourceWidth,sourceWidth,sourceHeight,destination,0,destinationWidth,destinationWidth,destinationHeight);
+	}
+
+	/**
+	 * Warps a source image into a destination image, both given as arrays of packed 32-bit pixels with an arbitrary offset and scanline stride.
+	 * <P>
+	 * Note that the dimensions of the source and destination images should be consistent with the lengths of their arrays; if not, nothing
+	 * is warped. The source and destination may share the same array, in which case the source pixels are copied first.
+	 *
+	 * @param source                     the pixels of the source image
+	 * @param sourceOffset               the index of the top-left pixel of the source image
+	 * @param sourceScanlineStride       the distance between the starts of two consecutive rows of the source image
+	 * @param sourceWidth                the width of the source image
+	 * @param sourceHeight               the height of the source image
+	 * @param destination                the array to store the pixels of the destination image in
+	 * @param destinationOffset          the index of the top-left pixel of the destination image
+	 * @param destinationScanlineStride  the distance between the starts of two consecutive rows of the destination image
+	 * @param destinationWidth           the width of the destination image
+	 * @param destinationHeight          the height of the destination image
+	 */
+	public void warp(int[] source, int sourceOffset, int sourceScanlineStride, int sourceWidth, int sourceHeight,
+		int[] destination, int destinationOffset, int destinationScanlineStride, int destinationWidth, int destinationHeight)
+	{
+		if ((source == null) || (destination == null) || (sourceWidth <= 0) || (sourceHeight <= 0) || (destinationWidth <= 0) || (destinationHeight <= 0)) {
+			return;
+		}
+		if ((sourceOffset < 0) || (sourceScanlineStride < sourceWidth) || ((sourceOffset + ((long) (sourceHeight - 1) * sourceScanlineStride) + sourceWidth) > source.length)) {
+			return;
+		}
+		if ((destinationOffset < 0) || (destinationScanlineStride < destinationWidth) || ((destinationOffset + ((long) (destinationHeight - 1) * destinationScanlineStride) + destinationWidth) > destination.length)) {
+			return;
+		}
+
+		// the homography maps destination pixels back into the source image; as it is oriented by the mapping to have a positive homogeneous
+		// coordinate inside the destination quadrilateral (also after the mapping has been changed), points with a negative one lie behind the horizon
+		double[] m = fMapping.getQuad2ToQuad1Homography().getMatrix();
+
+		// pixels that are already warped should not be read back (possibly by the tiles of other threads)
+		if (source == destination) {
+			source = source.clone();
+		}
+		PackedImage sourceImage = new PackedImage(source,sourceOffset,sourceScanlineStride,sourceWidth,sourceHeight);
+		PackedImage destinationImage = new PackedImage(destination,destinationOffset,destinationScanlineStride,destinationWidth,destinationHeight);
+		boolean bilinear = (fSampling == ESampling.kBilinear);
+		int backgroundColor = fBackgroundColor;
+
+		int nrOfTilesX = (destinationWidth + kTileSize - 1) / kTileSize;
+		int nrOfTilesY = (destinationHeight + kTileSize - 1) / kTileSize;
+		int nrOfTiles = nrOfTilesX * nrOfTilesY;
+		if (((long) destinationWidth * destinationHeight) < kParallelThreshold) {
+			for (int tile = 0; tile < nrOfTiles; ++tile) {
+				warpTile(m,sourceImage,destinationImage,(tile % nrOfTilesX) * kTileSize,(tile / nrOfTilesX) * kTileSize,bilinear,backgroundColor);
+			}
+		}
+		else {
+			IntStream.range(0,nrOfTiles).parallel().forEach(tile -> warpTile(m,sourceImage,destinationImage,(tile % nrOfTilesX) * kTileSize,(tile / nrOfTilesX) * kTileSize,bilinear,backgroundColor));
+		}
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Warps one tile of the destination image.
+	 *
+	 * @param m                 -
+	 * @param source            -
+	 * @param destination       -
+	 * @param tileX             -
+	 * @param tileY             -
+	 * @param bilinear          -
+	 * @param backgroundColor   -
+	 */
+	private static void warpTile(double[] m, PackedImage source, PackedImage destination, int tileX, int tileY, boolean bilinear, int backgroundColor)
+	{
+		int[] sourcePixels = source.fPixels;
+		int[] destinationPixels = destination.fPixels;
+		int sourceWidth = source.fWidth;
+		int sourceHeight = source.fHeight;
+		int xEnd = Math.min(destination.fWidth,tileX + kTileSize);
+		int yEnd = Math.min(destination.fHeight,tileY + kTileSize);
+
+		// bilinear sampling is relative to the centres of the source pixels
+		double shift = (bilinear ? 0.5 : 0.0);
+
+		for (int y = tileY; y < yEnd; ++y) {
+			// the homogeneous source coordinates of the centre of the first pixel of the scanline in this tile
+			double px = tileX + 0.5;
+			double py = y + 0.5;
+			double u = (m[0] * px) + (m[1] * py) + m[2];
+			double v = (m[3] * px) + (m[4] * py) + m[5];
+			double w = (m[6] * px) + (m[7] * py) + m[8];
+
+			int destinationIndex = destination.fOffset + (y * destination.fScanlineStride) + tileX;
+			for (int x = tileX; x < xEnd; ++x) {
+				int color = backgroundColor;
+				if (w > 0.0) {
+					double sx = u / w;
+					double sy = v / w;
+					if ((sx >= 0.0) && (sx < sourceWidth) && (sy >= 0.0) && (sy < sourceHeight)) {
+						if (bilinear) {
+							double fx = sx - shift;
+							double fy = sy - shift;
+							int x0 = (int) Math.floor(fx);
+							int y0 = (int) Math.floor(fy);
+							int wx = (int) ((fx - x0) * 256.0);
+							int wy = (int) ((fy - y0) * 256.0);
+							int x1 = Math.min(x0 + 1,sourceWidth - 1);
+							int y1 = Math.min(y0 + 1,sourceHeight - 1);
+							x0 = Math.max(x0,0);
+							y0 = Math.max(y0,0);
+							int row0 = source.fOffset + (y0 * source.fScanlineStride);
+							int row1 = source.fOffset + (y1 * source.fScanlineStride);
+							int top = interpolate(sourcePixels[row0 + x0],sourcePixels[row0 + x1],wx);
+							int bottom = interpolate(sourcePixels[row1 + x0],sourcePixels[row1 + x1],wx);
+							color = interpolate(top,bottom,wy);
+						}
+						else {
+							color = sourcePixels[source.fOffset + ((int) sy * source.fScanlineStride) + (int) sx];
+						}
+					}
+				}
+				destinationPixels[destinationIndex++] = color;
+
+				// forward differencing along the scanline
+				u += m[0];
+				v += m[3];
+				w += m[6];
+			}
+		}
+	}
+
+	/**
+	 * Linearly interpolates two packed 32-bit pixels per 8-bit channel (processing two channels at once).
+	 *
+	 * @param a         -
+	 * @param b         -
+	 * @param fraction  - (in [0,256])
+	 * @return          -
+	 */
+	private static int interpolate(int a, int b, int fraction)
+	{
+		int complement = 256 - fraction;
+		int redBlue = ((((a & 0x00FF00FF) * complement) + ((b & 0x00FF00FF) * fraction)) >>> 8) & 0x00FF00FF;
+		int alphaGreen = ((((a >>> 8) & 0x00FF00FF) * complement) + (((b >>> 8) & 0x00FF00FF) * fraction)) & 0xFF00FF00;
+		return (alphaGreen | redBlue);
+	}
+
+	/**
+	 * @param image  -
+	 * @return       -
+	 */
+	private static boolean isIntPacked(BufferedImage image)
+	{
+		WritableRaster raster = image.getRaster();
+		return ((raster.getDataBuffer() instanceof DataBufferInt) && (raster.getSampleModel() instanceof SinglePixelPackedSampleModel) && (raster.getNumBands() >= 3) && (image.getType() != BufferedImage.TYPE_CUSTOM));
+	}
+
+	/**
+	 * @param image  -
+	 * @param type   -
+	 * @return       -
+	 */
+	private static BufferedImage convert(BufferedImage image, int type)
+	{
+		BufferedImage converted = new BufferedImage(image.getWidth(),image.getHeight(),type);
+		Graphics2D g2D = converted.createGraphics();
+		g2D.setComposite(AlphaComposite.Src);
+		g2D.drawImage(image,0,0,null);
+		g2D.dispose();
+		return converted;
+	}
+
+	/**
+	 * @param raster  -
+	 * @return        -
+	 */
+	private static int getOffset(WritableRaster raster)
+	{
+		SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+		return (raster.getDataBuffer().getOffset() + sampleModel.getOffset(-raster.getSampleModelTranslateX(),-raster.getSampleModelTranslateY()));
+	}
+
+	/**
+	 * @param raster  -
+	 * @return        -
+	 */
+	private static int getScanlineStride(WritableRaster raster)
+	{
+		return ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * The pixels of an image, packed in integers.
+	 */
+	private static final class PackedImage
+	{
+		// internal datastructures
+		private final int[] fPixels;
+		private final int fOffset;
+		private final int fScanlineStride;
+		private final int fWidth;
+		private final int fHeight;
+
+		/**
+		 * @param pixels          -
+		 * @param offset          -
+		 * @param scanlineStride  -
+		 * @param width           -
+		 * @param height          -
+		 */
+		public PackedImage(int[] pixels, int offset, int scanlineStride, int width, int height)
+		{
+			fPixels = pixels;
+			fOffset = offset;
+			fScanlineStride = scanlineStride;
+			fWidth = width;
+			fHeight = height;
+		}
+	}
+}
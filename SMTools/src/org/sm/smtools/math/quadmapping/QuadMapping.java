@@ -1,12 +1,12 @@
 // --------------------------------
 // Filename      : QuadMapping.java
 // Author        : Sven Maerivoet
-// Last modified : 09/12/2004
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // --------------------------------
 
 /**
- * Copyright 2003-2015 Sven Maerivoet
+ * Copyright 2003-2015, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,12 +32,15 @@ import java.awt.geom.*;
  * <P>
  * <IMG src="doc-files/quad-mapping.png" alt="">
  * <P>
+ * Besides single 2D-data points, whole arrays of coordinates (interleaved or split, in single or double precision) can be mapped
+ * into caller-provided output arrays, without allocating any objects per point; large batches are mapped in parallel.
+ * <P>
  * Note: it is assumed that the X axis points to the right and the Y axis points upwards.
  * <P>
  * <B>Note that this class cannot be subclassed!</B>
  * 
  * @author  Sven Maerivoet
- * @version 09/12/2004
+ * @version 16/10/2026
  * @see     Quadrilateral
  * @see     QuadToQuadMapping
  */
@@ -46,6 +49,9 @@ public final class QuadMapping
 	// internal datastructures
 	private double a, b, c, d, e, f, g, h, i;
 	private double A, B, C, D, E, F, G, H, I;
+	private Homography fSquareToQuadrilateral;
+	private Homography fQuadrilateralToSquare;
+	private int fModificationCount;
 
 	/****************
 	 * CONSTRUCTORS *
@@ -102,6 +108,72 @@ public final class QuadMapping
 				/ ((g * u) + (h * v) + i));
 	}
 
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points from the normalised square to the quadrilateral.
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the normalised square
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the quadrilateral in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapSquareToQuadrilateral(double[] src, int srcOffset, double[] dst, int dstOffset, int nrOfPoints)
+	{
+		fSquareToQuadrilateral.map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points from the normalised square to the quadrilateral.
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param u           the array containing the x coordinates of the 2D-data points in the normalised square
+	 * @param v           the array containing the y coordinates of the 2D-data points in the normalised square
+	 * @param x           the array to store the x coordinates of the corresponding 2D-data points in the quadrilateral in
+	 * @param y           the array to store the y coordinates of the corresponding 2D-data points in the quadrilateral in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapSquareToQuadrilateral(double[] u, double[] v, double[] x, double[] y, int nrOfPoints)
+	{
+		fSquareToQuadrilateral.map(u,v,x,y,nrOfPoints);
+	}
+
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points from the normalised square to the quadrilateral (the calculations are performed in double precision).
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the normalised square
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the quadrilateral in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapSquareToQuadrilateral(float[] src, int srcOffset, float[] dst, int dstOffset, int nrOfPoints)
+	{
+		fSquareToQuadrilateral.map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points from the normalised square to the quadrilateral (the calculations are performed in double precision).
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param u           the array containing the x coordinates of the 2D-data points in the normalised square
+	 * @param v           the array containing the y coordinates of the 2D-data points in the normalised square
+	 * @param x           the array to store the x coordinates of the corresponding 2D-data points in the quadrilateral in
+	 * @param y           the array to store the y coordinates of the corresponding 2D-data points in the quadrilateral in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapSquareToQuadrilateral(float[] u, float[] v, float[] x, float[] y, int nrOfPoints)
+	{
+		fSquareToQuadrilateral.map(u,v,x,y,nrOfPoints);
+	}
+
 	/**
 	 * Inversely maps a 2D-data point in the quadrilateral to a 2D-data point in the normalised square.
 	 *
@@ -128,6 +200,102 @@ public final class QuadMapping
 				/ ((G * x) + (H * y) + I));
 	}
 
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points inversely from the quadrilateral to the normalised square.
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the quadrilateral
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the normalised square in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuadrilateralToSquare(double[] src, int srcOffset, double[] dst, int dstOffset, int nrOfPoints)
+	{
+		fQuadrilateralToSquare.map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points inversely from the quadrilateral to the normalised square.
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param x           the array containing the x coordinates of the 2D-data points in the quadrilateral
+	 * @param y           the array containing the y coordinates of the 2D-data points in the quadrilateral
+	 * @param u           the array to store the x coordinates of the corresponding 2D-data points in the normalised square in
+	 * @param v           the array to store the y coordinates of the corresponding 2D-data points in the normalised square in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuadrilateralToSquare(double[] x, double[] y, double[] u, double[] v, int nrOfPoints)
+	{
+		fQuadrilateralToSquare.map(x,y,u,v,nrOfPoints);
+	}
+
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points inversely from the quadrilateral to the normalised square (the calculations are performed in double precision).
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the quadrilateral
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the normalised square in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuadrilateralToSquare(float[] src, int srcOffset, float[] dst, int dstOffset, int nrOfPoints)
+	{
+		fQuadrilateralToSquare.map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points inversely from the quadrilateral to the normalised square (the calculations are performed in double precision).
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param x           the array containing the x coordinates of the 2D-data points in the quadrilateral
+	 * @param y           the array containing the y coordinates of the 2D-data points in the quadrilateral
+	 * @param u           the array to store the x coordinates of the corresponding 2D-data points in the normalised square in
+	 * @param v           the array to store the y coordinates of the corresponding 2D-data points in the normalised square in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuadrilateralToSquare(float[] x, float[] y, float[] u, float[] v, int nrOfPoints)
+	{
+		fQuadrilateralToSquare.map(x,y,u,v,nrOfPoints);
+	}
+
+	/**
+	 * Returns the perspective mapping from the normalised square to the quadrilateral as a homography.
+	 *
+	 * @return the perspective mapping from the normalised square to the quadrilateral
+	 */
+	Homography getSquareToQuadrilateralHomography()
+	{
+		return fSquareToQuadrilateral;
+	}
+
+	/**
+	 * Returns the perspective mapping from the quadrilateral to the normalised square as a homography.
+	 *
+	 * @return the perspective mapping from the quadrilateral to the normalised square
+	 */
+	Homography getQuadrilateralToSquareHomography()
+	{
+		return fQuadrilateralToSquare;
+	}
+
+	/**
+	 * Returns the number of times the quadrilateral of this mapping has been set, which allows derived mappings to detect changes.
+	 *
+	 * @return the number of times the quadrilateral of this mapping has been set
+	 */
+	int getModificationCount()
+	{
+		return fModificationCount;
+	}
+
 	/*******************
 	 * PRIVATE METHODS *
 	 *******************/
@@ -178,5 +346,9 @@ public final class QuadMapping
 		G = (d * h) - (e * g);
 		H = (b * g) - (a * h);
 		I = (a * e) - (b * d);
+
+		fSquareToQuadrilateral = new Homography(new double[] {a, b, c, d, e, f, g, h, i});
+		fQuadrilateralToSquare = new Homography(new double[] {A, B, C, D, E, F, G, H, I});
+		++fModificationCount;
 	}
 }
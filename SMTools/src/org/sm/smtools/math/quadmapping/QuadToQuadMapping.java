@@ -1,12 +1,12 @@
 // --------------------------------------
 // Filename      : QuadToQuadMapping.java
 // Author        : Sven Maerivoet
-// Last modified : 09/12/2004
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // --------------------------------------
 
 /**
- * Copyright 2003-2015 Sven Maerivoet
+ * Copyright 2003-2015, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,20 +32,25 @@ import java.awt.geom.*;
  * <P>
  * <IMG src="doc-files/quad-quad-mapping.png" alt="">
  * <P>
+ * Both perspective mappings are precomposed into a single homography (per direction), so that mapping a 2D-data point costs one
+ * projective transformation instead of two. The homographies are recomposed automatically whenever the quadrilateral of one of the
+ * underlying {@link QuadMapping} objects is changed. Besides single 2D-data points, whole arrays of coordinates (interleaved or split,
+ * in single or double precision) can be mapped into caller-provided output arrays, without allocating any objects per point; large
+ * batches are mapped in parallel.
+ * <P>
  * Note: it is assumed that the X axis points to the right and the Y axis points upwards.
  * <P>
  * <B>Note that this class cannot be subclassed!</B>
  * 
  * @author  Sven Maerivoet
- * @version 09/12/2004
+ * @version 16/10/2026
  * @see     Quadrilateral
  * @see     QuadMapping
  */
 public final class QuadToQuadMapping
 {
 	// internal datastructures
-	private QuadMapping fQuad1Mapping;
-	private QuadMapping fQuad2Mapping;
+	private volatile Composition fComposition;
 
 	/****************
 	 * CONSTRUCTORS *
@@ -89,8 +94,7 @@ public final class QuadToQuadMapping
 	 */
 	public void set(QuadMapping quad1Mapping, QuadMapping quad2Mapping)
 	{
-		fQuad1Mapping = quad1Mapping;
-		fQuad2Mapping = quad2Mapping;
+		fComposition = new Composition(quad1Mapping,quad2Mapping);
 	}
 
 	/**
@@ -113,7 +117,73 @@ public final class QuadToQuadMapping
 	 */
 	public Point2D.Double mapQuad1ToQuad2(double x, double y)
 	{
-		return fQuad2Mapping.mapSquareToQuadrilateral(fQuad1Mapping.mapQuadrilateralToSquare(x,y));
+		return getQuad1ToQuad2Homography().map(x,y);
+	}
+
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points in the first quadrilateral to the second quadrilateral.
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the first quadrilateral
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the second quadrilateral in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad1ToQuad2(double[] src, int srcOffset, double[] dst, int dstOffset, int nrOfPoints)
+	{
+		getQuad1ToQuad2Homography().map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points in the first quadrilateral to the second quadrilateral.
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param srcX        the array containing the x coordinates of the 2D-data points in the first quadrilateral
+	 * @param srcY        the array containing the y coordinates of the 2D-data points in the first quadrilateral
+	 * @param dstX        the array to store the x coordinates of the corresponding 2D-data points in the second quadrilateral in
+	 * @param dstY        the array to store the y coordinates of the corresponding 2D-data points in the second quadrilateral in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad1ToQuad2(double[] srcX, double[] srcY, double[] dstX, double[] dstY, int nrOfPoints)
+	{
+		getQuad1ToQuad2Homography().map(srcX,srcY,dstX,dstY,nrOfPoints);
+	}
+
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points in the first quadrilateral to the second quadrilateral (the calculations are performed in double precision).
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the first quadrilateral
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the second quadrilateral in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad1ToQuad2(float[] src, int srcOffset, float[] dst, int dstOffset, int nrOfPoints)
+	{
+		getQuad1ToQuad2Homography().map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points in the first quadrilateral to the second quadrilateral (the calculations are performed in double precision).
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param srcX        the array containing the x coordinates of the 2D-data points in the first quadrilateral
+	 * @param srcY        the array containing the y coordinates of the 2D-data points in the first quadrilateral
+	 * @param dstX        the array to store the x coordinates of the corresponding 2D-data points in the second quadrilateral in
+	 * @param dstY        the array to store the y coordinates of the corresponding 2D-data points in the second quadrilateral in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad1ToQuad2(float[] srcX, float[] srcY, float[] dstX, float[] dstY, int nrOfPoints)
+	{
+		getQuad1ToQuad2Homography().map(srcX,srcY,dstX,dstY,nrOfPoints);
 	}
 
 	/**
@@ -136,6 +206,165 @@ public final class QuadToQuadMapping
 	 */
 	public Point2D.Double mapQuad2ToQuad1(double x, double y)
 	{
-		return fQuad1Mapping.mapSquareToQuadrilateral(fQuad2Mapping.mapQuadrilateralToSquare(x,y));
+		return getQuad2ToQuad1Homography().map(x,y);
+	}
+
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points in the second quadrilateral to the first quadrilateral.
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the second quadrilateral
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the first quadrilateral in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad2ToQuad1(double[] src, int srcOffset, double[] dst, int dstOffset, int nrOfPoints)
+	{
+		getQuad2ToQuad1Homography().map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points in the second quadrilateral to the first quadrilateral.
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param srcX        the array containing the x coordinates of the 2D-data points in the second quadrilateral
+	 * @param srcY        the array containing the y coordinates of the 2D-data points in the second quadrilateral
+	 * @param dstX        the array to store the x coordinates of the corresponding 2D-data points in the first quadrilateral in
+	 * @param dstY        the array to store the y coordinates of the corresponding 2D-data points in the first quadrilateral in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad2ToQuad1(double[] srcX, double[] srcY, double[] dstX, double[] dstY, int nrOfPoints)
+	{
+		getQuad2ToQuad1Homography().map(srcX,srcY,dstX,dstY,nrOfPoints);
+	}
+
+	/**
+	 * Maps an array of interleaved coordinates of 2D-data points in the second quadrilateral to the first quadrilateral (the calculations are performed in double precision).
+	 * <P>
+	 * The output array may be the same as the input array (with the same offset); no objects are allocated per point, and large batches are
+	 * mapped in parallel.
+	 *
+	 * @param src         the array containing the interleaved (x,y) coordinates of the 2D-data points in the second quadrilateral
+	 * @param srcOffset   the index of the first coordinate in the input array
+	 * @param dst         the array to store the interleaved coordinates of the corresponding 2D-data points in the first quadrilateral in
+	 * @param dstOffset   the index of the first coordinate in the output array
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad2ToQuad1(float[] src, int srcOffset, float[] dst, int dstOffset, int nrOfPoints)
+	{
+		getQuad2ToQuad1Homography().map(src,srcOffset,dst,dstOffset,nrOfPoints);
+	}
+
+	/**
+	 * Maps split arrays of coordinates of 2D-data points in the second quadrilateral to the first quadrilateral (the calculations are performed in double precision).
+	 * <P>
+	 * The output arrays may be the same as the input arrays; no objects are allocated per point, and large batches are mapped in parallel.
+	 *
+	 * @param srcX        the array containing the x coordinates of the 2D-data points in the second quadrilateral
+	 * @param srcY        the array containing the y coordinates of the 2D-data points in the second quadrilateral
+	 * @param dstX        the array to store the x coordinates of the corresponding 2D-data points in the first quadrilateral in
+	 * @param dstY        the array to store the y coordinates of the corresponding 2D-data points in the first quadrilateral in
+	 * @param nrOfPoints  the number of 2D-data points to map
+	 */
+	public void mapQuad2ToQuad1(float[] srcX, float[] srcY, float[] dstX, float[] dstY, int nrOfPoints)
+	{
+		getQuad2ToQuad1Homography().map(srcX,srcY,dstX,dstY,nrOfPoints);
+	}
+
+	/**
+	 * Returns the homography that maps the first quadrilateral onto the second one, recomposing it if one of the perspective mappings has changed.
+	 * <P>
+	 * Its homogeneous coordinate is positive inside the first quadrilateral.
+	 *
+	 * @return the homography that maps the first quadrilateral onto the second one
+	 */
+	Homography getQuad1ToQuad2Homography()
+	{
+		return getComposition().fQuad1ToQuad2;
+	}
+
+	/**
+	 * Returns the homography that maps the second quadrilateral onto the first one, recomposing it if one of the perspective mappings has changed.
+	 * <P>
+	 * Its homogeneous coordinate is positive inside the second quadrilateral.
+	 *
+	 * @return the homography that maps the second quadrilateral onto the first one
+	 */
+	Homography getQuad2ToQuad1Homography()
+	{
+		return getComposition().fQuad2ToQuad1;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Returns the current composition, recomposing (and republishing) it if one of the perspective mappings has changed.
+	 *
+	 * @return -
+	 */
+	private Composition getComposition()
+	{
+		Composition composition = fComposition;
+		if (composition.isOutdated()) {
+			// a fully constructed composition replaces the outdated one in a single write
+			composition = new Composition(composition.fQuad1Mapping,composition.fQuad2Mapping);
+			fComposition = composition;
+		}
+		return composition;
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * The immutable precomposition of two perspective mappings into one homography per direction.
+	 */
+	private static final class Composition
+	{
+		// internal datastructures
+		private final QuadMapping fQuad1Mapping;
+		private final QuadMapping fQuad2Mapping;
+		private final int fQuad1ModificationCount;
+		private final int fQuad2ModificationCount;
+		private final Homography fQuad1ToQuad2;
+		private final Homography fQuad2ToQuad1;
+
+		/**
+		 * @param quad1Mapping  -
+		 * @param quad2Mapping  -
+		 */
+		public Composition(QuadMapping quad1Mapping, QuadMapping quad2Mapping)
+		{
+			fQuad1Mapping = quad1Mapping;
+			fQuad2Mapping = quad2Mapping;
+
+			// the modification counts are read before the homographies, so that a concurrent change at worst triggers another recomposition
+			fQuad1ModificationCount = quad1Mapping.getModificationCount();
+			fQuad2ModificationCount = quad2Mapping.getModificationCount();
+			Homography square1 = quad1Mapping.getSquareToQuadrilateralHomography();
+			Homography square2 = quad2Mapping.getSquareToQuadrilateralHomography();
+
+			// the sign of the homogeneous coordinate depends on the winding orders of the quadrilaterals, so each homography is oriented
+			// at the image of the centre of the unit square (which lies inside the quadrilateral it maps from)
+			Point2D.Double centre1 = square1.map(0.5,0.5);
+			Point2D.Double centre2 = square2.map(0.5,0.5);
+			fQuad1ToQuad2 = square2.compose(quad1Mapping.getQuadrilateralToSquareHomography()).orient(centre1.x,centre1.y);
+			fQuad2ToQuad1 = square1.compose(quad2Mapping.getQuadrilateralToSquareHomography()).orient(centre2.x,centre2.y);
+		}
+
+		/**
+		 * @return -
+		 */
+		public boolean isOutdated()
+		{
+			return ((fQuad1Mapping.getModificationCount() != fQuad1ModificationCount) || (fQuad2Mapping.getModificationCount() != fQuad2ModificationCount));
+		}
 	}
 }
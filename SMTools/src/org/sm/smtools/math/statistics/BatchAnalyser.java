@@ -0,0 +1,290 @@
+// ----------------------------------
+// Filename      : BatchAnalyser.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ----------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.sm.smtools.math.*;
+
+/**
+ * The <CODE>BatchAnalyser</CODE> class offers a means to analyse many {@link EmpiricalDistribution} objects (e.g., one per sensor) concurrently.
+ * <P>
+ * Each sample array is analysed in exactly the same way as a stand-alone distribution, i.e., via {@link EmpiricalDistribution#setData(double[])}
+ * (or {@link EmpiricalDistribution#setData(double[],int)}), followed by {@link EmpiricalDistribution#analyse()} and, optionally,
+ * {@link EmpiricalDistribution#estimateKDEPDF(MathTools.EKernelType,double,int,double,double,EmpiricalDistribution.EKDEMethod)}, so that the results
+ * are identical to those of a sequential analysis. The analyses are run on a dedicated work-stealing pool with a bounded number of threads; the
+ * parallel parts of a single analysis (for large samples) are run within the same pool.
+ * <P>
+ * To control the memory usage, only a limited number of distributions is in flight (i.e., is being analysed) at any time: the sample arrays are
+ * only taken from the supplied collection when a slot becomes available, so that they can be produced (e.g., read from disk) on demand. The results
+ * themselves are kept, so their footprint is best limited by means of an appropriate {@link EmpiricalDistribution.EMemoryMode}.
+ * <P>
+ * The distributions are returned in the same order as the sample arrays.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     EmpiricalDistribution
+ */
+public final class BatchAnalyser
+{
+	// internal datastructures
+	private int fParallelism;
+	private int fMaxNrOfDistributionsInFlight;
+	private EmpiricalDistribution.EMemoryMode fMemoryMode;
+	private int fNrOfHistogramBins;
+	private MathTools.EKernelType fKDEKernelType;
+	private int fKDENrOfSupportPoints;
+	private EmpiricalDistribution.EKDEMethod fKDEMethod;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>BatchAnalyser</CODE> object that uses all available processor cores, and that allows twice as many distributions in flight.
+	 */
+	public BatchAnalyser()
+	{
+		this(Runtime.getRuntime().availableProcessors(),2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a <CODE>BatchAnalyser</CODE> object with a specified number of threads and a maximum number of distributions in flight.
+	 * <P>
+	 * By default, the distributions use the standard memory mode, the optimal number of histogram bins, and no kernel density estimation.
+	 *
+	 * @param parallelism                   the number of threads to use (clipped to at least 1)
+	 * @param maxNrOfDistributionsInFlight  the maximum number of distributions that are analysed at the same time (clipped to at least 1)
+	 */
+	public BatchAnalyser(int parallelism, int maxNrOfDistributionsInFlight)
+	{
+		fParallelism = Math.max(1,parallelism);
+		fMaxNrOfDistributionsInFlight = Math.max(1,maxNrOfDistributionsInFlight);
+		fMemoryMode = EmpiricalDistribution.EMemoryMode.kStandard;
+		fNrOfHistogramBins = 0;
+		clearKDEPDFEstimation();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Returns the number of threads used.
+	 *
+	 * @return the number of threads used
+	 */
+	public int getParallelism()
+	{
+		return fParallelism;
+	}
+
+	/**
+	 * Returns the maximum number of distributions that are analysed at the same time.
+	 *
+	 * @return the maximum number of distributions that are analysed at the same time
+	 */
+	public int getMaxNrOfDistributionsInFlight()
+	{
+		return fMaxNrOfDistributionsInFlight;
+	}
+
+	/**
+	 * Sets the memory mode of the distributions.
+	 *
+	 * @param memoryMode  the memory mode of the distributions
+	 */
+	public void setMemoryMode(EmpiricalDistribution.EMemoryMode memoryMode)
+	{
+		fMemoryMode = memoryMode;
+	}
+
+	/**
+	 * Returns the memory mode of the distributions.
+	 *
+	 * @return the memory mode of the distributions
+	 */
+	public EmpiricalDistribution.EMemoryMode getMemoryMode()
+	{
+		return fMemoryMode;
+	}
+
+	/**
+	 * Sets a user-specified number of histogram bins for all distributions.
+	 *
+	 * @param nrOfHistogramBins  the user-specified number of histogram bins, or 0 to apply the Freedman-Diaconis rule
+	 */
+	public void setNrOfHistogramBins(int nrOfHistogramBins)
+	{
+		fNrOfHistogramBins = Math.max(0,nrOfHistogramBins);
+	}
+
+	/**
+	 * Returns the user-specified number of histogram bins.
+	 *
+	 * @return the user-specified number of histogram bins, or 0 if the Freedman-Diaconis rule is applied
+	 */
+	public int getNrOfHistogramBins()
+	{
+		return fNrOfHistogramBins;
+	}
+
+	/**
+	 * Enables the kernel density estimation (KDE) of the probability density function (PDF) for all distributions.
+	 * <P>
+	 * For each distribution, the bandwidth is calculated with {@link EmpiricalDistribution#calculateKDEPDFBandwidth(MathTools.EKernelType)},
+	 * and the support spans the range of the samples. Distributions with a zero range are not estimated.
+	 *
+	 * @param kernelType         the type of kernel function to use
+	 * @param nrOfSupportPoints  the number of (X,Y) values to use for the smoothened 1D function
+	 * @param kdeMethod          the method to use for the estimation
+	 */
+	public void setKDEPDFEstimation(MathTools.EKernelType kernelType, int nrOfSupportPoints, EmpiricalDistribution.EKDEMethod kdeMethod)
+	{
+		fKDEKernelType = kernelType;
+		fKDENrOfSupportPoints = nrOfSupportPoints;
+		fKDEMethod = kdeMethod;
+	}
+
+	/**
+	 * Disables the kernel density estimation (KDE) of the probability density function (PDF).
+	 */
+	public void clearKDEPDFEstimation()
+	{
+		fKDEKernelType = null;
+		fKDENrOfSupportPoints = 0;
+		fKDEMethod = EmpiricalDistribution.EKDEMethod.kExact;
+	}
+
+	/**
+	 * Analyses a number of sample arrays concurrently.
+	 *
+	 * @param samples  the sample arrays to analyse
+	 * @return         the analysed distributions, in the same order as the sample arrays, or <CODE>null</CODE> if the calling thread was interrupted
+	 * @see            BatchAnalyser#analyse(Iterable)
+	 */
+	public ArrayList<EmpiricalDistribution> analyse(double[][] samples)
+	{
+		if (samples == null) {
+			return (new ArrayList<EmpiricalDistribution>());
+		}
+
+		return analyse(Arrays.asList(samples));
+	}
+
+	/**
+	 * Analyses a number of sample arrays concurrently.
+	 * <P>
+	 * The sample arrays are taken from the collection (in iteration order) by the calling thread, which blocks as long as the maximum number of
+	 * distributions is in flight. A <CODE>null</CODE> sample array results in an empty distribution. If an analysis throws an exception, the remaining
+	 * analyses are cancelled and the exception is rethrown. If the calling thread is interrupted while waiting, the remaining analyses are cancelled,
+	 * the interrupt status is restored and <CODE>null</CODE> is returned.
+	 *
+	 * @param samples  the sample arrays to analyse
+	 * @return         the analysed distributions, in the same order as the sample arrays, or <CODE>null</CODE> if the calling thread was interrupted
+	 */
+	public ArrayList<EmpiricalDistribution> analyse(Iterable<double[]> samples)
+	{
+		ArrayList<EmpiricalDistribution> distributions = new ArrayList<EmpiricalDistribution>();
+		if (samples == null) {
+			return distributions;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(fParallelism);
+		Semaphore slots = new Semaphore(fMaxNrOfDistributionsInFlight);
+		ArrayList<ForkJoinTask<EmpiricalDistribution>> tasks = new ArrayList<ForkJoinTask<EmpiricalDistribution>>();
+		try {
+			// submit the analyses, keeping at most the maximum number of distributions in flight
+			Iterator<double[]> iterator = samples.iterator();
+			while (iterator.hasNext()) {
+				slots.acquire();
+				double[] x = iterator.next();
+				tasks.add(pool.submit(() -> {
+					try {
+						return analyseDistribution(x);
+					}
+					finally {
+						slots.release();
+					}
+				}));
+			}
+
+			// collect the results in order
+			for (ForkJoinTask<EmpiricalDistribution> task : tasks) {
+				distributions.add(task.get());
+			}
+		}
+		catch (InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			distributions = null;
+		}
+		catch (ExecutionException exc) {
+			Throwable cause = exc.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			else {
+				throw (new IllegalStateException(cause));
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		return distributions;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Analyses a single sample array.
+	 *
+	 * @param x  the sample array to analyse
+	 * @return   the analysed distribution
+	 */
+	private EmpiricalDistribution analyseDistribution(double[] x)
+	{
+		EmpiricalDistribution distribution = new EmpiricalDistribution(fMemoryMode);
+		if (fNrOfHistogramBins > 0) {
+			distribution.setData(x,fNrOfHistogramBins);
+		}
+		else {
+			distribution.setData(x);
+		}
+		distribution.analyse();
+
+		if ((fKDEKernelType != null) && (distribution.getN() > 0) && (distribution.getXRange() > 0.0)) {
+			distribution.estimateKDEPDF(fKDEKernelType,distribution.calculateKDEPDFBandwidth(fKDEKernelType),fKDENrOfSupportPoints,distribution.getXMinimum(),distribution.getXMaximum(),fKDEMethod);
+		}
+
+		return distribution;
+	}
+}
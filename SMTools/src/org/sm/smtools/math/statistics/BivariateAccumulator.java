@@ -0,0 +1,369 @@
+// -----------------------------------------
+// Filename      : BivariateAccumulator.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -----------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.io.*;
+import java.nio.*;
+
+/**
+ * The <CODE>BivariateAccumulator</CODE> class offers an incremental (online) means to track the means, variances and covariance of a sequence of (x,y) values.
+ * <P>
+ * Each pair is processed once, in O(1), using Welford's update for the means and the sums of squared (cross-)deviations from the means, which avoids
+ * the catastrophic cancellation of the naive sum-of-products formulas when the values lie far from the origin. No values are stored, so the memory
+ * footprint does not grow with the number of pairs.
+ * <P>
+ * Arrays of pairs are accumulated blockwise, as in {@link MomentAccumulator}. Accumulators can be merged in any order via
+ * {@link BivariateAccumulator#merge(BivariateAccumulator)}, and pairs can be removed again via {@link BivariateAccumulator#remove(double,double)}.
+ * The accumulator is serialisable.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     ErrorMetricsAccumulator
+ * @see     org.sm.smtools.math.lslr.LSLR
+ */
+public final class BivariateAccumulator implements Serializable
+{
+	// the version of the serialised form
+	private static final long serialVersionUID = 1L;
+
+	// the number of pairs that are processed as one block
+	private static final int kBlockSize = 4096;
+
+	// internal datastructures
+	private long fN;
+	private double fMeanX;
+	private double fMeanY;
+	private double fM2X;
+	private double fM2Y;
+	private double fCXY;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>BivariateAccumulator</CODE> object.
+	 */
+	public BivariateAccumulator()
+	{
+		clear();
+	}
+
+	/**
+	 * Constructs a <CODE>BivariateAccumulator</CODE> object as a copy of another <CODE>BivariateAccumulator</CODE> object.
+	 * <P>
+	 * This is the <B>copy constructor</B>.
+	 *
+	 * @param bivariateAccumulator  the <CODE>BivariateAccumulator</CODE> object to deep copy
+	 */
+	public BivariateAccumulator(BivariateAccumulator bivariateAccumulator)
+	{
+		fN = bivariateAccumulator.fN;
+		fMeanX = bivariateAccumulator.fMeanX;
+		fMeanY = bivariateAccumulator.fMeanY;
+		fM2X = bivariateAccumulator.fM2X;
+		fM2Y = bivariateAccumulator.fM2Y;
+		fCXY = bivariateAccumulator.fCXY;
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Clears the accumulator.
+	 */
+	public void clear()
+	{
+		fN = 0;
+		fMeanX = 0.0;
+		fMeanY = 0.0;
+		fM2X = 0.0;
+		fM2Y = 0.0;
+		fCXY = 0.0;
+	}
+
+	/**
+	 * Adds a single pair of values to the accumulator.
+	 *
+	 * @param x  the x value to add
+	 * @param y  the y value to add
+	 */
+	public void add(double x, double y)
+	{
+		++fN;
+		double n = fN;
+		double deltaX = x - fMeanX;
+		double deltaY = y - fMeanY;
+		fMeanX += (deltaX / n);
+		fMeanY += (deltaY / n);
+		double deltaY2 = y - fMeanY;
+		fM2X += (deltaX * (x - fMeanX));
+		fM2Y += (deltaY * deltaY2);
+		fCXY += (deltaX * deltaY2);
+	}
+
+	/**
+	 * Removes a single pair of values that was previously added to the accumulator (i.e., the inverse of {@link BivariateAccumulator#add(double,double)}).
+	 * <P>
+	 * The moments are updated in O(1) by inverting Welford's update (with the same caveats as {@link MomentAccumulator#remove(double)}).
+	 *
+	 * @param x  the x value to remove
+	 * @param y  the y value to remove
+	 */
+	public void remove(double x, double y)
+	{
+		if (fN <= 1) {
+			clear();
+			return;
+		}
+
+		double n = fN;
+		double nR = n - 1.0;
+		double meanXR = fMeanX + ((fMeanX - x) / nR);
+		double meanYR = fMeanY + ((fMeanY - y) / nR);
+		double deltaX = x - meanXR;
+		double deltaY = y - meanYR;
+		double weight = nR / n;
+
+		--fN;
+		fMeanX = meanXR;
+		fMeanY = meanYR;
+		fM2X = Math.max(0.0,fM2X - (deltaX * deltaX * weight));
+		fM2Y = Math.max(0.0,fM2Y - (deltaY * deltaY * weight));
+		fCXY -= (deltaX * deltaY * weight);
+	}
+
+	/**
+	 * Adds all pairs of values in two arrays to the accumulator.
+	 * <P>
+	 * Note that both arrays should have the same number of values; if not, nothing is added.
+	 *
+	 * @param x  the array of x values to add
+	 * @param y  the array of y values to add
+	 */
+	public void add(double[] x, double[] y)
+	{
+		if ((x != null) && (y != null) && (x.length == y.length)) {
+			add(x,y,0,x.length);
+		}
+	}
+
+	/**
+	 * Adds the pairs of values in the range <CODE>[from,to[</CODE> of two arrays to the accumulator.
+	 *
+	 * @param x     the array of x values to add
+	 * @param y     the array of y values to add
+	 * @param from  the index of the first pair to add (inclusive)
+	 * @param to    the index of the last pair to add (exclusive)
+	 */
+	public void add(double[] x, double[] y, int from, int to)
+	{
+		for (int blockStart = from; blockStart < to; blockStart += kBlockSize) {
+			merge(accumulateBlock(x,y,blockStart,Math.min(to,blockStart + kBlockSize)));
+		}
+	}
+
+	/**
+	 * Adds all pairs of values in a buffer of interleaved values (x<SUB>0</SUB>,y<SUB>0</SUB>,x<SUB>1</SUB>,y<SUB>1</SUB>,...) to the accumulator.
+	 * <P>
+	 * The values between the buffer's position and its limit are read, without changing the position; a trailing unpaired value is ignored.
+	 * The buffer can be a direct or memory-mapped one, so that the values do not have to be copied to the heap as a whole.
+	 *
+	 * @param xy  the buffer of interleaved x and y values to add
+	 */
+	public void add(DoubleBuffer xy)
+	{
+		if (xy == null) {
+			return;
+		}
+
+		int position = xy.position();
+		int nrOfPairs = xy.remaining() / 2;
+		double[] x = new double[Math.min(nrOfPairs,kBlockSize)];
+		double[] y = new double[x.length];
+		for (int blockStart = 0; blockStart < nrOfPairs; blockStart += kBlockSize) {
+			int blockSize = Math.min(nrOfPairs - blockStart,kBlockSize);
+			int index = position + (2 * blockStart);
+			for (int i = 0; i < blockSize; ++i) {
+				x[i] = xy.get(index);
+				y[i] = xy.get(index + 1);
+				index += 2;
+			}
+			merge(accumulateBlock(x,y,0,blockSize));
+		}
+	}
+
+	/**
+	 * Merges the means and co-moments of another accumulator into this one.
+	 * <P>
+	 * The result is the same (up to rounding) as if all pairs of the other accumulator had been added to this one.
+	 *
+	 * @param other  the accumulator to merge into this one
+	 */
+	public void merge(BivariateAccumulator other)
+	{
+		if ((other == null) || (other.fN == 0)) {
+			return;
+		}
+
+		if (fN == 0) {
+			fN = other.fN;
+			fMeanX = other.fMeanX;
+			fMeanY = other.fMeanY;
+			fM2X = other.fM2X;
+			fM2Y = other.fM2Y;
+			fCXY = other.fCXY;
+			return;
+		}
+
+		double nA = fN;
+		double nB = other.fN;
+		double n = nA + nB;
+		double deltaX = other.fMeanX - fMeanX;
+		double deltaY = other.fMeanY - fMeanY;
+		double weight = nA * nB / n;
+
+		fN += other.fN;
+		fMeanX += deltaX * (nB / n);
+		fMeanY += deltaY * (nB / n);
+		fM2X += other.fM2X + (deltaX * deltaX * weight);
+		fM2Y += other.fM2Y + (deltaY * deltaY * weight);
+		fCXY += other.fCXY + (deltaX * deltaY * weight);
+	}
+
+	/**
+	 * Returns the number of pairs that were added.
+	 *
+	 * @return the number of pairs that were added
+	 */
+	public long getN()
+	{
+		return fN;
+	}
+
+	/**
+	 * Returns the mean of the x values.
+	 *
+	 * @return the mean of the x values
+	 */
+	public double getMeanX()
+	{
+		return fMeanX;
+	}
+
+	/**
+	 * Returns the mean of the y values.
+	 *
+	 * @return the mean of the y values
+	 */
+	public double getMeanY()
+	{
+		return fMeanY;
+	}
+
+	/**
+	 * Returns the sum of the squared deviations of the x values from their mean.
+	 *
+	 * @return the sum of the squared deviations of the x values from their mean
+	 */
+	public double getXSumOfSquaredDeviations()
+	{
+		return fM2X;
+	}
+
+	/**
+	 * Returns the sum of the squared deviations of the y values from their mean.
+	 *
+	 * @return the sum of the squared deviations of the y values from their mean
+	 */
+	public double getYSumOfSquaredDeviations()
+	{
+		return fM2Y;
+	}
+
+	/**
+	 * Returns the sum of the products of the deviations of the x and y values from their respective means.
+	 *
+	 * @return the sum of the products of the deviations of the x and y values from their respective means
+	 */
+	public double getSumOfCrossDeviations()
+	{
+		return fCXY;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param x     -
+	 * @param y     -
+	 * @param from  -
+	 * @param to    -
+	 * @return      -
+	 */
+	private static BivariateAccumulator accumulateBlock(double[] x, double[] y, int from, int to)
+	{
+		BivariateAccumulator block = new BivariateAccumulator();
+		if (to <= from) {
+			return block;
+		}
+
+		// first pass: means (shifted by the first pair, so that constant values lead to exactly zero deviations)
+		double shiftX = x[from];
+		double shiftY = y[from];
+		double sumX = 0.0;
+		double sumY = 0.0;
+		for (int i = from; i < to; ++i) {
+			sumX += (x[i] - shiftX);
+			sumY += (y[i] - shiftY);
+		}
+		double n = to - from;
+		double meanX = shiftX + (sumX / n);
+		double meanY = shiftY + (sumY / n);
+
+		// second pass: sums of squared (cross-)deviations
+		double m2X = 0.0;
+		double m2Y = 0.0;
+		double cXY = 0.0;
+		for (int i = from; i < to; ++i) {
+			double deltaX = x[i] - meanX;
+			double deltaY = y[i] - meanY;
+			m2X += (deltaX * deltaX);
+			m2Y += (deltaY * deltaY);
+			cXY += (deltaX * deltaY);
+		}
+
+		block.fN = to - from;
+		block.fMeanX = meanX;
+		block.fMeanY = meanY;
+		block.fM2X = m2X;
+		block.fM2Y = m2Y;
+		block.fCXY = cXY;
+		return block;
+	}
+}
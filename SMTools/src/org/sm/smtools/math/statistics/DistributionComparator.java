@@ -1,12 +1,12 @@
 // -------------------------------------------
 // Filename      : DistributionComparator.java
 // Author        : Sven Maerivoet
-// Last modified : 01/05/2014
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // -------------------------------------------
 
 /**
- * Copyright 2003-2015 Sven Maerivoet
+ * Copyright 2003-2015, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,30 +29,28 @@ import org.sm.smtools.math.*;
 /**
  * The <CODE>DistributionComparator</CODE> class offers various statistics to compare two empirical distributions based on their sequences of values.
  * <P>
+ * All error metrics, as well as the covariance and Pearson's correlation coefficient, are calculated in a single pass over the pairs of values by an
+ * {@link ErrorMetricsAccumulator} (in parallel for large sequences). Sequences that are only available as raw arrays can be compared directly,
+ * without building their empirical distributions.
+ * <P>
+ * As the error metrics pair up the values of both sequences, they require the raw data of the empirical distributions; when either distribution
+ * only keeps its sorted data (see {@link EmpiricalDistribution.EMemoryMode#kLeanSortedOnly}), all error metrics, the covariance and Pearson's
+ * correlation coefficient are <CODE>NaN</CODE>.
+ * <P>
  * <B>Note that this class cannot be subclassed!</B>
  *
  * @author  Sven Maerivoet
- * @version 01/05/2014
+ * @version 16/10/2026
  */
 public final class DistributionComparator
 {
 	// internal datastructures
 	private EmpiricalDistribution fX;
 	private EmpiricalDistribution fY;
+	private double[] fXValues;
+	private double[] fYValues;
 	private int fN;
-	private double fMAE;
-	private double fMSE;
-	private double fRMSE;
-	private double fSSE;
-	private double fMRE;
-	private double fRRMSE;
-	private double fRMSEP;
-	private double fMAXE;
-	private double fME;
-	private double fMAPE;
-	private double fEQC;
-	private double fCovariance;
-	private double fPearsonCorrelation;
+	private ErrorMetricsAccumulator fErrorMetrics;
 
 	/****************
 	 * CONSTRUCTORS *
@@ -63,6 +61,7 @@ public final class DistributionComparator
 	 */
 	public DistributionComparator()
 	{
+		fErrorMetrics = new ErrorMetricsAccumulator();
 	}
 
 	/**
@@ -75,6 +74,22 @@ public final class DistributionComparator
 	 */
 	public DistributionComparator(EmpiricalDistribution x, EmpiricalDistribution y)
 	{
+		this();
+		setData(x,y);
+	}
+
+	/**
+	 * Constructs a <CODE>DistributionComparator</CODE> object with specified raw <I>X</I> and <I>Y</I> sequences and compares them.
+	 * <P>
+	 * Note that both sequences should have the same number of values.
+	 *
+	 * @param x  the <I>X</I> sequence
+	 * @param y  the <I>Y</I> sequence
+	 * @see      DistributionComparator#setData(double[],double[])
+	 */
+	public DistributionComparator(double[] x, double[] y)
+	{
+		this();
 		setData(x,y);
 	}
 
@@ -85,7 +100,7 @@ public final class DistributionComparator
 	/**
 	 * Getter method for the <I>X</I> sequence.
 	 *
-	 * @return the <I>X</I> sequence
+	 * @return the <I>X</I> sequence, or <CODE>null</CODE> if raw sequences are compared
 	 */
 	public EmpiricalDistribution getXData()
 	{
@@ -95,7 +110,7 @@ public final class DistributionComparator
 	/**
 	 * Getter method for the <I>Y</I> sequence.
 	 *
-	 * @return the <I>Y</I> sequence
+	 * @return the <I>Y</I> sequence, or <CODE>null</CODE> if raw sequences are compared
 	 */
 	public EmpiricalDistribution getYData()
 	{
@@ -105,7 +120,8 @@ public final class DistributionComparator
 	/**
 	 * Loads specific <I>X</I> and <I>Y</I> sequences and compares them.
 	 * <P>
-	 * Note that both sequences should have the same number of values.
+	 * Note that both sequences should have the same number of values, and that the error metrics are <CODE>NaN</CODE> if either sequence
+	 * does not keep its raw data.
 	 *
 	 * @param x  the <I>X</I> sequence
 	 * @param y  the <I>Y</I> sequence
@@ -116,6 +132,29 @@ public final class DistributionComparator
 		analyse();
 	}
 
+	/**
+	 * Loads specific raw <I>X</I> and <I>Y</I> sequences and compares them.
+	 * <P>
+	 * The sequences are neither copied nor turned into empirical distributions, so that no sorting or histogram estimation takes place.
+	 * Note that both sequences should have the same number of values.
+	 *
+	 * @param x  the <I>X</I> sequence
+	 * @param y  the <I>Y</I> sequence
+	 */
+	public void setData(double[] x, double[] y)
+	{
+		if ((x == null) || (y == null) || (x.length == 0) || (y.length != x.length)) {
+			return;
+		}
+
+		fN = x.length;
+		fX = null;
+		fY = null;
+		fXValues = x;
+		fYValues = y;
+		analyse();
+	}
+
 	/**
 	 * Loads a specific <I>X</I> sequence and compares them.
 	 * <P>
@@ -163,7 +202,7 @@ public final class DistributionComparator
 	 */
 	public double getMAE()
 	{
-		return fMAE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getMAE() : Double.NaN);
 	}
 
 	/**
@@ -177,7 +216,7 @@ public final class DistributionComparator
 	 */
 	public double getMSE()
 	{
-		return fMSE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getMSE() : Double.NaN);
 	}
 
 	/**
@@ -189,7 +228,7 @@ public final class DistributionComparator
 	 */
 	public double getRMSE()
 	{
-		return fRMSE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getRMSE() : Double.NaN);
 	}
 
 	/**
@@ -201,7 +240,7 @@ public final class DistributionComparator
 	 */
 	public double getSSE()
 	{
-		return fSSE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getSSE() : Double.NaN);
 	}
 
 	/**
@@ -215,7 +254,7 @@ public final class DistributionComparator
 	 */
 	public double getMRE()
 	{
-		return fMRE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getMRE() : Double.NaN);
 	}
 
 	/**
@@ -229,7 +268,7 @@ public final class DistributionComparator
 	 */
 	public double getRRMSE()
 	{
-		return fRRMSE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getRRMSE() : Double.NaN);
 	}
 
 	/**
@@ -243,7 +282,7 @@ public final class DistributionComparator
 	 */
 	public double getRMSEP()
 	{
-		return fRMSEP;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getRMSEP() : Double.NaN);
 	}
 
 	/**
@@ -257,7 +296,7 @@ public final class DistributionComparator
 	 */
 	public double getMAXE()
 	{
-		return fMAXE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getMAXE() : Double.NaN);
 	}
 
 	/**
@@ -271,7 +310,7 @@ public final class DistributionComparator
 	 */
 	public double getME()
 	{
-		return fME;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getME() : Double.NaN);
 	}
 
 	/**
@@ -285,7 +324,7 @@ public final class DistributionComparator
 	 */
 	public double getMAPE()
 	{
-		return fMAPE;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getMAPE() : Double.NaN);
 	}
 
 	/**
@@ -293,13 +332,13 @@ public final class DistributionComparator
 	 * <P>
 	 * EQC lies between 0 and 1; total equality results in EQC = 1.
 	 * <P>
-	 * EQC = 1 - [ SQRT(SUM (Xn - Yn)^2 ) / [SQRT( SUM Xn ) + SQRT( SUM Yn )] ]
+	 * EQC = 1 - [ SQRT(SUM (Xn - Yn)^2 ) / [SQRT( SUM Xn^2 ) + SQRT( SUM Yn^2 )] ]
 	 *
 	 * @return the EQC
 	 */
 	public double getEQC()
 	{
-		return fEQC;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getEQC() : Double.NaN);
 	}
 
 	/**
@@ -309,7 +348,7 @@ public final class DistributionComparator
 	 */
 	public double getCovariance()
 	{
-		return fCovariance;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getCovariance() : Double.NaN);
 	}
 
 	/**
@@ -319,7 +358,7 @@ public final class DistributionComparator
 	 */
 	public double getPearsonCorrelation()
 	{
-		return fPearsonCorrelation;
+		return ((fErrorMetrics != null) ? fErrorMetrics.getPearsonCorrelation() : Double.NaN);
 	}
 
 	/******************
@@ -328,69 +367,131 @@ public final class DistributionComparator
 
 	/**
 	 * Peforms a Kolmogorov-Smirnov (KS) test on 2 sequences (they can have different lengths).
+	 * <P>
+	 * The H0 hypothesis (i.e., both sequences stem from the same distribution) is accepted when the p-value exceeds alpha.
 	 *
 	 * @param x      the <I>X</I> sequence
 	 * @param y      the <I>Y</I> sequence
 	 * @param alpha  the alpha value for the KS-test
 	 * @return       <CODE>true</CODE> when the H0 hypothesis is accepted (i.e. there is not enough evidence to conclude that <I>X</I> and <I>Y</I> are significantly different) 
+	 * @see          DistributionComparator#getKolmogorovSmirnovPValue(EmpiricalDistribution,EmpiricalDistribution)
 	 */
 	public static boolean performKolmogorovSmirnovTest(EmpiricalDistribution x, EmpiricalDistribution y, double alpha)
 	{
-		int n1 = x.getN();
-		int n2 = y.getN();
-		int n = n1 + n2;
-
-		// construct new cumulative distribution functions
-		double[] binEdges = new double[n];
-		System.arraycopy(x.getData(),0,binEdges,0,n1);
-		System.arraycopy(y.getData(),0,binEdges,n1,n2);
-		Arrays.sort(binEdges);
-		EmpiricalDistribution ed1 = new EmpiricalDistribution(x.getData(),binEdges);
-		EmpiricalDistribution ed2 = new EmpiricalDistribution(y.getData(),binEdges);
-
-		double[] binCounts1 = ed1.getHistogramBinCounts();
-		double[] cdf1 = new double[binCounts1.length];
-		double sum1 = 0.0;
-		for (int binIndex = 0; binIndex < binCounts1.length; ++binIndex) {
-			cdf1[binIndex] = binCounts1[binIndex] + sum1;
-			sum1 += binCounts1[binIndex];
-		}
-		for (int binIndex = 0; binIndex < binCounts1.length; ++binIndex) {
-			cdf1[binIndex] /= sum1;
-		}
+		return (getKolmogorovSmirnovPValue(x,y) > alpha);
+	}
+
+	/**
+	 * Peforms a Kolmogorov-Smirnov (KS) test on 2 raw sequences (they can have different lengths).
+	 * <P>
+	 * The sequences are sorted (as copies), without building their empirical distributions.
+	 *
+	 * @param x      the <I>X</I> sequence
+	 * @param y      the <I>Y</I> sequence
+	 * @param alpha  the alpha value for the KS-test
+	 * @return       <CODE>true</CODE> when the H0 hypothesis is accepted (i.e. there is not enough evidence to conclude that <I>X</I> and <I>Y</I> are significantly different) 
+	 * @see          DistributionComparator#performKolmogorovSmirnovTest(EmpiricalDistribution,EmpiricalDistribution,double)
+	 */
+	public static boolean performKolmogorovSmirnovTest(double[] x, double[] y, double alpha)
+	{
+		return (calculateKolmogorovSmirnovTest(getSortedCopy(x),getSortedCopy(y))[1] > alpha);
+	}
+
+	/**
+	 * Returns the two-sample Kolmogorov-Smirnov (KS) statistic, i.e., the largest absolute difference between the empirical CDFs of 2 sequences.
+	 * <P>
+	 * The statistic is calculated in O(n1 + n2) time by a single merge walk over the sorted samples of both distributions (which are reused
+	 * if they have already been sorted, and are sorted only once otherwise).
+	 *
+	 * @param x  the <I>X</I> sequence
+	 * @param y  the <I>Y</I> sequence
+	 * @return   the KS statistic
+	 */
+	public static double getKolmogorovSmirnovStatistic(EmpiricalDistribution x, EmpiricalDistribution y)
+	{
+		return calculateKolmogorovSmirnovTest(x.getSortedData(),y.getSortedData())[0];
+	}
 
-		double[] binCounts2 = ed2.getHistogramBinCounts();
-		double[] cdf2 = new double[binCounts2.length];
-		double sum2 = 0.0;
-		for (int binIndex = 0; binIndex < n; ++binIndex) {
-			cdf2[binIndex] = binCounts2[binIndex] + sum2;
-			sum2 += binCounts2[binIndex];
+	/**
+	 * Returns the p-value of the two-sample Kolmogorov-Smirnov (KS) test, i.e., the probability under the H0 hypothesis of a KS statistic
+	 * at least as large as the observed one.
+	 * <P>
+	 * For small samples (n1 &times; n2 &lt; 10000) without ties, the exact p-value is calculated by counting the monotone lattice paths
+	 * that stay within the observed statistic, which takes O(n1 &times; n2) time. Otherwise, the asymptotic Kolmogorov distribution
+	 * (with Stephens' small-sample correction) is used.
+	 *
+	 * @param x  the <I>X</I> sequence
+	 * @param y  the <I>Y</I> sequence
+	 * @return   the p-value of the KS test
+	 */
+	public static double getKolmogorovSmirnovPValue(EmpiricalDistribution x, EmpiricalDistribution y)
+	{
+		return calculateKolmogorovSmirnovTest(x.getSortedData(),y.getSortedData())[1];
+	}
+
+	/**
+	 * Calculates the two-sample Kolmogorov-Smirnov (KS) statistic and its p-value for 2 sequences that are already sorted in ascending order
+	 * (trailing <CODE>NaN</CODE> values are ignored).
+	 * <P>
+	 * This allows the sorting to be shared when the same sequences take part in many tests.
+	 *
+	 * @param x  the sorted <I>X</I> sequence
+	 * @param y  the sorted <I>Y</I> sequence
+	 * @return   an array containing the KS statistic and the p-value of the KS test
+	 * @see      DistributionComparator#getKolmogorovSmirnovPValue(EmpiricalDistribution,EmpiricalDistribution)
+	 */
+	public static double[] calculateKolmogorovSmirnovTest(double[] x, double[] y)
+	{
+		int n1 = ((x != null) ? x.length : 0);
+		while ((n1 > 0) && Double.isNaN(x[n1 - 1])) {
+			--n1;
 		}
-		for (int binIndex = 0; binIndex < n; ++binIndex) {
-			cdf2[binIndex] /= sum2;
+		int n2 = ((y != null) ? y.length : 0);
+		while ((n2 > 0) && Double.isNaN(y[n2 - 1])) {
+			--n2;
 		}
+		if ((n1 == 0) || (n2 == 0)) {
+			return (new double[] {0.0, 1.0});
+		}
+
+		// walk through both sorted sequences at once, advancing over all values that are tied with the current one
+		double ksStatistic = 0.0;
+		boolean ties = false;
+		int i = 0;
+		int j = 0;
+		while ((i < n1) && (j < n2)) {
+			double value = Math.min(x[i],y[j]);
+			int iStart = i;
+			int jStart = j;
+			while ((i < n1) && (x[i] == value)) {
+				++i;
+			}
+			while ((j < n2) && (y[j] == value)) {
+				++j;
+			}
+			if (((i - iStart) + (j - jStart)) > 1) {
+				ties = true;
+			}
 
-		// calculate the K-S statistic
-		double ksStatistic = Double.NEGATIVE_INFINITY;
-		for (int binIndex = 0; binIndex < n; ++binIndex) {
-			double delta = Math.abs(cdf1[binIndex] - cdf2[binIndex]);
+			double delta = Math.abs(((double) i / (double) n1) - ((double) j / (double) n2));
 			if (delta > ksStatistic) {
 				ksStatistic = delta;
 			}
 		}
 
-		// compute the asymptotic P-value approximation
-		double nAdjust = ((double) n1 * (double) n2) / ((double) n1 + (double) n2);
-		double lambda = (Math.sqrt((double) nAdjust) + 0.12 + (0.11 / Math.sqrt((double) nAdjust))) * ksStatistic;
-		if (lambda < 0.0) {
-			lambda = 0.0;
-		}
-
 		double pValue = 0.0;
-		for (int j = 1; j < 101; ++j) {
-			pValue += (Math.pow(-1.0,(double) j - 1.0) * Math.exp(-2.0 * MathTools.sqr(lambda) * MathTools.sqr((double) j)));
+		if ((((long) n1 * (long) n2) < 10000) && !ties) {
+			pValue = 1.0 - calculateExactKolmogorovSmirnovCDF(ksStatistic,n1,n2);
+		}
+		else {
+			// compute the asymptotic P-value approximation
+			double nAdjust = ((double) n1 * (double) n2) / ((double) n1 + (double) n2);
+			double lambda = (Math.sqrt(nAdjust) + 0.12 + (0.11 / Math.sqrt(nAdjust))) * ksStatistic;
+			for (int k = 1; k < 101; ++k) {
+				pValue += (Math.pow(-1.0,(double) k - 1.0) * Math.exp(-2.0 * MathTools.sqr(lambda) * MathTools.sqr((double) k)));
+			}
+			pValue *= 2.0;
 		}
-		pValue *= 2.0;
 		if (pValue < 0.0) {
 			pValue = 0.0;
 		}
@@ -398,13 +499,7 @@ public final class DistributionComparator
 			pValue = 1.0;
 		}
 
-		// test the H0 hypothesis based on alpha and the p-value
-		boolean H0 = false;
-		if (alpha >= pValue) {
-			H0 = true;
-		}
-
-		return H0;
+		return (new double[] {ksStatistic, pValue});
 	}
 
 	/*******************
@@ -454,70 +549,84 @@ public final class DistributionComparator
 	 */
 	private void analyse()
 	{
-		fMAE = 0.0;
-		fMSE = 0.0;
-		fRMSE = 0.0;
-		fSSE = 0.0;
-		fMRE = 0.0;
-		fRRMSE = 0.0;
-		fRMSEP = 0.0;
-		double fRMSEPdenominator = 0.0;
-		fMAXE = fX.getData()[0] - fY.getData()[0];
-		fME = 0.0;
-		fMAPE = 0.0;
-		fEQC = 0.0;
-		double fEQCdenominatorTermX = 0.0;
-		double fEQCdenominatorTermY = 0.0;
-
-		for (int n = 0; n < fN; ++n) {
-			double xn = fX.getData()[n];
-			double yn = fY.getData()[n];
-			double delta = xn - yn;
-			fMAE += Math.abs(delta);
-			fMSE += MathTools.sqr(delta);
-			fSSE += MathTools.sqr(delta);
-			if (xn != 0.0) {
-				fMRE += (Math.abs(delta) / xn);
-				fRRMSE += MathTools.sqr(delta / xn);
-			}
-			fRMSEP += MathTools.sqr(delta);
-			fRMSEPdenominator += xn;
-			if (Math.abs(delta) > fMAXE) {
-				fMAXE = Math.abs(delta);
-			}
-			fME += delta;
-			fEQC += MathTools.sqr(delta);
-			fEQCdenominatorTermX += MathTools.sqr(xn);
-			fEQCdenominatorTermY += MathTools.sqr(yn);
+		boolean rawDataMissing = false;
+		if (fX != null) {
+			fXValues = fX.getData();
+			rawDataMissing |= (fXValues == null);
+		}
+		if (fY != null) {
+			fYValues = fY.getData();
+			rawDataMissing |= (fYValues == null);
 		}
 
-		fMAE /= ((double) fN);
-		fMSE /= ((double) fN);
-		fRMSE = Math.sqrt(fMSE);
-		fMRE /= ((double) fN);
-		fRRMSE = Math.sqrt(fRRMSE / ((double) fN));
-		if (fRMSEPdenominator != 0.0) {
-			fRMSEP = Math.sqrt(fRMSEP * ((double) fN)) / fRMSEPdenominator;
+		// calculate all error metrics in a single pass (in parallel for large sequences); without the raw data of a distribution,
+		// the values cannot be paired up and the error metrics are undefined
+		if (rawDataMissing) {
+			fErrorMetrics = null;
 		}
-		else {
-			fRMSEP = 0.0;
+		else if ((fXValues == null) || (fYValues == null)) {
+			fErrorMetrics = new ErrorMetricsAccumulator();
 		}
-		fME /= ((double) fN);
-		fMAPE = fMRE * 100.0;
-		double fEQCdenominatorTerm = Math.sqrt(fEQCdenominatorTermX) + Math.sqrt(fEQCdenominatorTermY);
-		if (fEQCdenominatorTerm != 0.0) {
-			fEQC = 1.0 - (Math.sqrt(fEQC) / fEQCdenominatorTerm);
+		else if (fN >= EmpiricalDistribution.getParallelThreshold()) {
+			fErrorMetrics = ErrorMetricsAccumulator.accumulateInParallel(fXValues,fYValues);
 		}
 		else {
-			fEQC = 0.0;
+			fErrorMetrics = new ErrorMetricsAccumulator();
+			fErrorMetrics.add(fXValues,fYValues);
 		}
+	}
 
-		fCovariance = 0.0;
-		for (int n = 0; n < fN; ++n) {
-			fCovariance += ((fX.getData()[n] - fX.getMean()) * (fY.getData()[n] - fY.getMean()));
+	/**
+	 * @param x  -
+	 * @return   -
+	 */
+	private static double[] getSortedCopy(double[] x)
+	{
+		if (x == null) {
+			return (new double[0]);
+		}
+
+		double[] xSorted = new double[x.length];
+		System.arraycopy(x,0,xSorted,0,x.length);
+		Arrays.sort(xSorted);
+		return xSorted;
+	}
+
+	/**
+	 * Calculates the exact probability under H0 that the KS statistic is strictly smaller than a given value, as the fraction of
+	 * the monotone lattice paths from (0,0) to (m,n) that stay within the band |i / m - j / n| &lt; d (each path being equally likely).
+	 * The fractions are accumulated row by row (weighted by i / (i + n)), which avoids the overflow of the binomial coefficients.
+	 *
+	 * @param d  -
+	 * @param m  -
+	 * @param n  -
+	 * @return   -
+	 */
+	private static double calculateExactKolmogorovSmirnovCDF(double d, int m, int n)
+	{
+		if (m > n) {
+			int swap = m;
+			m = n;
+			n = swap;
+		}
+		double md = m;
+		double nd = n;
+
+		// the largest attainable statistic below d (all attainable values are multiples of 1 / (m n))
+		double q = (0.5 + Math.floor((d * md * nd) - 1e-7)) / (md * nd);
+
+		double[] u = new double[n + 1];
+		for (int j = 0; j <= n; ++j) {
+			u[j] = (((j / nd) > q) ? 0.0 : 1.0);
+		}
+		for (int i = 1; i <= m; ++i) {
+			double w = (double) i / (double) (i + n);
+			u[0] = (((i / md) > q) ? 0.0 : (w * u[0]));
+			for (int j = 1; j <= n; ++j) {
+				u[j] = ((Math.abs((i / md) - (j / nd)) > q) ? 0.0 : ((w * u[j]) + u[j - 1]));
+			}
 		}
-		fCovariance /= (fN - 1.0);
 
-		fPearsonCorrelation = fCovariance / (fX.getStandardDeviation() * fY.getStandardDeviation());
+		return u[n];
 	}
 }
@@ -0,0 +1,302 @@
+// -------------------------------------------------
+// Filename      : DistributionComparisonMatrix.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -------------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * The <CODE>DistributionComparisonMatrix</CODE> class offers a means to compare all pairs of a (large) number of distributions.
+ * <P>
+ * The following metrics are available for each pair (see {@link DistributionComparisonMatrix.EMetric}): the two-sample Kolmogorov-Smirnov (KS)
+ * statistic and its p-value, the root mean square error (RMSE) and Pearson's correlation coefficient. The latter two require paired sequences,
+ * and are therefore only defined for distributions with the same number of samples (and with their raw data available).
+ * <P>
+ * Instead of building a {@link DistributionComparator} per pair (which repeats the sorting and the estimation of the mean and standard deviation
+ * for every pair), each distribution is sorted and summarised only once, upon construction. For each pair, the KS test then requires a single
+ * merge walk over both sorted sequences, whereas the RMSE and correlation coefficient are calculated together in a single pass over the paired values.
+ * <P>
+ * The upper triangle of the (symmetric) matrix is split into square tiles of pairs, which are processed in parallel over all available processor
+ * cores; as a tile only touches a limited number of distributions, these remain in the processor caches while the tile is processed. The results
+ * are streamed to a {@link DistributionComparisonMatrix.PairListener} as soon as a pair has been compared, so that no dense matrix has to be
+ * held for very large numbers of distributions. For moderate numbers of distributions, a dense matrix of a single metric can be obtained directly
+ * via {@link DistributionComparisonMatrix#compare(DistributionComparisonMatrix.EMetric)}.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     DistributionComparator
+ */
+public final class DistributionComparisonMatrix
+{
+	/**
+	 * The different metrics that can be calculated for each pair of distributions.
+	 */
+	public static enum EMetric {
+		/**
+		 * The two-sample Kolmogorov-Smirnov statistic.
+		 */
+		kKolmogorovSmirnovStatistic,
+
+		/**
+		 * The p-value of the two-sample Kolmogorov-Smirnov test.
+		 */
+		kKolmogorovSmirnovPValue,
+
+		/**
+		 * The root mean square error (only defined for distributions with the same number of samples).
+		 */
+		kRMSE,
+
+		/**
+		 * Pearson's correlation coefficient (only defined for distributions with the same number of samples).
+		 */
+		kPearsonCorrelation};
+
+	/**
+	 * The interface for receiving the results of the comparisons.
+	 * <P>
+	 * Note that the listener is called concurrently from several threads, and should therefore be thread-safe.
+	 */
+	public static interface PairListener
+	{
+		/**
+		 * Is called when a pair of distributions has been compared.
+		 *
+		 * @param i       the index of the first distribution
+		 * @param j       the index of the second distribution (always larger than <CODE>i</CODE>)
+		 * @param values  the values of the metrics, indexed by the ordinals of the {@link DistributionComparisonMatrix.EMetric} values
+		 *                (<CODE>NaN</CODE> for the metrics that were not requested or that are not defined for the pair)
+		 */
+		void pairCompared(int i, int j, double[] values);
+	}
+
+	// the number of distributions along each side of a tile
+	private static final int kTileSize = 16;
+
+	// internal datastructures
+	private int fNrOfDistributions;
+	private double[][] fSortedData;
+	private double[][] fData;
+	private double[] fMeans;
+	private double[] fRootSumsOfSquaredDeviations;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>DistributionComparisonMatrix</CODE> object for a number of empirical distributions.
+	 * <P>
+	 * The sorted samples of the distributions are reused (and are sorted in parallel if they were not sorted yet).
+	 *
+	 * @param distributions  the distributions to compare
+	 */
+	public DistributionComparisonMatrix(EmpiricalDistribution[] distributions)
+	{
+		fNrOfDistributions = ((distributions != null) ? distributions.length : 0);
+		fSortedData = new double[fNrOfDistributions][];
+		fData = new double[fNrOfDistributions][];
+		IntStream.range(0,fNrOfDistributions).parallel().forEach(i -> {
+			fSortedData[i] = distributions[i].getSortedData();
+			fData[i] = distributions[i].getData();
+		});
+		summarise();
+	}
+
+	/**
+	 * Constructs a <CODE>DistributionComparisonMatrix</CODE> object for a number of raw sequences, without building their empirical distributions.
+	 * <P>
+	 * The sequences are not copied; sorted copies are made in parallel.
+	 *
+	 * @param samples  the sequences to compare
+	 */
+	public DistributionComparisonMatrix(double[][] samples)
+	{
+		fNrOfDistributions = ((samples != null) ? samples.length : 0);
+		fSortedData = new double[fNrOfDistributions][];
+		fData = new double[fNrOfDistributions][];
+		IntStream.range(0,fNrOfDistributions).parallel().forEach(i -> {
+			fData[i] = ((samples[i] != null) ? samples[i] : new double[0]);
+			fSortedData[i] = new double[fData[i].length];
+			System.arraycopy(fData[i],0,fSortedData[i],0,fData[i].length);
+			Arrays.sort(fSortedData[i]);
+		});
+		summarise();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Returns the number of distributions.
+	 *
+	 * @return the number of distributions
+	 */
+	public int getNrOfDistributions()
+	{
+		return fNrOfDistributions;
+	}
+
+	/**
+	 * Compares all pairs of distributions, and streams the results to a listener.
+	 * <P>
+	 * Each pair (<CODE>i</CODE>,<CODE>j</CODE>) with <CODE>i</CODE> &lt; <CODE>j</CODE> is reported exactly once, in no particular order.
+	 * This method returns when all pairs have been compared.
+	 *
+	 * @param metrics   the metrics to calculate
+	 * @param listener  the listener that receives the results
+	 */
+	public void compare(EnumSet<EMetric> metrics, PairListener listener)
+	{
+		if ((metrics == null) || (listener == null)) {
+			return;
+		}
+
+		boolean calculateKS = metrics.contains(EMetric.kKolmogorovSmirnovStatistic) || metrics.contains(EMetric.kKolmogorovSmirnovPValue);
+		boolean calculatePaired = metrics.contains(EMetric.kRMSE) || metrics.contains(EMetric.kPearsonCorrelation);
+
+		// enumerate the tiles on and above the diagonal
+		int nrOfTilesPerSide = (fNrOfDistributions + kTileSize - 1) / kTileSize;
+		int nrOfTiles = nrOfTilesPerSide * (nrOfTilesPerSide + 1) / 2;
+		int[] tileRows = new int[nrOfTiles];
+		int[] tileColumns = new int[nrOfTiles];
+		int tileIndex = 0;
+		for (int tileRow = 0; tileRow < nrOfTilesPerSide; ++tileRow) {
+			for (int tileColumn = tileRow; tileColumn < nrOfTilesPerSide; ++tileColumn) {
+				tileRows[tileIndex] = tileRow;
+				tileColumns[tileIndex] = tileColumn;
+				++tileIndex;
+			}
+		}
+
+		IntStream.range(0,nrOfTiles).parallel().forEach(t -> {
+			int rowEnd = Math.min(fNrOfDistributions,(tileRows[t] + 1) * kTileSize);
+			int columnEnd = Math.min(fNrOfDistributions,(tileColumns[t] + 1) * kTileSize);
+			for (int i = tileRows[t] * kTileSize; i < rowEnd; ++i) {
+				for (int j = Math.max(i + 1,tileColumns[t] * kTileSize); j < columnEnd; ++j) {
+					listener.pairCompared(i,j,comparePair(i,j,metrics,calculateKS,calculatePaired));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Compares all pairs of distributions for a single metric, and returns the results as a dense symmetric matrix.
+	 * <P>
+	 * The diagonal contains the value of the metric for identical distributions (i.e., a KS statistic and RMSE of 0, and a p-value
+	 * and correlation coefficient of 1). Note that the matrix requires O(N<SUP>2</SUP>) memory for N distributions.
+	 *
+	 * @param metric  the metric to calculate
+	 * @return        the matrix of the metric for all pairs of distributions
+	 */
+	public double[][] compare(EMetric metric)
+	{
+		double[][] matrix = new double[fNrOfDistributions][fNrOfDistributions];
+		double diagonalValue = (((metric == EMetric.kKolmogorovSmirnovPValue) || (metric == EMetric.kPearsonCorrelation)) ? 1.0 : 0.0);
+		for (int i = 0; i < fNrOfDistributions; ++i) {
+			matrix[i][i] = diagonalValue;
+		}
+
+		// each pair writes to its own two cells, so that no synchronisation is required
+		compare(EnumSet.of(metric),(i,j,values) -> {
+			matrix[i][j] = values[metric.ordinal()];
+			matrix[j][i] = values[metric.ordinal()];
+		});
+
+		return matrix;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Calculates the mean and the root of the sum of squared deviations of each sequence (in parallel).
+	 */
+	private void summarise()
+	{
+		fMeans = new double[fNrOfDistributions];
+		fRootSumsOfSquaredDeviations = new double[fNrOfDistributions];
+		IntStream.range(0,fNrOfDistributions).parallel().forEach(i -> {
+			if (fData[i] != null) {
+				MomentAccumulator moments = new MomentAccumulator();
+				moments.add(fData[i]);
+				fMeans[i] = moments.getMean();
+				fRootSumsOfSquaredDeviations[i] = Math.sqrt(moments.getSumOfSquaredDeviations());
+			}
+		});
+	}
+
+	/**
+	 * @param i                -
+	 * @param j                -
+	 * @param metrics          -
+	 * @param calculateKS      -
+	 * @param calculatePaired  -
+	 * @return                 -
+	 */
+	private double[] comparePair(int i, int j, EnumSet<EMetric> metrics, boolean calculateKS, boolean calculatePaired)
+	{
+		double[] values = new double[EMetric.values().length];
+		Arrays.fill(values,Double.NaN);
+
+		if (calculateKS) {
+			double[] ksTest = DistributionComparator.calculateKolmogorovSmirnovTest(fSortedData[i],fSortedData[j]);
+			if (metrics.contains(EMetric.kKolmogorovSmirnovStatistic)) {
+				values[EMetric.kKolmogorovSmirnovStatistic.ordinal()] = ksTest[0];
+			}
+			if (metrics.contains(EMetric.kKolmogorovSmirnovPValue)) {
+				values[EMetric.kKolmogorovSmirnovPValue.ordinal()] = ksTest[1];
+			}
+		}
+
+		double[] x = fData[i];
+		double[] y = fData[j];
+		if (calculatePaired && (x != null) && (y != null) && (x.length > 0) && (x.length == y.length)) {
+			// calculate the sum of squared errors and the co-moment in a single pass, using the precalculated means
+			double meanX = fMeans[i];
+			double meanY = fMeans[j];
+			double sumOfSquaredErrors = 0.0;
+			double cXY = 0.0;
+			for (int k = 0; k < x.length; ++k) {
+				double xk = x[k];
+				double yk = y[k];
+				double delta = xk - yk;
+				sumOfSquaredErrors += (delta * delta);
+				cXY += ((xk - meanX) * (yk - meanY));
+			}
+			if (metrics.contains(EMetric.kRMSE)) {
+				values[EMetric.kRMSE.ordinal()] = Math.sqrt(sumOfSquaredErrors / x.length);
+			}
+			if (metrics.contains(EMetric.kPearsonCorrelation)) {
+				values[EMetric.kPearsonCorrelation.ordinal()] = cXY / (fRootSumsOfSquaredDeviations[i] * fRootSumsOfSquaredDeviations[j]);
+			}
+		}
+
+		return values;
+	}
+}
@@ -1,12 +1,12 @@
 // ------------------------------------------
 // Filename      : EmpiricalDistribution.java
 // Author        : Sven Maerivoet
-// Last modified : 16/03/2021
+// Last modified : 16/10/2026
 // Target        : Java VM (1.8)
 // ------------------------------------------
 
 /**
- * Copyright 2003-2018, 2021 Sven Maerivoet
+ * Copyright 2003-2018, 2021, 2026 Sven Maerivoet
  * 
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,12 +24,20 @@
 package org.sm.smtools.math.statistics;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 import org.sm.smtools.application.util.*;
 import org.sm.smtools.math.*;
 
 /**
  * The <CODE>EmpiricalDistribution</CODE> class offers a means to calculate the empirical cumulative distribution (CDF) and probability density (PDF) functions, including percentiles.
- * After the distribution is created, a user will typically call the {@link EmpiricalDistribution#analyse()} method to estimate the various statistical quantities.
+ * The statistical quantities are estimated lazily, i.e., on first access, in three groups: the order statistics (sorted samples, CDF, percentiles,
+ * median and interquartile range), the moments (mean, variance, skewness and kurtosis) and the histogram. A group is estimated at most once per data set,
+ * and the groups it depends on are estimated along with it (e.g., the optimal number of histogram bins requires the interquartile range). This means
+ * that asking only for the mean never sorts the samples. The {@link EmpiricalDistribution#analyse()} method can be called to estimate all groups at once.
+ * <P>
+ * The lazy estimation is thread-safe, so that several threads can query the same distribution (including a previously estimated KDE)
+ * concurrently; changing the data, the histogram configuration or the KDE is not.
  * <P>
  * The distribution can only contain <CODE>Integer.MAX_VALUE</CODE> samples.
  * <P>
@@ -38,14 +46,59 @@ import org.sm.smtools.math.*;
  * <B>Note that this class cannot be subclassed!</B>
  *
  * @author  Sven Maerivoet
- * @version 16/03/2021
+ * @version 16/10/2026
  */
 public final class EmpiricalDistribution
 {
+	/**
+	 * The different methods for the kernel density estimation (KDE) of the probability density function (PDF).
+	 */
+	public static enum EKDEMethod {
+		/**
+		 * Direct evaluation of the kernel for every pair of support point and sample, which takes O(M &times; N) time for M support points and N samples.
+		 */
+		kExact,
+
+		/**
+		 * Linear binning of the samples onto the grid of support points, followed by a convolution with the discretised kernel via an FFT, which takes O(N + M log M) time.
+		 */
+		kBinnedFFT};
+
+	/**
+	 * The different memory modes, which trade the eager availability of per-sample results for a smaller memory footprint.
+	 */
+	public static enum EMemoryMode {
+		/**
+		 * Keeps a copy of the samples in their original order as well as a sorted copy, and eagerly calculates the CDF values, z-scores and outliers (approximately 4 N doubles).
+		 */
+		kStandard,
+
+		/**
+		 * Keeps a copy of the samples in their original order as well as a sorted copy; the CDF values, z-scores and outliers are only calculated on request (approximately 2 N doubles).
+		 */
+		kLean,
+
+		/**
+		 * Only keeps a sorted copy of the samples (approximately N doubles); the raw data, z-scores and outliers are not available.
+		 */
+		kLeanSortedOnly};
+
 	// the minimum number of histogram bins
 	private static final int kMinNrOfHistogramBins = 10;
 
+	// the minimum number of samples that are counted into a separate histogram when binning in parallel
+	private static final int kMinNrOfSamplesPerHistogramTask = 1 << 16;
+
+	/**
+	 * The default minimum number of samples from which on the parallel algorithms are used.
+	 */
+	public static final int kDefaultParallelThreshold = 100000;
+
+	// the minimum number of samples from which on the parallel algorithms are used
+	private static volatile int fParallelThreshold = kDefaultParallelThreshold;
+
 	// internal datastructures
+	private EMemoryMode fMemoryMode = EMemoryMode.kStandard;
 	private int fN;
 	private double[] fX;
 	private double[] fXSorted;
@@ -67,7 +120,8 @@ public final class EmpiricalDistribution
 	private double[] fHistogramBinRightEdges;
 	private double[] fHistogramBinCentres;
 	private double fHistogramBinWidth;
-	private FunctionLookupTable fKDEPDF;
+	private double[] fCustomHistogramBinRightEdges;
+	private volatile FunctionLookupTable fKDEPDF;
 	private double fExpectedValue;
 	private FunctionLookupTable fKDEPDFExtrema;
 	private double fVariance;
@@ -79,6 +133,10 @@ public final class EmpiricalDistribution
 	private double fKurtosisZStatistic;
 	private double[] fZScores;
 	private boolean[] fOutliers;
+	private volatile boolean fZScoresEstimated;
+	private volatile boolean fOrderStatisticsEstimated;
+	private volatile boolean fMomentsEstimated;
+	private volatile boolean fHistogramEstimated;
 
 	/****************
 	 * CONSTRUCTORS *
@@ -92,6 +150,18 @@ public final class EmpiricalDistribution
 		this(null,true,0);
 	}
 
+	/**
+	 * Constructs an empty <CODE>EmpiricalDistribution</CODE> object with a specified memory mode, to which data can be assigned with one of the <CODE>setData</CODE> methods.
+	 *
+	 * @param memoryMode  the memory mode
+	 * @see               EmpiricalDistribution#setMemoryMode(EmpiricalDistribution.EMemoryMode)
+	 */
+	public EmpiricalDistribution(EMemoryMode memoryMode)
+	{
+		this(null,true,0);
+		setMemoryMode(memoryMode);
+	}
+
 	/**
 	 * Constructs an <CODE>EmpiricalDistribution</CODE> object for a given array of values.
 	 * <P>
@@ -144,10 +214,30 @@ public final class EmpiricalDistribution
 	 * PUBLIC METHODS *
 	 ******************/
 
+	/**
+	 * Sets the memory mode, which takes effect the next time data is set.
+	 * 
+	 * @param memoryMode  the memory mode
+	 */
+	public void setMemoryMode(EMemoryMode memoryMode)
+	{
+		fMemoryMode = memoryMode;
+	}
+
+	/**
+	 * Returns the memory mode.
+	 * 
+	 * @return the memory mode
+	 */
+	public EMemoryMode getMemoryMode()
+	{
+		return fMemoryMode;
+	}
+
 	/**
 	 * Retrieves the raw data for this empirical distribution.
 	 * 
-	 * @return the raw data for this empirical distribution
+	 * @return the raw data for this empirical distribution (or <CODE>null</CODE> in the {@link EmpiricalDistribution.EMemoryMode#kLeanSortedOnly} memory mode)
 	 * @see    EmpiricalDistribution#getSortedData()
 	 */
 	public double[] getData()
@@ -163,9 +253,32 @@ public final class EmpiricalDistribution
 	 */
 	public double[] getSortedData()
 	{
+		ensureOrderStatistics();
 		return fXSorted;
 	}
 
+	/**
+	 * Retrieves the values of the empirical cumulative distribution function (CDF) at the sorted samples.
+	 * <P>
+	 * In the lean memory modes, a new array is calculated on each call.
+	 * 
+	 * @return the values of the empirical cumulative distribution function at the sorted samples
+	 * @see    EmpiricalDistribution#getSortedData()
+	 */
+	public double[] getCDFValues()
+	{
+		if (fN == 0) {
+			return null;
+		}
+
+		ensureOrderStatistics();
+		if (fCDF == null) {
+			return calculateCDFValues();
+		}
+
+		return fCDF;
+	}
+
 	/**
 	 * Sets the source data for the empirical distribution.
 	 * <P>
@@ -240,6 +353,7 @@ public final class EmpiricalDistribution
 		fHistogramBinCounts = null;
 		fHistogramBinFrequencies = null;
 		fHistogramBinRightEdges = null;
+		fCustomHistogramBinRightEdges = null;
 		fHistogramBinCentres = null;
 		fHistogramBinWidth = 0.0;
 		fKDEPDF = null;
@@ -254,111 +368,46 @@ public final class EmpiricalDistribution
 		fKurtosisZStatistic = 0.0;
 		fZScores = null;
 		fOutliers = null;
+		fZScoresEstimated = false;
+		fOrderStatisticsEstimated = false;
+		fMomentsEstimated = false;
+		fHistogramEstimated = false;
 	}
 
 	/**
-	 * Estimates the empirical distribution and analyses it various statistical quantities.
+	 * Estimates the empirical distribution and analyses all its statistical quantities at once.
+	 * <P>
+	 * Calling this method is optional, as each group of statistical quantities is estimated on first access.
 	 */
 	public void analyse()
 	{
-		// check if data was loaded
-		if (fX == null) {
-			return;
-		}
-		else if (fX.length == 0) {
-			return;
-		}
-
-		// *********************************************************
-		// estimate empirical cumulative distribution function (CDF)
-		// *********************************************************
-
-		// sort all samples in ascending order
-		ArrayList<Double> sortedX = new ArrayList<>();
-		fXSorted = new double[fN];
-		for (int i = 0; i < fN; ++i) {
-			sortedX.add(fX[i]);
-			fXSorted[i] = fX[i];
-		}
-		Collections.sort(sortedX);
-		fXMin = fX[0];
-		fXMax = fX[0];
-		for (int i = 0; i < fN; ++i) {
-			// convert back to array
-			fXSorted[i] = sortedX.get(i);
-			if (fXSorted[i] < fXMin) {
-				fXMin = fXSorted[i];
-			}
-			if (fXSorted[i] > fXMax) {
-				fXMax = fXSorted[i];
-			}
-		}
-		fXRange = fXMax - fXMin;
-
-		// use the product-limit (Kaplan-Meier) estimate of the survivor function and transform to the CDF
-		double[] D = new double[fN];
-		for (int i = 0; i < fN; ++i) {
-			D[i] = 1;
-		}
-		double[] N = new double[fN];
-		for (int i = 0; i < fN; ++i) {
-			N[i] = fN - i;
-		}
-
-		double[] cumulativeProductTerms = new double[fN];
-		for (int i = 0; i < fN; ++i) {
-			cumulativeProductTerms[i] = 1.0 - (D[i] / N[i]);
-		}
-		double[] S = new double[fN];
-		S[0] = cumulativeProductTerms[0];
-		for (int i = 1; i < fN; ++i) {
-			S[i] = S[i - 1] * cumulativeProductTerms[i];
-		}
-		double[] Func = new double[fN];
-		double F0 = 0.0;
-		for (int i = 0; i < fN; ++i) {
-			Func[i] = 1 - S[i];
-		}
-
-		fCDF = new double[fN];
-		fCDF[0] = F0;
-		fCDF[fN - 1] = 1.0;
-		for (int i = 1; i < (fN - 1); ++i) {
-			fCDF[i] = Func[i - 1];
-		}
-
-		// ********************
-		// estimate percentiles
-		// ********************
-
-		// estimate the percentiles
-		fPercentiles = new double[1001];
-		for (int percentile = 0; percentile <= 1000; ++percentile) {
-			double rank = (((double) percentile / 1000.0) * ((double) fN - 1.0)) + 1.0;
-			if (rank <= 1.0) {
-				fPercentiles[percentile] = fXSorted[0];
-			}
-			else if (rank >= fN) {
-				fPercentiles[percentile] = fXSorted[fN - 1];
-			}
-			else {
-				int k = (int) Math.floor(rank);
-				double d = rank - (double) k;
-				fPercentiles[percentile] = fXSorted[k - 1] + (d * (fXSorted[k] - fXSorted[k - 1]));
-			}
-		}
-
-		// *******************************
-		// estimate statistical quantities
-		// *******************************
-
-		estimateStatistics();
+		ensureOrderStatistics();
+		ensureMoments();
+		ensureHistogram();
+	}
 
-		// *****************************************************
-		// estimate empirical probability density function (PDF)
-		// *****************************************************
+	/**
+	 * Sets the minimum number of samples from which on the parallel algorithms are used (e.g., <CODE>Arrays.parallelSort</CODE> when sorting the samples).
+	 * <P>
+	 * Specifying <CODE>Integer.MAX_VALUE</CODE> disables all parallel algorithms. Note that this setting applies to all <CODE>EmpiricalDistribution</CODE> objects.
+	 *
+	 * @param parallelThreshold  the minimum number of samples from which on the parallel algorithms are used
+	 * @see                      EmpiricalDistribution#kDefaultParallelThreshold
+	 */
+	public static void setParallelThreshold(int parallelThreshold)
+	{
+		fParallelThreshold = Math.max(1,parallelThreshold);
+	}
 
-		estimatePDF();
+	/**
+	 * Returns the minimum number of samples from which on the parallel algorithms are used.
+	 *
+	 * @return the minimum number of samples from which on the parallel algorithms are used
+	 * @see    EmpiricalDistribution#setParallelThreshold(int)
+	 */
+	public static int getParallelThreshold()
+	{
+		return fParallelThreshold;
 	}
 
 	/**
@@ -369,24 +418,38 @@ public final class EmpiricalDistribution
 	 */
 	public double getCDF(double x)
 	{
-		if (fX == null) {
+		if (fN == 0) {
 			return 0.0;
 		}
 
-		// do linear interpolation
-		ArraySearchBounds bounds = MathTools.searchArrayBounds(fX,x);
+		ensureOrderStatistics();
+		long bounds = MathTools.searchPackedArrayBounds(fXSorted,x);
+		return interpolateCDF(x,ArraySearchBounds.unpackLowerBound(bounds),ArraySearchBounds.unpackUpperBound(bounds));
+	}
 
-		double xRange = fX[bounds.getUpperBound()] - fX[bounds.getLowerBound()];
-		double xDelta = x - fX[bounds.getLowerBound()];
-		double fraction = 0.0;
-		if (xRange != 0.0) {
-			fraction = xDelta / xRange;
+	/**
+	 * Returns the values of the cumulative distribution function (CDF) evaluated at a series of values.
+	 * <P>
+	 * The values are searched for with an {@link ArraySearchCursor}, so that a sorted series is processed in (amortised) constant time per value.
+	 *
+	 * @param x  the values to evaluate the cumulative distribution function at
+	 * @return   the values of the cumulative distribution function evaluated at the elements of <CODE>x</CODE>
+	 */
+	public double[] getCDF(double[] x)
+	{
+		double[] cdf = new double[x.length];
+		if (fN == 0) {
+			return cdf;
 		}
 
-		double cdfRange = fCDF[bounds.getUpperBound()] - fCDF[bounds.getLowerBound()];
-		double cdfDelta = fraction * cdfRange;
+		ensureOrderStatistics();
+		ArraySearchCursor cursor = new ArraySearchCursor(fXSorted);
+		for (int i = 0; i < x.length; ++i) {
+			cursor.search(x[i]);
+			cdf[i] = interpolateCDF(x[i],cursor.getLowerBound(),cursor.getUpperBound());
+		}
 
-		return (fCDF[bounds.getLowerBound()] + cdfDelta);
+		return cdf;
 	}
 
 	/**
@@ -397,6 +460,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getPercentile(int percentile)
 	{
+		ensureOrderStatistics();
 		if (fPercentiles == null) {
 			return 0.0;
 		}
@@ -412,6 +476,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getPercentile(double percentile)
 	{
+		ensureOrderStatistics();
 		if (fPercentiles == null) {
 			return 0.0;
 		}
@@ -426,9 +491,49 @@ public final class EmpiricalDistribution
 	 */
 	public double[] getPercentiles()
 	{
+		ensureOrderStatistics();
 		return fPercentiles;
 	}
 
+	/**
+	 * Returns an arbitrary set of percentiles, without the resolution of 0.1 of the tabulated percentiles.
+	 * <P>
+	 * The percentiles are interpolated linearly between the order statistics in the same way as the tabulated percentiles. As long as the samples
+	 * have not been sorted, the required order statistics are selected in expected O(N) time (in parallel for large samples) without sorting, so
+	 * that asking for a few percentiles (e.g., 99.9 and 99.99) is considerably cheaper than a first call to {@link EmpiricalDistribution#getPercentile(double)}.
+	 *
+	 * @param percentiles  the requested percentiles (in the interval [0.0,100.0])
+	 * @return             the requested percentile values
+	 * @see                MathTools#selectOrderStatistics(double[],int[])
+	 */
+	public double[] getPercentiles(double[] percentiles)
+	{
+		double[] values = new double[percentiles.length];
+		if (fN == 0) {
+			return values;
+		}
+
+		// each percentile is interpolated between the order statistics with ranks floor(p) and floor(p) + 1, where p = (percentile / 100) * (N - 1)
+		int[] ranks = new int[2 * percentiles.length];
+		double[] fractions = new double[percentiles.length];
+		for (int i = 0; i < percentiles.length; ++i) {
+			double position = (MathTools.clip(percentiles[i],0.0,100.0) / 100.0) * ((double) fN - 1.0);
+			int k = (int) Math.floor(position);
+			ranks[2 * i] = k;
+			ranks[(2 * i) + 1] = Math.min(k + 1,fN - 1);
+			fractions[i] = position - (double) k;
+		}
+
+		double[] orderStatistics = selectOrderStatistics(ranks);
+		for (int i = 0; i < percentiles.length; ++i) {
+			double lower = orderStatistics[2 * i];
+			double upper = orderStatistics[(2 * i) + 1];
+			values[i] = (fractions[i] > 0.0) ? lower + (fractions[i] * (upper - lower)) : lower;
+		}
+
+		return values;
+	}
+
 	/**
 	 * Returns the minimum of the input values.
 	 *
@@ -436,6 +541,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getXMinimum()
 	{
+		ensureOrderStatistics();
 		return fXMin;
 	}
 
@@ -446,6 +552,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getXMaximum()
 	{
+		ensureOrderStatistics();
 		return fXMax;
 	}
 
@@ -456,6 +563,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getXRange()
 	{
+		ensureOrderStatistics();
 		return fXRange;
 	}
 
@@ -496,6 +604,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getMedian()
 	{
+		ensureOrderStatistics();
 		return fMedian;
 	}
 
@@ -506,6 +615,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getInterquartileRange()
 	{
+		ensureOrderStatistics();
 		return fInterquartileRange;
 	}
 
@@ -519,7 +629,8 @@ public final class EmpiricalDistribution
 	public void recalculatePDF()
 	{
 		fUseOptimalNrOfHistogramBins = true;
-		estimatePDF();
+		fCustomHistogramBinRightEdges = null;
+		fHistogramEstimated = false;
 	}
 
 	/**
@@ -531,7 +642,8 @@ public final class EmpiricalDistribution
 	{
 		fUseOptimalNrOfHistogramBins = false;
 		fNrOfHistogramBins = nrOfHistogramBins;
-		estimatePDF();
+		fCustomHistogramBinRightEdges = null;
+		fHistogramEstimated = false;
 	}
 
 	/**
@@ -542,7 +654,7 @@ public final class EmpiricalDistribution
 	 */
 	public double calculateKDEPDFBandwidth(MathTools.EKernelType kernelType)
 	{
-		if (fX == null) {
+		if (fN == 0) {
 			return 0.0;
 		}
 
@@ -574,6 +686,8 @@ public final class EmpiricalDistribution
 
 	/**
 	 * Estimates the probability distribution function (PDF) using a specified kernel function.
+	 * <P>
+	 * The kernel is evaluated exactly for every pair of support point and sample (see {@link EmpiricalDistribution.EKDEMethod#kExact}).
 	 *
 	 * @param  kernelType         the type of kernel function to use
 	 * @param  bandwidth          the bandwidth of the kernel function
@@ -583,52 +697,73 @@ public final class EmpiricalDistribution
 	 */
 	public void estimateKDEPDF(MathTools.EKernelType kernelType, double bandwidth, int nrOfSupportPoints, double minSupport, double maxSupport)
 	{
-		if (fX == null) {
+		estimateKDEPDF(kernelType,bandwidth,nrOfSupportPoints,minSupport,maxSupport,EKDEMethod.kExact);
+	}
+
+	/**
+	 * Estimates the probability distribution function (PDF) using a specified kernel function and estimation method.
+	 * <P>
+	 * With the {@link EmpiricalDistribution.EKDEMethod#kBinnedFFT} method, each sample is split linearly over its two neighbouring grid points
+	 * (the grid has the same spacing &delta; as the support points, and is extended beyond the support by the reach of the kernel),
+	 * after which the binned counts are convolved with the kernel sampled on the grid. The deviation from the exact estimator stems from
+	 * replacing the kernel by its linear interpolation between grid points, and is bounded (relative to the maximum of the estimated PDF) by:
+	 * <UL>
+	 *   <LI>O((&delta; / h)<SUP>2</SUP>) for the kernels that are twice differentiable on their support (Gaussian and quartic),</LI>
+	 *   <LI>O(&delta; / h) for the kernels with a kink or a jump (rectangular, triangular, Epanechnikov and Lanczos),</LI>
+	 * </UL>
+	 * with h the bandwidth; in addition, values below a relative level of 10<SUP>-12</SUP> of the maximum are considered to be round-off noise of the FFT and are set to zero.
+	 * The number of support points should therefore be chosen such that &delta; is a small fraction of the bandwidth. When the bandwidth spans so many grid points that the FFT
+	 * would be more expensive than the direct evaluation, the exact method is used instead.
+	 *
+	 * @param  kernelType         the type of kernel function to use
+	 * @param  bandwidth          the bandwidth of the kernel function
+	 * @param  nrOfSupportPoints  the number of (X,Y) values to use for the smoothened 1D function
+	 * @param  minSupport         the minimum value for the support
+	 * @param  maxSupport         the maximum value for the support
+	 * @param  kdeMethod          the method to use for the estimation
+	 */
+	public void estimateKDEPDF(MathTools.EKernelType kernelType, double bandwidth, int nrOfSupportPoints, double minSupport, double maxSupport, EKDEMethod kdeMethod)
+	{
+		if (fN == 0) {
 			return;
 		}
 
 		// prepare new support
 		double xRange = maxSupport - minSupport;
 		double delta = xRange / (nrOfSupportPoints - 1);
-		double[] xSupport = new double[nrOfSupportPoints];
-		for (int i = 0; i < nrOfSupportPoints; ++i) {
-			xSupport[i] = minSupport + (i * delta);
-		}
-
 		double[] xk = new double[nrOfSupportPoints];
-		double[] yk = new double[nrOfSupportPoints];
-
-		// apply kernel density estimator to all points in the new support
 		for (int k = 0; k < nrOfSupportPoints; ++k) {
-			xk[k] = xSupport[k];
+			xk[k] = minSupport + (k * delta);
+		}
 
-			// apply kernel function to all points
-			yk[k] = 0.0;
-			for (int i = 0; i < getN(); ++i) {
-				double u = (xk[k] - fX[i]) / bandwidth;
-				double uk = MathTools.getKernel(u,kernelType);
-				yk[k] += uk;
-			}
-			yk[k] /= (getN() * bandwidth);
+		double[] yk = null;
+		if (kdeMethod == EKDEMethod.kBinnedFFT) {
+			yk = estimateBinnedKDEPDF(kernelType,bandwidth,nrOfSupportPoints,minSupport,delta);
+		}
+		if (yk == null) {
+			yk = estimateExactKDEPDF(kernelType,bandwidth,xk);
 		}
 
-		fKDEXMin = minSupport;
-		fKDEXMax = maxSupport;
-		fKDEXRange = xRange;
-		fKDEPDF = new FunctionLookupTable(xk,yk);
+		// the lookup table's interpolation cache is built before the table is published, so that concurrent queries only read it
+		FunctionLookupTable kdePDF = new FunctionLookupTable(xk,yk);
+		kdePDF.isUniformGrid();
 
 		// find all modes
-		Extrema extrema = MathTools.findExtrema(fKDEPDF.fY);
+		Extrema extrema = MathTools.findExtrema(yk);
 
 		double[] x = new double[extrema.getNrOfLocalMaxima()];
 		double[] y = new double[extrema.getNrOfLocalMaxima()];
 		for (int i = 0; i < extrema.getNrOfLocalMaxima(); ++i) {
 			Extremum maximum = extrema.getLocalMaximum(i);
-			x[i] = fKDEPDF.fX[maximum.getIndex()];
+			x[i] = xk[maximum.getIndex()];
 			y[i] = maximum.getValue();
 		}
 
+		fKDEXMin = minSupport;
+		fKDEXMax = maxSupport;
+		fKDEXRange = xRange;
 		fKDEPDFExtrema = new FunctionLookupTable(x,y);
+		fKDEPDF = kdePDF;
 	}
 
 	/**
@@ -638,6 +773,7 @@ public final class EmpiricalDistribution
 	 */
 	public int getNrOfHistogramBins()
 	{
+		ensureHistogram();
 		return fNrOfHistogramBins;
 	}
 
@@ -649,6 +785,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getHistogramBinCount(int histogramBin)
 	{
+		ensureHistogram();
 		if (fHistogramBinCounts == null) {
 			return 0.0;
 		}
@@ -663,6 +800,7 @@ public final class EmpiricalDistribution
 	 */
 	public double[] getHistogramBinCounts()
 	{
+		ensureHistogram();
 		return fHistogramBinCounts;
 	}
 
@@ -674,6 +812,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getHistogramBinFrequency(int histogramBin)
 	{
+		ensureHistogram();
 		if (fHistogramBinFrequencies == null) {
 			return 0.0;
 		}
@@ -688,6 +827,7 @@ public final class EmpiricalDistribution
 	 */
 	public double[] getHistogramBinFrequencies()
 	{
+		ensureHistogram();
 		return fHistogramBinFrequencies;
 	}
 
@@ -699,6 +839,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getHistogramBinCentre(int histogramBin)
 	{
+		ensureHistogram();
 		if (fHistogramBinCentres == null) {
 			return 0.0;
 		}
@@ -713,9 +854,21 @@ public final class EmpiricalDistribution
 	 */
 	public double[] getHistogramBinCentres()
 	{
+		ensureHistogram();
 		return fHistogramBinCentres;
 	}
 
+	/**
+	 * Returns the right edges of all the histogram bins.
+	 *
+	 * @return an array containing the right edges of all the histogram bins
+	 */
+	public double[] getHistogramBinRightEdges()
+	{
+		ensureHistogram();
+		return fHistogramBinRightEdges;
+	}
+
 	/**
 	 * Returns the width of a histogram bin.
 	 *
@@ -723,6 +876,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getHistogramBinWidth()
 	{
+		ensureHistogram();
 		return fHistogramBinWidth;
 	}
 
@@ -734,10 +888,12 @@ public final class EmpiricalDistribution
 	 */
 	public double getPDF(double x)
 	{
-		if (fX == null) {
+		if (fN == 0) {
 			return 0.0;
 		}
 
+		ensureHistogram();
+
 		double pdf = 0.0;
 
 		if ((x >= fXMin) && (x <= fXMax)) {
@@ -756,11 +912,13 @@ public final class EmpiricalDistribution
 				y1 = fHistogramBinFrequencies[fNrOfHistogramBins - 1];
 			}
 			else {
-				ArraySearchBounds bounds = MathTools.searchArrayBounds(fHistogramBinCentres,x);
-				x1 = fHistogramBinCentres[bounds.getLowerBound()];
-				y1 = fHistogramBinFrequencies[bounds.getLowerBound()];
-				x2 = fHistogramBinCentres[bounds.getUpperBound()];
-				y2 = fHistogramBinFrequencies[bounds.getUpperBound()];
+				long bounds = MathTools.searchPackedArrayBounds(fHistogramBinCentres,x);
+				int lowerBound = ArraySearchBounds.unpackLowerBound(bounds);
+				int upperBound = ArraySearchBounds.unpackUpperBound(bounds);
+				x1 = fHistogramBinCentres[lowerBound];
+				y1 = fHistogramBinFrequencies[lowerBound];
+				x2 = fHistogramBinCentres[upperBound];
+				y2 = fHistogramBinFrequencies[upperBound];
 			}
 
 			// do a linear interpolation
@@ -785,23 +943,15 @@ public final class EmpiricalDistribution
 	 */
 	public double getKDEPDF(double x)
 	{
-		if ((fX == null) || (fKDEPDF == null)) {
+		FunctionLookupTable kdePDF = fKDEPDF;
+		if ((fN == 0) || (kdePDF == null)) {
 			return 0.0;
 		}
 
 		double pdf = 0.0;
 		if ((x >= fKDEXMin) && (x <= fKDEXMax)) {
-
-			ArraySearchBounds bounds = MathTools.searchArrayBounds(fKDEPDF.fX,x);
-			double x1 = fKDEPDF.fX[bounds.getLowerBound()];
-			double y1 = fKDEPDF.fY[bounds.getLowerBound()];
-			double x2 = fKDEPDF.fX[bounds.getUpperBound()];
-			double y2 = fKDEPDF.fY[bounds.getUpperBound()];
-
 			// do a linear interpolation
-			if (x1 != x2) {
-				pdf = y1 + ((x - x1) * ((y2 - y1) / (x2 - x1)));
-			}
+			pdf = kdePDF.evaluate(x);
 		}
 
 		// fail-safe for negative probabilities
@@ -812,6 +962,33 @@ public final class EmpiricalDistribution
 		return pdf;
 	}
 
+	/**
+	 * Returns the values of the probability density function (PDF) evaluated at a series of values (based on kernel density estimation, KDE).
+	 * <P>
+	 * The values are interpolated in batch (see {@link FunctionLookupTable#evaluate(double[],double[])}), which avoids a search per value on the uniform grid of the KDE.
+	 *
+	 * @param x  the values to evaluate the probability density function at
+	 * @return   the values of the probability density function evaluated at the elements of <CODE>x</CODE>
+	 */
+	public double[] getKDEPDF(double[] x)
+	{
+		double[] pdf = new double[x.length];
+		FunctionLookupTable kdePDF = fKDEPDF;
+		if ((fN == 0) || (kdePDF == null)) {
+			return pdf;
+		}
+
+		kdePDF.evaluate(x,pdf);
+		for (int i = 0; i < x.length; ++i) {
+			// fail-safe for values outside the support and for negative probabilities
+			if (!((x[i] >= fKDEXMin) && (x[i] <= fKDEXMax)) || (pdf[i] < 0.0)) {
+				pdf[i] = 0.0;
+			}
+		}
+
+		return pdf;
+	}
+
 	/**
 	 * Returns the previously complete calculated kernel density estimation (KDE) of the probability distribution function (PDF).
 	 *
@@ -840,6 +1017,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getExpectedValue()
 	{
+		ensureMoments();
 		return fExpectedValue;
 	}
 
@@ -865,6 +1043,12 @@ public final class EmpiricalDistribution
 	 */
 	public double getTrimmedMean(double percentageToTrim)
 	{
+		if (fN == 0) {
+			return 0.0;
+		}
+
+		ensureOrderStatistics();
+
 		int nrOfDataPointsToDiscardAtEachEnd = (int) ((double) fN * MathTools.clip(percentageToTrim,0.0,1.0) / 2.0);
 		int lowEnd = (int) MathTools.clip(nrOfDataPointsToDiscardAtEachEnd,1.0,fN) - 1;
 		int highEnd = (int) MathTools.clip(fN - nrOfDataPointsToDiscardAtEachEnd,lowEnd,fN) - 1;
@@ -875,7 +1059,7 @@ public final class EmpiricalDistribution
 			double frequency = 1.0 / (double) range;
 			fTrimmedMean = 0.0;
 			for (int i = lowEnd; i <= highEnd; ++i) {
-				fTrimmedMean += fX[i];
+				fTrimmedMean += fXSorted[i];
 			}
 			return (fTrimmedMean * frequency);
 		}
@@ -901,6 +1085,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getVariance()
 	{
+		ensureMoments();
 		return fVariance;
 	}
 
@@ -911,6 +1096,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getStandardDeviation()
 	{
+		ensureMoments();
 		return fStandardDeviation;
 	}
 
@@ -934,6 +1120,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getSkewness()
 	{
+		ensureMoments();
 		return fSkewness;
 	}
 
@@ -944,6 +1131,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getSkewnessConfidenceBounds()
 	{
+		ensureMoments();
 		return fSkewnessConfidenceBounds;
 	}
 
@@ -961,6 +1149,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getSkewnessZStatistic()
 	{
+		ensureMoments();
 		return fSkewnessZStatistic;
 	}
 
@@ -980,6 +1169,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getKurtosis()
 	{
+		ensureMoments();
 		return fKurtosis;
 	}
 
@@ -997,6 +1187,7 @@ public final class EmpiricalDistribution
 	 */
 	public double getKurtosisZStatistic()
 	{
+		ensureMoments();
 		return fKurtosisZStatistic;
 	}
 
@@ -1013,10 +1204,12 @@ public final class EmpiricalDistribution
 	 */
 	public double getJarqueBeraTestStatistic()
 	{
-		if (fX == null) {
+		if (fN == 0) {
 			return 0.0;
 		}
 
+		ensureMoments();
+
 		return (fN * ((MathTools.sqr(fSkewness) / 6.0) + (MathTools.sqr(fKurtosis) / 24.0)));
 	}
 
@@ -1097,23 +1290,29 @@ public final class EmpiricalDistribution
 	 * Returns the calculated z-scores, defined as:
 	 * <P>
 	 * (value - mean) / standard deviation
+	 * <P>
+	 * In the {@link EmpiricalDistribution.EMemoryMode#kLean} memory mode, the z-scores are calculated on the first request.
 	 *
-	 * @return the z-scores
+	 * @return the z-scores (or <CODE>null</CODE> in the {@link EmpiricalDistribution.EMemoryMode#kLeanSortedOnly} memory mode)
 	 * @see    EmpiricalDistribution#getOutliers()
 	 */
 	public double[] getZScores()
 	{
+		ensureMoments();
+		estimateZScores();
 		return fZScores;
 	}
 
 	/**
 	 * Returns the outliers which are defined as having z-scores greater than 3.
 	 *
-	 * @return the outliers
+	 * @return the outliers (or <CODE>null</CODE> in the {@link EmpiricalDistribution.EMemoryMode#kLeanSortedOnly} memory mode)
 	 * @see    EmpiricalDistribution#getZScores()
 	 */
 	public boolean[] getOutliers()
 	{
+		ensureMoments();
+		estimateZScores();
 		return fOutliers;
 	}
 
@@ -1204,6 +1403,7 @@ public final class EmpiricalDistribution
 	 */
 	public String getSkewnessInterpretation()
 	{
+		ensureMoments();
 		String skewnessInterpretation = "";
 		if ((fSkewnessZStatistic >= -2.0) && (fSkewnessZStatistic <= +2.0)) {
 			skewnessInterpretation = I18NL10N.kINSTANCE.translate("text.Statistics.SkewnessInconclusive");
@@ -1236,6 +1436,7 @@ public final class EmpiricalDistribution
 	 */
 	public String getKurtosisInterpretation()
 	{
+		ensureMoments();
 		String kurtosisInterpretation = "";
 		if ((fKurtosisZStatistic >= -2.0) && (fKurtosisZStatistic <= +2.0)) {
 			kurtosisInterpretation = I18NL10N.kINSTANCE.translate("text.Statistics.KurtosisInconclusive");
@@ -1259,6 +1460,189 @@ public final class EmpiricalDistribution
 	 * PRIVATE METHODS *
 	 *******************/
 
+	/**
+	 * Linearly interpolates the cumulative distribution function (CDF) between two sorted samples.
+	 *
+	 * @param  x           -
+	 * @param  lowerBound  -
+	 * @param  upperBound  -
+	 * @return             -
+	 */
+	private double interpolateCDF(double x, int lowerBound, int upperBound)
+	{
+		double xRange = fXSorted[upperBound] - fXSorted[lowerBound];
+		double xDelta = x - fXSorted[lowerBound];
+		double fraction = 0.0;
+		if (xRange != 0.0) {
+			fraction = xDelta / xRange;
+		}
+
+		double cdfRange = getCDFValue(upperBound) - getCDFValue(lowerBound);
+		double cdfDelta = fraction * cdfRange;
+
+		return (getCDFValue(lowerBound) + cdfDelta);
+	}
+
+	/**
+	 * Returns the value of the empirical CDF at a sorted sample, i.e., i / N (except for the last sample, at which the CDF equals 1).
+	 *
+	 * @param  i  -
+	 * @return    -
+	 */
+	private double getCDFValue(int i)
+	{
+		if (i >= (fN - 1)) {
+			return 1.0;
+		}
+		else {
+			return ((double) i / (double) fN);
+		}
+	}
+
+	/**
+	 * @return -
+	 */
+	private double[] calculateCDFValues()
+	{
+		double[] cdf = new double[fN];
+		for (int i = 0; i < fN; ++i) {
+			cdf[i] = getCDFValue(i);
+		}
+		return cdf;
+	}
+
+	/**
+	 * Returns the samples in their original order if available, and in sorted order otherwise (for calculations that do not depend on the order).
+	 *
+	 * @return -
+	 */
+	private double[] getSamples()
+	{
+		return ((fX != null) ? fX : fXSorted);
+	}
+
+	/**
+	 * Evaluates the kernel density estimator directly in all support points.
+	 *
+	 * @param  kernelType  -
+	 * @param  bandwidth   -
+	 * @param  xk          -
+	 * @return             -
+	 */
+	private double[] estimateExactKDEPDF(MathTools.EKernelType kernelType, double bandwidth, double[] xk)
+	{
+		double[] yk = new double[xk.length];
+
+		// apply kernel density estimator to all points in the new support
+		double[] samples = getSamples();
+		for (int k = 0; k < xk.length; ++k) {
+			// apply kernel function to all points
+			yk[k] = 0.0;
+			for (int i = 0; i < fN; ++i) {
+				double u = (xk[k] - samples[i]) / bandwidth;
+				double uk = MathTools.getKernel(u,kernelType);
+				yk[k] += uk;
+			}
+			yk[k] /= (fN * bandwidth);
+		}
+
+		return yk;
+	}
+
+	/**
+	 * Approximates the kernel density estimator in all support points by linear binning followed by an FFT-based convolution.
+	 *
+	 * @param  kernelType         -
+	 * @param  bandwidth          -
+	 * @param  nrOfSupportPoints  -
+	 * @param  minSupport         -
+	 * @param  delta              -
+	 * @return                    -
+	 */
+	private double[] estimateBinnedKDEPDF(MathTools.EKernelType kernelType, double bandwidth, int nrOfSupportPoints, double minSupport, double delta)
+	{
+		if ((nrOfSupportPoints < 2) || !(delta > 0.0) || !(bandwidth > 0.0)) {
+			return null;
+		}
+
+		// the kernel reaches L grid points to either side, so the grid is extended by L points beyond each end of the support
+		double reach = Math.ceil((MathTools.getKernelSupportRadius(kernelType) * bandwidth) / delta);
+		double nrOfGridPoints = nrOfSupportPoints + (2.0 * reach);
+
+		// the linear convolution of the grid with the kernel (2L + 1 points) requires a transform of at least G + 2L points
+		double minTransformLength = nrOfGridPoints + (2.0 * reach);
+		if (minTransformLength > (1 << 30)) {
+			return null;
+		}
+		int transformLength = 1;
+		while (transformLength < minTransformLength) {
+			transformLength <<= 1;
+		}
+
+		// fall back to the exact method whenever it is cheaper
+		double transformCost = 3.0 * transformLength * (Math.log(transformLength) / Math.log(2.0));
+		if ((fN + transformCost) >= ((double) nrOfSupportPoints * fN)) {
+			return null;
+		}
+
+		int l = (int) reach;
+		int g = (int) nrOfGridPoints;
+
+		// distribute each sample linearly over its two neighbouring grid points
+		double[] samples = getSamples();
+		double[] countsRe = new double[transformLength];
+		for (int i = 0; i < fN; ++i) {
+			double t = ((samples[i] - minSupport) / delta) + l;
+			if ((t >= 0.0) && (t <= (g - 1))) {
+				int k = (int) t;
+				double fraction = t - k;
+				countsRe[k] += (1.0 - fraction);
+				if (k < (g - 1)) {
+					countsRe[k + 1] += fraction;
+				}
+			}
+		}
+
+		// sample the kernel on the grid (index j corresponds to an offset of j - L grid points)
+		double[] kernelRe = new double[transformLength];
+		for (int j = -l; j <= l; ++j) {
+			kernelRe[j + l] = MathTools.getKernel((j * delta) / bandwidth,kernelType);
+		}
+
+		// convolve in the frequency domain
+		double[] countsIm = new double[transformLength];
+		double[] kernelIm = new double[transformLength];
+		MathTools.fft(countsRe,countsIm,false);
+		MathTools.fft(kernelRe,kernelIm,false);
+		for (int i = 0; i < transformLength; ++i) {
+			double re = (countsRe[i] * kernelRe[i]) - (countsIm[i] * kernelIm[i]);
+			double im = (countsRe[i] * kernelIm[i]) + (countsIm[i] * kernelRe[i]);
+			countsRe[i] = re;
+			countsIm[i] = im;
+		}
+		MathTools.fft(countsRe,countsIm,true);
+
+		// the support point k lies at grid point k + L, whose convolution sum is found at index k + 2L
+		double[] yk = new double[nrOfSupportPoints];
+		double yMax = 0.0;
+		for (int k = 0; k < nrOfSupportPoints; ++k) {
+			yk[k] = countsRe[k + (2 * l)] / (fN * bandwidth);
+			if (yk[k] > yMax) {
+				yMax = yk[k];
+			}
+		}
+
+		// remove the round-off noise of the FFT (which would otherwise introduce spurious modes)
+		double noiseLevel = 1e-12 * yMax;
+		for (int k = 0; k < nrOfSupportPoints; ++k) {
+			if (Math.abs(yk[k]) <= noiseLevel) {
+				yk[k] = 0.0;
+			}
+		}
+
+		return yk;
+	}
+
 	/**
 	 * @param x                            -
 	 * @param useOptimalNrOfHistogramBins  -
@@ -1272,20 +1656,25 @@ public final class EmpiricalDistribution
 		if (x != null) {
 			fN = x.length;
 
-			// deep copy x
-			fX = new double[fN];
-	    System.arraycopy(x,0,fX,0,fN);
+			// deep copy x; without the need for the raw data, the copy is later sorted in place
+			double[] xCopy = new double[fN];
+			System.arraycopy(x,0,xCopy,0,fN);
+			if (fMemoryMode == EMemoryMode.kLeanSortedOnly) {
+				fXSorted = xCopy;
+			}
+			else {
+				fX = xCopy;
+			}
 		}
 		else {
 			fN = 0;
-			fX = null;
 		}
 
-    fUseOptimalNrOfHistogramBins = useOptimalNrOfHistogramBins;
+		fUseOptimalNrOfHistogramBins = useOptimalNrOfHistogramBins;
 		fNrOfHistogramBins = nrOfHistogramBins;
-		fHistogramBinRightEdges = histogramBinRightEdges;
+		fCustomHistogramBinRightEdges = histogramBinRightEdges;
 
-		analyse();
+		// all statistical quantities are estimated on first access
 	}
 
 	/**
@@ -1297,84 +1686,251 @@ public final class EmpiricalDistribution
 	private void setData(ArrayList<Double> x, boolean useOptimalNrOfHistogramBins, int nrOfHistogramBins, ArrayList<Double> histogramBinRightEdges)
 	{
 		double[] xArray= x.stream().mapToDouble(Double::doubleValue).toArray();
-		double[] histArray = histogramBinRightEdges.stream().mapToDouble(Double::doubleValue).toArray();
+		double[] histArray = ((histogramBinRightEdges != null) ? histogramBinRightEdges.stream().mapToDouble(Double::doubleValue).toArray() : null);
 		setData(xArray,useOptimalNrOfHistogramBins,nrOfHistogramBins,histArray);
 	}
 
 	/**
+	 * Ensures that the order statistics are estimated, without locking once they are available.
 	 */
-	private void estimateStatistics()
+	private void ensureOrderStatistics()
 	{
-		fMedian = getPercentile(50);
-		fInterquartileRange = getPercentile(75) - getPercentile(25);
+		// the volatile flag is only set after all order statistics have been stored
+		if (!fOrderStatisticsEstimated) {
+			estimateOrderStatistics();
+		}
+	}
 
-		// E[X] = sum(Xi * fi)
-		double frequency = 1.0 / (double) fN;
-		fExpectedValue = 0.0;
-		for (int i = 0; i < fN; ++i) {
-			fExpectedValue += fX[i];
+	/**
+	 * Sorts the samples and estimates the CDF, the percentiles, the median and the interquartile range (once per data set).
+	 */
+	private synchronized void estimateOrderStatistics()
+	{
+		if (fOrderStatisticsEstimated || (fN == 0)) {
+			return;
 		}
-		fExpectedValue *= frequency;
 
-		// Var[X] = E[X^2] - E[X]^2
-		fVariance = 0.0;
-		for (int i = 0; i < fN; ++i) {
-			fVariance += MathTools.sqr(fX[i]);
+		// sort all samples in ascending order (without boxing them); without the raw data, its copy is sorted in place
+		if (fX != null) {
+			fXSorted = Arrays.copyOf(fX,fN);
+		}
+		if (fN >= fParallelThreshold) {
+			Arrays.parallelSort(fXSorted);
 		}
-		fVariance *= frequency;
-		fVariance -= MathTools.sqr(fExpectedValue);
-		if (fN > 1) {
-			// make the variance an unbiased estimator
-			fVariance *= ((double) fN / ((double) fN - 1.0));
+		else {
+			Arrays.sort(fXSorted);
 		}
+		// sorting places NaN values last, and these are skipped for the extrema (as is done by the moments)
+		int last = fN - 1;
+		while ((last > 0) && Double.isNaN(fXSorted[last])) {
+			--last;
+		}
+		fXMin = fXSorted[0];
+		fXMax = fXSorted[last];
+		fXRange = fXMax - fXMin;
 
-		// std[X] = sqrt(Var[X])
-		fStandardDeviation = Math.sqrt(fVariance);
+		// without censoring, the product-limit (Kaplan-Meier) estimate of the survivor function reduces to S(i) = (N - i) / N,
+		// so that the CDF follows in closed form (and is only stored in the standard memory mode)
+		fCDF = null;
+		if (fMemoryMode == EMemoryMode.kStandard) {
+			fCDF = calculateCDFValues();
+		}
 
-		// Skewness[X] = sum((Xi - E[X])^3) / std^3
-		// Kurtosis[X] = sum((Xi - E[X])^4) / std^4
-		double n = fN;
-		double s2 = 0.0; // 2nd moment
-		double m3 = 0.0; // 3rd moment
-		double m4 = 0.0; // 4th moment
-		for (int i = 0; i < fN; ++i) {
-			s2 += MathTools.sqr(fX[i] - fExpectedValue); // biased variance estimator
-			m3 += MathTools.cube(fX[i] - fExpectedValue);
-			m4 += MathTools.quadr(fX[i] - fExpectedValue);
-		}
-		fSkewness = (m3 / n) / Math.pow(s2 / n,1.5); // population skewness
-		fSkewness *= (Math.sqrt(n * (n - 1.0)) / (n - 2.0)); // sample skewness
-		double standardErrorOfSkewness = Math.sqrt((6.0 * n * (n - 1.0)) / ((n - 2.0) * (n + 1.0) * (n + 3.0)));
-		fSkewnessConfidenceBounds = 2.0 * standardErrorOfSkewness; // symmetric bounds for a 95% confidence interval
-		fSkewnessZStatistic = fSkewness / standardErrorOfSkewness; // two-tailed test of skewness != 0 with 5% significance level
-
-		fKurtosis = (m4 / n) / MathTools.sqr(s2 / n); // population kurtosis
-		fKurtosis = ((fKurtosis * (n + 1.0)) - (3.0 * (n - 1.0))) * ((n - 1.0) / ((n - 2.0) * (n - 3.0))) + 3.0; // sample kurtosis
-		fKurtosis -= 3.0; // leading to zero kurtosis for a normal distribution
-		double standardErrorOfKurtosis = 2.0 * standardErrorOfSkewness * Math.sqrt((MathTools.sqr(n) - 1.0) / ((n - 3.0) * (n + 5.0)));
-		fKurtosisZStatistic = fKurtosis / standardErrorOfKurtosis; // two-tailed test of kurtosis != 0 with 5% significance level
-
-		if (fStandardDeviation != 0.0) {
-			fZScores = new double[fN];
-			fOutliers = new boolean[fN];
-			for (int i = 0; i < fN; ++i) {
-				fZScores[i] = (fX[i] - fExpectedValue) / fStandardDeviation;
-				fOutliers[i] = (fZScores[i] > 3.0);
+		// estimate the percentiles
+		fPercentiles = new double[1001];
+		for (int percentile = 0; percentile <= 1000; ++percentile) {
+			double rank = (((double) percentile / 1000.0) * ((double) fN - 1.0)) + 1.0;
+			if (rank <= 1.0) {
+				fPercentiles[percentile] = fXSorted[0];
+			}
+			else if (rank >= fN) {
+				fPercentiles[percentile] = fXSorted[fN - 1];
+			}
+			else {
+				int k = (int) Math.floor(rank);
+				double d = rank - (double) k;
+				fPercentiles[percentile] = fXSorted[k - 1] + (d * (fXSorted[k] - fXSorted[k - 1]));
+			}
+		}
+
+		fMedian = fPercentiles[500];
+		fInterquartileRange = fPercentiles[750] - fPercentiles[250];
+
+		fOrderStatisticsEstimated = true;
+	}
+
+	/**
+	 * Selects order statistics, either from the sorted samples or (if these are not available yet) with a selection algorithm.
+	 *
+	 * @param  ranks  -
+	 * @return        -
+	 */
+	private synchronized double[] selectOrderStatistics(int[] ranks)
+	{
+		if (fOrderStatisticsEstimated) {
+			double[] orderStatistics = new double[ranks.length];
+			for (int i = 0; i < ranks.length; ++i) {
+				orderStatistics[i] = fXSorted[ranks[i]];
+			}
+			return orderStatistics;
+		}
+		else if (fN >= fParallelThreshold) {
+			return MathTools.selectOrderStatisticsInParallel(getSamples(),ranks);
+		}
+		else if (fX == null) {
+			// the unsorted copy of the samples is sorted in place later on anyway
+			return MathTools.selectOrderStatistics(fXSorted,ranks);
+		}
+		else {
+			return MathTools.selectOrderStatistics(Arrays.copyOf(fX,fN),ranks);
+		}
+	}
+
+	/**
+	 * Ensures that the moments are estimated, without locking once they are available.
+	 */
+	private void ensureMoments()
+	{
+		// the volatile flag is only set after all moments have been stored
+		if (!fMomentsEstimated) {
+			estimateMoments();
+		}
+	}
+
+	/**
+	 * Estimates the first four moments (and in the standard memory mode also the z-scores) in a single pass (once per data set).
+	 */
+	private synchronized void estimateMoments()
+	{
+		if (fMomentsEstimated || (fN == 0)) {
+			return;
+		}
+
+		// estimate the first four moments in a single pass (in parallel for large samples)
+		double[] samples = getSamples();
+		MomentAccumulator moments = null;
+		if (fN >= fParallelThreshold) {
+			moments = MomentAccumulator.accumulateInParallel(samples);
+		}
+		else {
+			moments = new MomentAccumulator();
+			moments.add(samples);
+		}
+
+		fExpectedValue = moments.getMean();
+		fVariance = moments.getVariance();
+		fStandardDeviation = moments.getStandardDeviation();
+		fSkewness = moments.getSkewness();
+		fSkewnessConfidenceBounds = moments.getSkewnessConfidenceBounds(); // symmetric bounds for a 95% confidence interval
+		fSkewnessZStatistic = moments.getSkewnessZStatistic(); // two-tailed test of skewness != 0 with 5% significance level
+		fKurtosis = moments.getKurtosis();
+		fKurtosisZStatistic = moments.getKurtosisZStatistic(); // two-tailed test of kurtosis != 0 with 5% significance level
+		if (!fOrderStatisticsEstimated) {
+			fXMin = moments.getMinimum();
+			fXMax = moments.getMaximum();
+			fXRange = fXMax - fXMin;
+		}
+
+		// the z-scores are only calculated on request in the lean memory modes
+		fZScores = null;
+		fOutliers = null;
+		fZScoresEstimated = false;
+		if (fMemoryMode == EMemoryMode.kStandard) {
+			estimateZScores();
+		}
+
+		fMomentsEstimated = true;
+	}
+
+	/**
+	 * Ensures that the histogram is estimated, without locking once it is available.
+	 */
+	private void ensureHistogram()
+	{
+		// the volatile flag is only set after the histogram has been stored
+		if (!fHistogramEstimated) {
+			estimateHistogram();
+		}
+	}
+
+	/**
+	 * Estimates the histogram (once per histogram configuration).
+	 */
+	private synchronized void estimateHistogram()
+	{
+		if (fHistogramEstimated || (fN == 0)) {
+			return;
+		}
+
+		// the samples need not be sorted: without the order statistics, the extrema follow from the moments and the interquartile range
+		// (only needed for the Freedman-Diaconis rule) is selected in linear time
+		double interquartileRange = fInterquartileRange;
+		if (!fOrderStatisticsEstimated) {
+			ensureMoments();
+			if (fUseOptimalNrOfHistogramBins && (fCustomHistogramBinRightEdges == null)) {
+				double[] quartiles = getPercentiles(new double[] {25.0,75.0});
+				interquartileRange = quartiles[1] - quartiles[0];
+			}
+		}
+		estimatePDF(interquartileRange);
+
+		fHistogramEstimated = true;
+	}
+
+	/**
+	 * Ensures that the z-scores and outliers are calculated, without locking once they are available.
+	 */
+	private void estimateZScores()
+	{
+		// the volatile flag is only set after the z-scores and outliers have been stored
+		if (!fZScoresEstimated) {
+			calculateZScores();
+		}
+	}
+
+	/**
+	 * Calculates the z-scores and outliers (once per data set, and only if the raw data is available).
+	 */
+	private synchronized void calculateZScores()
+	{
+		if (fZScoresEstimated) {
+			return;
+		}
+
+		if ((fX != null) && (fN > 0) && (fStandardDeviation != 0.0)) {
+			double[] zScores = new double[fN];
+			boolean[] outliers = new boolean[fN];
+			if (fN >= fParallelThreshold) {
+				IntStream.range(0,fN).parallel().forEach(i -> {
+					zScores[i] = (fX[i] - fExpectedValue) / fStandardDeviation;
+					outliers[i] = (zScores[i] > 3.0);
+				});
 			}
+			else {
+				for (int i = 0; i < fN; ++i) {
+					zScores[i] = (fX[i] - fExpectedValue) / fStandardDeviation;
+					outliers[i] = (zScores[i] > 3.0);
+				}
+			}
+			fZScores = zScores;
+			fOutliers = outliers;
 		}
+
+		fZScoresEstimated = true;
 	}
 
 	/**
+	 * @param interquartileRange  -
 	 */
-	private void estimatePDF()
+	private void estimatePDF(double interquartileRange)
 	{
 		// construct histogram
 
 		// define bin edges and centres
-		if (fHistogramBinRightEdges == null) {
+		if (fCustomHistogramBinRightEdges == null) {
 			if (fUseOptimalNrOfHistogramBins) {
 				// apply the Freedman-Diaconis rule for finding the optimal histogram bin width
-				double optimalBinWidth = (2.0 * fInterquartileRange) / Math.cbrt(fN);
+				double optimalBinWidth = (2.0 * interquartileRange) / Math.cbrt(fN);
 				fNrOfHistogramBins = ((int) Math.round((fXMax - fXMin) / optimalBinWidth));
 			}
 
@@ -1394,6 +1950,7 @@ public final class EmpiricalDistribution
 			}
 		}
 		else {
+			fHistogramBinRightEdges = fCustomHistogramBinRightEdges;
 			fNrOfHistogramBins = fHistogramBinRightEdges.length;
 			fHistogramBinCentres = new double[fNrOfHistogramBins];
 			fHistogramBinCentres[0] = Double.NEGATIVE_INFINITY;
@@ -1402,19 +1959,20 @@ public final class EmpiricalDistribution
 			}
 		}
 
-		// calculate bin counts
+		// calculate bin counts (in parallel for large samples, each task counting into its own histogram), which does not require sorted samples
+		double binWidth = ((fCustomHistogramBinRightEdges == null) ? fHistogramBinWidth : 0.0);
+		double[] samples = getSamples();
+		int[] binCounts = null;
+		if (fN >= fParallelThreshold) {
+			int nrOfSamplesPerTask = Math.max(kMinNrOfSamplesPerHistogramTask,fN / (4 * ForkJoinPool.getCommonPoolParallelism()));
+			binCounts = (new HistogramTask(samples,0,fN,fHistogramBinRightEdges,fXMin,binWidth,nrOfSamplesPerTask)).invoke();
+		}
+		else {
+			binCounts = countHistogramBins(samples,0,fN,fHistogramBinRightEdges,fXMin,binWidth);
+		}
 		fHistogramBinCounts = new double[fNrOfHistogramBins];
-		int currentBinIndex = 0;
-		for (int i = 0; i < fN; ++i) {
-			if (fXSorted[i] < fHistogramBinRightEdges[currentBinIndex]) {
-				++fHistogramBinCounts[currentBinIndex];
-			}
-			else {
-				while ((currentBinIndex < (fNrOfHistogramBins - 1)) && (fXSorted[i] >= fHistogramBinRightEdges[currentBinIndex])) {
-					++currentBinIndex;
-				}
-				++fHistogramBinCounts[currentBinIndex];
-			}
+		for (int i = 0; i < fNrOfHistogramBins; ++i) {
+			fHistogramBinCounts[i] = binCounts[i];
 		}
 
 		// convert bin counts to frequencies
@@ -1423,4 +1981,123 @@ public final class EmpiricalDistribution
 			fHistogramBinFrequencies[i] = fHistogramBinCounts[i] / (double) fN;
 		}
 	}
+
+	/**
+	 * Counts the samples in a range per histogram bin, where bin i holds the samples in [right edge i - 1, right edge i[, the first bin also holds
+	 * all samples below its right edge, and the last bin also holds all samples beyond its left edge (as well as <CODE>NaN</CODE> values).
+	 * <P>
+	 * For uniform bins (i.e., a positive bin width), the bin is indexed directly from the value and corrected for the rounding of the bin edges;
+	 * otherwise, the bin is found by a binary search over the right edges.
+	 *
+	 * @param  x           -
+	 * @param  from        -
+	 * @param  to          - (exclusive)
+	 * @param  rightEdges  -
+	 * @param  xMin        -
+	 * @param  binWidth    - (0 for non-uniform bins)
+	 * @return             -
+	 */
+	private static int[] countHistogramBins(double[] x, int from, int to, double[] rightEdges, double xMin, double binWidth)
+	{
+		int lastBin = rightEdges.length - 1;
+		int[] binCounts = new int[rightEdges.length];
+		for (int i = from; i < to; ++i) {
+			double xi = x[i];
+			int bin = lastBin;
+			if (Double.isNaN(xi)) {
+				// sorting places NaN values last
+				bin = lastBin;
+			}
+			else if (binWidth > 0.0) {
+				double position = (xi - xMin) / binWidth;
+				bin = ((position <= 0.0) ? 0 : ((position >= lastBin) ? lastBin : (int) position));
+				if ((bin > 0) && (xi < rightEdges[bin - 1])) {
+					--bin;
+				}
+				else if ((bin < lastBin) && (xi >= rightEdges[bin])) {
+					++bin;
+				}
+			}
+			else {
+				int low = 0;
+				int high = lastBin;
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (rightEdges[middle] <= xi) {
+						low = middle + 1;
+					}
+					else {
+						high = middle;
+					}
+				}
+				bin = low;
+			}
+			++binCounts[bin];
+		}
+		return binCounts;
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * Recursively splits the counting of a range of samples per histogram bin over the fork/join pool, after which the histograms are added.
+	 */
+	private static final class HistogramTask extends RecursiveTask<int[]>
+	{
+		// the version of the serialised form
+		private static final long serialVersionUID = 1L;
+
+		// internal datastructures
+		private final double[] fX;
+		private final int fFrom;
+		private final int fTo;
+		private final double[] fRightEdges;
+		private final double fXMin;
+		private final double fBinWidth;
+		private final int fNrOfSamplesPerTask;
+
+		/**
+		 * @param x                   -
+		 * @param from                -
+		 * @param to                  -
+		 * @param rightEdges          -
+		 * @param xMin                -
+		 * @param binWidth            -
+		 * @param nrOfSamplesPerTask  -
+		 */
+		public HistogramTask(double[] x, int from, int to, double[] rightEdges, double xMin, double binWidth, int nrOfSamplesPerTask)
+		{
+			fX = x;
+			fFrom = from;
+			fTo = to;
+			fRightEdges = rightEdges;
+			fXMin = xMin;
+			fBinWidth = binWidth;
+			fNrOfSamplesPerTask = nrOfSamplesPerTask;
+		}
+
+		/**
+		 * @return -
+		 */
+		@Override
+		protected int[] compute()
+		{
+			if ((fTo - fFrom) <= fNrOfSamplesPerTask) {
+				return countHistogramBins(fX,fFrom,fTo,fRightEdges,fXMin,fBinWidth);
+			}
+
+			int middle = (fFrom + fTo) >>> 1;
+			HistogramTask leftTask = new HistogramTask(fX,fFrom,middle,fRightEdges,fXMin,fBinWidth,fNrOfSamplesPerTask);
+			HistogramTask rightTask = new HistogramTask(fX,middle,fTo,fRightEdges,fXMin,fBinWidth,fNrOfSamplesPerTask);
+			leftTask.fork();
+			int[] binCounts = rightTask.compute();
+			int[] leftBinCounts = leftTask.join();
+			for (int i = 0; i < binCounts.length; ++i) {
+				binCounts[i] += leftBinCounts[i];
+			}
+			return binCounts;
+		}
+	}
 }
@@ -0,0 +1,521 @@
+// -------------------------------------------------
+// Filename      : EmpiricalDistributionSampler.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -------------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.util.*;
+import java.util.stream.*;
+import org.sm.smtools.math.*;
+
+/**
+ * The <CODE>EmpiricalDistributionSampler</CODE> class offers a means to draw random variates from an {@link EmpiricalDistribution}.
+ * <P>
+ * Each variate is obtained by inverting a cumulative distribution function (CDF) at a uniformly distributed random number, where the
+ * CDF can be derived from one of three sources (see {@link EmpiricalDistributionSampler.ESource}):
+ * <UL>
+ *   <LI>the empirical CDF, which is linearly interpolated between the sorted samples (as in {@link EmpiricalDistribution#getCDF(double)}),</LI>
+ *   <LI>the histogram, from which a bin is chosen with an alias table (Walker's method) and a value is drawn uniformly within that bin,</LI>
+ *   <LI>the kernel density estimation (KDE) of the PDF, which is integrated exactly as a piecewise linear function.</LI>
+ * </UL>
+ * The piecewise CDFs are inverted with a guide table, i.e., an index of the segment that contains each of a fixed number of equally spaced
+ * probabilities, from which on the correct segment is found after (on average) at most one additional step. Together with the alias table,
+ * this yields O(1) time per variate, using a single uniform random number.
+ * <P>
+ * All tables are built by the constructor, after which the sampler is immutable. It can therefore be shared by several threads, provided
+ * each thread uses its own random number generator; {@link EmpiricalDistributionSampler#sampleInParallel(double[],long)} generates a
+ * reproducible series of variates over all available processor cores, using a {@link SplittableRandom} stream per chunk.
+ * <P>
+ * Note that the sampler refers to the data of the distribution at the time of its construction (re-analysing the distribution does not affect it).
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     EmpiricalDistribution
+ */
+public final class EmpiricalDistributionSampler
+{
+	/**
+	 * The different sources for the cumulative distribution function that is sampled.
+	 */
+	public static enum ESource {
+		/**
+		 * The empirical CDF (which requires the distribution to be analysed).
+		 */
+		kEmpiricalCDF,
+
+		/**
+		 * The histogram of the PDF (which requires the distribution to be analysed).
+		 */
+		kHistogram,
+
+		/**
+		 * The kernel density estimation of the PDF (which requires the KDE to be estimated).
+		 */
+		kKDE};
+
+	// the number of variates that are generated by each parallel task
+	private static final int kParallelChunkSize = 1 << 16;
+
+	// internal datastructures
+	private ESource fSource;
+	private boolean fIsValid;
+	private double[] fX;
+	private double[] fCDF;
+	private double[] fY;
+	private int[] fGuideTable;
+	private double[] fBinLeftEdges;
+	private double[] fBinRightEdges;
+	private double[] fAliasProbabilities;
+	private int[] fAliases;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an <CODE>EmpiricalDistributionSampler</CODE> object for a specified distribution and source.
+	 * <P>
+	 * If the requested source is not available (e.g., because no KDE was estimated), the sampler is invalid and all variates are 0.
+	 *
+	 * @param distribution  the distribution to sample from
+	 * @param source        the source of the cumulative distribution function to sample
+	 * @see                 EmpiricalDistributionSampler#isValid()
+	 */
+	public EmpiricalDistributionSampler(EmpiricalDistribution distribution, ESource source)
+	{
+		fSource = source;
+		fIsValid = false;
+		if (distribution == null) {
+			return;
+		}
+
+		switch (source) {
+			case kEmpiricalCDF:
+				fIsValid = prepareEmpiricalCDF(distribution);
+				break;
+			case kHistogram:
+				fIsValid = prepareHistogram(distribution);
+				break;
+			case kKDE:
+				fIsValid = prepareKDE(distribution);
+				break;
+		}
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Returns the source of the cumulative distribution function that is sampled.
+	 *
+	 * @return the source of the cumulative distribution function that is sampled
+	 */
+	public ESource getSource()
+	{
+		return fSource;
+	}
+
+	/**
+	 * Returns whether or not the sampler could be constructed from the requested source.
+	 *
+	 * @return <CODE>true</CODE> if the sampler is valid, <CODE>false</CODE> otherwise
+	 */
+	public boolean isValid()
+	{
+		return fIsValid;
+	}
+
+	/**
+	 * Returns the inverse of the sampled cumulative distribution function, i.e., the value below which a specified fraction of the variates lie.
+	 *
+	 * @param p  the fraction (in the interval [0,1])
+	 * @return   the value of the inverse cumulative distribution function at <CODE>p</CODE> (or 0 if the sampler is invalid)
+	 */
+	public double getInverseCDF(double p)
+	{
+		if (!fIsValid) {
+			return 0.0;
+		}
+
+		// keep the fraction in [0,1)
+		if (!(p > 0.0)) {
+			p = 0.0;
+		}
+		else if (p >= 1.0) {
+			p = Math.nextDown(1.0);
+		}
+
+		switch (fSource) {
+			case kEmpiricalCDF:
+				return invertEmpiricalCDF(p);
+			case kHistogram:
+				return invertHistogram(p);
+			case kKDE:
+				return invertKDE(p);
+			default:
+				return 0.0;
+		}
+	}
+
+	/**
+	 * Draws a single variate.
+	 *
+	 * @param random  the random number generator to use
+	 * @return        the variate
+	 */
+	public double sample(Random random)
+	{
+		return getInverseCDF(random.nextDouble());
+	}
+
+	/**
+	 * Draws a single variate.
+	 *
+	 * @param random  the random number generator to use
+	 * @return        the variate
+	 */
+	public double sample(SplittableRandom random)
+	{
+		return getInverseCDF(random.nextDouble());
+	}
+
+	/**
+	 * Fills an array with variates.
+	 *
+	 * @param out     the array to fill
+	 * @param random  the random number generator to use
+	 */
+	public void sample(double[] out, Random random)
+	{
+		for (int i = 0; i < out.length; ++i) {
+			out[i] = getInverseCDF(random.nextDouble());
+		}
+	}
+
+	/**
+	 * Fills an array with variates.
+	 *
+	 * @param out     the array to fill
+	 * @param random  the random number generator to use
+	 */
+	public void sample(double[] out, SplittableRandom random)
+	{
+		sample(out,0,out.length,random);
+	}
+
+	/**
+	 * Fills an array with variates, splitting the work over all available processor cores.
+	 * <P>
+	 * The array is divided into fixed-size chunks, each of which is filled using its own {@link SplittableRandom} stream that is split off
+	 * from a generator with the specified seed. The result therefore only depends on the seed, and not on the number of processor cores.
+	 *
+	 * @param out   the array to fill
+	 * @param seed  the seed for the random number generators
+	 */
+	public void sampleInParallel(double[] out, long seed)
+	{
+		int nrOfChunks = (out.length + kParallelChunkSize - 1) / kParallelChunkSize;
+
+		// the streams are split off sequentially to make them independent of the scheduling of the chunks
+		SplittableRandom random = new SplittableRandom(seed);
+		SplittableRandom[] chunkRandoms = new SplittableRandom[nrOfChunks];
+		for (int chunk = 0; chunk < nrOfChunks; ++chunk) {
+			chunkRandoms[chunk] = random.split();
+		}
+
+		IntStream chunks = IntStream.range(0,nrOfChunks);
+		if (out.length >= EmpiricalDistribution.getParallelThreshold()) {
+			chunks = chunks.parallel();
+		}
+		chunks.forEach(chunk -> {
+			int from = chunk * kParallelChunkSize;
+			sample(out,from,Math.min(from + kParallelChunkSize,out.length),chunkRandoms[chunk]);
+		});
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param out     -
+	 * @param from    -
+	 * @param to      -
+	 * @param random  -
+	 */
+	private void sample(double[] out, int from, int to, SplittableRandom random)
+	{
+		for (int i = from; i < to; ++i) {
+			out[i] = getInverseCDF(random.nextDouble());
+		}
+	}
+
+	/**
+	 * @param  distribution  -
+	 * @return               -
+	 */
+	private boolean prepareEmpiricalCDF(EmpiricalDistribution distribution)
+	{
+		double[] x = distribution.getSortedData();
+		double[] cdf = distribution.getCDFValues();
+		if ((x == null) || (cdf == null) || (x.length == 0) || (x.length != cdf.length)) {
+			return false;
+		}
+
+		fX = x;
+		fCDF = cdf;
+		fGuideTable = buildGuideTable(fCDF);
+		return true;
+	}
+
+	/**
+	 * @param  distribution  -
+	 * @return               -
+	 */
+	private boolean prepareHistogram(EmpiricalDistribution distribution)
+	{
+		double[] counts = distribution.getHistogramBinCounts();
+		double[] rightEdges = distribution.getHistogramBinRightEdges();
+		if ((counts == null) || (rightEdges == null) || (counts.length == 0) || (counts.length != rightEdges.length) || (distribution.getN() == 0)) {
+			return false;
+		}
+
+		// the first bin starts at the minimum and the last bin absorbs all samples up to the maximum
+		int nrOfBins = counts.length;
+		fBinLeftEdges = new double[nrOfBins];
+		fBinRightEdges = Arrays.copyOf(rightEdges,nrOfBins);
+		fBinLeftEdges[0] = Math.min(distribution.getXMinimum(),rightEdges[0]);
+		for (int i = 1; i < nrOfBins; ++i) {
+			fBinLeftEdges[i] = rightEdges[i - 1];
+		}
+		fBinRightEdges[nrOfBins - 1] = Math.max(rightEdges[nrOfBins - 1],distribution.getXMaximum());
+
+		buildAliasTable(counts);
+		return true;
+	}
+
+	/**
+	 * @param  distribution  -
+	 * @return               -
+	 */
+	private boolean prepareKDE(EmpiricalDistribution distribution)
+	{
+		FunctionLookupTable kdePDF = distribution.getFullKDEPDF();
+		if ((kdePDF == null) || (kdePDF.fX == null) || (kdePDF.fY == null) || (kdePDF.fX.length < 2) || (kdePDF.fX.length != kdePDF.fY.length)) {
+			return false;
+		}
+
+		// integrate the piecewise linear PDF (clipping negative densities)
+		int n = kdePDF.fX.length;
+		fX = Arrays.copyOf(kdePDF.fX,n);
+		fY = new double[n];
+		for (int i = 0; i < n; ++i) {
+			fY[i] = Math.max(kdePDF.fY[i],0.0);
+		}
+
+		fCDF = new double[n];
+		for (int i = 1; i < n; ++i) {
+			fCDF[i] = fCDF[i - 1] + (Math.max(fX[i] - fX[i - 1],0.0) * (fY[i - 1] + fY[i]) / 2.0);
+		}
+
+		double area = fCDF[n - 1];
+		if (!(area > 0.0) || Double.isInfinite(area)) {
+			return false;
+		}
+		for (int i = 1; i < n; ++i) {
+			fCDF[i] /= area;
+			fY[i - 1] /= area;
+		}
+		fY[n - 1] /= area;
+		fCDF[n - 1] = 1.0;
+
+		fGuideTable = buildGuideTable(fCDF);
+		return true;
+	}
+
+	/**
+	 * Builds a guide table for a CDF with one entry per segment, each pointing to the segment that contains the corresponding equally spaced probability.
+	 *
+	 * @param  cdf  -
+	 * @return      -
+	 */
+	private static int[] buildGuideTable(double[] cdf)
+	{
+		int nrOfSegments = Math.max(cdf.length - 1,1);
+		int[] guideTable = new int[nrOfSegments];
+		int segment = 0;
+		for (int k = 0; k < nrOfSegments; ++k) {
+			double p = (double) k / nrOfSegments;
+			while ((segment < (cdf.length - 2)) && (cdf[segment + 1] <= p)) {
+				++segment;
+			}
+			guideTable[k] = segment;
+		}
+		return guideTable;
+	}
+
+	/**
+	 * Finds the segment of a CDF that contains a specified probability (in [0,1)), using the guide table.
+	 *
+	 * @param  p  -
+	 * @return    -
+	 */
+	private int findSegment(double p)
+	{
+		int segment = fGuideTable[Math.min((int) (p * fGuideTable.length),fGuideTable.length - 1)];
+		while ((segment < (fCDF.length - 2)) && (fCDF[segment + 1] <= p)) {
+			++segment;
+		}
+		return segment;
+	}
+
+	/**
+	 * @param  p  -
+	 * @return    -
+	 */
+	private double invertEmpiricalCDF(double p)
+	{
+		if (fX.length == 1) {
+			return fX[0];
+		}
+
+		int segment = findSegment(p);
+		double cdfRange = fCDF[segment + 1] - fCDF[segment];
+		double fraction = 0.0;
+		if (cdfRange > 0.0) {
+			fraction = (p - fCDF[segment]) / cdfRange;
+		}
+
+		return (fX[segment] + (fraction * (fX[segment + 1] - fX[segment])));
+	}
+
+	/**
+	 * @param  p  -
+	 * @return    -
+	 */
+	private double invertKDE(double p)
+	{
+		int segment = findSegment(p);
+
+		// solve y1 s + (y2 - y1) s^2 / (2 h) = t for the offset s within the segment, using the cancellation-free form of the quadratic root
+		double h = fX[segment + 1] - fX[segment];
+		double y1 = fY[segment];
+		double y2 = fY[segment + 1];
+		double t = p - fCDF[segment];
+		double a = (y2 - y1) / (2.0 * h);
+		double discriminant = Math.max((y1 * y1) + (4.0 * a * t),0.0);
+		double denominator = y1 + Math.sqrt(discriminant);
+		double s = 0.0;
+		if (denominator > 0.0) {
+			s = (2.0 * t) / denominator;
+		}
+
+		return (fX[segment] + MathTools.clip(s,0.0,h));
+	}
+
+	/**
+	 * @param  p  -
+	 * @return    -
+	 */
+	private double invertHistogram(double p)
+	{
+		// the integer part of the scaled probability selects a column of the alias table, the fractional part is recycled twice
+		double scaled = p * fAliases.length;
+		int column = Math.min((int) scaled,fAliases.length - 1);
+		double fraction = scaled - column;
+
+		int bin = column;
+		double probability = fAliasProbabilities[column];
+		if (fraction < probability) {
+			fraction /= probability;
+		}
+		else {
+			bin = fAliases[column];
+			fraction = (fraction - probability) / (1.0 - probability);
+		}
+
+		return (fBinLeftEdges[bin] + (MathTools.clip(fraction,0.0,1.0) * (fBinRightEdges[bin] - fBinLeftEdges[bin])));
+	}
+
+	/**
+	 * Builds the alias table for a set of weights (using Vose's method).
+	 *
+	 * @param weights  -
+	 */
+	private void buildAliasTable(double[] weights)
+	{
+		int n = weights.length;
+		double totalWeight = 0.0;
+		for (double weight : weights) {
+			totalWeight += Math.max(weight,0.0);
+		}
+
+		fAliasProbabilities = new double[n];
+		fAliases = new int[n];
+
+		// scale the weights so that they average to 1, and divide them into those that underfill and overfill their column
+		double[] scaledWeights = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int nrOfSmall = 0;
+		int nrOfLarge = 0;
+		for (int i = 0; i < n; ++i) {
+			scaledWeights[i] = (Math.max(weights[i],0.0) * n) / totalWeight;
+			if (scaledWeights[i] < 1.0) {
+				small[nrOfSmall++] = i;
+			}
+			else {
+				large[nrOfLarge++] = i;
+			}
+		}
+
+		// fill each underfilled column with an overfilled one
+		while ((nrOfSmall > 0) && (nrOfLarge > 0)) {
+			int s = small[--nrOfSmall];
+			int l = large[--nrOfLarge];
+			fAliasProbabilities[s] = scaledWeights[s];
+			fAliases[s] = l;
+			scaledWeights[l] = (scaledWeights[l] + scaledWeights[s]) - 1.0;
+			if (scaledWeights[l] < 1.0) {
+				small[nrOfSmall++] = l;
+			}
+			else {
+				large[nrOfLarge++] = l;
+			}
+		}
+
+		// the remaining columns are full (up to round-off errors)
+		while (nrOfLarge > 0) {
+			int l = large[--nrOfLarge];
+			fAliasProbabilities[l] = 1.0;
+			fAliases[l] = l;
+		}
+		while (nrOfSmall > 0) {
+			int s = small[--nrOfSmall];
+			fAliasProbabilities[s] = 1.0;
+			fAliases[s] = s;
+		}
+	}
+}
@@ -0,0 +1,582 @@
+// --------------------------------------------
+// Filename      : ErrorMetricsAccumulator.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// --------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * The <CODE>ErrorMetricsAccumulator</CODE> class offers an incremental (online) means to track the error metrics between two paired sequences of values.
+ * <P>
+ * All metrics offered by the {@link DistributionComparator} class (MAE, MSE, RMSE, SSE, MRE, RRMSE, RMSEP, MAXE, ME, MAPE, EQC, covariance and
+ * Pearson's correlation coefficient) are derived from a small set of running sums that are all updated in a single pass over the pairs (<I>Xi</I>,<I>Yi</I>).
+ * The covariance and the variances (required for the correlation coefficient) are delegated to a {@link BivariateAccumulator}.
+ * <P>
+ * All sums are additive, so accumulators can be merged in any order via {@link ErrorMetricsAccumulator#merge(ErrorMetricsAccumulator)},
+ * which also underlies {@link ErrorMetricsAccumulator#accumulateInParallel(double[],double[])}.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     DistributionComparator
+ * @see     BivariateAccumulator
+ */
+public final class ErrorMetricsAccumulator implements Serializable
+{
+	// the version of the serialised form
+	private static final long serialVersionUID = 1L;
+
+	// the number of pairs that are processed as one block
+	private static final int kBlockSize = 4096;
+
+	// the number of pairs below which a parallel task is no longer split
+	private static final int kParallelGranularity = 16 * kBlockSize;
+
+	// internal datastructures
+	private BivariateAccumulator fCoMoments;
+	private double fSumOfAbsoluteErrors;
+	private double fSumOfSquaredErrors;
+	private double fSumOfAbsoluteRelativeErrors;
+	private double fSumOfSquaredRelativeErrors;
+	private double fSumOfErrors;
+	private double fMaximumAbsoluteError;
+	private double fSumOfX;
+	private double fSumOfSquaredX;
+	private double fSumOfSquaredY;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>ErrorMetricsAccumulator</CODE> object.
+	 */
+	public ErrorMetricsAccumulator()
+	{
+		fCoMoments = new BivariateAccumulator();
+		clear();
+	}
+
+	/**
+	 * Constructs an <CODE>ErrorMetricsAccumulator</CODE> object as a copy of another <CODE>ErrorMetricsAccumulator</CODE> object.
+	 * <P>
+	 * This is the <B>copy constructor</B>.
+	 *
+	 * @param errorMetricsAccumulator  the <CODE>ErrorMetricsAccumulator</CODE> object to deep copy
+	 */
+	public ErrorMetricsAccumulator(ErrorMetricsAccumulator errorMetricsAccumulator)
+	{
+		fCoMoments = new BivariateAccumulator(errorMetricsAccumulator.fCoMoments);
+		fSumOfAbsoluteErrors = errorMetricsAccumulator.fSumOfAbsoluteErrors;
+		fSumOfSquaredErrors = errorMetricsAccumulator.fSumOfSquaredErrors;
+		fSumOfAbsoluteRelativeErrors = errorMetricsAccumulator.fSumOfAbsoluteRelativeErrors;
+		fSumOfSquaredRelativeErrors = errorMetricsAccumulator.fSumOfSquaredRelativeErrors;
+		fSumOfErrors = errorMetricsAccumulator.fSumOfErrors;
+		fMaximumAbsoluteError = errorMetricsAccumulator.fMaximumAbsoluteError;
+		fSumOfX = errorMetricsAccumulator.fSumOfX;
+		fSumOfSquaredX = errorMetricsAccumulator.fSumOfSquaredX;
+		fSumOfSquaredY = errorMetricsAccumulator.fSumOfSquaredY;
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Clears the accumulator.
+	 */
+	public void clear()
+	{
+		fCoMoments.clear();
+		fSumOfAbsoluteErrors = 0.0;
+		fSumOfSquaredErrors = 0.0;
+		fSumOfAbsoluteRelativeErrors = 0.0;
+		fSumOfSquaredRelativeErrors = 0.0;
+		fSumOfErrors = 0.0;
+		fMaximumAbsoluteError = 0.0;
+		fSumOfX = 0.0;
+		fSumOfSquaredX = 0.0;
+		fSumOfSquaredY = 0.0;
+	}
+
+	/**
+	 * Adds a single pair of values to the accumulator.
+	 *
+	 * @param x  the <I>X</I> value to add
+	 * @param y  the <I>Y</I> value to add
+	 */
+	public void add(double x, double y)
+	{
+		double delta = x - y;
+		double absoluteDelta = Math.abs(delta);
+		fSumOfAbsoluteErrors += absoluteDelta;
+		fSumOfSquaredErrors += (delta * delta);
+		if (x != 0.0) {
+			double relativeDelta = delta / x;
+			fSumOfAbsoluteRelativeErrors += (absoluteDelta / x);
+			fSumOfSquaredRelativeErrors += (relativeDelta * relativeDelta);
+		}
+		fSumOfErrors += delta;
+		if ((fCoMoments.getN() == 0) || (absoluteDelta > fMaximumAbsoluteError)) {
+			fMaximumAbsoluteError = absoluteDelta;
+		}
+		fSumOfX += x;
+		fSumOfSquaredX += (x * x);
+		fSumOfSquaredY += (y * y);
+		fCoMoments.add(x,y);
+	}
+
+	/**
+	 * Removes a single pair of values that was previously added to the accumulator (i.e., the inverse of {@link ErrorMetricsAccumulator#add(double,double)}).
+	 * <P>
+	 * The running sums and co-moments are updated in O(1). As the maximum error cannot be recovered without the remaining pairs, it is left untouched.
+	 *
+	 * @param x  the <I>X</I> value to remove
+	 * @param y  the <I>Y</I> value to remove
+	 */
+	public void remove(double x, double y)
+	{
+		if (fCoMoments.getN() <= 1) {
+			clear();
+			return;
+		}
+
+		double delta = x - y;
+		double absoluteDelta = Math.abs(delta);
+		fSumOfAbsoluteErrors = Math.max(0.0,fSumOfAbsoluteErrors - absoluteDelta);
+		fSumOfSquaredErrors = Math.max(0.0,fSumOfSquaredErrors - (delta * delta));
+		if (x != 0.0) {
+			double relativeDelta = delta / x;
+			fSumOfAbsoluteRelativeErrors -= (absoluteDelta / x);
+			fSumOfSquaredRelativeErrors = Math.max(0.0,fSumOfSquaredRelativeErrors - (relativeDelta * relativeDelta));
+		}
+		fSumOfErrors -= delta;
+		fSumOfX -= x;
+		fSumOfSquaredX = Math.max(0.0,fSumOfSquaredX - (x * x));
+		fSumOfSquaredY = Math.max(0.0,fSumOfSquaredY - (y * y));
+		fCoMoments.remove(x,y);
+	}
+
+	/**
+	 * Adds all pairs of values in two arrays to the accumulator.
+	 * <P>
+	 * Note that both arrays should have the same number of values; if not, nothing is added.
+	 *
+	 * @param x  the array of <I>X</I> values to add
+	 * @param y  the array of <I>Y</I> values to add
+	 */
+	public void add(double[] x, double[] y)
+	{
+		if ((x != null) && (y != null) && (x.length == y.length)) {
+			add(x,y,0,x.length);
+		}
+	}
+
+	/**
+	 * Adds the pairs of values in the range <CODE>[from,to[</CODE> of two arrays to the accumulator.
+	 *
+	 * @param x     the array of <I>X</I> values to add
+	 * @param y     the array of <I>Y</I> values to add
+	 * @param from  the index of the first pair to add (inclusive)
+	 * @param to    the index of the last pair to add (exclusive)
+	 */
+	public void add(double[] x, double[] y, int from, int to)
+	{
+		for (int blockStart = from; blockStart < to; blockStart += kBlockSize) {
+			merge(accumulateBlock(x,y,blockStart,Math.min(to,blockStart + kBlockSize)));
+		}
+	}
+
+	/**
+	 * Merges the running sums of another accumulator into this one.
+	 * <P>
+	 * The result is the same (up to rounding) as if all pairs of the other accumulator had been added to this one.
+	 *
+	 * @param other  the accumulator to merge into this one
+	 */
+	public void merge(ErrorMetricsAccumulator other)
+	{
+		if ((other == null) || (other.fCoMoments.getN() == 0)) {
+			return;
+		}
+
+		if (fCoMoments.getN() == 0) {
+			fCoMoments.merge(other.fCoMoments);
+			fSumOfAbsoluteErrors = other.fSumOfAbsoluteErrors;
+			fSumOfSquaredErrors = other.fSumOfSquaredErrors;
+			fSumOfAbsoluteRelativeErrors = other.fSumOfAbsoluteRelativeErrors;
+			fSumOfSquaredRelativeErrors = other.fSumOfSquaredRelativeErrors;
+			fSumOfErrors = other.fSumOfErrors;
+			fMaximumAbsoluteError = other.fMaximumAbsoluteError;
+			fSumOfX = other.fSumOfX;
+			fSumOfSquaredX = other.fSumOfSquaredX;
+			fSumOfSquaredY = other.fSumOfSquaredY;
+			return;
+		}
+
+		fCoMoments.merge(other.fCoMoments);
+		fSumOfAbsoluteErrors += other.fSumOfAbsoluteErrors;
+		fSumOfSquaredErrors += other.fSumOfSquaredErrors;
+		fSumOfAbsoluteRelativeErrors += other.fSumOfAbsoluteRelativeErrors;
+		fSumOfSquaredRelativeErrors += other.fSumOfSquaredRelativeErrors;
+		fSumOfErrors += other.fSumOfErrors;
+		if (other.fMaximumAbsoluteError > fMaximumAbsoluteError) {
+			fMaximumAbsoluteError = other.fMaximumAbsoluteError;
+		}
+		fSumOfX += other.fSumOfX;
+		fSumOfSquaredX += other.fSumOfSquaredX;
+		fSumOfSquaredY += other.fSumOfSquaredY;
+	}
+
+	/**
+	 * Returns the number of pairs that were added.
+	 *
+	 * @return the number of pairs that were added
+	 */
+	public long getN()
+	{
+		return fCoMoments.getN();
+	}
+
+	/**
+	 * Returns the sum of the squared deviations of the <I>X</I> values from their mean.
+	 *
+	 * @return the sum of the squared deviations of the <I>X</I> values from their mean
+	 */
+	public double getXSumOfSquaredDeviations()
+	{
+		return fCoMoments.getXSumOfSquaredDeviations();
+	}
+
+	/**
+	 * Returns the sum of the squared deviations of the <I>Y</I> values from their mean.
+	 *
+	 * @return the sum of the squared deviations of the <I>Y</I> values from their mean
+	 */
+	public double getYSumOfSquaredDeviations()
+	{
+		return fCoMoments.getYSumOfSquaredDeviations();
+	}
+
+	/**
+	 * Returns the mean absolute error (MAE).
+	 *
+	 * @return the MAE
+	 * @see    DistributionComparator#getMAE()
+	 */
+	public double getMAE()
+	{
+		return ((getN() > 0) ? (fSumOfAbsoluteErrors / ((double) getN())) : 0.0);
+	}
+
+	/**
+	 * Returns the mean square error (MSE).
+	 *
+	 * @return the MSE
+	 * @see    DistributionComparator#getMSE()
+	 */
+	public double getMSE()
+	{
+		return ((getN() > 0) ? (fSumOfSquaredErrors / ((double) getN())) : 0.0);
+	}
+
+	/**
+	 * Returns the root mean square error (RMSE).
+	 *
+	 * @return the RMSE
+	 * @see    DistributionComparator#getRMSE()
+	 */
+	public double getRMSE()
+	{
+		return Math.sqrt(getMSE());
+	}
+
+	/**
+	 * Returns the sum of square errors (SSE).
+	 *
+	 * @return the SSE
+	 * @see    DistributionComparator#getSSE()
+	 */
+	public double getSSE()
+	{
+		return fSumOfSquaredErrors;
+	}
+
+	/**
+	 * Returns the mean relative error (MRE); pairs with <I>Xi</I> = 0 do not contribute.
+	 *
+	 * @return the MRE
+	 * @see    DistributionComparator#getMRE()
+	 */
+	public double getMRE()
+	{
+		return ((getN() > 0) ? (fSumOfAbsoluteRelativeErrors / ((double) getN())) : 0.0);
+	}
+
+	/**
+	 * Returns the relative root mean square error (RRMSE); pairs with <I>Xi</I> = 0 do not contribute.
+	 *
+	 * @return the RRMSE
+	 * @see    DistributionComparator#getRRMSE()
+	 */
+	public double getRRMSE()
+	{
+		return ((getN() > 0) ? Math.sqrt(fSumOfSquaredRelativeErrors / ((double) getN())) : 0.0);
+	}
+
+	/**
+	 * Returns the root mean square error proportional (RMSEP).
+	 *
+	 * @return the RMSEP, or 0 if the sum of the <I>X</I> values is 0
+	 * @see    DistributionComparator#getRMSEP()
+	 */
+	public double getRMSEP()
+	{
+		if (fSumOfX != 0.0) {
+			return (Math.sqrt(fSumOfSquaredErrors * ((double) getN())) / fSumOfX);
+		}
+		else {
+			return 0.0;
+		}
+	}
+
+	/**
+	 * Returns the maximum error (MAXE).
+	 *
+	 * @return the MAXE
+	 * @see    DistributionComparator#getMAXE()
+	 */
+	public double getMAXE()
+	{
+		return fMaximumAbsoluteError;
+	}
+
+	/**
+	 * Returns the mean error (ME).
+	 *
+	 * @return the ME
+	 * @see    DistributionComparator#getME()
+	 */
+	public double getME()
+	{
+		return ((getN() > 0) ? (fSumOfErrors / ((double) getN())) : 0.0);
+	}
+
+	/**
+	 * Returns the mean absolute percent error (MAPE).
+	 *
+	 * @return the MAPE
+	 * @see    DistributionComparator#getMAPE()
+	 */
+	public double getMAPE()
+	{
+		return (getMRE() * 100.0);
+	}
+
+	/**
+	 * Returns the equality coefficient (EQC).
+	 *
+	 * @return the EQC, or 0 if all values are 0
+	 * @see    DistributionComparator#getEQC()
+	 */
+	public double getEQC()
+	{
+		double denominator = Math.sqrt(fSumOfSquaredX) + Math.sqrt(fSumOfSquaredY);
+		if (denominator != 0.0) {
+			return (1.0 - (Math.sqrt(fSumOfSquaredErrors) / denominator));
+		}
+		else {
+			return 0.0;
+		}
+	}
+
+	/**
+	 * Returns the sample covariance (using an unbiased estimator).
+	 *
+	 * @return the sample covariance
+	 * @see    DistributionComparator#getCovariance()
+	 */
+	public double getCovariance()
+	{
+		long n = fCoMoments.getN();
+		if (n > 1) {
+			return (fCoMoments.getSumOfCrossDeviations() / ((double) n - 1.0));
+		}
+		else {
+			return 0.0;
+		}
+	}
+
+	/**
+	 * Returns Pearson's correlation coefficient.
+	 *
+	 * @return Pearson's correlation coefficient
+	 * @see    DistributionComparator#getPearsonCorrelation()
+	 */
+	public double getPearsonCorrelation()
+	{
+		return (fCoMoments.getSumOfCrossDeviations() / Math.sqrt(fCoMoments.getXSumOfSquaredDeviations() * fCoMoments.getYSumOfSquaredDeviations()));
+	}
+
+	/******************
+	 * STATIC METHODS *
+	 ******************/
+
+	/**
+	 * Accumulates all pairs of values in two arrays in parallel, in the same way as {@link MomentAccumulator#accumulateInParallel(double[])}.
+	 * <P>
+	 * Note that both arrays should have the same number of values; if not, an empty accumulator is returned.
+	 *
+	 * @param x  the array of <I>X</I> values to accumulate
+	 * @param y  the array of <I>Y</I> values to accumulate
+	 * @return   an accumulator containing the error metrics of all pairs of values in the arrays
+	 */
+	public static ErrorMetricsAccumulator accumulateInParallel(double[] x, double[] y)
+	{
+		if ((x == null) || (y == null) || (x.length != y.length)) {
+			return (new ErrorMetricsAccumulator());
+		}
+
+		return (new AccumulationTask(x,y,0,x.length)).invoke();
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param x     -
+	 * @param y     -
+	 * @param from  -
+	 * @param to    -
+	 * @return      -
+	 */
+	private static ErrorMetricsAccumulator accumulateBlock(double[] x, double[] y, int from, int to)
+	{
+		ErrorMetricsAccumulator block = new ErrorMetricsAccumulator();
+		if (to <= from) {
+			return block;
+		}
+
+		// all sums of errors and values
+		double sumOfAbsoluteErrors = 0.0;
+		double sumOfSquaredErrors = 0.0;
+		double sumOfAbsoluteRelativeErrors = 0.0;
+		double sumOfSquaredRelativeErrors = 0.0;
+		double sumOfErrors = 0.0;
+		double maximumAbsoluteError = 0.0;
+		double sumOfX = 0.0;
+		double sumOfSquaredX = 0.0;
+		double sumOfSquaredY = 0.0;
+		for (int i = from; i < to; ++i) {
+			double xi = x[i];
+			double yi = y[i];
+			double delta = xi - yi;
+			double absoluteDelta = Math.abs(delta);
+			sumOfAbsoluteErrors += absoluteDelta;
+			sumOfSquaredErrors += (delta * delta);
+			if (xi != 0.0) {
+				double relativeDelta = delta / xi;
+				sumOfAbsoluteRelativeErrors += (absoluteDelta / xi);
+				sumOfSquaredRelativeErrors += (relativeDelta * relativeDelta);
+			}
+			sumOfErrors += delta;
+			if ((i == from) || (absoluteDelta > maximumAbsoluteError)) {
+				maximumAbsoluteError = absoluteDelta;
+			}
+			sumOfX += xi;
+			sumOfSquaredX += (xi * xi);
+			sumOfSquaredY += (yi * yi);
+		}
+
+		// the block is still cached for the (two-pass) co-moments
+		block.fCoMoments.add(x,y,from,to);
+		block.fSumOfAbsoluteErrors = sumOfAbsoluteErrors;
+		block.fSumOfSquaredErrors = sumOfSquaredErrors;
+		block.fSumOfAbsoluteRelativeErrors = sumOfAbsoluteRelativeErrors;
+		block.fSumOfSquaredRelativeErrors = sumOfSquaredRelativeErrors;
+		block.fSumOfErrors = sumOfErrors;
+		block.fMaximumAbsoluteError = maximumAbsoluteError;
+		block.fSumOfX = sumOfX;
+		block.fSumOfSquaredX = sumOfSquaredX;
+		block.fSumOfSquaredY = sumOfSquaredY;
+		return block;
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * Recursively splits the accumulation of a range of pairs of values over the fork/join pool.
+	 */
+	private static final class AccumulationTask extends RecursiveTask<ErrorMetricsAccumulator>
+	{
+		// the version of the serialised form
+		private static final long serialVersionUID = 1L;
+
+		// internal datastructures
+		private final double[] fX;
+		private final double[] fY;
+		private final int fFrom;
+		private final int fTo;
+
+		/**
+		 * @param x     -
+		 * @param y     -
+		 * @param from  -
+		 * @param to    -
+		 */
+		public AccumulationTask(double[] x, double[] y, int from, int to)
+		{
+			fX = x;
+			fY = y;
+			fFrom = from;
+			fTo = to;
+		}
+
+		/**
+		 * @return -
+		 */
+		@Override
+		protected ErrorMetricsAccumulator compute()
+		{
+			if ((fTo - fFrom) <= kParallelGranularity) {
+				ErrorMetricsAccumulator accumulator = new ErrorMetricsAccumulator();
+				accumulator.add(fX,fY,fFrom,fTo);
+				return accumulator;
+			}
+
+			int middle = (fFrom + fTo) >>> 1;
+			AccumulationTask leftTask = new AccumulationTask(fX,fY,fFrom,middle);
+			AccumulationTask rightTask = new AccumulationTask(fX,fY,middle,fTo);
+			leftTask.fork();
+			ErrorMetricsAccumulator accumulator = rightTask.compute();
+			ErrorMetricsAccumulator leftAccumulator = leftTask.join();
+			leftAccumulator.merge(accumulator);
+			return leftAccumulator;
+		}
+	}
+}
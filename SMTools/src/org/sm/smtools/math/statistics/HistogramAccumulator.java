@@ -0,0 +1,412 @@
+// -----------------------------------------
+// Filename      : HistogramAccumulator.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -----------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The <CODE>HistogramAccumulator</CODE> class offers an incremental (online) histogram with a fixed set of bins.
+ * <P>
+ * The bins span a fixed range [minimum,maximum], and are either of equal width (linear binning) or of equal width on a logarithmic scale
+ * (logarithmic binning, which suits positive quantities spanning several orders of magnitude). Values below the minimum or above the maximum
+ * are counted separately as underflows and overflows; <CODE>NaN</CODE> values are ignored. Each value is assigned to its bin in O(1).
+ * <P>
+ * As the bins are fixed in advance, histograms built independently on separate shards of the data can be merged exactly (by adding their counts),
+ * in any order, via {@link HistogramAccumulator#merge(HistogramAccumulator)}. The accumulator is serialisable.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     StreamingDistribution
+ */
+public final class HistogramAccumulator implements Serializable
+{
+	/**
+	 * The different types of binning.
+	 */
+	public static enum EBinning {
+		/**
+		 * Bins of equal width.
+		 */
+		kLinear,
+
+		/**
+		 * Bins of equal width on a logarithmic scale (which requires a strictly positive minimum).
+		 */
+		kLogarithmic};
+
+	// the version of the serialised form
+	private static final long serialVersionUID = 1L;
+
+	// internal datastructures
+	private EBinning fBinning;
+	private double fMinimum;
+	private double fMaximum;
+	private double fScaledMinimum;
+	private double fBinsPerScaledUnit;
+	private long[] fBinCounts;
+	private long fUnderflowCount;
+	private long fOverflowCount;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>HistogramAccumulator</CODE> object with a specified range, number of bins and type of binning.
+	 * <P>
+	 * If the range is empty, the maximum is taken to be the minimum plus one (and ten times the minimum for logarithmic binning).
+	 * If logarithmic binning is requested with a minimum that is not strictly positive, linear binning is used instead.
+	 *
+	 * @param minimum    the left edge of the first bin
+	 * @param maximum    the right edge of the last bin
+	 * @param nrOfBins   the number of bins (clipped to be at least 1)
+	 * @param binning    the type of binning
+	 */
+	public HistogramAccumulator(double minimum, double maximum, int nrOfBins, EBinning binning)
+	{
+		fBinning = binning;
+		if ((fBinning == EBinning.kLogarithmic) && !(minimum > 0.0)) {
+			fBinning = EBinning.kLinear;
+		}
+
+		fMinimum = minimum;
+		fMaximum = maximum;
+		if (!(fMaximum > fMinimum)) {
+			fMaximum = ((fBinning == EBinning.kLogarithmic) ? (10.0 * fMinimum) : (fMinimum + 1.0));
+		}
+
+		fBinCounts = new long[Math.max(nrOfBins,1)];
+		fScaledMinimum = scale(fMinimum);
+		fBinsPerScaledUnit = fBinCounts.length / (scale(fMaximum) - fScaledMinimum);
+		clear();
+	}
+
+	/**
+	 * Constructs a <CODE>HistogramAccumulator</CODE> object that is a copy of another one.
+	 *
+	 * @param histogramAccumulator  the accumulator to copy
+	 */
+	public HistogramAccumulator(HistogramAccumulator histogramAccumulator)
+	{
+		fBinning = histogramAccumulator.fBinning;
+		fMinimum = histogramAccumulator.fMinimum;
+		fMaximum = histogramAccumulator.fMaximum;
+		fScaledMinimum = histogramAccumulator.fScaledMinimum;
+		fBinsPerScaledUnit = histogramAccumulator.fBinsPerScaledUnit;
+		fBinCounts = Arrays.copyOf(histogramAccumulator.fBinCounts,histogramAccumulator.fBinCounts.length);
+		fUnderflowCount = histogramAccumulator.fUnderflowCount;
+		fOverflowCount = histogramAccumulator.fOverflowCount;
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Clears all counts.
+	 */
+	public void clear()
+	{
+		Arrays.fill(fBinCounts,0L);
+		fUnderflowCount = 0;
+		fOverflowCount = 0;
+	}
+
+	/**
+	 * Adds a single value to the histogram.
+	 * <P>
+	 * Each bin includes its left edge; the last bin also includes its right edge (i.e., the maximum).
+	 *
+	 * @param x  the value to add
+	 */
+	public void add(double x)
+	{
+		if (Double.isNaN(x)) {
+			return;
+		}
+		else if (x < fMinimum) {
+			++fUnderflowCount;
+		}
+		else if (x > fMaximum) {
+			++fOverflowCount;
+		}
+		else {
+			++fBinCounts[getBinIndex(x)];
+		}
+	}
+
+	/**
+	 * Adds all values in an array to the histogram.
+	 *
+	 * @param x  the array of values to add
+	 */
+	public void add(double[] x)
+	{
+		if (x != null) {
+			for (int i = 0; i < x.length; ++i) {
+				add(x[i]);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether or not another histogram has exactly the same bins as this one, which is required for merging.
+	 *
+	 * @param other  the histogram to compare with
+	 * @return       <CODE>true</CODE> if both histograms have the same bins, <CODE>false</CODE> otherwise
+	 */
+	public boolean hasSameBins(HistogramAccumulator other)
+	{
+		return ((other != null) && (other.fBinning == fBinning) && (other.fMinimum == fMinimum) && (other.fMaximum == fMaximum) && (other.fBinCounts.length == fBinCounts.length));
+	}
+
+	/**
+	 * Merges the counts of another histogram with the same bins into this one.
+	 *
+	 * @param other  the histogram to merge into this one
+	 * @return       <CODE>true</CODE> if the histograms were merged, <CODE>false</CODE> if their bins differ (in which case nothing is merged)
+	 */
+	public boolean merge(HistogramAccumulator other)
+	{
+		if (!hasSameBins(other)) {
+			return false;
+		}
+
+		for (int i = 0; i < fBinCounts.length; ++i) {
+			fBinCounts[i] += other.fBinCounts[i];
+		}
+		fUnderflowCount += other.fUnderflowCount;
+		fOverflowCount += other.fOverflowCount;
+		return true;
+	}
+
+	/**
+	 * Returns the type of binning.
+	 *
+	 * @return the type of binning
+	 */
+	public EBinning getBinning()
+	{
+		return fBinning;
+	}
+
+	/**
+	 * Returns the left edge of the first bin.
+	 *
+	 * @return the left edge of the first bin
+	 */
+	public double getMinimum()
+	{
+		return fMinimum;
+	}
+
+	/**
+	 * Returns the right edge of the last bin.
+	 *
+	 * @return the right edge of the last bin
+	 */
+	public double getMaximum()
+	{
+		return fMaximum;
+	}
+
+	/**
+	 * Returns the number of bins.
+	 *
+	 * @return the number of bins
+	 */
+	public int getNrOfBins()
+	{
+		return fBinCounts.length;
+	}
+
+	/**
+	 * Returns the total number of values that were added (including underflows and overflows, but excluding <CODE>NaN</CODE> values).
+	 *
+	 * @return the total number of values that were added
+	 */
+	public long getN()
+	{
+		long n = fUnderflowCount + fOverflowCount;
+		for (long count : fBinCounts) {
+			n += count;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the number of values below the minimum.
+	 *
+	 * @return the number of values below the minimum
+	 */
+	public long getUnderflowCount()
+	{
+		return fUnderflowCount;
+	}
+
+	/**
+	 * Returns the number of values above the maximum.
+	 *
+	 * @return the number of values above the maximum
+	 */
+	public long getOverflowCount()
+	{
+		return fOverflowCount;
+	}
+
+	/**
+	 * Returns the count associated with a specified bin.
+	 *
+	 * @param bin  the bin to lookup the count for
+	 * @return     the count associated with the specified bin
+	 */
+	public long getBinCount(int bin)
+	{
+		return fBinCounts[bin];
+	}
+
+	/**
+	 * Returns the counts for all the bins.
+	 *
+	 * @return an array containing the counts for all the bins
+	 */
+	public double[] getBinCounts()
+	{
+		double[] binCounts = new double[fBinCounts.length];
+		for (int i = 0; i < fBinCounts.length; ++i) {
+			binCounts[i] = fBinCounts[i];
+		}
+		return binCounts;
+	}
+
+	/**
+	 * Returns the frequencies for all the bins, i.e., their counts relative to the total number of values that were added.
+	 *
+	 * @return an array containing the frequencies for all the bins
+	 */
+	public double[] getBinFrequencies()
+	{
+		double[] binFrequencies = getBinCounts();
+		long n = getN();
+		if (n > 0) {
+			for (int i = 0; i < binFrequencies.length; ++i) {
+				binFrequencies[i] /= n;
+			}
+		}
+		return binFrequencies;
+	}
+
+	/**
+	 * Returns the left edge of a specified bin.
+	 *
+	 * @param bin  the bin to lookup the left edge for
+	 * @return     the left edge of the specified bin
+	 */
+	public double getBinLeftEdge(int bin)
+	{
+		if (bin == 0) {
+			return fMinimum;
+		}
+
+		return unscale(fScaledMinimum + (bin / fBinsPerScaledUnit));
+	}
+
+	/**
+	 * Returns the right edge of a specified bin.
+	 *
+	 * @param bin  the bin to lookup the right edge for
+	 * @return     the right edge of the specified bin
+	 */
+	public double getBinRightEdge(int bin)
+	{
+		if (bin == (fBinCounts.length - 1)) {
+			return fMaximum;
+		}
+
+		return getBinLeftEdge(bin + 1);
+	}
+
+	/**
+	 * Returns the right edges of all the bins (in the same form as used by {@link EmpiricalDistribution#EmpiricalDistribution(double[],double[])}).
+	 *
+	 * @return an array containing the right edges of all the bins
+	 */
+	public double[] getBinRightEdges()
+	{
+		double[] binRightEdges = new double[fBinCounts.length];
+		for (int i = 0; i < fBinCounts.length; ++i) {
+			binRightEdges[i] = getBinRightEdge(i);
+		}
+		return binRightEdges;
+	}
+
+	/**
+	 * Returns the centres of all the bins (which are the geometric centres in case of logarithmic binning).
+	 *
+	 * @return an array containing the centres of all the bins
+	 */
+	public double[] getBinCentres()
+	{
+		double[] binCentres = new double[fBinCounts.length];
+		for (int i = 0; i < fBinCounts.length; ++i) {
+			binCentres[i] = unscale(fScaledMinimum + ((i + 0.5) / fBinsPerScaledUnit));
+		}
+		return binCentres;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param  x  -
+	 * @return    -
+	 */
+	private int getBinIndex(double x)
+	{
+		int bin = (int) ((scale(x) - fScaledMinimum) * fBinsPerScaledUnit);
+		return Math.max(0,Math.min(bin,fBinCounts.length - 1));
+	}
+
+	/**
+	 * @param  x  -
+	 * @return    -
+	 */
+	private double scale(double x)
+	{
+		return ((fBinning == EBinning.kLogarithmic) ? Math.log(x) : x);
+	}
+
+	/**
+	 * @param  x  -
+	 * @return    -
+	 */
+	private double unscale(double x)
+	{
+		return ((fBinning == EBinning.kLogarithmic) ? Math.exp(x) : x);
+	}
+}
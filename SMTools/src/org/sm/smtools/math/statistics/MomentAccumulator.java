@@ -0,0 +1,540 @@
+// --------------------------------------
+// Filename      : MomentAccumulator.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// --------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.io.*;
+import java.util.concurrent.*;
+import org.sm.smtools.math.*;
+
+/**
+ * The <CODE>MomentAccumulator</CODE> class offers an incremental (online) means to track the first four moments of a sequence of values.
+ * <P>
+ * Each value is processed once, in O(1), using Welford's update for the mean and variance, extended by Terriberry's updates
+ * for the third and fourth central moments. No values are stored, so the memory footprint does not grow with the number of samples.
+ * <P>
+ * Arrays of values are processed in cache-sized blocks: within each block, the moments are calculated with a (numerically stable) two-pass algorithm,
+ * after which the blocks are merged using the pairwise combination formulas of Chan et al. The same formulas allow the work to be split over all
+ * available processor cores, see {@link MomentAccumulator#accumulateInParallel(double[])}, or over several processes: the accumulator is serialisable,
+ * and accumulators built independently on separate shards of the data can be merged in any order via {@link MomentAccumulator#merge(MomentAccumulator)}.
+ * <P>
+ * The estimators (unbiased variance, sample skewness and sample excess kurtosis) are identical to those of the {@link EmpiricalDistribution} class.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     EmpiricalDistribution
+ */
+public final class MomentAccumulator implements Serializable
+{
+	// the version of the serialised form
+	private static final long serialVersionUID = 1L;
+
+	// the number of values that are processed as one block
+	private static final int kBlockSize = 4096;
+
+	// the number of values below which a parallel task is no longer split
+	private static final int kParallelGranularity = 16 * kBlockSize;
+
+	// internal datastructures
+	private long fN;
+	private double fMean;
+	private double fM2;
+	private double fM3;
+	private double fM4;
+	private double fMinimum;
+	private double fMaximum;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>MomentAccumulator</CODE> object.
+	 */
+	public MomentAccumulator()
+	{
+		clear();
+	}
+
+	/**
+	 * Constructs a <CODE>MomentAccumulator</CODE> object as a copy of another <CODE>MomentAccumulator</CODE> object.
+	 * <P>
+	 * This is the <B>copy constructor</B>.
+	 *
+	 * @param momentAccumulator  the <CODE>MomentAccumulator</CODE> object to deep copy
+	 */
+	public MomentAccumulator(MomentAccumulator momentAccumulator)
+	{
+		fN = momentAccumulator.fN;
+		fMean = momentAccumulator.fMean;
+		fM2 = momentAccumulator.fM2;
+		fM3 = momentAccumulator.fM3;
+		fM4 = momentAccumulator.fM4;
+		fMinimum = momentAccumulator.fMinimum;
+		fMaximum = momentAccumulator.fMaximum;
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Clears the accumulator.
+	 */
+	public void clear()
+	{
+		fN = 0;
+		fMean = 0.0;
+		fM2 = 0.0;
+		fM3 = 0.0;
+		fM4 = 0.0;
+		fMinimum = 0.0;
+		fMaximum = 0.0;
+	}
+
+	/**
+	 * Adds a single value to the accumulator.
+	 *
+	 * @param x  the value to add
+	 */
+	public void add(double x)
+	{
+		if ((x < fMinimum) || (fN == 0) || Double.isNaN(fMinimum)) {
+			fMinimum = x;
+		}
+		if ((x > fMaximum) || (fN == 0) || Double.isNaN(fMaximum)) {
+			fMaximum = x;
+		}
+
+		double n1 = fN;
+		++fN;
+		double n = fN;
+		double delta = x - fMean;
+		double deltaN = delta / n;
+		double deltaN2 = deltaN * deltaN;
+		double term1 = delta * deltaN * n1;
+
+		fMean += deltaN;
+		fM4 += (term1 * deltaN2 * ((n * n) - (3.0 * n) + 3.0)) + (6.0 * deltaN2 * fM2) - (4.0 * deltaN * fM3);
+		fM3 += (term1 * deltaN * (n - 2.0)) - (3.0 * deltaN * fM2);
+		fM2 += term1;
+	}
+
+	/**
+	 * Removes a single value that was previously added to the accumulator (i.e., the inverse of {@link MomentAccumulator#add(double)}).
+	 * <P>
+	 * The moments are updated in O(1) by inverting the pairwise combination formulas. As the minimum and maximum cannot be recovered without
+	 * the remaining values, they are left untouched. Note that rounding errors accumulate over many removals (especially when the removed values
+	 * are large with respect to the spread of the remaining ones), so that the remaining values should be re-accumulated from time to time.
+	 *
+	 * @param x  the value to remove
+	 */
+	public void remove(double x)
+	{
+		if (fN <= 1) {
+			clear();
+			return;
+		}
+
+		double n = fN;
+		double nR = n - 1.0;
+		double meanR = fMean + ((fMean - x) / nR);
+		double delta = x - meanR;
+		double delta2 = delta * delta;
+
+		double m2 = fM2 - (delta2 * nR / n);
+		double m3 = fM3 - (delta2 * delta * nR * (nR - 1.0) / (n * n)) + (3.0 * delta * m2 / n);
+		double m4 = fM4
+			- (delta2 * delta2 * nR * ((nR * nR) - nR + 1.0) / (n * n * n))
+			- (6.0 * delta2 * m2 / (n * n))
+			+ (4.0 * delta * m3 / n);
+
+		--fN;
+		fMean = meanR;
+		fM2 = Math.max(0.0,m2);
+		fM3 = m3;
+		fM4 = Math.max(0.0,m4);
+	}
+
+	/**
+	 * Adds all values in an array to the accumulator.
+	 *
+	 * @param x  the array of values to add
+	 */
+	public void add(double[] x)
+	{
+		if (x != null) {
+			add(x,0,x.length);
+		}
+	}
+
+	/**
+	 * Adds the values in the range <CODE>[from,to[</CODE> of an array to the accumulator.
+	 *
+	 * @param x     the array of values to add
+	 * @param from  the index of the first value to add (inclusive)
+	 * @param to    the index of the last value to add (exclusive)
+	 */
+	public void add(double[] x, int from, int to)
+	{
+		for (int blockStart = from; blockStart < to; blockStart += kBlockSize) {
+			merge(accumulateBlock(x,blockStart,Math.min(to,blockStart + kBlockSize)));
+		}
+	}
+
+	/**
+	 * Merges the moments of another accumulator into this one (using the pairwise combination formulas of Chan et al.).
+	 * <P>
+	 * The result is the same (up to rounding) as if all values of the other accumulator had been added to this one.
+	 *
+	 * @param other  the accumulator to merge into this one
+	 */
+	public void merge(MomentAccumulator other)
+	{
+		if ((other == null) || (other.fN == 0)) {
+			return;
+		}
+
+		if (fN == 0) {
+			fN = other.fN;
+			fMean = other.fMean;
+			fM2 = other.fM2;
+			fM3 = other.fM3;
+			fM4 = other.fM4;
+			fMinimum = other.fMinimum;
+			fMaximum = other.fMaximum;
+			return;
+		}
+
+		double nA = fN;
+		double nB = other.fN;
+		double n = nA + nB;
+		double delta = other.fMean - fMean;
+		double delta2 = delta * delta;
+		double delta3 = delta2 * delta;
+		double delta4 = delta2 * delta2;
+
+		double m2 = fM2 + other.fM2 + (delta2 * nA * nB / n);
+		double m3 = fM3 + other.fM3
+			+ (delta3 * nA * nB * (nA - nB) / (n * n))
+			+ (3.0 * delta * ((nA * other.fM2) - (nB * fM2)) / n);
+		double m4 = fM4 + other.fM4
+			+ (delta4 * nA * nB * ((nA * nA) - (nA * nB) + (nB * nB)) / (n * n * n))
+			+ (6.0 * delta2 * ((nA * nA * other.fM2) + (nB * nB * fM2)) / (n * n))
+			+ (4.0 * delta * ((nA * other.fM3) - (nB * fM3)) / n);
+
+		fN += other.fN;
+		fMean += delta * (nB / n);
+		fM2 = m2;
+		fM3 = m3;
+		fM4 = m4;
+		if ((other.fMinimum < fMinimum) || Double.isNaN(fMinimum)) {
+			fMinimum = other.fMinimum;
+		}
+		if ((other.fMaximum > fMaximum) || Double.isNaN(fMaximum)) {
+			fMaximum = other.fMaximum;
+		}
+	}
+
+	/**
+	 * Returns the number of values that were added.
+	 *
+	 * @return the number of values that were added
+	 */
+	public long getN()
+	{
+		return fN;
+	}
+
+	/**
+	 * Returns the minimum of the added values (ignoring <CODE>NaN</CODE> values, unless all values are <CODE>NaN</CODE>).
+	 *
+	 * @return the minimum of the added values
+	 */
+	public double getMinimum()
+	{
+		return fMinimum;
+	}
+
+	/**
+	 * Returns the maximum of the added values (ignoring <CODE>NaN</CODE> values, unless all values are <CODE>NaN</CODE>).
+	 *
+	 * @return the maximum of the added values
+	 */
+	public double getMaximum()
+	{
+		return fMaximum;
+	}
+
+	/**
+	 * Returns the sample mean.
+	 *
+	 * @return the sample mean
+	 */
+	public double getMean()
+	{
+		return fMean;
+	}
+
+	/**
+	 * Returns the sum of the squared deviations from the mean (i.e., the second central moment multiplied by the number of values).
+	 *
+	 * @return the sum of the squared deviations from the mean
+	 */
+	public double getSumOfSquaredDeviations()
+	{
+		return fM2;
+	}
+
+	/**
+	 * Returns the sample variance (using an unbiased estimator of the population variance).
+	 *
+	 * @return the sample variance (using an unbiased estimator of the population variance)
+	 */
+	public double getVariance()
+	{
+		if (fN > 1) {
+			return (fM2 / ((double) fN - 1.0));
+		}
+		else {
+			return 0.0;
+		}
+	}
+
+	/**
+	 * Returns the standard deviation (i.e., the positive square root of the variance).
+	 *
+	 * @return the standard deviation
+	 */
+	public double getStandardDeviation()
+	{
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Returns the sample skewness (using an unbiased estimator).
+	 *
+	 * @return the sample skewness (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getSkewness()
+	 */
+	public double getSkewness()
+	{
+		double n = fN;
+		double skewness = (fM3 / n) / Math.pow(fM2 / n,1.5); // population skewness
+		return (skewness * (Math.sqrt(n * (n - 1.0)) / (n - 2.0))); // sample skewness
+	}
+
+	/**
+	 * Returns the symmetrical skewness' confidence bounds for a 95% confidence interval, defined as twice the standard error of skewness (SES).
+	 *
+	 * @return the symmetrical skewness' confidence bounds for a 95% confidence interval
+	 * @see    EmpiricalDistribution#getSkewnessConfidenceBounds()
+	 */
+	public double getSkewnessConfidenceBounds()
+	{
+		return (2.0 * getStandardErrorOfSkewness());
+	}
+
+	/**
+	 * Returns a two-tailed test statistic <I>Z</I> of skewness (different from zero) with a 5% significance level.
+	 *
+	 * @return the skewness <I>Z</I>-statistic
+	 * @see    EmpiricalDistribution#getSkewnessZStatistic()
+	 */
+	public double getSkewnessZStatistic()
+	{
+		return (getSkewness() / getStandardErrorOfSkewness());
+	}
+
+	/**
+	 * Returns the sample kurtosis (using an unbiased estimator).
+	 * <P>
+	 * The value returned is the <I>excess kurtosis</I>, such that it is zero for a normal distribution.
+	 *
+	 * @return the sample kurtosis (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getKurtosis()
+	 */
+	public double getKurtosis()
+	{
+		double n = fN;
+		double kurtosis = (fM4 / n) / MathTools.sqr(fM2 / n); // population kurtosis
+		kurtosis = ((kurtosis * (n + 1.0)) - (3.0 * (n - 1.0))) * ((n - 1.0) / ((n - 2.0) * (n - 3.0))) + 3.0; // sample kurtosis
+		return (kurtosis - 3.0); // leading to zero kurtosis for a normal distribution
+	}
+
+	/**
+	 * Returns a two-tailed test statistic <I>Z</I> of kurtosis (different from zero) with a 5% significance level.
+	 *
+	 * @return the kurtosis <I>Z</I>-statistic
+	 * @see    EmpiricalDistribution#getKurtosisZStatistic()
+	 */
+	public double getKurtosisZStatistic()
+	{
+		double n = fN;
+		double standardErrorOfKurtosis = 2.0 * getStandardErrorOfSkewness() * Math.sqrt((MathTools.sqr(n) - 1.0) / ((n - 3.0) * (n + 5.0)));
+		return (getKurtosis() / standardErrorOfKurtosis);
+	}
+
+	/******************
+	 * STATIC METHODS *
+	 ******************/
+
+	/**
+	 * Accumulates all values in an array, splitting the work over all available processor cores (of the fork/join pool of the calling thread,
+	 * or of the common pool otherwise).
+	 * <P>
+	 * The array is recursively split into parts (using the fork/join framework), each part is accumulated separately,
+	 * after which the partial moments are merged pairwise. The results match those of a sequential accumulation within numerical tolerance.
+	 *
+	 * @param x  the array of values to accumulate
+	 * @return   an accumulator containing the moments of all values in the array
+	 */
+	public static MomentAccumulator accumulateInParallel(double[] x)
+	{
+		if (x == null) {
+			return (new MomentAccumulator());
+		}
+
+		// the task is run from within the calling thread, so that its subtasks remain in the calling fork/join pool (if any)
+		return (new AccumulationTask(x,0,x.length)).invoke();
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * @param x     -
+	 * @param from  -
+	 * @param to    -
+	 * @return      -
+	 */
+	private static MomentAccumulator accumulateBlock(double[] x, int from, int to)
+	{
+		MomentAccumulator block = new MomentAccumulator();
+		if (to <= from) {
+			return block;
+		}
+
+		// first pass: mean and extrema
+		double sum = 0.0;
+		double minimum = x[from];
+		double maximum = x[from];
+		for (int i = from; i < to; ++i) {
+			double xi = x[i];
+			sum += xi;
+			if ((xi < minimum) || Double.isNaN(minimum)) {
+				minimum = xi;
+			}
+			if ((xi > maximum) || Double.isNaN(maximum)) {
+				maximum = xi;
+			}
+		}
+		double n = to - from;
+		double mean = sum / n;
+
+		// second pass: central moments
+		double m2 = 0.0;
+		double m3 = 0.0;
+		double m4 = 0.0;
+		for (int i = from; i < to; ++i) {
+			double delta = x[i] - mean;
+			double delta2 = delta * delta;
+			m2 += delta2;
+			m3 += (delta2 * delta);
+			m4 += (delta2 * delta2);
+		}
+
+		block.fN = to - from;
+		block.fMean = mean;
+		block.fM2 = m2;
+		block.fM3 = m3;
+		block.fM4 = m4;
+		block.fMinimum = minimum;
+		block.fMaximum = maximum;
+		return block;
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * Recursively splits the accumulation of a range of values over the fork/join pool.
+	 */
+	private static final class AccumulationTask extends RecursiveTask<MomentAccumulator>
+	{
+		// the version of the serialised form
+		private static final long serialVersionUID = 1L;
+
+		// internal datastructures
+		private final double[] fX;
+		private final int fFrom;
+		private final int fTo;
+
+		/**
+		 * @param x     -
+		 * @param from  -
+		 * @param to    -
+		 */
+		public AccumulationTask(double[] x, int from, int to)
+		{
+			fX = x;
+			fFrom = from;
+			fTo = to;
+		}
+
+		/**
+		 * @return -
+		 */
+		@Override
+		protected MomentAccumulator compute()
+		{
+			if ((fTo - fFrom) <= kParallelGranularity) {
+				MomentAccumulator accumulator = new MomentAccumulator();
+				accumulator.add(fX,fFrom,fTo);
+				return accumulator;
+			}
+
+			int middle = (fFrom + fTo) >>> 1;
+			AccumulationTask leftTask = new AccumulationTask(fX,fFrom,middle);
+			AccumulationTask rightTask = new AccumulationTask(fX,middle,fTo);
+			leftTask.fork();
+			MomentAccumulator accumulator = rightTask.compute();
+			MomentAccumulator leftAccumulator = leftTask.join();
+			leftAccumulator.merge(accumulator);
+			return leftAccumulator;
+		}
+	}
+
+	/**
+	 * @return -
+	 */
+	private double getStandardErrorOfSkewness()
+	{
+		double n = fN;
+		return Math.sqrt((6.0 * n * (n - 1.0)) / ((n - 2.0) * (n + 1.0) * (n + 3.0)));
+	}
+}
@@ -0,0 +1,1074 @@
+// ------------------------------------------
+// Filename      : OutOfCoreDistribution.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import org.sm.smtools.exceptions.*;
+import org.sm.smtools.math.*;
+import org.sm.smtools.util.*;
+
+/**
+ * The <CODE>OutOfCoreDistribution</CODE> class offers a counterpart of the {@link EmpiricalDistribution} class for data sets that are too large
+ * to be loaded in memory as a whole.
+ * <P>
+ * The values are read from a file in chunks of a fixed size, either from a text file with one value per line (via a {@link TextFileParser})
+ * or from a binary file of <CODE>double</CODE>s (in the big-endian format of a <CODE>DataOutputStream</CODE>). During this single pass over the file,
+ * the moments are calculated exactly by a {@link MomentAccumulator}. For the quantiles, two methods are available:
+ * <UL>
+ *   <LI>{@link OutOfCoreDistribution.EQuantileMethod#kExact}: each chunk is sorted in memory and written as a sorted run to a temporary file,
+ *       after which all runs are merged into a single sorted temporary file (i.e., an external merge sort). Percentiles, CDF values and histogram
+ *       bin counts are then looked up in the sorted file by (binary search) positional reads, which makes them exact.</LI>
+ *   <LI>{@link OutOfCoreDistribution.EQuantileMethod#kSketch}: the values are added to a {@link StreamingDistribution}, so that no temporary files
+ *       are needed, at the expense of approximate quantiles.</LI>
+ * </UL>
+ * <P>
+ * The memory footprint is bounded by the chunk size (plus a small read buffer for every sorted run during the merge). <CODE>NaN</CODE> values are ignored.
+ * The temporary files are deleted by the {@link OutOfCoreDistribution#close()} method (or otherwise when the virtual machine exits).
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     EmpiricalDistribution
+ * @see     StreamingDistribution
+ */
+public final class OutOfCoreDistribution implements Closeable
+{
+	/**
+	 * The different formats of the files to read.
+	 */
+	public static enum EFileFormat {
+		/**
+		 * A text file with one value per line (empty lines are ignored).
+		 */
+		kText,
+
+		/**
+		 * A binary file of <CODE>double</CODE>s in the big-endian format of a <CODE>DataOutputStream</CODE>.
+		 */
+		kBinary};
+
+	/**
+	 * The different methods for estimating the quantiles.
+	 */
+	public static enum EQuantileMethod {
+		/**
+		 * Exact quantiles via an external merge sort into a temporary file.
+		 */
+		kExact,
+
+		/**
+		 * Approximate quantiles via a {@link QuantileSketch}, without temporary files.
+		 */
+		kSketch};
+
+	/**
+	 * The default number of values per chunk (i.e., 32 MiB of <CODE>double</CODE>s).
+	 */
+	public static final int kDefaultChunkSize = 1 << 22;
+
+	// the minimum number of values per chunk
+	private static final int kMinChunkSize = 1024;
+
+	// the minimum number of values in the read buffer of a sorted run during the merge
+	private static final int kMinRunBufferSize = 1024;
+
+	// the minimum number of histogram bins
+	private static final int kMinNrOfHistogramBins = 10;
+
+	// the number of bytes in a double
+	private static final int kNrOfBytesPerValue = Double.BYTES;
+
+	// internal datastructures
+	private String fFilename;
+	private EQuantileMethod fQuantileMethod;
+	private MomentAccumulator fMoments;
+	private StreamingDistribution fStreamingDistribution;
+	private File fSortedFile;
+	private FileChannel fSortedFileChannel;
+	private boolean fUseOptimalNrOfHistogramBins;
+	private int fNrOfHistogramBins;
+	private double[] fHistogramBinCounts;
+	private double[] fHistogramBinFrequencies;
+	private double[] fHistogramBinRightEdges;
+	private double[] fHistogramBinCentres;
+	private double fHistogramBinWidth;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an <CODE>OutOfCoreDistribution</CODE> object with exact quantiles for the values in a file, using the default chunk size.
+	 *
+	 * @param filename                     the name of the file containing the values
+	 * @param fileFormat                   the format of the file
+	 * @throws FileReadException           if the file cannot be read
+	 * @throws FileParseException          if the text file contains a malformed value
+	 * @throws FileCantBeCreatedException  if a temporary file cannot be created
+	 * @throws FileWriteException          if a temporary file cannot be written
+	 */
+	public OutOfCoreDistribution(String filename, EFileFormat fileFormat) throws FileReadException, FileParseException, FileCantBeCreatedException, FileWriteException
+	{
+		this(filename,fileFormat,EQuantileMethod.kExact,kDefaultChunkSize);
+	}
+
+	/**
+	 * Constructs an <CODE>OutOfCoreDistribution</CODE> object for the values in a file, using the default chunk size.
+	 *
+	 * @param filename                     the name of the file containing the values
+	 * @param fileFormat                   the format of the file
+	 * @param quantileMethod               the method for estimating the quantiles
+	 * @throws FileReadException           if the file cannot be read
+	 * @throws FileParseException          if the text file contains a malformed value
+	 * @throws FileCantBeCreatedException  if a temporary file cannot be created
+	 * @throws FileWriteException          if a temporary file cannot be written
+	 */
+	public OutOfCoreDistribution(String filename, EFileFormat fileFormat, EQuantileMethod quantileMethod) throws FileReadException, FileParseException, FileCantBeCreatedException, FileWriteException
+	{
+		this(filename,fileFormat,quantileMethod,kDefaultChunkSize);
+	}
+
+	/**
+	 * Constructs an <CODE>OutOfCoreDistribution</CODE> object for the values in a file.
+	 * <P>
+	 * The Freedman-Diaconis rule is applied for finding the optimal histogram bin width, and consequently the optimal number of histogram bins:
+	 * <P>
+	 * bin width = 2 * IQR / n^1/3
+	 *
+	 * @param filename                     the name of the file containing the values
+	 * @param fileFormat                   the format of the file
+	 * @param quantileMethod               the method for estimating the quantiles
+	 * @param chunkSize                    the number of values that are read (and sorted) at once
+	 * @throws FileReadException           if the file cannot be read
+	 * @throws FileParseException          if the text file contains a malformed value
+	 * @throws FileCantBeCreatedException  if a temporary file cannot be created
+	 * @throws FileWriteException          if a temporary file cannot be written
+	 */
+	public OutOfCoreDistribution(String filename, EFileFormat fileFormat, EQuantileMethod quantileMethod, int chunkSize) throws FileReadException, FileParseException, FileCantBeCreatedException, FileWriteException
+	{
+		fFilename = filename;
+		fQuantileMethod = quantileMethod;
+		fUseOptimalNrOfHistogramBins = true;
+		fNrOfHistogramBins = 0;
+		if (quantileMethod == EQuantileMethod.kSketch) {
+			fStreamingDistribution = new StreamingDistribution();
+			fMoments = fStreamingDistribution.getMoments();
+		}
+		else {
+			fMoments = new MomentAccumulator();
+		}
+
+		readFile(fileFormat,Math.max(kMinChunkSize,chunkSize));
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Deletes the temporary files (after which the quantiles are no longer available in the exact method).
+	 */
+	@Override
+	public void close()
+	{
+		deleteTemporaryFile(fSortedFile,fSortedFileChannel);
+		fSortedFile = null;
+		fSortedFileChannel = null;
+	}
+
+	/**
+	 * Returns the name of the file containing the values.
+	 *
+	 * @return the name of the file containing the values
+	 */
+	public String getFilename()
+	{
+		return fFilename;
+	}
+
+	/**
+	 * Returns the method for estimating the quantiles.
+	 *
+	 * @return the method for estimating the quantiles
+	 */
+	public EQuantileMethod getQuantileMethod()
+	{
+		return fQuantileMethod;
+	}
+
+	/**
+	 * Returns the moment accumulator, containing the exact moments of all values.
+	 *
+	 * @return the moment accumulator
+	 */
+	public MomentAccumulator getMoments()
+	{
+		return fMoments;
+	}
+
+	/**
+	 * Returns the number of values (excluding <CODE>NaN</CODE> values).
+	 *
+	 * @return the number of values
+	 */
+	public long getN()
+	{
+		return fMoments.getN();
+	}
+
+	/**
+	 * Returns the minimum value.
+	 *
+	 * @return the minimum value
+	 */
+	public double getXMinimum()
+	{
+		return fMoments.getMinimum();
+	}
+
+	/**
+	 * Returns the maximum value.
+	 *
+	 * @return the maximum value
+	 */
+	public double getXMaximum()
+	{
+		return fMoments.getMaximum();
+	}
+
+	/**
+	 * Returns the range of the values (i.e., the difference between the maximum and the minimum).
+	 *
+	 * @return the range of the values
+	 */
+	public double getXRange()
+	{
+		return (getXMaximum() - getXMinimum());
+	}
+
+	/**
+	 * Returns the expected value (mean).
+	 *
+	 * @return the expected value (mean)
+	 * @see    OutOfCoreDistribution#getMean()
+	 */
+	public double getExpectedValue()
+	{
+		return fMoments.getMean();
+	}
+
+	/**
+	 * Returns the mean (i.e., the expected value).
+	 *
+	 * @return the mean
+	 * @see    OutOfCoreDistribution#getExpectedValue()
+	 */
+	public double getMean()
+	{
+		return getExpectedValue();
+	}
+
+	/**
+	 * Returns the variance (using an unbiased estimator).
+	 *
+	 * @return the variance
+	 */
+	public double getVariance()
+	{
+		return fMoments.getVariance();
+	}
+
+	/**
+	 * Returns the standard deviation (i.e., the positive square root of the variance).
+	 *
+	 * @return the standard deviation
+	 */
+	public double getStandardDeviation()
+	{
+		return fMoments.getStandardDeviation();
+	}
+
+	/**
+	 * Returns the sample skewness (using an unbiased estimator).
+	 *
+	 * @return the sample skewness (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getSkewness()
+	 */
+	public double getSkewness()
+	{
+		return fMoments.getSkewness();
+	}
+
+	/**
+	 * Returns the sample kurtosis (using an unbiased estimator).
+	 * <P>
+	 * The value returned is the <I>excess kurtosis</I>, such that it is zero for a normal distribution.
+	 *
+	 * @return the sample kurtosis (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getKurtosis()
+	 */
+	public double getKurtosis()
+	{
+		return fMoments.getKurtosis();
+	}
+
+	/**
+	 * Returns the value of the cumulative distribution function (CDF) evaluated at <CODE>x</CODE>, i.e., the fraction of values that do not exceed <CODE>x</CODE>.
+	 *
+	 * @param x  the value to evaluate the cumulative distribution function at
+	 * @return   the value of the cumulative distribution function evaluated at <CODE>x</CODE> (<CODE>NaN</CODE> if the sorted file cannot be read)
+	 */
+	public double getCDF(double x)
+	{
+		long n = getN();
+		if (n == 0) {
+			return 0.0;
+		}
+
+		if (fStreamingDistribution != null) {
+			return fStreamingDistribution.getCDF(x);
+		}
+
+		long nrOfValuesNotAbove = getNrOfSortedValuesNotAbove(x);
+		return ((nrOfValuesNotAbove >= 0) ? ((double) nrOfValuesNotAbove / (double) n) : Double.NaN);
+	}
+
+	/**
+	 * Returns the given percentile.
+	 *
+	 * @param percentile  the requested percentile (in the interval [0,100])
+	 * @return            the requested percentile value
+	 */
+	public double getPercentile(int percentile)
+	{
+		return getPercentile((double) percentile);
+	}
+
+	/**
+	 * Returns the given percentile.
+	 * <P>
+	 * For exact quantiles, the percentile is interpolated linearly between the order statistics in the same way as in the {@link EmpiricalDistribution}
+	 * class, although it is not restricted to a resolution of 0.1%.
+	 *
+	 * @param percentile  the requested percentile (in the interval [0.0,100.0])
+	 * @return            the requested percentile value (<CODE>NaN</CODE> if the sorted file cannot be read)
+	 */
+	public double getPercentile(double percentile)
+	{
+		long n = getN();
+		if (n == 0) {
+			return 0.0;
+		}
+
+		if (fStreamingDistribution != null) {
+			return fStreamingDistribution.getPercentile(percentile);
+		}
+
+		double position = (MathTools.clip(percentile,0.0,100.0) / 100.0) * ((double) n - 1.0);
+		long k = (long) Math.floor(position);
+		double d = position - (double) k;
+		double lower = getSortedValue(k);
+		if ((d > 0.0) && (k < (n - 1))) {
+			return (lower + (d * (getSortedValue(k + 1) - lower)));
+		}
+		else {
+			return lower;
+		}
+	}
+
+	/**
+	 * Returns the median (i.e., the 50th percentile).
+	 *
+	 * @return the median
+	 */
+	public double getMedian()
+	{
+		return getPercentile(50);
+	}
+
+	/**
+	 * Returns the interquartile range (IQR) (i.e., the difference between the 75th and the 25th percentiles).
+	 *
+	 * @return the interquartile range (IQR)
+	 */
+	public double getInterquartileRange()
+	{
+		return (getPercentile(75) - getPercentile(25));
+	}
+
+	/**
+	 * Recalculates the histogram, applying the Freedman-Diaconis rule for finding the optimal histogram bin width, and consequently the optimal number of histogram bins:
+	 * <P>
+	 * bin width = 2 * IQR / n^1/3
+	 */
+	public void recalculatePDF()
+	{
+		fUseOptimalNrOfHistogramBins = true;
+		invalidateHistogram();
+	}
+
+	/**
+	 * Recalculates the histogram using a user-specified number of histogram bins.
+	 *
+	 * @param nrOfHistogramBins  the user-specified number of histogram bins
+	 */
+	public void recalculatePDF(int nrOfHistogramBins)
+	{
+		fUseOptimalNrOfHistogramBins = false;
+		fNrOfHistogramBins = nrOfHistogramBins;
+		invalidateHistogram();
+	}
+
+	/**
+	 * Returns the number of histogram bins.
+	 *
+	 * @return the number of histogram bins
+	 */
+	public int getNrOfHistogramBins()
+	{
+		estimateHistogram();
+		return fNrOfHistogramBins;
+	}
+
+	/**
+	 * Returns the counts for all the histogram bins.
+	 *
+	 * @return an array containing the counts for all the histogram bins
+	 */
+	public double[] getHistogramBinCounts()
+	{
+		estimateHistogram();
+		return fHistogramBinCounts;
+	}
+
+	/**
+	 * Returns the frequencies for all the histogram bins.
+	 *
+	 * @return an array containing the frequencies for all the histogram bins
+	 */
+	public double[] getHistogramBinFrequencies()
+	{
+		estimateHistogram();
+		return fHistogramBinFrequencies;
+	}
+
+	/**
+	 * Returns the right edges of all the histogram bins.
+	 *
+	 * @return an array containing the right edges of all the histogram bins
+	 */
+	public double[] getHistogramBinRightEdges()
+	{
+		estimateHistogram();
+		return fHistogramBinRightEdges;
+	}
+
+	/**
+	 * Returns the centres of all the histogram bins.
+	 *
+	 * @return an array containing the centres of all the histogram bins
+	 */
+	public double[] getHistogramBinCentres()
+	{
+		estimateHistogram();
+		return fHistogramBinCentres;
+	}
+
+	/**
+	 * Returns the width of a histogram bin.
+	 *
+	 * @return the width of a histogram bin
+	 */
+	public double getHistogramBinWidth()
+	{
+		estimateHistogram();
+		return fHistogramBinWidth;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Reads the file in chunks, accumulating the moments and (for exact quantiles) writing the sorted chunks as runs to a temporary file.
+	 *
+	 * @param fileFormat                   -
+	 * @param chunkSize                    -
+	 * @throws FileReadException           -
+	 * @throws FileParseException          -
+	 * @throws FileCantBeCreatedException  -
+	 * @throws FileWriteException          -
+	 */
+	private void readFile(EFileFormat fileFormat, int chunkSize) throws FileReadException, FileParseException, FileCantBeCreatedException, FileWriteException
+	{
+		ChunkReader chunkReader = new ChunkReader(fFilename,fileFormat,chunkSize);
+		File runsFile = null;
+		FileChannel runsFileChannel = null;
+		ArrayList<Long> runLengths = new ArrayList<Long>();
+		double[] chunk = new double[chunkSize];
+		boolean fileRead = false;
+		try {
+			if (fQuantileMethod == EQuantileMethod.kExact) {
+				runsFile = createTemporaryFile();
+				runsFileChannel = openTemporaryFile(runsFile);
+			}
+
+			int nrOfValues = chunkReader.read(chunk);
+			while (nrOfValues > 0) {
+				if (fStreamingDistribution != null) {
+					fStreamingDistribution.addAll((nrOfValues == chunkSize) ? chunk : Arrays.copyOf(chunk,nrOfValues));
+				}
+				else {
+					fMoments.add(chunk,0,nrOfValues);
+					if (nrOfValues >= EmpiricalDistribution.getParallelThreshold()) {
+						Arrays.parallelSort(chunk,0,nrOfValues);
+					}
+					else {
+						Arrays.sort(chunk,0,nrOfValues);
+					}
+					writeValues(runsFileChannel,runsFile,chunk,nrOfValues);
+					runLengths.add((long) nrOfValues);
+				}
+				nrOfValues = chunkReader.read(chunk);
+			}
+			fileRead = true;
+		}
+		finally {
+			chunkReader.close();
+			if (!fileRead) {
+				deleteTemporaryFile(runsFile,runsFileChannel);
+			}
+		}
+
+		if (runsFile != null) {
+			if (runLengths.size() <= 1) {
+				// a single run is already sorted
+				fSortedFile = runsFile;
+				fSortedFileChannel = runsFileChannel;
+			}
+			else {
+				try {
+					mergeRuns(runsFile,runsFileChannel,runLengths,chunkSize);
+				}
+				catch (FileCantBeCreatedException | FileWriteException exc) {
+					close();
+					throw exc;
+				}
+				finally {
+					deleteTemporaryFile(runsFile,runsFileChannel);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Merges the sorted runs into a single sorted temporary file (a k-way merge with a binary heap of the runs' current values).
+	 *
+	 * @param runsFile                     -
+	 * @param runsFileChannel              -
+	 * @param runLengths                   -
+	 * @param chunkSize                    -
+	 * @throws FileCantBeCreatedException  -
+	 * @throws FileWriteException          -
+	 */
+	private void mergeRuns(File runsFile, FileChannel runsFileChannel, ArrayList<Long> runLengths, int chunkSize) throws FileCantBeCreatedException, FileWriteException
+	{
+		fSortedFile = createTemporaryFile();
+		fSortedFileChannel = openTemporaryFile(fSortedFile);
+
+		// divide the memory of a chunk over the read buffers of the runs and the write buffer
+		int nrOfRuns = runLengths.size();
+		int bufferSize = Math.max(kMinRunBufferSize,chunkSize / (nrOfRuns + 1));
+		double[][] runBuffers = new double[nrOfRuns][bufferSize];
+		int[] runBufferSizes = new int[nrOfRuns];
+		int[] runBufferPositions = new int[nrOfRuns];
+		long[] runPositions = new long[nrOfRuns];
+		long[] runEnds = new long[nrOfRuns];
+		long runStart = 0;
+		for (int run = 0; run < nrOfRuns; ++run) {
+			runPositions[run] = runStart;
+			runStart += runLengths.get(run);
+			runEnds[run] = runStart;
+		}
+
+		try {
+			// fill the heap with the runs, ordered by their current values
+			int[] heap = new int[nrOfRuns];
+			int heapSize = 0;
+			for (int run = 0; run < nrOfRuns; ++run) {
+				fillRunBuffer(runsFileChannel,runBuffers[run],run,runBufferSizes,runBufferPositions,runPositions,runEnds);
+				heap[heapSize] = run;
+				siftUp(heap,heapSize,runBuffers,runBufferPositions);
+				++heapSize;
+			}
+
+			double[] outputBuffer = new double[bufferSize];
+			int outputSize = 0;
+			while (heapSize > 0) {
+				int run = heap[0];
+				outputBuffer[outputSize++] = runBuffers[run][runBufferPositions[run]++];
+				if (outputSize == bufferSize) {
+					writeValues(fSortedFileChannel,fSortedFile,outputBuffer,outputSize);
+					outputSize = 0;
+				}
+
+				if (runBufferPositions[run] == runBufferSizes[run]) {
+					fillRunBuffer(runsFileChannel,runBuffers[run],run,runBufferSizes,runBufferPositions,runPositions,runEnds);
+				}
+				if (runBufferSizes[run] == 0) {
+					// the run is exhausted
+					--heapSize;
+					heap[0] = heap[heapSize];
+				}
+				siftDown(heap,heapSize,runBuffers,runBufferPositions);
+			}
+			writeValues(fSortedFileChannel,fSortedFile,outputBuffer,outputSize);
+		}
+		catch (IOException exc) {
+			throw (new FileWriteException(fSortedFile.getPath(),exc.getMessage()));
+		}
+	}
+
+	/**
+	 * Refills the read buffer of a run.
+	 *
+	 * @param  channel             -
+	 * @param  runBuffer           -
+	 * @param  run                 -
+	 * @param  runBufferSizes      - (0 if the run is exhausted)
+	 * @param  runBufferPositions  -
+	 * @param  runPositions        -
+	 * @param  runEnds             -
+	 * @throws IOException         -
+	 */
+	private static void fillRunBuffer(FileChannel channel, double[] runBuffer, int run, int[] runBufferSizes, int[] runBufferPositions, long[] runPositions, long[] runEnds) throws IOException
+	{
+		int nrOfValues = (int) Math.min(runBuffer.length,runEnds[run] - runPositions[run]);
+		if (nrOfValues > 0) {
+			ByteBuffer byteBuffer = ByteBuffer.allocate(nrOfValues * kNrOfBytesPerValue);
+			long filePosition = runPositions[run] * kNrOfBytesPerValue;
+			while (byteBuffer.hasRemaining()) {
+				int nrOfBytesRead = channel.read(byteBuffer,filePosition + byteBuffer.position());
+				if (nrOfBytesRead < 0) {
+					throw (new EOFException());
+				}
+			}
+			byteBuffer.flip();
+			byteBuffer.asDoubleBuffer().get(runBuffer,0,nrOfValues);
+			runPositions[run] += nrOfValues;
+		}
+		runBufferSizes[run] = nrOfValues;
+		runBufferPositions[run] = 0;
+	}
+
+	/**
+	 * @param heap                -
+	 * @param index               -
+	 * @param runBuffers          -
+	 * @param runBufferPositions  -
+	 */
+	private static void siftUp(int[] heap, int index, double[][] runBuffers, int[] runBufferPositions)
+	{
+		int run = heap[index];
+		double value = runBuffers[run][runBufferPositions[run]];
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			int parentRun = heap[parentIndex];
+			if (runBuffers[parentRun][runBufferPositions[parentRun]] <= value) {
+				break;
+			}
+			heap[index] = parentRun;
+			index = parentIndex;
+		}
+		heap[index] = run;
+	}
+
+	/**
+	 * @param heap                -
+	 * @param heapSize            -
+	 * @param runBuffers          -
+	 * @param runBufferPositions  -
+	 */
+	private static void siftDown(int[] heap, int heapSize, double[][] runBuffers, int[] runBufferPositions)
+	{
+		if (heapSize == 0) {
+			return;
+		}
+
+		int run = heap[0];
+		double value = runBuffers[run][runBufferPositions[run]];
+		int index = 0;
+		while (true) {
+			int childIndex = (2 * index) + 1;
+			if (childIndex >= heapSize) {
+				break;
+			}
+			int childRun = heap[childIndex];
+			double childValue = runBuffers[childRun][runBufferPositions[childRun]];
+			if ((childIndex + 1) < heapSize) {
+				int rightChildRun = heap[childIndex + 1];
+				double rightChildValue = runBuffers[rightChildRun][runBufferPositions[rightChildRun]];
+				if (rightChildValue < childValue) {
+					++childIndex;
+					childRun = rightChildRun;
+					childValue = rightChildValue;
+				}
+			}
+			if (value <= childValue) {
+				break;
+			}
+			heap[index] = childRun;
+			index = childIndex;
+		}
+		heap[index] = run;
+	}
+
+	/**
+	 * @return                             -
+	 * @throws FileCantBeCreatedException  -
+	 */
+	private File createTemporaryFile() throws FileCantBeCreatedException
+	{
+		try {
+			File file = File.createTempFile("smtools-",".sorted");
+			file.deleteOnExit();
+			return file;
+		}
+		catch (IOException | SecurityException exc) {
+			throw (new FileCantBeCreatedException(System.getProperty("java.io.tmpdir")));
+		}
+	}
+
+	/**
+	 * @param  file                        -
+	 * @return                             -
+	 * @throws FileCantBeCreatedException  -
+	 */
+	private static FileChannel openTemporaryFile(File file) throws FileCantBeCreatedException
+	{
+		try {
+			return FileChannel.open(file.toPath(),StandardOpenOption.READ,StandardOpenOption.WRITE);
+		}
+		catch (IOException exc) {
+			throw (new FileCantBeCreatedException(file.getPath()));
+		}
+	}
+
+	/**
+	 * @param file     -
+	 * @param channel  -
+	 */
+	private static void deleteTemporaryFile(File file, FileChannel channel)
+	{
+		if (channel != null) {
+			try {
+				channel.close();
+			}
+			catch (IOException exc) {
+				// ignore
+			}
+		}
+
+		if (file != null) {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Appends values to the end of a temporary file.
+	 *
+	 * @param  channel             -
+	 * @param  file                -
+	 * @param  values              -
+	 * @param  nrOfValues          -
+	 * @throws FileWriteException  -
+	 */
+	private static void writeValues(FileChannel channel, File file, double[] values, int nrOfValues) throws FileWriteException
+	{
+		try {
+			ByteBuffer byteBuffer = ByteBuffer.allocate(nrOfValues * kNrOfBytesPerValue);
+			byteBuffer.asDoubleBuffer().put(values,0,nrOfValues);
+			long filePosition = channel.size();
+			while (byteBuffer.hasRemaining()) {
+				channel.write(byteBuffer,filePosition + byteBuffer.position());
+			}
+		}
+		catch (IOException exc) {
+			throw (new FileWriteException(file.getPath(),exc.getMessage()));
+		}
+	}
+
+	/**
+	 * Reads a value from the sorted file.
+	 *
+	 * @param  rank  - (zero-based)
+	 * @return       - (<CODE>NaN</CODE> if the sorted file cannot be read)
+	 */
+	private double getSortedValue(long rank)
+	{
+		if (fSortedFileChannel == null) {
+			return Double.NaN;
+		}
+
+		try {
+			ByteBuffer byteBuffer = ByteBuffer.allocate(kNrOfBytesPerValue);
+			while (byteBuffer.hasRemaining()) {
+				if (fSortedFileChannel.read(byteBuffer,(rank * kNrOfBytesPerValue) + byteBuffer.position()) < 0) {
+					return Double.NaN;
+				}
+			}
+			return byteBuffer.getDouble(0);
+		}
+		catch (IOException exc) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Returns the number of values in the sorted file that do not exceed a specified value (by binary search).
+	 *
+	 * @param  x  -
+	 * @return    - (-1 if the sorted file cannot be read)
+	 */
+	private long getNrOfSortedValuesNotAbove(double x)
+	{
+		long low = 0;
+		long high = getN();
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			double value = getSortedValue(middle);
+			if (Double.isNaN(value)) {
+				return -1;
+			}
+			if (value <= x) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the number of values that are below a specified value.
+	 *
+	 * @param  x  -
+	 * @return    -
+	 */
+	private long getNrOfValuesBelow(double x)
+	{
+		if (fStreamingDistribution != null) {
+			return fStreamingDistribution.getSketch().getNrOfValuesBelow(x);
+		}
+
+		// the number of values below x equals the number of values not above the largest double below x
+		return Math.max(0,getNrOfSortedValuesNotAbove(Math.nextDown(x)));
+	}
+
+	/**
+	 */
+	private void invalidateHistogram()
+	{
+		fHistogramBinCounts = null;
+		fHistogramBinFrequencies = null;
+		fHistogramBinRightEdges = null;
+		fHistogramBinCentres = null;
+		fHistogramBinWidth = 0.0;
+	}
+
+	/**
+	 */
+	private void estimateHistogram()
+	{
+		if ((fHistogramBinCounts != null) || (getN() == 0)) {
+			return;
+		}
+
+		double n = getN();
+		double xMin = getXMinimum();
+		double xMax = getXMaximum();
+
+		if (fUseOptimalNrOfHistogramBins) {
+			// apply the Freedman-Diaconis rule for finding the optimal histogram bin width
+			double optimalBinWidth = (2.0 * getInterquartileRange()) / Math.cbrt(n);
+			fNrOfHistogramBins = ((int) Math.round((xMax - xMin) / optimalBinWidth));
+		}
+
+		// fail-safe
+		if (fNrOfHistogramBins < kMinNrOfHistogramBins) {
+			fNrOfHistogramBins = kMinNrOfHistogramBins;
+		}
+
+		fHistogramBinWidth = (xMax - xMin) / fNrOfHistogramBins;
+		fHistogramBinRightEdges = new double[fNrOfHistogramBins];
+		fHistogramBinCentres = new double[fNrOfHistogramBins];
+		for (int i = 0; i < fNrOfHistogramBins; ++i) {
+			fHistogramBinRightEdges[i] = xMin + ((i + 1) * fHistogramBinWidth);
+			fHistogramBinCentres[i] = fHistogramBinRightEdges[i] - (fHistogramBinWidth / 2.0);
+		}
+
+		// the bin counts follow from the ranks of the bin edges (the last bin also contains all values beyond its right edge)
+		fHistogramBinCounts = new double[fNrOfHistogramBins];
+		fHistogramBinFrequencies = new double[fNrOfHistogramBins];
+		long previousNrOfValuesBelow = 0;
+		for (int i = 0; i < fNrOfHistogramBins; ++i) {
+			long nrOfValuesBelow = getN();
+			if (i < (fNrOfHistogramBins - 1)) {
+				nrOfValuesBelow = getNrOfValuesBelow(fHistogramBinRightEdges[i]);
+			}
+			fHistogramBinCounts[i] = nrOfValuesBelow - previousNrOfValuesBelow;
+			fHistogramBinFrequencies[i] = fHistogramBinCounts[i] / n;
+			previousNrOfValuesBelow = nrOfValuesBelow;
+		}
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * Reads the values of a text or binary file in chunks, skipping <CODE>NaN</CODE> values.
+	 */
+	private static final class ChunkReader
+	{
+		// internal datastructures
+		private String fFilename;
+		private FileInputStream fFileInputStream;
+		private TextFileParser fTextFileParser;
+		private FileChannel fFileChannel;
+		private ByteBuffer fByteBuffer;
+
+		/**
+		 * @param  filename            -
+		 * @param  fileFormat          -
+		 * @param  chunkSize           -
+		 * @throws FileReadException  -
+		 */
+		public ChunkReader(String filename, EFileFormat fileFormat, int chunkSize) throws FileReadException
+		{
+			fFilename = filename;
+			try {
+				if (fileFormat == EFileFormat.kText) {
+					fFileInputStream = new FileInputStream(filename);
+					fTextFileParser = new TextFileParser(fFileInputStream);
+				}
+				else {
+					fFileChannel = FileChannel.open(Paths.get(filename),StandardOpenOption.READ);
+					fByteBuffer = ByteBuffer.allocate(Math.min(chunkSize,kMinChunkSize * 64) * kNrOfBytesPerValue);
+					fByteBuffer.flip();
+				}
+			}
+			catch (IOException | InvalidPathException exc) {
+				throw (new FileReadException(filename));
+			}
+		}
+
+		/**
+		 * @param  chunk               -
+		 * @return                     - the number of values read (0 at the end of the file)
+		 * @throws FileReadException   -
+		 * @throws FileParseException  -
+		 */
+		public int read(double[] chunk) throws FileReadException, FileParseException
+		{
+			int nrOfValues = 0;
+			if (fTextFileParser != null) {
+				while ((nrOfValues < chunk.length) && !fTextFileParser.endOfFileReached()) {
+					double value = 0.0;
+					try {
+						value = fTextFileParser.getNextDouble();
+					}
+					catch (FileParseException exc) {
+						if (fTextFileParser.endOfFileReached() && (exc.getValue().length() == 0)) {
+							// only trailing empty lines were left
+							break;
+						}
+						throw (new FileParseException(fFilename,exc.getValue(),exc.getLineNr()));
+					}
+					if (!Double.isNaN(value)) {
+						chunk[nrOfValues++] = value;
+					}
+				}
+			}
+			else {
+				try {
+					while (nrOfValues < chunk.length) {
+						if (fByteBuffer.remaining() < kNrOfBytesPerValue) {
+							fByteBuffer.compact();
+							int nrOfBytesRead = fFileChannel.read(fByteBuffer);
+							fByteBuffer.flip();
+							if (nrOfBytesRead < 0) {
+								if (fByteBuffer.hasRemaining()) {
+									// the file does not consist of whole doubles
+									throw (new FileReadException(fFilename));
+								}
+								break;
+							}
+							continue;
+						}
+						double value = fByteBuffer.getDouble();
+						if (!Double.isNaN(value)) {
+							chunk[nrOfValues++] = value;
+						}
+					}
+				}
+				catch (IOException exc) {
+					throw (new FileReadException(fFilename));
+				}
+			}
+
+			return nrOfValues;
+		}
+
+		/**
+		 * Closes the underlying file.
+		 */
+		public void close()
+		{
+			if (fFileInputStream != null) {
+				try {
+					fFileInputStream.close();
+				}
+				catch (IOException exc) {
+					// ignore
+				}
+			}
+
+			if (fFileChannel != null) {
+				try {
+					fFileChannel.close();
+				}
+				catch (IOException exc) {
+					// ignore
+				}
+			}
+		}
+	}
+}
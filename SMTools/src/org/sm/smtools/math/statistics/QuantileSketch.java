@@ -0,0 +1,556 @@
+// -----------------------------------
+// Filename      : QuantileSketch.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// -----------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * The <CODE>QuantileSketch</CODE> class offers a bounded-memory summary of a stream of values, from which quantiles and ranks can be estimated.
+ * <P>
+ * The sketch is based on the KLL algorithm (Karnin, Lang and Liberty): values are collected in a hierarchy of compactors, in which
+ * each level holds items with a weight of 2^level. Whenever the sketch runs out of space, the lowest full level is sorted and every other
+ * item is promoted to the next level. The number of retained items is bounded by approximately three times the accuracy parameter <I>k</I>,
+ * irrespective of the number of values added. The normalised rank error is of the order of 1 / <I>k</I>.
+ * <P>
+ * As long as no compaction took place (i.e., less than approximately <I>k</I> values were added), all quantiles are exact and
+ * are interpolated in the same way as the percentiles of the {@link EmpiricalDistribution} class.
+ * <P>
+ * Queries are answered from a sorted view of the retained items, which is built on the first query after an update and cached until the next update.
+ * <P>
+ * The sketch is serialisable (without its cached sorted view), and sketches built independently on separate shards of the data can be merged
+ * via {@link QuantileSketch#merge(QuantileSketch)}. Merging is associative in the sense that the error guarantee holds irrespective of the order
+ * in which the sketches are merged, although the retained items themselves may differ.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     StreamingDistribution
+ */
+public final class QuantileSketch implements Serializable
+{
+	// the version of the serialised form
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The default accuracy parameter <I>k</I>.
+	 */
+	public static final int kDefaultAccuracy = 200;
+
+	// the minimum capacity of a compactor level
+	private static final int kMinLevelCapacity = 8;
+
+	// the ratio of the capacities of two successive compactor levels
+	private static final double kLevelCapacityRatio = 2.0 / 3.0;
+
+	// the seed for the random generator that decides which items are promoted during a compaction
+	private static final long kRandomSeed = 0x5DEECE66DL;
+
+	// internal datastructures
+	private int fAccuracy;
+	private long fN;
+	private double fMinimum;
+	private double fMaximum;
+	private double[][] fLevels;
+	private int[] fLevelSizes;
+	private int fNrOfLevels;
+	private int fNrOfRetainedItems;
+	private int fTotalCapacity;
+	private Random fRandom;
+	private transient double[] fSortedItems;
+	private transient long[] fSortedCumulativeWeights;
+	private transient double[] fSortedRanks;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>QuantileSketch</CODE> object with the default accuracy.
+	 *
+	 * @see QuantileSketch#kDefaultAccuracy
+	 */
+	public QuantileSketch()
+	{
+		this(kDefaultAccuracy);
+	}
+
+	/**
+	 * Constructs an empty <CODE>QuantileSketch</CODE> object with a specified accuracy.
+	 * <P>
+	 * Larger values lead to more accurate quantiles, at the cost of more memory (approximately 3 * <I>k</I> values are retained).
+	 *
+	 * @param accuracy  the accuracy parameter <I>k</I> (clipped to be at least 8)
+	 */
+	public QuantileSketch(int accuracy)
+	{
+		fAccuracy = Math.max(accuracy,kMinLevelCapacity);
+		clear();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Clears the sketch.
+	 */
+	public void clear()
+	{
+		fN = 0;
+		fMinimum = 0.0;
+		fMaximum = 0.0;
+		fLevels = new double[1][];
+		fLevels[0] = new double[kMinLevelCapacity];
+		fLevelSizes = new int[1];
+		fNrOfLevels = 1;
+		fNrOfRetainedItems = 0;
+		fTotalCapacity = getLevelCapacity(0);
+		fRandom = new Random(kRandomSeed);
+		invalidateSortedView();
+	}
+
+	/**
+	 * Returns the accuracy parameter <I>k</I> of the sketch.
+	 *
+	 * @return the accuracy parameter <I>k</I> of the sketch
+	 */
+	public int getAccuracy()
+	{
+		return fAccuracy;
+	}
+
+	/**
+	 * Adds a single value to the sketch.
+	 *
+	 * @param x  the value to add
+	 */
+	public void add(double x)
+	{
+		if (fN == 0) {
+			fMinimum = x;
+			fMaximum = x;
+		}
+		else {
+			if (x < fMinimum) {
+				fMinimum = x;
+			}
+			if (x > fMaximum) {
+				fMaximum = x;
+			}
+		}
+		++fN;
+
+		ensureLevelCapacity(0,fLevelSizes[0] + 1);
+		fLevels[0][fLevelSizes[0]] = x;
+		++fLevelSizes[0];
+		++fNrOfRetainedItems;
+		invalidateSortedView();
+
+		if (fNrOfRetainedItems >= fTotalCapacity) {
+			compress();
+		}
+	}
+
+	/**
+	 * Adds all values in an array to the sketch.
+	 *
+	 * @param x  the array of values to add
+	 */
+	public void add(double[] x)
+	{
+		if (x != null) {
+			for (int i = 0; i < x.length; ++i) {
+				add(x[i]);
+			}
+		}
+	}
+
+	/**
+	 * Merges another sketch into this one.
+	 * <P>
+	 * The items of each level of the other sketch are appended to the corresponding level of this sketch (an item on level <I>l</I> has
+	 * a weight of 2^<I>l</I> in both sketches), after which levels are compacted until the capacity of this sketch is respected.
+	 * The result summarises all values added to both sketches, with the accuracy of this sketch. The other sketch is not modified.
+	 *
+	 * @param other  the sketch to merge into this one
+	 */
+	public void merge(QuantileSketch other)
+	{
+		if ((other == null) || (other.fN == 0)) {
+			return;
+		}
+
+		// capture the state of the other sketch first, as it may be this sketch itself
+		long otherN = other.fN;
+		double otherMinimum = other.fMinimum;
+		double otherMaximum = other.fMaximum;
+		int otherNrOfLevels = other.fNrOfLevels;
+		int[] otherLevelSizes = Arrays.copyOf(other.fLevelSizes,otherNrOfLevels);
+		double[][] otherLevels = Arrays.copyOf(other.fLevels,otherNrOfLevels);
+
+		if (fN == 0) {
+			fMinimum = otherMinimum;
+			fMaximum = otherMaximum;
+		}
+		else {
+			if (otherMinimum < fMinimum) {
+				fMinimum = otherMinimum;
+			}
+			if (otherMaximum > fMaximum) {
+				fMaximum = otherMaximum;
+			}
+		}
+		fN += otherN;
+
+		while (fNrOfLevels < otherNrOfLevels) {
+			addLevel();
+		}
+
+		for (int level = 0; level < otherNrOfLevels; ++level) {
+			int otherSize = otherLevelSizes[level];
+			if (otherSize > 0) {
+				ensureLevelCapacity(level,fLevelSizes[level] + otherSize);
+				System.arraycopy(otherLevels[level],0,fLevels[level],fLevelSizes[level],otherSize);
+				fLevelSizes[level] += otherSize;
+				fNrOfRetainedItems += otherSize;
+			}
+		}
+		invalidateSortedView();
+
+		while (fNrOfRetainedItems >= fTotalCapacity) {
+			compress();
+		}
+	}
+
+	/**
+	 * Returns the number of values that were added to the sketch.
+	 *
+	 * @return the number of values that were added to the sketch
+	 */
+	public long getN()
+	{
+		return fN;
+	}
+
+	/**
+	 * Returns the number of values that are currently retained by the sketch.
+	 *
+	 * @return the number of values that are currently retained by the sketch
+	 */
+	public int getNrOfRetainedItems()
+	{
+		return fNrOfRetainedItems;
+	}
+
+	/**
+	 * Returns whether or not all added values are still retained, in which case all quantiles are exact.
+	 *
+	 * @return <CODE>true</CODE> if all added values are still retained, <CODE>false</CODE> otherwise
+	 */
+	public boolean isExact()
+	{
+		return (fNrOfRetainedItems == fN);
+	}
+
+	/**
+	 * Returns the (exact) minimum of the added values.
+	 *
+	 * @return the minimum of the added values
+	 */
+	public double getMinimum()
+	{
+		return fMinimum;
+	}
+
+	/**
+	 * Returns the (exact) maximum of the added values.
+	 *
+	 * @return the maximum of the added values
+	 */
+	public double getMaximum()
+	{
+		return fMaximum;
+	}
+
+	/**
+	 * Returns the estimated quantile for a specified fraction.
+	 * <P>
+	 * The quantile is linearly interpolated between the retained items, such that a fraction of 0.0 corresponds to the minimum and
+	 * a fraction of 1.0 corresponds to the maximum of the added values.
+	 *
+	 * @param fraction  the requested fraction (in the interval [0.0,1.0])
+	 * @return          the estimated quantile
+	 */
+	public double getQuantile(double fraction)
+	{
+		if (fN == 0) {
+			return 0.0;
+		}
+
+		double rank = Math.max(0.0,Math.min(1.0,fraction)) * ((double) fN - 1.0);
+		if (rank <= 0.0) {
+			return fMinimum;
+		}
+		else if (rank >= ((double) fN - 1.0)) {
+			return fMaximum;
+		}
+
+		buildSortedView();
+
+		// find the first retained item at or beyond the requested rank
+		int index = Arrays.binarySearch(fSortedRanks,rank);
+		if (index >= 0) {
+			return fSortedItems[index];
+		}
+		index = -(index + 1);
+
+		double lowerRank = 0.0;
+		double lowerValue = fMinimum;
+		if (index > 0) {
+			lowerRank = fSortedRanks[index - 1];
+			lowerValue = fSortedItems[index - 1];
+		}
+
+		double upperRank = (double) fN - 1.0;
+		double upperValue = fMaximum;
+		if (index < fSortedRanks.length) {
+			upperRank = fSortedRanks[index];
+			upperValue = fSortedItems[index];
+		}
+
+		if (upperRank == lowerRank) {
+			return lowerValue;
+		}
+
+		return (lowerValue + (((rank - lowerRank) / (upperRank - lowerRank)) * (upperValue - lowerValue)));
+	}
+
+	/**
+	 * Returns the estimated number of added values that are strictly smaller than <CODE>x</CODE>.
+	 *
+	 * @param x  the value to compare with
+	 * @return   the estimated number of added values that are strictly smaller than <CODE>x</CODE>
+	 */
+	public long getNrOfValuesBelow(double x)
+	{
+		if ((fN == 0) || (x <= fMinimum)) {
+			return 0;
+		}
+		else if (x > fMaximum) {
+			return fN;
+		}
+
+		buildSortedView();
+
+		// find the first retained item that is not smaller than x
+		int low = 0;
+		int high = fSortedItems.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (fSortedItems[middle] < x) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+
+		if (low == 0) {
+			return 0;
+		}
+		else {
+			return fSortedCumulativeWeights[low - 1];
+		}
+	}
+
+	/**
+	 * Returns the estimated value of the cumulative distribution function (CDF), i.e., the fraction of added values that are smaller than or equal to <CODE>x</CODE>.
+	 *
+	 * @param x  the value to evaluate the cumulative distribution function at
+	 * @return   the estimated fraction of added values that are smaller than or equal to <CODE>x</CODE>
+	 */
+	public double getCDF(double x)
+	{
+		if (fN == 0) {
+			return 0.0;
+		}
+
+		return ((double) getNrOfValuesBelow(Math.nextUp(x)) / (double) fN);
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Trims the levels to their sizes before serialising the sketch, so that no unused capacity is transferred.
+	 *
+	 * @param  out          -
+	 * @throws IOException  -
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		for (int level = 0; level < fNrOfLevels; ++level) {
+			if (fLevels[level].length > fLevelSizes[level]) {
+				fLevels[level] = Arrays.copyOf(fLevels[level],fLevelSizes[level]);
+			}
+		}
+		out.defaultWriteObject();
+	}
+
+	/**
+	 * @param level  -
+	 * @return       -
+	 */
+	private int getLevelCapacity(int level)
+	{
+		int depth = fNrOfLevels - level - 1;
+		return Math.max(kMinLevelCapacity,(int) Math.ceil(fAccuracy * Math.pow(kLevelCapacityRatio,depth)));
+	}
+
+	/**
+	 * @param level         -
+	 * @param requiredSize  -
+	 */
+	private void ensureLevelCapacity(int level, int requiredSize)
+	{
+		if (fLevels[level].length < requiredSize) {
+			fLevels[level] = Arrays.copyOf(fLevels[level],Math.max(requiredSize,2 * fLevels[level].length));
+		}
+	}
+
+	/**
+	 */
+	private void addLevel()
+	{
+		fLevels = Arrays.copyOf(fLevels,fNrOfLevels + 1);
+		fLevels[fNrOfLevels] = new double[kMinLevelCapacity];
+		fLevelSizes = Arrays.copyOf(fLevelSizes,fNrOfLevels + 1);
+		++fNrOfLevels;
+
+		fTotalCapacity = 0;
+		for (int level = 0; level < fNrOfLevels; ++level) {
+			fTotalCapacity += getLevelCapacity(level);
+		}
+	}
+
+	/**
+	 */
+	private void compress()
+	{
+		// compact the lowest level that reached its capacity
+		for (int level = 0; level < fNrOfLevels; ++level) {
+			if (fLevelSizes[level] >= getLevelCapacity(level)) {
+				if ((level + 1) == fNrOfLevels) {
+					addLevel();
+				}
+				compactLevel(level);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param level  -
+	 */
+	private void compactLevel(int level)
+	{
+		int size = fLevelSizes[level];
+		double[] items = fLevels[level];
+		Arrays.sort(items,0,size);
+
+		// with an odd number of items, the smallest one stays behind
+		int start = size & 1;
+		int nrOfPromotedItems = (size - start) / 2;
+		int offset = (fRandom.nextBoolean() ? 1 : 0);
+
+		int nextLevel = level + 1;
+		ensureLevelCapacity(nextLevel,fLevelSizes[nextLevel] + nrOfPromotedItems);
+		double[] nextItems = fLevels[nextLevel];
+		int nextSize = fLevelSizes[nextLevel];
+		for (int i = start + offset; i < size; i += 2) {
+			nextItems[nextSize] = items[i];
+			++nextSize;
+		}
+		fLevelSizes[nextLevel] = nextSize;
+		fLevelSizes[level] = start;
+		fNrOfRetainedItems -= nrOfPromotedItems;
+	}
+
+	/**
+	 */
+	private void invalidateSortedView()
+	{
+		fSortedItems = null;
+		fSortedCumulativeWeights = null;
+		fSortedRanks = null;
+	}
+
+	/**
+	 */
+	private void buildSortedView()
+	{
+		if (fSortedItems != null) {
+			return;
+		}
+
+		// sort each level separately
+		double[][] sortedLevels = new double[fNrOfLevels][];
+		for (int level = 0; level < fNrOfLevels; ++level) {
+			sortedLevels[level] = Arrays.copyOf(fLevels[level],fLevelSizes[level]);
+			Arrays.sort(sortedLevels[level]);
+		}
+
+		// merge all levels, keeping track of the weights
+		double[] sortedItems = new double[fNrOfRetainedItems];
+		long[] cumulativeWeights = new long[fNrOfRetainedItems];
+		double[] ranks = new double[fNrOfRetainedItems];
+		int[] heads = new int[fNrOfLevels];
+		long cumulativeWeight = 0;
+		for (int i = 0; i < fNrOfRetainedItems; ++i) {
+			int selectedLevel = -1;
+			for (int level = 0; level < fNrOfLevels; ++level) {
+				if ((heads[level] < sortedLevels[level].length) &&
+						((selectedLevel < 0) || (sortedLevels[level][heads[level]] < sortedLevels[selectedLevel][heads[selectedLevel]]))) {
+					selectedLevel = level;
+				}
+			}
+
+			long weight = 1L << selectedLevel;
+			sortedItems[i] = sortedLevels[selectedLevel][heads[selectedLevel]];
+			++heads[selectedLevel];
+
+			// an item of weight w represents the ranks [cumulativeWeight,cumulativeWeight + w - 1]
+			ranks[i] = (double) cumulativeWeight + (((double) weight - 1.0) / 2.0);
+			cumulativeWeight += weight;
+			cumulativeWeights[i] = cumulativeWeight;
+		}
+
+		fSortedItems = sortedItems;
+		fSortedCumulativeWeights = cumulativeWeights;
+		fSortedRanks = ranks;
+	}
+}
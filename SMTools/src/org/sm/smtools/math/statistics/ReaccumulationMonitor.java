@@ -0,0 +1,129 @@
+// ------------------------------------------
+// Filename      : ReaccumulationMonitor.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+/**
+ * The <CODE>ReaccumulationMonitor</CODE> class decides when the running sums of a sliding window, from which evicted values are removed,
+ * should be rebuilt from the values that are still in the window.
+ * <P>
+ * Every removal adds rounding errors to the running sums. The sums are therefore re-accumulated after every <I>K</I> evictions (with <I>K</I>
+ * the window size, which keeps the cost O(1) amortised), as well as whenever one of the monitored sums of squares collapses by more than six
+ * orders of magnitude with respect to its largest value since the last accumulation (e.g., when an outlier leaves the window), as the removals
+ * would then lose what remains of that sum to cancellation.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     SlidingWindowDistribution
+ * @see     StreamingDistributionComparator
+ * @see     org.sm.smtools.math.lslr.RollingLSLR
+ */
+public final class ReaccumulationMonitor
+{
+	// the fraction of its largest value since the last accumulation, below which a sum of squares has collapsed
+	private static final double kMinRelativeSumOfSquares = 1e-6;
+
+	// internal datastructures
+	private int fWindowSize;
+	private int fNrOfEvictions;
+	private double[] fSumsOfSquares;
+	private double[] fLargestSumsOfSquares;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs a <CODE>ReaccumulationMonitor</CODE> object for a window of a specified size.
+	 *
+	 * @param windowSize         the maximum number of values in the window
+	 * @param nrOfSumsOfSquares  the number of sums of squares to monitor
+	 */
+	public ReaccumulationMonitor(int windowSize, int nrOfSumsOfSquares)
+	{
+		fWindowSize = Math.max(1,windowSize);
+		fSumsOfSquares = new double[Math.max(1,nrOfSumsOfSquares)];
+		fLargestSumsOfSquares = new double[fSumsOfSquares.length];
+		clear();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Clears the monitor; this should be done after every (re-)accumulation of the running sums, followed by updating the monitored sums of squares.
+	 */
+	public void clear()
+	{
+		fNrOfEvictions = 0;
+		for (int i = 0; i < fSumsOfSquares.length; ++i) {
+			fSumsOfSquares[i] = 0.0;
+			fLargestSumsOfSquares[i] = 0.0;
+		}
+	}
+
+	/**
+	 * Registers the eviction of a value from the window.
+	 */
+	public void registerEviction()
+	{
+		++fNrOfEvictions;
+	}
+
+	/**
+	 * Updates the current value of a monitored sum of squares.
+	 *
+	 * @param index         the index of the sum of squares
+	 * @param sumOfSquares  the current value of the sum of squares
+	 */
+	public void update(int index, double sumOfSquares)
+	{
+		fSumsOfSquares[index] = sumOfSquares;
+		if (sumOfSquares > fLargestSumsOfSquares[index]) {
+			fLargestSumsOfSquares[index] = sumOfSquares;
+		}
+	}
+
+	/**
+	 * Returns whether or not the running sums should be re-accumulated.
+	 *
+	 * @return <CODE>true</CODE> if the running sums should be re-accumulated, <CODE>false</CODE> otherwise
+	 */
+	public boolean isReaccumulationNeeded()
+	{
+		if (fNrOfEvictions >= fWindowSize) {
+			return true;
+		}
+
+		for (int i = 0; i < fSumsOfSquares.length; ++i) {
+			if (fSumsOfSquares[i] < (kMinRelativeSumOfSquares * fLargestSumsOfSquares[i])) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,795 @@
+// ----------------------------------------------
+// Filename      : SlidingWindowDistribution.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ----------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.util.*;
+import org.sm.smtools.math.*;
+
+/**
+ * The <CODE>SlidingWindowDistribution</CODE> class offers a windowed counterpart of the {@link EmpiricalDistribution} class, which only considers
+ * the most recent values of a stream (e.g., for monitoring a time series).
+ * <P>
+ * The window holds at most a fixed number <I>K</I> of values in a primitive ring buffer; once it is full, adding a value evicts the oldest one:
+ * <UL>
+ *   <LI>the mean, variance, skewness and kurtosis are kept current by a {@link MomentAccumulator}, from which evicted values are removed in O(1)
+ *       (and which is re-accumulated from the ring buffer when its {@link ReaccumulationMonitor} requires so),</LI>
+ *   <LI>the order statistics (minimum, maximum, percentiles, median and interquartile range) are kept in an indexable skip list, which
+ *       takes O(log <I>K</I>) time per insertion, eviction and percentile query,</LI>
+ *   <LI>the histogram is built on the first query after an update in O(<I>K</I>) time, by walking through the skip list in sorted order.</LI>
+ * </UL>
+ * <P>
+ * All statistics are exact (up to rounding) and are calculated in the same way as in the <CODE>EmpiricalDistribution</CODE> class, so that
+ * there is no need to rebuild a distribution at every tick. <CODE>NaN</CODE> values are ignored.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     EmpiricalDistribution
+ * @see     StreamingDistribution
+ * @see     MomentAccumulator
+ */
+public final class SlidingWindowDistribution
+{
+	// the minimum number of histogram bins
+	private static final int kMinNrOfHistogramBins = 10;
+
+	// internal datastructures
+	private double[] fRingBuffer;
+	private int fOldestIndex;
+	private int fN;
+	private MomentAccumulator fMoments;
+	private ReaccumulationMonitor fReaccumulationMonitor;
+	private IndexableSkipList fOrderedValues;
+	private boolean fUseOptimalNrOfHistogramBins;
+	private int fNrOfHistogramBins;
+	private double[] fHistogramBinCounts;
+	private double[] fHistogramBinFrequencies;
+	private double[] fHistogramBinRightEdges;
+	private double[] fHistogramBinCentres;
+	private double fHistogramBinWidth;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>SlidingWindowDistribution</CODE> object with a specified window size.
+	 * <P>
+	 * The Freedman-Diaconis rule is applied for finding the optimal histogram bin width, and consequently the optimal number of histogram bins:
+	 * <P>
+	 * bin width = 2 * IQR / n^1/3
+	 *
+	 * @param windowSize  the maximum number of (most recent) values in the window
+	 */
+	public SlidingWindowDistribution(int windowSize)
+	{
+		this(windowSize,true,0);
+	}
+
+	/**
+	 * Constructs an empty <CODE>SlidingWindowDistribution</CODE> object with a specified window size and a user-specified number of histogram bins.
+	 *
+	 * @param windowSize         the maximum number of (most recent) values in the window
+	 * @param nrOfHistogramBins  the user-specified number of histogram bins
+	 */
+	public SlidingWindowDistribution(int windowSize, int nrOfHistogramBins)
+	{
+		this(windowSize,false,nrOfHistogramBins);
+	}
+
+	/**
+	 * Private constructor that is invoked in case a number of histograms was specified or requested.
+	 *
+	 * @param windowSize                   -
+	 * @param useOptimalNrOfHistogramBins  -
+	 * @param nrOfHistogramBins            -
+	 */
+	private SlidingWindowDistribution(int windowSize, boolean useOptimalNrOfHistogramBins, int nrOfHistogramBins)
+	{
+		fRingBuffer = new double[Math.max(1,windowSize)];
+		fMoments = new MomentAccumulator();
+		fReaccumulationMonitor = new ReaccumulationMonitor(fRingBuffer.length,1);
+		fOrderedValues = new IndexableSkipList(fRingBuffer.length);
+		fUseOptimalNrOfHistogramBins = useOptimalNrOfHistogramBins;
+		fNrOfHistogramBins = nrOfHistogramBins;
+		clear();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Adds a value to the window, evicting the oldest value if the window is full.
+	 *
+	 * @param x  the value to add (<CODE>NaN</CODE> values are ignored)
+	 */
+	public void add(double x)
+	{
+		if (Double.isNaN(x)) {
+			return;
+		}
+
+		int windowSize = fRingBuffer.length;
+		if (fN == windowSize) {
+			// evict the oldest value
+			double oldestValue = fRingBuffer[fOldestIndex];
+			fOrderedValues.remove(oldestValue);
+			fMoments.remove(oldestValue);
+			fOldestIndex = (fOldestIndex + 1) % windowSize;
+			--fN;
+			fReaccumulationMonitor.registerEviction();
+		}
+
+		fRingBuffer[(fOldestIndex + fN) % windowSize] = x;
+		++fN;
+		fOrderedValues.insert(x);
+		fMoments.add(x);
+
+		fReaccumulationMonitor.update(0,fMoments.getSumOfSquaredDeviations());
+		if (fReaccumulationMonitor.isReaccumulationNeeded()) {
+			accumulateMoments();
+		}
+
+		invalidateHistogram();
+	}
+
+	/**
+	 * Adds all values in an array to the window (in the order of the array), evicting the oldest values if necessary.
+	 *
+	 * @param x  the array of values to add
+	 */
+	public void addAll(double[] x)
+	{
+		if (x == null) {
+			return;
+		}
+
+		for (double value : x) {
+			add(value);
+		}
+	}
+
+	/**
+	 * Clears the window.
+	 */
+	public void clear()
+	{
+		fOldestIndex = 0;
+		fN = 0;
+		fMoments.clear();
+		fReaccumulationMonitor.clear();
+		fOrderedValues.clear();
+		invalidateHistogram();
+	}
+
+	/**
+	 * Returns the window size, i.e., the maximum number of values in the window.
+	 *
+	 * @return the window size
+	 */
+	public int getWindowSize()
+	{
+		return fRingBuffer.length;
+	}
+
+	/**
+	 * Returns whether or not the window is full, i.e., whether or not adding a value evicts the oldest one.
+	 *
+	 * @return <CODE>true</CODE> if the window is full, <CODE>false</CODE> otherwise
+	 */
+	public boolean isFull()
+	{
+		return (fN == fRingBuffer.length);
+	}
+
+	/**
+	 * Returns the number of values in the window.
+	 *
+	 * @return the number of values in the window
+	 */
+	public int getN()
+	{
+		return fN;
+	}
+
+	/**
+	 * Returns a copy of the values in the window, from the oldest to the most recent one.
+	 *
+	 * @return a copy of the values in the window, from the oldest to the most recent one
+	 * @see    SlidingWindowDistribution#getSortedData()
+	 */
+	public double[] getData()
+	{
+		double[] x = new double[fN];
+		for (int i = 0; i < fN; ++i) {
+			x[i] = fRingBuffer[(fOldestIndex + i) % fRingBuffer.length];
+		}
+		return x;
+	}
+
+	/**
+	 * Returns a copy of the values in the window, sorted in ascending order.
+	 *
+	 * @return a copy of the values in the window, sorted in ascending order
+	 * @see    SlidingWindowDistribution#getData()
+	 */
+	public double[] getSortedData()
+	{
+		double[] xSorted = new double[fN];
+		fOrderedValues.getValues(xSorted);
+		return xSorted;
+	}
+
+	/**
+	 * Returns the minimum value in the window.
+	 *
+	 * @return the minimum value in the window
+	 */
+	public double getXMinimum()
+	{
+		return ((fN > 0) ? fOrderedValues.get(0) : 0.0);
+	}
+
+	/**
+	 * Returns the maximum value in the window.
+	 *
+	 * @return the maximum value in the window
+	 */
+	public double getXMaximum()
+	{
+		return ((fN > 0) ? fOrderedValues.get(fN - 1) : 0.0);
+	}
+
+	/**
+	 * Returns the range of the values in the window (i.e., the difference between the maximum and the minimum).
+	 *
+	 * @return the range of the values in the window
+	 */
+	public double getXRange()
+	{
+		return (getXMaximum() - getXMinimum());
+	}
+
+	/**
+	 * Returns the expected value (mean).
+	 *
+	 * @return the expected value (mean)
+	 * @see    SlidingWindowDistribution#getMean()
+	 */
+	public double getExpectedValue()
+	{
+		return fMoments.getMean();
+	}
+
+	/**
+	 * Returns the mean (i.e., the expected value).
+	 *
+	 * @return the mean
+	 * @see    SlidingWindowDistribution#getExpectedValue()
+	 */
+	public double getMean()
+	{
+		return getExpectedValue();
+	}
+
+	/**
+	 * Returns the variance (using an unbiased estimator).
+	 *
+	 * @return the variance
+	 */
+	public double getVariance()
+	{
+		return fMoments.getVariance();
+	}
+
+	/**
+	 * Returns the standard deviation (i.e., the positive square root of the variance).
+	 *
+	 * @return the standard deviation
+	 */
+	public double getStandardDeviation()
+	{
+		return fMoments.getStandardDeviation();
+	}
+
+	/**
+	 * Returns the sample skewness (using an unbiased estimator).
+	 *
+	 * @return the sample skewness (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getSkewness()
+	 */
+	public double getSkewness()
+	{
+		return fMoments.getSkewness();
+	}
+
+	/**
+	 * Returns the symmetrical skewness' confidence bounds for a 95% confidence interval, defined as twice the standard error of skewness (SES).
+	 *
+	 * @return the symmetrical skewness' confidence bounds for a 95% confidence interval
+	 */
+	public double getSkewnessConfidenceBounds()
+	{
+		return fMoments.getSkewnessConfidenceBounds();
+	}
+
+	/**
+	 * Returns a two-tailed test statistic <I>Z</I> of skewness (different from zero) with a 5% significance level.
+	 *
+	 * @return the skewness <I>Z</I>-statistic
+	 * @see    EmpiricalDistribution#getSkewnessZStatistic()
+	 */
+	public double getSkewnessZStatistic()
+	{
+		return fMoments.getSkewnessZStatistic();
+	}
+
+	/**
+	 * Returns the sample kurtosis (using an unbiased estimator).
+	 * <P>
+	 * The value returned is the <I>excess kurtosis</I>, such that it is zero for a normal distribution.
+	 *
+	 * @return the sample kurtosis (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getKurtosis()
+	 */
+	public double getKurtosis()
+	{
+		return fMoments.getKurtosis();
+	}
+
+	/**
+	 * Returns a two-tailed test statistic <I>Z</I> of kurtosis (different from zero) with a 5% significance level.
+	 *
+	 * @return the kurtosis <I>Z</I>-statistic
+	 * @see    EmpiricalDistribution#getKurtosisZStatistic()
+	 */
+	public double getKurtosisZStatistic()
+	{
+		return fMoments.getKurtosisZStatistic();
+	}
+
+	/**
+	 * Returns the value of the (step-wise) empirical cumulative distribution function (CDF) evaluated at <CODE>x</CODE>, i.e., the fraction of values
+	 * in the window that do not exceed <CODE>x</CODE>.
+	 *
+	 * @param x  the value to evaluate the cumulative distribution function at
+	 * @return   the value of the cumulative distribution function evaluated at <CODE>x</CODE>
+	 */
+	public double getCDF(double x)
+	{
+		if (fN == 0) {
+			return 0.0;
+		}
+
+		return ((double) fOrderedValues.getNrOfValuesNotAbove(x) / (double) fN);
+	}
+
+	/**
+	 * Returns the given percentile.
+	 *
+	 * @param percentile  the requested percentile (in the interval [0,100])
+	 * @return            the requested percentile value
+	 */
+	public double getPercentile(int percentile)
+	{
+		return getPercentile((double) percentile);
+	}
+
+	/**
+	 * Returns the given percentile.
+	 * <P>
+	 * Contrary to the {@link EmpiricalDistribution} class, the percentile is not restricted to a resolution of 0.1%; it is interpolated
+	 * linearly between the order statistics in the same way.
+	 *
+	 * @param percentile  the requested percentile (in the interval [0.0,100.0])
+	 * @return            the requested percentile value
+	 */
+	public double getPercentile(double percentile)
+	{
+		if (fN == 0) {
+			return 0.0;
+		}
+
+		double position = (MathTools.clip(percentile,0.0,100.0) / 100.0) * ((double) fN - 1.0);
+		int k = (int) Math.floor(position);
+		double d = position - (double) k;
+		double lower = fOrderedValues.get(k);
+		if ((d > 0.0) && (k < (fN - 1))) {
+			return (lower + (d * (fOrderedValues.get(k + 1) - lower)));
+		}
+		else {
+			return lower;
+		}
+	}
+
+	/**
+	 * Returns the median (i.e., the 50th percentile).
+	 *
+	 * @return the median
+	 */
+	public double getMedian()
+	{
+		return getPercentile(50);
+	}
+
+	/**
+	 * Returns the interquartile range (IQR) (i.e., the difference between the 75th and the 25th percentiles).
+	 *
+	 * @return the interquartile range (IQR)
+	 */
+	public double getInterquartileRange()
+	{
+		return (getPercentile(75) - getPercentile(25));
+	}
+
+	/**
+	 * Recalculates the histogram, applying the Freedman-Diaconis rule for finding the optimal histogram bin width, and consequently the optimal number of histogram bins:
+	 * <P>
+	 * bin width = 2 * IQR / n^1/3
+	 */
+	public void recalculatePDF()
+	{
+		fUseOptimalNrOfHistogramBins = true;
+		invalidateHistogram();
+	}
+
+	/**
+	 * Recalculates the histogram using a user-specified number of histogram bins.
+	 *
+	 * @param nrOfHistogramBins  the user-specified number of histogram bins
+	 */
+	public void recalculatePDF(int nrOfHistogramBins)
+	{
+		fUseOptimalNrOfHistogramBins = false;
+		fNrOfHistogramBins = nrOfHistogramBins;
+		invalidateHistogram();
+	}
+
+	/**
+	 * Returns the number of histogram bins.
+	 *
+	 * @return the number of histogram bins
+	 */
+	public int getNrOfHistogramBins()
+	{
+		estimateHistogram();
+		return fNrOfHistogramBins;
+	}
+
+	/**
+	 * Returns the counts for all the histogram bins.
+	 *
+	 * @return an array containing the counts for all the histogram bins
+	 */
+	public double[] getHistogramBinCounts()
+	{
+		estimateHistogram();
+		return fHistogramBinCounts;
+	}
+
+	/**
+	 * Returns the frequencies for all the histogram bins.
+	 *
+	 * @return an array containing the frequencies for all the histogram bins
+	 */
+	public double[] getHistogramBinFrequencies()
+	{
+		estimateHistogram();
+		return fHistogramBinFrequencies;
+	}
+
+	/**
+	 * Returns the right edges of all the histogram bins.
+	 *
+	 * @return an array containing the right edges of all the histogram bins
+	 */
+	public double[] getHistogramBinRightEdges()
+	{
+		estimateHistogram();
+		return fHistogramBinRightEdges;
+	}
+
+	/**
+	 * Returns the centres of all the histogram bins.
+	 *
+	 * @return an array containing the centres of all the histogram bins
+	 */
+	public double[] getHistogramBinCentres()
+	{
+		estimateHistogram();
+		return fHistogramBinCentres;
+	}
+
+	/**
+	 * Returns the width of a histogram bin.
+	 *
+	 * @return the width of a histogram bin
+	 */
+	public double getHistogramBinWidth()
+	{
+		estimateHistogram();
+		return fHistogramBinWidth;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Re-accumulates the moments from the ring buffer, discarding the rounding errors of the removals.
+	 */
+	private void accumulateMoments()
+	{
+		int windowSize = fRingBuffer.length;
+		int firstPartEnd = Math.min(windowSize,fOldestIndex + fN);
+		fMoments.clear();
+		fMoments.add(fRingBuffer,fOldestIndex,firstPartEnd);
+		fMoments.add(fRingBuffer,0,fN - (firstPartEnd - fOldestIndex));
+		fReaccumulationMonitor.clear();
+		fReaccumulationMonitor.update(0,fMoments.getSumOfSquaredDeviations());
+	}
+
+	/**
+	 */
+	private void invalidateHistogram()
+	{
+		fHistogramBinCounts = null;
+		fHistogramBinFrequencies = null;
+		fHistogramBinRightEdges = null;
+		fHistogramBinCentres = null;
+		fHistogramBinWidth = 0.0;
+	}
+
+	/**
+	 */
+	private void estimateHistogram()
+	{
+		if ((fHistogramBinCounts != null) || (fN == 0)) {
+			return;
+		}
+
+		double xMin = getXMinimum();
+		double xMax = getXMaximum();
+
+		if (fUseOptimalNrOfHistogramBins) {
+			// apply the Freedman-Diaconis rule for finding the optimal histogram bin width
+			double optimalBinWidth = (2.0 * getInterquartileRange()) / Math.cbrt(fN);
+			fNrOfHistogramBins = ((int) Math.round((xMax - xMin) / optimalBinWidth));
+		}
+
+		// fail-safe
+		if (fNrOfHistogramBins < kMinNrOfHistogramBins) {
+			fNrOfHistogramBins = kMinNrOfHistogramBins;
+		}
+
+		fHistogramBinWidth = (xMax - xMin) / fNrOfHistogramBins;
+		fHistogramBinRightEdges = new double[fNrOfHistogramBins];
+		fHistogramBinCentres = new double[fNrOfHistogramBins];
+		for (int i = 0; i < fNrOfHistogramBins; ++i) {
+			fHistogramBinRightEdges[i] = xMin + ((i + 1) * fHistogramBinWidth);
+			fHistogramBinCentres[i] = fHistogramBinRightEdges[i] - (fHistogramBinWidth / 2.0);
+		}
+
+		// walk through the values in sorted order (the last bin also contains all values beyond its right edge)
+		double[] xSorted = getSortedData();
+		fHistogramBinCounts = new double[fNrOfHistogramBins];
+		int currentBinIndex = 0;
+		for (int i = 0; i < fN; ++i) {
+			while ((currentBinIndex < (fNrOfHistogramBins - 1)) && (xSorted[i] >= fHistogramBinRightEdges[currentBinIndex])) {
+				++currentBinIndex;
+			}
+			++fHistogramBinCounts[currentBinIndex];
+		}
+
+		fHistogramBinFrequencies = new double[fNrOfHistogramBins];
+		for (int i = 0; i < fNrOfHistogramBins; ++i) {
+			fHistogramBinFrequencies[i] = fHistogramBinCounts[i] / (double) fN;
+		}
+	}
+
+	/*****************
+	 * INNER CLASSES *
+	 *****************/
+
+	/**
+	 * An indexable skip list of values in ascending order (duplicates allowed), in which every link also stores its width (i.e., the number of
+	 * values it skips), so that values can be inserted, removed and retrieved by rank in O(log <I>n</I>) expected time.
+	 * <P>
+	 * All nodes are preallocated in primitive arrays with a random level each, and are recycled via a free list, so that no objects are
+	 * allocated while the window slides. Node 0 is the head of the list, and the index -1 denotes the end of the list.
+	 */
+	private static final class IndexableSkipList
+	{
+		// internal datastructures
+		private int fNrOfLevels;
+		private double[] fValues;
+		private int[][] fNext;
+		private int[][] fWidths;
+		private int[] fFreeNodes;
+		private int fNrOfFreeNodes;
+		private int[] fPredecessors;
+		private int[] fPredecessorPositions;
+
+		/**
+		 * @param capacity  -
+		 */
+		public IndexableSkipList(int capacity)
+		{
+			// the levels are distributed geometrically with p = 1/2, up to approximately log2(capacity) + 1
+			fNrOfLevels = 33 - Integer.numberOfLeadingZeros(capacity);
+			fValues = new double[capacity + 1];
+			fNext = new int[capacity + 1][];
+			fWidths = new int[capacity + 1][];
+			fNext[0] = new int[fNrOfLevels];
+			fWidths[0] = new int[fNrOfLevels];
+			SplittableRandom random = new SplittableRandom(capacity);
+			for (int node = 1; node <= capacity; ++node) {
+				int level = Math.min(fNrOfLevels,1 + Integer.numberOfTrailingZeros(random.nextInt()));
+				fNext[node] = new int[level];
+				fWidths[node] = new int[level];
+			}
+			fFreeNodes = new int[capacity];
+			fPredecessors = new int[fNrOfLevels];
+			fPredecessorPositions = new int[fNrOfLevels];
+			clear();
+		}
+
+		/**
+		 */
+		public void clear()
+		{
+			// the links of the head span the whole (empty) list
+			Arrays.fill(fNext[0],-1);
+			Arrays.fill(fWidths[0],1);
+			fNrOfFreeNodes = fFreeNodes.length;
+			for (int i = 0; i < fNrOfFreeNodes; ++i) {
+				fFreeNodes[i] = fNrOfFreeNodes - i;
+			}
+		}
+
+		/**
+		 * @param value  -
+		 */
+		public void insert(double value)
+		{
+			// find the last node at each level before which the value is inserted (after all equal values), as well as its position
+			int node = 0;
+			int position = 0;
+			for (int level = fNrOfLevels - 1; level >= 0; --level) {
+				int next = fNext[node][level];
+				while ((next != -1) && (fValues[next] <= value)) {
+					position += fWidths[node][level];
+					node = next;
+					next = fNext[node][level];
+				}
+				fPredecessors[level] = node;
+				fPredecessorPositions[level] = position;
+			}
+
+			int newNode = fFreeNodes[--fNrOfFreeNodes];
+			fValues[newNode] = value;
+			int newNodeLevel = fNext[newNode].length;
+			for (int level = 0; level < fNrOfLevels; ++level) {
+				int predecessor = fPredecessors[level];
+				if (level < newNodeLevel) {
+					// split the link of the predecessor at the new node (which lies at position + 1)
+					int predecessorToNewNode = (position + 1) - fPredecessorPositions[level];
+					fNext[newNode][level] = fNext[predecessor][level];
+					fWidths[newNode][level] = fWidths[predecessor][level] - predecessorToNewNode + 1;
+					fNext[predecessor][level] = newNode;
+					fWidths[predecessor][level] = predecessorToNewNode;
+				}
+				else {
+					++fWidths[predecessor][level];
+				}
+			}
+		}
+
+		/**
+		 * @param value  -
+		 * @return       - (<CODE>false</CODE> if the value was not found)
+		 */
+		public boolean remove(double value)
+		{
+			// find the last node at each level with a smaller value
+			int node = 0;
+			for (int level = fNrOfLevels - 1; level >= 0; --level) {
+				int next = fNext[node][level];
+				while ((next != -1) && (fValues[next] < value)) {
+					node = next;
+					next = fNext[node][level];
+				}
+				fPredecessors[level] = node;
+			}
+
+			int target = fNext[fPredecessors[0]][0];
+			if ((target == -1) || (fValues[target] != value)) {
+				return false;
+			}
+
+			for (int level = 0; level < fNrOfLevels; ++level) {
+				int predecessor = fPredecessors[level];
+				if (fNext[predecessor][level] == target) {
+					fWidths[predecessor][level] += fWidths[target][level] - 1;
+					fNext[predecessor][level] = fNext[target][level];
+				}
+				else {
+					--fWidths[predecessor][level];
+				}
+			}
+			fFreeNodes[fNrOfFreeNodes++] = target;
+
+			return true;
+		}
+
+		/**
+		 * @param rank  - (zero-based)
+		 * @return      -
+		 */
+		public double get(int rank)
+		{
+			int node = 0;
+			int remainingWidth = rank + 1;
+			for (int level = fNrOfLevels - 1; level >= 0; --level) {
+				while ((fNext[node][level] != -1) && (fWidths[node][level] <= remainingWidth)) {
+					remainingWidth -= fWidths[node][level];
+					node = fNext[node][level];
+				}
+			}
+			return fValues[node];
+		}
+
+		/**
+		 * @param value  -
+		 * @return       -
+		 */
+		public int getNrOfValuesNotAbove(double value)
+		{
+			int node = 0;
+			int position = 0;
+			for (int level = fNrOfLevels - 1; level >= 0; --level) {
+				int next = fNext[node][level];
+				while ((next != -1) && (fValues[next] <= value)) {
+					position += fWidths[node][level];
+					node = next;
+					next = fNext[node][level];
+				}
+			}
+			return position;
+		}
+
+		/**
+		 * @param values  - (filled with the values in ascending order)
+		 */
+		public void getValues(double[] values)
+		{
+			int i = 0;
+			for (int node = fNext[0][0]; (node != -1) && (i < values.length); node = fNext[node][0]) {
+				values[i++] = fValues[node];
+			}
+		}
+	}
+}
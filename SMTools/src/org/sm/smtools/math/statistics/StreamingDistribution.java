@@ -0,0 +1,572 @@
+// ------------------------------------------
+// Filename      : StreamingDistribution.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+import java.io.*;
+
+/**
+ * The <CODE>StreamingDistribution</CODE> class offers an incremental (online) counterpart of the {@link EmpiricalDistribution} class.
+ * <P>
+ * Values are added one at a time via {@link StreamingDistribution#add(double)}, or in bulk via {@link StreamingDistribution#addAll(double[])}.
+ * The raw values are not stored:
+ * <UL>
+ *   <LI>the mean, variance, skewness and kurtosis are kept current by a {@link MomentAccumulator}, so they are available in O(1),</LI>
+ *   <LI>the percentiles and the histogram are derived from a bounded-memory {@link QuantileSketch}.</LI>
+ * </UL>
+ * <P>
+ * Consequently, the memory footprint does not grow with the number of samples. The moments are exact (up to rounding), whereas the percentiles
+ * and histogram bin counts are approximations with a normalised rank error of the order of 1 / <I>k</I> (with <I>k</I> the accuracy of the sketch).
+ * The first percentile or histogram query after an update sorts the retained items of the sketch; subsequent queries are answered from that cached view.
+ * <P>
+ * Just as with the <CODE>EmpiricalDistribution</CODE> class, the Freedman-Diaconis rule is applied by default for finding the optimal histogram bin width.
+ * Optionally, an exact histogram with fixed bins can be kept alongside (see {@link HistogramAccumulator}).
+ * <P>
+ * The distribution is a compact, serialisable summary of its values: distributions built independently on separate shards of the data
+ * (e.g., in different processes) can be merged via {@link StreamingDistribution#merge(StreamingDistribution)}, after which all statistics
+ * refer to the combined data, without the need to transfer the raw values.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     EmpiricalDistribution
+ * @see     MomentAccumulator
+ * @see     QuantileSketch
+ * @see     HistogramAccumulator
+ */
+public final class StreamingDistribution implements Serializable
+{
+	// the version of the serialised form
+	private static final long serialVersionUID = 1L;
+
+	// the minimum number of histogram bins
+	private static final int kMinNrOfHistogramBins = 10;
+
+	// internal datastructures
+	private MomentAccumulator fMoments;
+	private QuantileSketch fSketch;
+	private HistogramAccumulator fFixedHistogram;
+	private boolean fUseOptimalNrOfHistogramBins;
+	private int fNrOfHistogramBins;
+	private transient double[] fHistogramBinCounts;
+	private transient double[] fHistogramBinFrequencies;
+	private transient double[] fHistogramBinRightEdges;
+	private transient double[] fHistogramBinCentres;
+	private transient double fHistogramBinWidth;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>StreamingDistribution</CODE> object, using a quantile sketch with the default accuracy.
+	 *
+	 * @see QuantileSketch#kDefaultAccuracy
+	 */
+	public StreamingDistribution()
+	{
+		this(QuantileSketch.kDefaultAccuracy);
+	}
+
+	/**
+	 * Constructs an empty <CODE>StreamingDistribution</CODE> object, using a quantile sketch with a specified accuracy.
+	 *
+	 * @param sketchAccuracy  the accuracy parameter <I>k</I> of the quantile sketch
+	 * @see                   QuantileSketch#QuantileSketch(int)
+	 */
+	public StreamingDistribution(int sketchAccuracy)
+	{
+		this(sketchAccuracy,null);
+	}
+
+	/**
+	 * Constructs an empty <CODE>StreamingDistribution</CODE> object, using a quantile sketch with a specified accuracy and an exact histogram with fixed bins.
+	 *
+	 * @param sketchAccuracy  the accuracy parameter <I>k</I> of the quantile sketch
+	 * @param fixedHistogram  the (empty) histogram with fixed bins to keep alongside, or <CODE>null</CODE> for none
+	 * @see                   QuantileSketch#QuantileSketch(int)
+	 */
+	public StreamingDistribution(int sketchAccuracy, HistogramAccumulator fixedHistogram)
+	{
+		fMoments = new MomentAccumulator();
+		fSketch = new QuantileSketch(sketchAccuracy);
+		fFixedHistogram = fixedHistogram;
+		fUseOptimalNrOfHistogramBins = true;
+		fNrOfHistogramBins = 0;
+		invalidateHistogram();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Adds a single value to the distribution.
+	 *
+	 * @param x  the value to add
+	 */
+	public void add(double x)
+	{
+		fMoments.add(x);
+		fSketch.add(x);
+		if (fFixedHistogram != null) {
+			fFixedHistogram.add(x);
+		}
+		invalidateHistogram();
+	}
+
+	/**
+	 * Adds all values in an array to the distribution.
+	 *
+	 * @param x  the array of values to add
+	 */
+	public void addAll(double[] x)
+	{
+		if (x == null) {
+			return;
+		}
+
+		fMoments.add(x);
+		fSketch.add(x);
+		if (fFixedHistogram != null) {
+			fFixedHistogram.add(x);
+		}
+		invalidateHistogram();
+	}
+
+	/**
+	 * Merges another distribution into this one.
+	 * <P>
+	 * The moments are merged exactly (up to rounding), the quantile sketches are merged with the accuracy of this distribution's sketch,
+	 * and the fixed histograms (if present) are merged exactly. The other distribution is not modified.
+	 *
+	 * @param other  the distribution to merge into this one
+	 * @return       <CODE>true</CODE> if the distributions were merged, <CODE>false</CODE> if only one of them has a fixed histogram or their fixed histograms
+	 *               have different bins (in which case nothing is merged)
+	 */
+	public boolean merge(StreamingDistribution other)
+	{
+		if (other == null) {
+			return true;
+		}
+
+		if ((fFixedHistogram != null) || (other.fFixedHistogram != null)) {
+			if ((fFixedHistogram == null) || !fFixedHistogram.hasSameBins(other.fFixedHistogram)) {
+				return false;
+			}
+			fFixedHistogram.merge(other.fFixedHistogram);
+		}
+
+		fMoments.merge(other.fMoments);
+		fSketch.merge(other.fSketch);
+		invalidateHistogram();
+		return true;
+	}
+
+	/**
+	 * Clears the distribution.
+	 */
+	public void clear()
+	{
+		fMoments.clear();
+		fSketch.clear();
+		if (fFixedHistogram != null) {
+			fFixedHistogram.clear();
+		}
+		invalidateHistogram();
+	}
+
+	/**
+	 * Returns the accumulator that keeps track of the moments.
+	 *
+	 * @return the accumulator that keeps track of the moments
+	 */
+	public MomentAccumulator getMoments()
+	{
+		return fMoments;
+	}
+
+	/**
+	 * Returns the sketch from which the percentiles and histogram are derived.
+	 *
+	 * @return the sketch from which the percentiles and histogram are derived
+	 */
+	public QuantileSketch getSketch()
+	{
+		return fSketch;
+	}
+
+	/**
+	 * Returns the exact histogram with fixed bins that is kept alongside.
+	 *
+	 * @return the exact histogram with fixed bins, or <CODE>null</CODE> if there is none
+	 */
+	public HistogramAccumulator getFixedHistogram()
+	{
+		return fFixedHistogram;
+	}
+
+	/**
+	 * Returns the sample size.
+	 *
+	 * @return the sample size
+	 */
+	public long getN()
+	{
+		return fMoments.getN();
+	}
+
+	/**
+	 * Returns the minimum of the input values.
+	 *
+	 * @return the minimum of the input values
+	 */
+	public double getXMinimum()
+	{
+		return fMoments.getMinimum();
+	}
+
+	/**
+	 * Returns the maximum of the input values.
+	 *
+	 * @return the maximum of the input values
+	 */
+	public double getXMaximum()
+	{
+		return fMoments.getMaximum();
+	}
+
+	/**
+	 * Returns the range of the input values.
+	 *
+	 * @return the range of the input values
+	 */
+	public double getXRange()
+	{
+		return (getXMaximum() - getXMinimum());
+	}
+
+	/**
+	 * Returns the expected value for the first moment (population mean), which in this case is approximated by the sample mean.
+	 *
+	 * @return the expected value for the first moment
+	 * @see    StreamingDistribution#getMean()
+	 */
+	public double getExpectedValue()
+	{
+		return fMoments.getMean();
+	}
+
+	/**
+	 * This is the sample mean, which in this case is an alias for the expected value.
+	 *
+	 * @return the sample mean
+	 * @see    StreamingDistribution#getExpectedValue()
+	 */
+	public double getMean()
+	{
+		return getExpectedValue();
+	}
+
+	/**
+	 * Returns the sample variance (using an unbiased estimator of the population variance).
+	 *
+	 * @return the sample variance (using an unbiased estimator of the population variance)
+	 */
+	public double getVariance()
+	{
+		return fMoments.getVariance();
+	}
+
+	/**
+	 * Returns the standard deviation (i.e., the positive square root of the variance).
+	 *
+	 * @return the standard deviation
+	 */
+	public double getStandardDeviation()
+	{
+		return fMoments.getStandardDeviation();
+	}
+
+	/**
+	 * Returns the sample skewness (using an unbiased estimator).
+	 *
+	 * @return the sample skewness (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getSkewness()
+	 */
+	public double getSkewness()
+	{
+		return fMoments.getSkewness();
+	}
+
+	/**
+	 * Returns the symmetrical skewness' confidence bounds for a 95% confidence interval, defined as twice the standard error of skewness (SES).
+	 *
+	 * @return the symmetrical skewness' confidence bounds for a 95% confidence interval
+	 */
+	public double getSkewnessConfidenceBounds()
+	{
+		return fMoments.getSkewnessConfidenceBounds();
+	}
+
+	/**
+	 * Returns a two-tailed test statistic <I>Z</I> of skewness (different from zero) with a 5% significance level.
+	 *
+	 * @return the skewness <I>Z</I>-statistic
+	 * @see    EmpiricalDistribution#getSkewnessZStatistic()
+	 */
+	public double getSkewnessZStatistic()
+	{
+		return fMoments.getSkewnessZStatistic();
+	}
+
+	/**
+	 * Returns the sample kurtosis (using an unbiased estimator).
+	 * <P>
+	 * The value returned is the <I>excess kurtosis</I>, such that it is zero for a normal distribution.
+	 *
+	 * @return the sample kurtosis (using an unbiased estimator)
+	 * @see    EmpiricalDistribution#getKurtosis()
+	 */
+	public double getKurtosis()
+	{
+		return fMoments.getKurtosis();
+	}
+
+	/**
+	 * Returns a two-tailed test statistic <I>Z</I> of kurtosis (different from zero) with a 5% significance level.
+	 *
+	 * @return the kurtosis <I>Z</I>-statistic
+	 * @see    EmpiricalDistribution#getKurtosisZStatistic()
+	 */
+	public double getKurtosisZStatistic()
+	{
+		return fMoments.getKurtosisZStatistic();
+	}
+
+	/**
+	 * Returns the (estimated) value of the cumulative distribution function (CDF) evaluated at <CODE>x</CODE>.
+	 *
+	 * @param x  the value to evaluate the cumulative distribution function at
+	 * @return   the value of the cumulative distribution function evaluated at <CODE>x</CODE>
+	 */
+	public double getCDF(double x)
+	{
+		return fSketch.getCDF(x);
+	}
+
+	/**
+	 * Returns the given (estimated) percentile.
+	 *
+	 * @param percentile  the requested percentile (in the interval [0,100])
+	 * @return            the requested percentile value
+	 */
+	public double getPercentile(int percentile)
+	{
+		return getPercentile((double) percentile);
+	}
+
+	/**
+	 * Returns the given (estimated) percentile.
+	 * <P>
+	 * Contrary to the {@link EmpiricalDistribution} class, the percentile is not restricted to a resolution of 0.1%.
+	 *
+	 * @param percentile  the requested percentile (in the interval [0.0,100.0])
+	 * @return            the requested percentile value
+	 */
+	public double getPercentile(double percentile)
+	{
+		return fSketch.getQuantile(percentile / 100.0);
+	}
+
+	/**
+	 * Returns the (estimated) median (i.e., the 50th percentile).
+	 *
+	 * @return the median
+	 */
+	public double getMedian()
+	{
+		return getPercentile(50);
+	}
+
+	/**
+	 * Returns the (estimated) interquartile range (IQR) (i.e., the difference between the 75th and the 25th percentiles).
+	 *
+	 * @return the interquartile range (IQR)
+	 */
+	public double getInterquartileRange()
+	{
+		return (getPercentile(75) - getPercentile(25));
+	}
+
+	/**
+	 * Recalculates the histogram, applying the Freedman-Diaconis rule for finding the optimal histogram bin width, and consequently the optimal number of histogram bins:
+	 * <P>
+	 * bin width = 2 * IQR / n^1/3
+	 */
+	public void recalculatePDF()
+	{
+		fUseOptimalNrOfHistogramBins = true;
+		invalidateHistogram();
+	}
+
+	/**
+	 * Recalculates the histogram using a user-specified number of histogram bins.
+	 *
+	 * @param nrOfHistogramBins  the user-specified number of histogram bins
+	 */
+	public void recalculatePDF(int nrOfHistogramBins)
+	{
+		fUseOptimalNrOfHistogramBins = false;
+		fNrOfHistogramBins = nrOfHistogramBins;
+		invalidateHistogram();
+	}
+
+	/**
+	 * Returns the number of histogram bins.
+	 *
+	 * @return the number of histogram bins
+	 */
+	public int getNrOfHistogramBins()
+	{
+		estimateHistogram();
+		return fNrOfHistogramBins;
+	}
+
+	/**
+	 * Returns the (estimated) counts for all the histogram bins.
+	 *
+	 * @return an array containing the counts for all the histogram bins
+	 */
+	public double[] getHistogramBinCounts()
+	{
+		estimateHistogram();
+		return fHistogramBinCounts;
+	}
+
+	/**
+	 * Returns the (estimated) frequencies for all the histogram bins.
+	 *
+	 * @return an array containing the frequencies for all the histogram bins
+	 */
+	public double[] getHistogramBinFrequencies()
+	{
+		estimateHistogram();
+		return fHistogramBinFrequencies;
+	}
+
+	/**
+	 * Returns the right edges of all the histogram bins.
+	 *
+	 * @return an array containing the right edges of all the histogram bins
+	 */
+	public double[] getHistogramBinRightEdges()
+	{
+		estimateHistogram();
+		return fHistogramBinRightEdges;
+	}
+
+	/**
+	 * Returns the centres of all the histogram bins.
+	 *
+	 * @return an array containing the centres of all the histogram bins
+	 */
+	public double[] getHistogramBinCentres()
+	{
+		estimateHistogram();
+		return fHistogramBinCentres;
+	}
+
+	/**
+	 * Returns the width of a histogram bin.
+	 *
+	 * @return the width of a histogram bin
+	 */
+	public double getHistogramBinWidth()
+	{
+		estimateHistogram();
+		return fHistogramBinWidth;
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 */
+	private void invalidateHistogram()
+	{
+		fHistogramBinCounts = null;
+		fHistogramBinFrequencies = null;
+		fHistogramBinRightEdges = null;
+		fHistogramBinCentres = null;
+		fHistogramBinWidth = 0.0;
+	}
+
+	/**
+	 */
+	private void estimateHistogram()
+	{
+		if ((fHistogramBinCounts != null) || (getN() == 0)) {
+			return;
+		}
+
+		double n = getN();
+		double xMin = getXMinimum();
+		double xMax = getXMaximum();
+
+		if (fUseOptimalNrOfHistogramBins) {
+			// apply the Freedman-Diaconis rule for finding the optimal histogram bin width
+			double optimalBinWidth = (2.0 * getInterquartileRange()) / Math.cbrt(n);
+			fNrOfHistogramBins = ((int) Math.round((xMax - xMin) / optimalBinWidth));
+		}
+
+		// fail-safe
+		if (fNrOfHistogramBins < kMinNrOfHistogramBins) {
+			fNrOfHistogramBins = kMinNrOfHistogramBins;
+		}
+
+		fHistogramBinWidth = (xMax - xMin) / fNrOfHistogramBins;
+		fHistogramBinRightEdges = new double[fNrOfHistogramBins];
+		fHistogramBinCentres = new double[fNrOfHistogramBins];
+		for (int i = 0; i < fNrOfHistogramBins; ++i) {
+			fHistogramBinRightEdges[i] = xMin + ((i + 1) * fHistogramBinWidth);
+			fHistogramBinCentres[i] = fHistogramBinRightEdges[i] - (fHistogramBinWidth / 2.0);
+		}
+
+		// the last bin also contains all values beyond its right edge
+		fHistogramBinCounts = new double[fNrOfHistogramBins];
+		fHistogramBinFrequencies = new double[fNrOfHistogramBins];
+		long previousNrOfValuesBelow = 0;
+		for (int i = 0; i < fNrOfHistogramBins; ++i) {
+			long nrOfValuesBelow = getN();
+			if (i < (fNrOfHistogramBins - 1)) {
+				nrOfValuesBelow = fSketch.getNrOfValuesBelow(fHistogramBinRightEdges[i]);
+			}
+			fHistogramBinCounts[i] = nrOfValuesBelow - previousNrOfValuesBelow;
+			fHistogramBinFrequencies[i] = fHistogramBinCounts[i] / n;
+			previousNrOfValuesBelow = nrOfValuesBelow;
+		}
+	}
+}
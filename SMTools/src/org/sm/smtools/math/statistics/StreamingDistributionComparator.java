@@ -0,0 +1,391 @@
+// ----------------------------------------------------
+// Filename      : StreamingDistributionComparator.java
+// Author        : Sven Maerivoet
+// Last modified : 16/10/2026
+// Target        : Java VM (1.8)
+// ----------------------------------------------------
+
+/**
+ * Copyright 2026 Sven Maerivoet
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.sm.smtools.math.statistics;
+
+/**
+ * The <CODE>StreamingDistributionComparator</CODE> class offers an incremental counterpart of the {@link DistributionComparator} class, which compares
+ * two sequences that arrive as a stream of pairs (<I>Xi</I>,<I>Yi</I>) (e.g., predictions and observations for live model validation).
+ * <P>
+ * All error metrics, the covariance and Pearson's correlation coefficient are kept current in O(1) per pair by an {@link ErrorMetricsAccumulator},
+ * and are calculated in the same way as in the <CODE>DistributionComparator</CODE> class. Two modes are available:
+ * <UL>
+ *   <LI>an unbounded mode, in which all pairs since the last {@link StreamingDistributionComparator#clear()} are compared, and no pairs are stored,</LI>
+ *   <LI>a sliding window mode, in which only the most recent <I>K</I> pairs are compared; these are kept in primitive ring buffers, and once
+ *       the window is full, adding a pair evicts the oldest one, which is removed from the accumulator in O(1). The maximum error (MAXE) is tracked
+ *       by a monotonic queue of decreasing absolute errors, which takes O(1) amortised time per pair. The accumulator is rebuilt from the ring buffers
+ *       when a {@link ReaccumulationMonitor} of the sum of squared errors and of the variances of both sequences requires so.</LI>
+ * </UL>
+ * <P>
+ * Pairs containing a <CODE>NaN</CODE> value are ignored.
+ * <P>
+ * <B>Note that this class cannot be subclassed!</B>
+ *
+ * @author  Sven Maerivoet
+ * @version 16/10/2026
+ * @see     DistributionComparator
+ * @see     ErrorMetricsAccumulator
+ */
+public final class StreamingDistributionComparator
+{
+	// internal datastructures
+	private ErrorMetricsAccumulator fErrorMetrics;
+	private int fWindowSize;
+	private double[] fXRingBuffer;
+	private double[] fYRingBuffer;
+	private int fOldestIndex;
+	private int fN;
+	private long fNrOfPairsAdded;
+	private ReaccumulationMonitor fReaccumulationMonitor;
+	private long[] fMaximumErrorQueueSequenceNumbers;
+	private double[] fMaximumErrorQueueValues;
+	private int fMaximumErrorQueueHead;
+	private int fMaximumErrorQueueSize;
+
+	/****************
+	 * CONSTRUCTORS *
+	 ****************/
+
+	/**
+	 * Constructs an empty <CODE>StreamingDistributionComparator</CODE> object that compares all pairs (i.e., without a sliding window).
+	 */
+	public StreamingDistributionComparator()
+	{
+		this(0);
+	}
+
+	/**
+	 * Constructs an empty <CODE>StreamingDistributionComparator</CODE> object that only compares the most recent pairs.
+	 *
+	 * @param windowSize  the maximum number of (most recent) pairs in the window, or 0 to compare all pairs
+	 */
+	public StreamingDistributionComparator(int windowSize)
+	{
+		fErrorMetrics = new ErrorMetricsAccumulator();
+		fWindowSize = Math.max(0,windowSize);
+		if (fWindowSize > 0) {
+			fXRingBuffer = new double[fWindowSize];
+			fYRingBuffer = new double[fWindowSize];
+			fMaximumErrorQueueSequenceNumbers = new long[fWindowSize];
+			fMaximumErrorQueueValues = new double[fWindowSize];
+			fReaccumulationMonitor = new ReaccumulationMonitor(fWindowSize,3);
+		}
+		clear();
+	}
+
+	/******************
+	 * PUBLIC METHODS *
+	 ******************/
+
+	/**
+	 * Adds a pair of values, evicting the oldest pair if the window is full.
+	 *
+	 * @param x  the <I>X</I> value to add
+	 * @param y  the <I>Y</I> value to add
+	 */
+	public void add(double x, double y)
+	{
+		if (Double.isNaN(x) || Double.isNaN(y)) {
+			return;
+		}
+
+		if (fWindowSize == 0) {
+			fErrorMetrics.add(x,y);
+			return;
+		}
+
+		if (fN == fWindowSize) {
+			// evict the oldest pair
+			fErrorMetrics.remove(fXRingBuffer[fOldestIndex],fYRingBuffer[fOldestIndex]);
+			if ((fMaximumErrorQueueSize > 0) && (fMaximumErrorQueueSequenceNumbers[fMaximumErrorQueueHead] == (fNrOfPairsAdded - fWindowSize))) {
+				fMaximumErrorQueueHead = (fMaximumErrorQueueHead + 1) % fWindowSize;
+				--fMaximumErrorQueueSize;
+			}
+			fOldestIndex = (fOldestIndex + 1) % fWindowSize;
+			--fN;
+			fReaccumulationMonitor.registerEviction();
+		}
+
+		int index = (fOldestIndex + fN) % fWindowSize;
+		fXRingBuffer[index] = x;
+		fYRingBuffer[index] = y;
+		++fN;
+		fErrorMetrics.add(x,y);
+
+		// keep the queue of absolute errors decreasing from head to tail
+		double absoluteError = Math.abs(x - y);
+		while ((fMaximumErrorQueueSize > 0) && (fMaximumErrorQueueValues[(fMaximumErrorQueueHead + fMaximumErrorQueueSize - 1) % fWindowSize] <= absoluteError)) {
+			--fMaximumErrorQueueSize;
+		}
+		int tail = (fMaximumErrorQueueHead + fMaximumErrorQueueSize) % fWindowSize;
+		fMaximumErrorQueueSequenceNumbers[tail] = fNrOfPairsAdded;
+		fMaximumErrorQueueValues[tail] = absoluteError;
+		++fMaximumErrorQueueSize;
+		++fNrOfPairsAdded;
+
+		updateReaccumulationMonitor();
+		if (fReaccumulationMonitor.isReaccumulationNeeded()) {
+			accumulateErrorMetrics();
+		}
+	}
+
+	/**
+	 * Adds all pairs of values in two arrays (in the order of the arrays), evicting the oldest pairs if necessary.
+	 * <P>
+	 * Note that both arrays should have the same number of values; if not, nothing is added.
+	 *
+	 * @param x  the array of <I>X</I> values to add
+	 * @param y  the array of <I>Y</I> values to add
+	 */
+	public void addAll(double[] x, double[] y)
+	{
+		if ((x == null) || (y == null) || (x.length != y.length)) {
+			return;
+		}
+
+		for (int i = 0; i < x.length; ++i) {
+			add(x[i],y[i]);
+		}
+	}
+
+	/**
+	 * Clears all pairs.
+	 */
+	public void clear()
+	{
+		fErrorMetrics.clear();
+		fOldestIndex = 0;
+		fN = 0;
+		fNrOfPairsAdded = 0;
+		if (fReaccumulationMonitor != null) {
+			fReaccumulationMonitor.clear();
+		}
+		fMaximumErrorQueueHead = 0;
+		fMaximumErrorQueueSize = 0;
+	}
+
+	/**
+	 * Returns the window size, i.e., the maximum number of pairs that are compared.
+	 *
+	 * @return the window size, or 0 if all pairs are compared
+	 */
+	public int getWindowSize()
+	{
+		return fWindowSize;
+	}
+
+	/**
+	 * Returns whether or not the window is full, i.e., whether or not adding a pair evicts the oldest one.
+	 *
+	 * @return <CODE>true</CODE> if the window is full, <CODE>false</CODE> otherwise (always <CODE>false</CODE> if all pairs are compared)
+	 */
+	public boolean isFull()
+	{
+		return ((fWindowSize > 0) && (fN == fWindowSize));
+	}
+
+	/**
+	 * Returns the number of pairs that are compared.
+	 *
+	 * @return the number of pairs that are compared
+	 */
+	public long getN()
+	{
+		return fErrorMetrics.getN();
+	}
+
+	/**
+	 * Returns the mean absolute error (MAE).
+	 *
+	 * @return the MAE
+	 * @see    DistributionComparator#getMAE()
+	 */
+	public double getMAE()
+	{
+		return fErrorMetrics.getMAE();
+	}
+
+	/**
+	 * Returns the mean square error (MSE).
+	 *
+	 * @return the MSE
+	 * @see    DistributionComparator#getMSE()
+	 */
+	public double getMSE()
+	{
+		return fErrorMetrics.getMSE();
+	}
+
+	/**
+	 * Returns the root mean square error (RMSE).
+	 *
+	 * @return the RMSE
+	 * @see    DistributionComparator#getRMSE()
+	 */
+	public double getRMSE()
+	{
+		return fErrorMetrics.getRMSE();
+	}
+
+	/**
+	 * Returns the sum of square errors (SSE).
+	 *
+	 * @return the SSE
+	 * @see    DistributionComparator#getSSE()
+	 */
+	public double getSSE()
+	{
+		return fErrorMetrics.getSSE();
+	}
+
+	/**
+	 * Returns the mean relative error (MRE).
+	 *
+	 * @return the MRE
+	 * @see    DistributionComparator#getMRE()
+	 */
+	public double getMRE()
+	{
+		return fErrorMetrics.getMRE();
+	}
+
+	/**
+	 * Returns the relative root mean square error (RRMSE).
+	 *
+	 * @return the RRMSE
+	 * @see    DistributionComparator#getRRMSE()
+	 */
+	public double getRRMSE()
+	{
+		return fErrorMetrics.getRRMSE();
+	}
+
+	/**
+	 * Returns the root mean square error proportional (RMSEP).
+	 *
+	 * @return the RMSEP
+	 * @see    DistributionComparator#getRMSEP()
+	 */
+	public double getRMSEP()
+	{
+		return fErrorMetrics.getRMSEP();
+	}
+
+	/**
+	 * Returns the maximum error (MAXE).
+	 *
+	 * @return the MAXE
+	 * @see    DistributionComparator#getMAXE()
+	 */
+	public double getMAXE()
+	{
+		if (fWindowSize == 0) {
+			return fErrorMetrics.getMAXE();
+		}
+		else {
+			return ((fMaximumErrorQueueSize > 0) ? fMaximumErrorQueueValues[fMaximumErrorQueueHead] : 0.0);
+		}
+	}
+
+	/**
+	 * Returns the mean error (ME).
+	 *
+	 * @return the ME
+	 * @see    DistributionComparator#getME()
+	 */
+	public double getME()
+	{
+		return fErrorMetrics.getME();
+	}
+
+	/**
+	 * Returns the mean absolute percent error (MAPE).
+	 *
+	 * @return the MAPE
+	 * @see    DistributionComparator#getMAPE()
+	 */
+	public double getMAPE()
+	{
+		return fErrorMetrics.getMAPE();
+	}
+
+	/**
+	 * Returns the equality coefficient (EQC).
+	 *
+	 * @return the EQC
+	 * @see    DistributionComparator#getEQC()
+	 */
+	public double getEQC()
+	{
+		return fErrorMetrics.getEQC();
+	}
+
+	/**
+	 * Returns the covariance.
+	 *
+	 * @return the covariance
+	 * @see    DistributionComparator#getCovariance()
+	 */
+	public double getCovariance()
+	{
+		return fErrorMetrics.getCovariance();
+	}
+
+	/**
+	 * Returns Pearson's correlation coefficient.
+	 *
+	 * @return Pearson's correlation coefficient
+	 * @see    DistributionComparator#getPearsonCorrelation()
+	 */
+	public double getPearsonCorrelation()
+	{
+		return fErrorMetrics.getPearsonCorrelation();
+	}
+
+	/*******************
+	 * PRIVATE METHODS *
+	 *******************/
+
+	/**
+	 * Re-accumulates the error metrics from the ring buffers, discarding the rounding errors of the removals.
+	 */
+	private void accumulateErrorMetrics()
+	{
+		int firstPartEnd = Math.min(fWindowSize,fOldestIndex + fN);
+		fErrorMetrics.clear();
+		fErrorMetrics.add(fXRingBuffer,fYRingBuffer,fOldestIndex,firstPartEnd);
+		fErrorMetrics.add(fXRingBuffer,fYRingBuffer,0,fN - (firstPartEnd - fOldestIndex));
+		fReaccumulationMonitor.clear();
+		updateReaccumulationMonitor();
+	}
+
+	/**
+	 * Passes the current sums of squares to the re-accumulation monitor.
+	 */
+	private void updateReaccumulationMonitor()
+	{
+		fReaccumulationMonitor.update(0,fErrorMetrics.getSSE());
+		fReaccumulationMonitor.update(1,fErrorMetrics.getXSumOfSquaredDeviations());
+		fReaccumulationMonitor.update(2,fErrorMetrics.getYSumOfSquaredDeviations());
+	}
+}